@@ -0,0 +1,129 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.benchmarks;
+
+import java.util.Properties;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+
+import org.mockito.Mockito;
+
+import com.vaadin.server.Constants;
+import com.vaadin.server.DefaultDeploymentConfiguration;
+import com.vaadin.server.LegacyCommunicationManager;
+import com.vaadin.server.MockServletConfig;
+import com.vaadin.server.ServiceException;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinServletRequest;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.VaadinSession;
+import com.vaadin.tests.util.AlwaysLockedVaadinSession;
+import com.vaadin.ui.UI;
+
+/**
+ * A servlet container free environment for running server side code in
+ * benchmarks. Creates a servlet, a service and a session that is always locked
+ * by the thread that created it.
+ * <p>
+ * The environment must be created and used from the same thread, i.e. from a
+ * {@code @State(Scope.Thread)} setup method.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+public class BenchmarkEnvironment {
+
+    private final VaadinServlet servlet;
+    private final VaadinServletService service;
+    private final VaadinSession session;
+
+    /**
+     * Creates a new environment running in production mode with XSRF
+     * protection disabled.
+     *
+     * @throws ServletException
+     *             if initializing the servlet fails
+     * @throws ServiceException
+     *             if initializing the service fails
+     */
+    public BenchmarkEnvironment() throws ServletException, ServiceException {
+        Properties initParameters = new Properties();
+        initParameters.setProperty(
+                Constants.SERVLET_PARAMETER_PRODUCTION_MODE, "true");
+        initParameters.setProperty(
+                Constants.SERVLET_PARAMETER_DISABLE_XSRF_PROTECTION, "true");
+
+        servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig(initParameters));
+        service = new VaadinServletService(servlet,
+                new DefaultDeploymentConfiguration(getClass(),
+                        initParameters));
+        service.init();
+
+        session = new AlwaysLockedVaadinSession(service);
+        session.setConfiguration(service.getDeploymentConfiguration());
+        session.setCommunicationManager(
+                new LegacyCommunicationManager(session));
+        VaadinSession.setCurrent(session);
+    }
+
+    /**
+     * Initializes the given UI and attaches it to the session of this
+     * environment.
+     *
+     * @param ui
+     *            the UI to attach
+     * @return the attached UI
+     */
+    public <T extends UI> T attach(T ui) {
+        ui.doInit(createRequest(), session.getNextUIid(), null);
+        ui.setSession(session);
+        session.addUI(ui);
+        UI.setCurrent(ui);
+        return ui;
+    }
+
+    /**
+     * Creates a request that does not have any parameters, headers or
+     * attributes.
+     *
+     * @return a new request
+     */
+    public VaadinRequest createRequest() {
+        return new VaadinServletRequest(
+                Mockito.mock(HttpServletRequest.class), service);
+    }
+
+    public VaadinServletService getService() {
+        return service;
+    }
+
+    public VaadinSession getSession() {
+        return session;
+    }
+
+    /**
+     * Destroys the servlet and clears the current instances.
+     */
+    public void destroy() {
+        UI.setCurrent(null);
+        VaadinSession.setCurrent(null);
+        service.destroy();
+        servlet.destroy();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.vaadin.benchmarks.BenchmarkEnvironment;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.shared.Range;
+import com.vaadin.ui.Grid;
+import com.vaadin.ui.UI;
+
+/**
+ * Benchmarks for {@link DataCommunicator#sendDataToClient(boolean)} with a
+ * {@link Grid} backed by an in-memory data provider.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataCommunicatorBenchmark {
+
+    public static class BenchmarkUI extends UI {
+        @Override
+        protected void init(VaadinRequest request) {
+            // Content is set up by the benchmark
+        }
+    }
+
+    @Param({ "10000" })
+    private int rowCount;
+
+    @Param({ "5", "20" })
+    private int columnCount;
+
+    /**
+     * Number of rows requested by the client when scrolling.
+     */
+    @Param({ "50" })
+    private int pageSize;
+
+    private BenchmarkEnvironment environment;
+    private DataCommunicator<Integer> dataCommunicator;
+    private int offset = 0;
+
+    @Setup
+    public void setup() throws Exception {
+        environment = new BenchmarkEnvironment();
+        UI ui = environment.attach(new BenchmarkUI());
+
+        List<Integer> items = IntStream.range(0, rowCount).boxed()
+                .collect(Collectors.toList());
+        Grid<Integer> grid = new Grid<>();
+        for (int i = 0; i < columnCount; i++) {
+            int column = i;
+            grid.addColumn(item -> "Cell " + item + "/" + column)
+                    .setCaption("Column " + i);
+        }
+        grid.setItems(items);
+        ui.setContent(grid);
+
+        dataCommunicator = grid.getDataCommunicator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        environment.destroy();
+    }
+
+    /**
+     * Sends the initial data, i.e. the size and the first rows.
+     */
+    @Benchmark
+    public int initialData() {
+        dataCommunicator.setPushRows(
+                Range.between(0, dataCommunicator.getMinPushSize()));
+        dataCommunicator.sendDataToClient(true);
+        return dataCommunicator.retrievePendingRpcCalls().size();
+    }
+
+    /**
+     * Sends a page of rows requested by the client while scrolling through
+     * the data set.
+     */
+    @Benchmark
+    public int scroll() {
+        dataCommunicator.onRequestRows(offset, pageSize, 0, 0);
+        dataCommunicator.sendDataToClient(false);
+        offset = (offset + pageSize) % (rowCount - pageSize);
+        return dataCommunicator.retrievePendingRpcCalls().size();
+    }
+}
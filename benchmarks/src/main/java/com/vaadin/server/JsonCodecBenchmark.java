@@ -0,0 +1,143 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.vaadin.shared.AbstractComponentState;
+
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+
+/**
+ * Benchmarks for encoding shared state objects with
+ * {@link JsonCodec#encode(Object, JsonValue, java.lang.reflect.Type, com.vaadin.ui.ConnectorTracker)}.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonCodecBenchmark {
+
+    public static class RowBean {
+        public String name;
+        public int index;
+        public boolean enabled;
+        public double value;
+    }
+
+    public static class LargeState extends AbstractComponentState {
+        public String title;
+        public int pageLength;
+        public boolean sortable;
+        public List<String> columnOrder = new ArrayList<>();
+        public Map<String, String> columnCaptions = new HashMap<>();
+        public List<RowBean> rows = new ArrayList<>();
+    }
+
+    private static final Set<String> CHANGED_FIELDS = Collections
+            .singleton("title");
+
+    /**
+     * Number of entries in each collection of the encoded state.
+     */
+    @Param({ "10", "100" })
+    private int size;
+
+    private LargeState state;
+    private JsonValue referenceDiffState;
+    private JsonValue previousDiffState;
+
+    @Setup
+    public void setup() {
+        state = new LargeState();
+        state.caption = "Large state";
+        state.description = "A state with many fields";
+        state.title = "Title";
+        state.pageLength = size;
+        state.sortable = true;
+        for (int i = 0; i < size; i++) {
+            String columnId = "column" + i;
+            state.columnOrder.add(columnId);
+            state.columnCaptions.put(columnId, "Column " + i);
+
+            RowBean row = new RowBean();
+            row.name = "Row " + i;
+            row.index = i;
+            row.enabled = i % 2 == 0;
+            row.value = i * 1.5;
+            state.rows.add(row);
+        }
+
+        referenceDiffState = JsonCodec
+                .encode(new LargeState(), null, LargeState.class, null)
+                .getEncodedValue();
+        previousDiffState = JsonCodec
+                .encode(state, referenceDiffState, LargeState.class, null)
+                .getEncodedValue();
+    }
+
+    /**
+     * Encodes the state against the state of a new instance, as done when a
+     * connector is sent to the client for the first time.
+     */
+    @Benchmark
+    public JsonObject encodeInitial() {
+        EncodeResult result = JsonCodec.encode(state, referenceDiffState,
+                LargeState.class, null);
+        return (JsonObject) result.getDiff();
+    }
+
+    /**
+     * Encodes the state against the previously sent state when nothing has
+     * changed, as done for connectors marked dirty without state changes.
+     */
+    @Benchmark
+    public JsonObject encodeUnchanged() {
+        EncodeResult result = JsonCodec.encode(state, previousDiffState,
+                LargeState.class, null);
+        return (JsonObject) result.getDiff();
+    }
+
+    /**
+     * Encodes only the changed title of the state against the previously sent
+     * state, as done for connectors that mark individual state fields dirty.
+     */
+    @Benchmark
+    public JsonObject encodeChangedField() {
+        EncodeResult result = JsonCodec.encodeProperties(state,
+                LargeState.class, CHANGED_FIELDS,
+                (JsonObject) previousDiffState, null);
+        return (JsonObject) result.getDiff();
+    }
+}
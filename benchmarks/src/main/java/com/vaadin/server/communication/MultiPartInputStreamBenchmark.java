@@ -0,0 +1,254 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.vaadin.server.communication.FileUploadHandler.SimpleMultiPartInputStream;
+
+/**
+ * Throughput benchmarks for extracting the uploaded file from a multipart
+ * request body with {@link SimpleMultiPartInputStream}, compared to the
+ * previous implementation which matched the boundary one byte at a time.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MultiPartInputStreamBenchmark {
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    /**
+     * Size of the uploaded file in bytes.
+     */
+    @Param({ "1048576", "16777216" })
+    private int contentLength;
+
+    /**
+     * Size of the buffer used for reading the stream, the upload handler used
+     * 4096 bytes before.
+     */
+    @Param({ "4096", "65536" })
+    private int readBufferSize;
+
+    private byte[] body;
+    private byte[] readBuffer;
+
+    @Setup
+    public void setup() {
+        // Random binary content, contains line breaks and dashes now and then
+        byte[] content = new byte[contentLength];
+        new Random(42).nextBytes(content);
+
+        byte[] end = ("\r\n--" + BOUNDARY + "--\r\n")
+                .getBytes(StandardCharsets.UTF_8);
+        body = Arrays.copyOf(content, content.length + end.length);
+        System.arraycopy(end, 0, body, content.length, end.length);
+
+        readBuffer = new byte[readBufferSize];
+    }
+
+    @Benchmark
+    public long blockScanning() throws IOException {
+        return readFully(new SimpleMultiPartInputStream(
+                new ByteArrayInputStream(body), BOUNDARY));
+    }
+
+    @Benchmark
+    public long byteAtATime() throws IOException {
+        return readFully(new ByteAtATimeMultiPartInputStream(
+                new ByteArrayInputStream(body), BOUNDARY));
+    }
+
+    private long readFully(InputStream stream) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = stream.read(readBuffer)) != -1) {
+            total += read;
+        }
+        if (total != contentLength) {
+            throw new IllegalStateException(
+                    "Read " + total + " bytes, expected " + contentLength);
+        }
+        return total;
+    }
+
+    /**
+     * The multipart stream implementation used by {@link FileUploadHandler}
+     * before 8.1, kept for comparison.
+     */
+    private static class ByteAtATimeMultiPartInputStream extends InputStream {
+
+        /**
+         * Counter of how many characters have been matched to boundary string
+         * from the stream
+         */
+        int matchedCount = -1;
+
+        /**
+         * Used as pointer when returning bytes after partly matched boundary
+         * string.
+         */
+        int curBoundaryIndex = 0;
+        /**
+         * The byte found after a "promising start for boundary"
+         */
+        private int bufferedByte = -1;
+        private boolean atTheEnd = false;
+
+        private final char[] boundary;
+
+        private final InputStream realInputStream;
+
+        public ByteAtATimeMultiPartInputStream(InputStream realInputStream,
+                String boundaryString) {
+            boundary = ("\r\n--" + boundaryString).toCharArray();
+            this.realInputStream = realInputStream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (atTheEnd) {
+                // End boundary reached, nothing more to read
+                return -1;
+            } else if (bufferedByte >= 0) {
+                /* Purge partially matched boundary if there was such */
+                return getBuffered();
+            } else if (matchedCount != -1) {
+                /*
+                 * Special case where last "failed" matching ended with first
+                 * character from boundary string
+                 */
+                return matchForBoundary();
+            } else {
+                int fromActualStream = realInputStream.read();
+                if (fromActualStream == -1) {
+                    // unexpected end of stream
+                    throw new IOException(
+                            "The multipart stream ended unexpectedly");
+                }
+                if (boundary[0] == fromActualStream) {
+                    /*
+                     * If matches the first character in boundary string, start
+                     * checking if the boundary is fetched.
+                     */
+                    return matchForBoundary();
+                }
+                return fromActualStream;
+            }
+        }
+
+        /**
+         * Reads the input to expect a boundary string. Expects that the first
+         * character has already been matched.
+         *
+         * @return -1 if the boundary was matched, else returns the first byte
+         *         from boundary
+         * @throws IOException
+         */
+        private int matchForBoundary() throws IOException {
+            matchedCount = 0;
+            /*
+             * Going to "buffered mode". Read until full boundary match or a
+             * different character.
+             */
+            while (true) {
+                matchedCount++;
+                if (matchedCount == boundary.length) {
+                    /*
+                     * The whole boundary matched so we have reached the end of
+                     * file
+                     */
+                    atTheEnd = true;
+                    return -1;
+                }
+                int fromActualStream = realInputStream.read();
+                if (fromActualStream != boundary[matchedCount]) {
+                    /*
+                     * Did not find full boundary, cache the mismatching byte
+                     * and start returning the partially matched boundary.
+                     */
+                    bufferedByte = fromActualStream;
+                    return getBuffered();
+                }
+            }
+        }
+
+        /**
+         * Returns the partly matched boundary string and the byte following
+         * that.
+         *
+         * @return
+         * @throws IOException
+         */
+        private int getBuffered() throws IOException {
+            int b;
+            if (matchedCount == 0) {
+                // The boundary has been returned, return the buffered byte.
+                b = bufferedByte;
+                bufferedByte = -1;
+                matchedCount = -1;
+            } else {
+                b = boundary[curBoundaryIndex++];
+                if (curBoundaryIndex == matchedCount) {
+                    // The full boundary has been returned, remaining is the
+                    // char that did not match the boundary.
+
+                    curBoundaryIndex = 0;
+                    if (bufferedByte != boundary[0]) {
+                        /*
+                         * next call for getBuffered will return the
+                         * bufferedByte that came after the partial boundary
+                         * match
+                         */
+                        matchedCount = 0;
+                    } else {
+                        /*
+                         * Special case where buffered byte again matches the
+                         * boundaryString. This could be the start of the real
+                         * end boundary.
+                         */
+                        matchedCount = 0;
+                        bufferedByte = -1;
+                    }
+                }
+            }
+            if (b == -1) {
+                throw new IOException(
+                        "The multipart stream ended unexpectedly");
+            }
+            return b;
+        }
+    }
+}
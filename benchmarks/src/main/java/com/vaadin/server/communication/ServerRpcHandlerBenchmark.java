@@ -0,0 +1,188 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.vaadin.benchmarks.BenchmarkEnvironment;
+import com.vaadin.server.JsonCodec;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.shared.ApplicationConstants;
+import com.vaadin.shared.MouseEventDetails;
+import com.vaadin.shared.ui.button.ButtonServerRpc;
+import com.vaadin.shared.ui.textfield.AbstractTextFieldServerRpc;
+import com.vaadin.ui.Button;
+import com.vaadin.ui.Component;
+import com.vaadin.ui.TextField;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonValue;
+import elemental.json.impl.JsonUtil;
+
+/**
+ * Benchmarks for
+ * {@link ServerRpcHandler#handleRpc(UI, java.io.Reader, VaadinRequest)}, i.e.
+ * parsing a client message and invoking the server RPC methods it contains.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ServerRpcHandlerBenchmark {
+
+    public static class BenchmarkUI extends UI {
+        @Override
+        protected void init(VaadinRequest request) {
+            // Content is set up by the benchmark
+        }
+    }
+
+    /**
+     * Number of RPC invocations in each client message.
+     */
+    @Param({ "1", "50" })
+    private int invocationCount;
+
+    private BenchmarkEnvironment environment;
+    private UI ui;
+    private VaadinRequest request;
+    private final ServerRpcHandler rpcHandler = new ServerRpcHandler();
+
+    private String buttonClickMessage;
+    // Alternating messages so that each message changes the field values
+    private final String[] textChangeMessages = new String[2];
+    private int round = 0;
+
+    @Setup
+    public void setup() throws Exception {
+        environment = new BenchmarkEnvironment();
+        ui = environment.attach(new BenchmarkUI());
+        request = environment.createRequest();
+
+        VerticalLayout layout = new VerticalLayout();
+        ui.setContent(layout);
+        List<Button> buttons = new ArrayList<>();
+        List<TextField> textFields = new ArrayList<>();
+        for (int i = 0; i < invocationCount; i++) {
+            Button button = new Button("Button " + i);
+            button.addClickListener(event -> {
+                // Listener invocation is part of the measured work
+            });
+            buttons.add(button);
+            layout.addComponent(button);
+
+            TextField textField = new TextField("Field " + i);
+            textField.addValueChangeListener(event -> {
+                // Listener invocation is part of the measured work
+            });
+            textFields.add(textField);
+            layout.addComponent(textField);
+        }
+
+        // Register the connectors with the client
+        new UidlWriter().write(ui, new StringWriter(), false);
+
+        JsonValue mouseEventDetails = JsonCodec
+                .encode(new MouseEventDetails(), null,
+                        MouseEventDetails.class, null)
+                .getEncodedValue();
+        JsonArray clicks = Json.createArray();
+        for (Button button : buttons) {
+            JsonArray parameters = Json.createArray();
+            parameters.set(0, mouseEventDetails);
+            clicks.set(clicks.length(), createInvocation(button,
+                    ButtonServerRpc.class, "click", parameters));
+        }
+        buttonClickMessage = createMessage(clicks);
+
+        for (int m = 0; m < textChangeMessages.length; m++) {
+            JsonArray textChanges = Json.createArray();
+            for (TextField textField : textFields) {
+                JsonArray parameters = Json.createArray();
+                parameters.set(0, "value " + m);
+                parameters.set(1, 0);
+                textChanges.set(textChanges.length(),
+                        createInvocation(textField,
+                                AbstractTextFieldServerRpc.class, "setText",
+                                parameters));
+            }
+            textChangeMessages[m] = createMessage(textChanges);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        environment.destroy();
+    }
+
+    @Benchmark
+    public UI buttonClicks() throws Exception {
+        return handle(buttonClickMessage);
+    }
+
+    @Benchmark
+    public UI textChanges() throws Exception {
+        return handle(textChangeMessages[round++ & 1]);
+    }
+
+    private UI handle(String message) throws Exception {
+        // Every message uses the same client to server id
+        ui.setLastProcessedClientToServerId(-1);
+        rpcHandler.handleRpc(ui, new StringReader(message), request);
+        return ui;
+    }
+
+    private static JsonArray createInvocation(Component connector,
+            Class<?> rpcInterface, String method, JsonArray parameters) {
+        JsonArray invocation = Json.createArray();
+        invocation.set(0, connector.getConnectorId());
+        invocation.set(1, rpcInterface.getName());
+        invocation.set(2, method);
+        invocation.set(3, parameters);
+        return invocation;
+    }
+
+    private String createMessage(JsonArray invocations) {
+        JsonObject message = Json.createObject();
+        message.put(ApplicationConstants.CSRF_TOKEN,
+                environment.getSession().getCsrfToken());
+        message.put(ApplicationConstants.RPC_INVOCATIONS, invocations);
+        message.put(ApplicationConstants.SERVER_SYNC_ID,
+                ui.getConnectorTracker().getCurrentSyncId());
+        message.put(ApplicationConstants.CLIENT_TO_SERVER_ID, 0);
+        return JsonUtil.stringify(message);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.vaadin.benchmarks.BenchmarkEnvironment;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+/**
+ * Benchmarks for {@link UidlWriter#write(UI, java.io.Writer, boolean)}, i.e.
+ * serializing the pending changes of a UI into a UIDL response.
+ * <p>
+ * The UI contains {@code labelCount} labels distributed over
+ * {@code layoutDepth} nested layouts.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UidlWriterBenchmark {
+
+    public static class BenchmarkUI extends UI {
+        @Override
+        protected void init(VaadinRequest request) {
+            // Content is set up by the benchmark
+        }
+    }
+
+    @Param({ "100", "1000" })
+    private int labelCount;
+
+    @Param({ "1", "50" })
+    private int layoutDepth;
+
+    private BenchmarkEnvironment environment;
+    private UI ui;
+    private final List<Label> labels = new ArrayList<>();
+    private final UidlWriter uidlWriter = new UidlWriter();
+    private final StringWriter writer = new StringWriter();
+    private int round = 0;
+
+    @Setup
+    public void setup() throws Exception {
+        environment = new BenchmarkEnvironment();
+        ui = environment.attach(new BenchmarkUI());
+
+        VerticalLayout layout = new VerticalLayout();
+        ui.setContent(layout);
+        int labelsPerLevel = Math.max(1, labelCount / layoutDepth);
+        for (int i = 0; i < labelCount; i++) {
+            if (i > 0 && i % labelsPerLevel == 0) {
+                VerticalLayout child = new VerticalLayout();
+                layout.addComponent(child);
+                layout = child;
+            }
+            Label label = new Label("Label " + i);
+            layout.addComponent(label);
+            labels.add(label);
+        }
+
+        // Initial response so that the client cache and diff states are
+        // populated
+        write();
+    }
+
+    @TearDown
+    public void tearDown() {
+        environment.destroy();
+    }
+
+    /**
+     * Writes a response where every connector is sent to the client, e.g.
+     * after a page reload.
+     */
+    @Benchmark
+    public int fullRepaint() throws IOException {
+        environment.getSession().getCommunicationManager().repaintAll(ui);
+        return write();
+    }
+
+    /**
+     * Writes a response where the state of every label has changed.
+     */
+    @Benchmark
+    public int allLabelsChanged() throws IOException {
+        String suffix = Integer.toString(round++);
+        for (Label label : labels) {
+            label.setValue(suffix);
+        }
+        return write();
+    }
+
+    /**
+     * Writes a response where a single label has changed.
+     */
+    @Benchmark
+    public int singleLabelChanged() throws IOException {
+        labels.get(0).setValue(Integer.toString(round++));
+        return write();
+    }
+
+    private int write() throws IOException {
+        writer.getBuffer().setLength(0);
+        uidlWriter.write(ui, writer, false);
+        return writer.getBuffer().length();
+    }
+}
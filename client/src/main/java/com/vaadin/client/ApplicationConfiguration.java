@@ -34,6 +34,7 @@ import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.core.client.Scheduler.ScheduledCommand;
 import com.google.gwt.core.client.ScriptInjector;
 import com.google.gwt.dom.client.Element;
+import com.google.gwt.http.client.URL;
 import com.google.gwt.logging.client.LogConfiguration;
 import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.Window;
@@ -243,6 +244,7 @@ public class ApplicationConfiguration implements EntryPoint {
     private String contextRootUrl;
     private int uiId;
     private boolean standalone;
+    private boolean browserDetailsPending;
     private ErrorMessage communicationError;
     private ErrorMessage authorizationError;
     private ErrorMessage sessionExpiredError;
@@ -385,6 +387,46 @@ public class ApplicationConfiguration implements EntryPoint {
         return uiId;
     }
 
+    /**
+     * Checks whether the server-side UI was initialized already when serving
+     * the bootstrap page. In that case the browser details that are only known
+     * on the client side have not yet been sent to the server.
+     *
+     * @see #getBrowserDetails()
+     * @return <code>true</code> if the browser details should be sent to the
+     *         server, <code>false</code> otherwise
+     * @since 8.1
+     */
+    public boolean isBrowserDetailsPending() {
+        return browserDetailsPending;
+    }
+
+    /**
+     * Gets the browser details that are sent to the server when initializing
+     * a UI, e.g. the screen size, time zone and current location.
+     *
+     * @return a map from parameter names to values
+     * @since 8.1
+     */
+    public Map<String, String> getBrowserDetails() {
+        Map<String, String> details = new HashMap<>();
+        for (String parameter : getBrowserDetailsParameters(id).split("&")) {
+            int index = parameter.indexOf('=');
+            if (index > 0) {
+                details.put(parameter.substring(0, index),
+                        URL.decodeQueryString(parameter.substring(index + 1)));
+            }
+        }
+        return details;
+    }
+
+    private static native String getBrowserDetailsParameters(String appId)
+    /*-{
+        var app = $wnd.vaadin.getApp(appId);
+        return $wnd.vaadin.getBrowserDetailsParameters(appId,
+            app.getConfig('sendUrlsAsParameters'));
+    }-*/;
+
     /**
      * @return The interval in seconds between heartbeat requests, or a
      *         non-positive number if heartbeat is disabled.
@@ -447,6 +489,8 @@ public class ApplicationConfiguration implements EntryPoint {
         // null -> false
         standalone = jsoConfiguration
                 .getConfigBoolean("standalone") == Boolean.TRUE;
+        browserDetailsPending = jsoConfiguration.getConfigBoolean(
+                UIConstants.BROWSER_DETAILS_PENDING) == Boolean.TRUE;
 
         heartbeatInterval = jsoConfiguration
                 .getConfigInteger("heartbeatInterval");
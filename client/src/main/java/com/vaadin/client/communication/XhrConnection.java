@@ -153,6 +153,13 @@ public class XhrConnection {
             // for(;;);["+ realJson +"]"
             String responseText = response.getText();
 
+            String contentEncoding = response.getHeader("Content-Encoding");
+            if (contentEncoding != null && !contentEncoding.isEmpty()) {
+                getLogger().fine("Received " + responseText.length()
+                        + " characters using " + contentEncoding
+                        + " encoding");
+            }
+
             ValueMap json = MessageHandler.parseWrappedJson(responseText);
             if (json == null) {
                 // Invalid string (not wrapped as expected or can't parse)
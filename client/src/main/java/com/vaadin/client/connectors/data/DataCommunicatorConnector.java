@@ -18,6 +18,7 @@ package com.vaadin.client.connectors.data;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import com.vaadin.client.ServerConnector;
@@ -35,6 +36,8 @@ import com.vaadin.shared.ui.Connect;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
 
 /**
  * A connector for DataCommunicator class.
@@ -73,6 +76,12 @@ public class DataCommunicatorConnector extends AbstractExtensionConnector {
                             setRowData(firstIndex, rows);
                         }
 
+                        @Override
+                        public void setColumnarData(int firstIndex,
+                                JsonObject data) {
+                            setRowData(firstIndex, decodeColumnarData(data));
+                        }
+
                         @Override
                         public void updateData(JsonArray data) {
                             for (int i = 0; i < data.length(); ++i) {
@@ -80,6 +89,13 @@ public class DataCommunicatorConnector extends AbstractExtensionConnector {
                             }
                         }
 
+                        @Override
+                        public void updateDataDelta(JsonArray deltas) {
+                            for (int i = 0; i < deltas.length(); ++i) {
+                                applyRowDataDelta(deltas.getObject(i));
+                            }
+                        }
+
                         @Override
                         public void insertRows(int firstRowIndex, int count) {
                             insertRowData(firstRowIndex, count);
@@ -135,6 +151,106 @@ public class DataCommunicatorConnector extends AbstractExtensionConnector {
             }
         }
 
+        /**
+         * Applies a row delta to the row with the key of the delta. The
+         * changes are applied to a copy of the current row object.
+         *
+         * @param delta
+         *            the row delta
+         */
+        private void applyRowDataDelta(JsonObject delta) {
+            int index = indexOfKey(
+                    delta.getString(DataCommunicatorConstants.KEY));
+            if (index < 0) {
+                return;
+            }
+            JsonObject oldRowData = getRow(index);
+            JsonObject rowData = copyObject(oldRowData);
+
+            JsonObject changes = delta
+                    .getObject(DataCommunicatorConstants.DELTA_CHANGES);
+            for (String key : changes.keys()) {
+                JsonValue value = changes.get(key);
+                JsonValue oldValue = rowData.hasKey(key) ? rowData.get(key)
+                        : null;
+                if (isObject(oldValue) && isObject(value)) {
+                    JsonObject merged = copyObject((JsonObject) oldValue);
+                    JsonObject nestedChanges = (JsonObject) value;
+                    for (String nestedKey : nestedChanges.keys()) {
+                        merged.put(nestedKey, nestedChanges.get(nestedKey));
+                    }
+                    rowData.put(key, merged);
+                } else {
+                    rowData.put(key, value);
+                }
+            }
+
+            if (delta.hasKey(DataCommunicatorConstants.DELTA_REMOVED)) {
+                JsonArray removed = delta
+                        .getArray(DataCommunicatorConstants.DELTA_REMOVED);
+                for (int i = 0; i < removed.length(); i++) {
+                    JsonArray path = removed.getArray(i);
+                    String key = path.getString(0);
+                    if (path.length() == 1) {
+                        rowData.remove(key);
+                    } else if (rowData.hasKey(key)) {
+                        JsonObject nested = copyObject(rowData.getObject(key));
+                        nested.remove(path.getString(1));
+                        rowData.put(key, nested);
+                    }
+                }
+            }
+
+            onRowDataUpdate(rowData, oldRowData);
+            setRowData(index, Collections.singletonList(rowData));
+        }
+
+        /**
+         * Decodes a columnar row batch into row objects.
+         *
+         * @param data
+         *            the columnar row batch
+         * @return the decoded row objects
+         */
+        private List<JsonObject> decodeColumnarData(JsonObject data) {
+            int rowCount = (int) data
+                    .getNumber(DataCommunicatorConstants.COLUMNAR_ROW_COUNT);
+            JsonArray remainders = null;
+            if (data.hasKey(DataCommunicatorConstants.COLUMNAR_REMAINDERS)) {
+                remainders = data.getArray(
+                        DataCommunicatorConstants.COLUMNAR_REMAINDERS);
+            }
+
+            List<JsonObject> rows = new ArrayList<>(rowCount);
+            for (int i = 0; i < rowCount; i++) {
+                rows.add(remainders != null ? remainders.getObject(i)
+                        : Json.createObject());
+            }
+
+            JsonArray header = data
+                    .getArray(DataCommunicatorConstants.COLUMNAR_HEADER);
+            JsonArray values = data
+                    .getArray(DataCommunicatorConstants.COLUMNAR_VALUES);
+            for (int c = 0; c < header.length(); c++) {
+                JsonArray path = header.getArray(c);
+                JsonArray columnValues = values.getArray(c);
+                String key = path.getString(0);
+                for (int i = 0; i < rowCount; i++) {
+                    JsonObject row = rows.get(i);
+                    JsonValue value = columnValues.get(i);
+                    if (path.length() == 1) {
+                        row.put(key, value);
+                    } else {
+                        if (!row.hasKey(key)) {
+                            row.put(key, Json.createObject());
+                        }
+                        row.getObject(key).put(path.getString(1), value);
+                    }
+                }
+            }
+            return rows;
+        }
+
         /**
          * Inform the server of any dropped rows.
          */
@@ -154,6 +270,18 @@ public class DataCommunicatorConnector extends AbstractExtensionConnector {
 
     private DataSource<JsonObject> ds = new VaadinDataSource();
 
+    private static JsonObject copyObject(JsonObject source) {
+        JsonObject copy = Json.createObject();
+        for (String key : source.keys()) {
+            copy.put(key, source.get(key));
+        }
+        return copy;
+    }
+
+    private static boolean isObject(JsonValue value) {
+        return value != null && value.getType() == JsonType.OBJECT;
+    }
+
     @Override
     protected void extend(ServerConnector target) {
         ServerConnector parent = getParent();
@@ -447,6 +447,13 @@ public class UIConnector extends AbstractSingleComponentContainerConnector
                     .getStringAttribute(UIConstants.ATTRIBUTE_REPLACE_STATE));
         }
 
+        if (firstPaint
+                && getConnection().getConfiguration().isBrowserDetailsPending()) {
+            // The UI was initialized when serving the bootstrap page
+            getRpcProxy(UIServerRpc.class).browserDetails(
+                    getConnection().getConfiguration().getBrowserDetails());
+        }
+
         if (firstPaint) {
             // Queue the initial window size to be sent with the following
             // request.
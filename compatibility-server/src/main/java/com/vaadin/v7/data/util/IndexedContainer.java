@@ -18,12 +18,12 @@ package com.vaadin.v7.data.util;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EventObject;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -79,13 +79,12 @@ public class IndexedContainer
     /**
      * Property ID to type mapping.
      */
-    private Hashtable<Object, Class<?>> types = new Hashtable<Object, Class<?>>();
+    private HashMap<Object, Class<?>> types = new HashMap<Object, Class<?>>();
 
     /**
-     * Hash of Items, where each Item is implemented as a mapping from Property
-     * ID to Property value.
+     * Property values of all items, stored in one column per Property ID.
      */
-    private Hashtable<Object, Map<Object, Object>> items = new Hashtable<Object, Map<Object, Object>>();
+    private ColumnStore items = new ColumnStore();
 
     /**
      * Set of properties that are read-only.
@@ -104,7 +103,7 @@ public class IndexedContainer
      * hashtable that maps Item IDs to a linked list of listeners listening
      * Property identified by given Property ID and Item ID.
      */
-    private Hashtable<Object, Map<Object, List<Property.ValueChangeListener>>> singlePropertyValueChangeListeners = null;
+    private HashMap<Object, Map<Object, List<Property.ValueChangeListener>>> singlePropertyValueChangeListeners = null;
 
     private HashMap<Object, Object> defaultPropertyValues;
 
@@ -132,7 +131,7 @@ public class IndexedContainer
 
     @Override
     protected Item getUnfilteredItem(Object itemId) {
-        if (itemId != null && items.containsKey(itemId)) {
+        if (itemId != null && items.containsRow(itemId)) {
             return new IndexedContainerItem(itemId);
         }
         return null;
@@ -184,6 +183,7 @@ public class IndexedContainer
         // Adds the Property to Property list and types
         propertyIds.add(propertyId);
         types.put(propertyId, type);
+        items.addColumn(propertyId);
 
         // If default value is given, set it
         if (defaultValue != null) {
@@ -213,7 +213,7 @@ public class IndexedContainer
 
         internalRemoveAllItems();
 
-        items.clear();
+        items.clearRows();
 
         // fire event only if the visible view changed, regardless of whether
         // filtered out items were removed or not
@@ -263,20 +263,20 @@ public class IndexedContainer
     /**
      * Helper method to add default values for items if available
      *
-     * @param t
-     *            data table of added item
+     * @param itemId
+     *            id of the added item
      */
-    private void addDefaultValues(Hashtable<Object, Object> t) {
+    private void addDefaultValues(Object itemId) {
         if (defaultPropertyValues != null) {
             for (Object key : defaultPropertyValues.keySet()) {
-                t.put(key, defaultPropertyValues.get(key));
+                items.setValue(itemId, key, defaultPropertyValues.get(key));
             }
         }
     }
 
     @Override
     public boolean removeItem(Object itemId) {
-        if (itemId == null || items.remove(itemId) == null) {
+        if (itemId == null || !items.removeRow(itemId)) {
             return false;
         }
         int origSize = size();
@@ -309,11 +309,8 @@ public class IndexedContainer
             defaultPropertyValues.remove(propertyId);
         }
 
-        // If remove the Property from all Items
-        for (final Iterator<Object> i = getAllItemIds().iterator(); i
-                .hasNext();) {
-            items.get(i.next()).remove(propertyId);
-        }
+        // Removes the Property from all Items
+        items.removeColumn(propertyId);
 
         // Sends a change event
         fireContainerPropertySetChange();
@@ -382,16 +379,15 @@ public class IndexedContainer
         Serializable id;
         do {
             id = Integer.valueOf(nextGeneratedItemId++);
-        } while (items.containsKey(id));
+        } while (items.containsRow(id));
 
         return id;
     }
 
     @Override
     protected void registerNewItem(int index, Object newItemId, Item item) {
-        Hashtable<Object, Object> t = new Hashtable<Object, Object>();
-        items.put(newItemId, t);
-        addDefaultValues(t);
+        items.addRow(newItemId);
+        addDefaultValues(newItemId);
     }
 
     /* Event notifiers */
@@ -593,12 +589,12 @@ public class IndexedContainer
             Object itemId, Property.ValueChangeListener listener) {
         if (listener != null) {
             if (singlePropertyValueChangeListeners == null) {
-                singlePropertyValueChangeListeners = new Hashtable<Object, Map<Object, List<Property.ValueChangeListener>>>();
+                singlePropertyValueChangeListeners = new HashMap<Object, Map<Object, List<Property.ValueChangeListener>>>();
             }
             Map<Object, List<Property.ValueChangeListener>> propertySetToListenerListMap = singlePropertyValueChangeListeners
                     .get(propertyId);
             if (propertySetToListenerListMap == null) {
-                propertySetToListenerListMap = new Hashtable<Object, List<Property.ValueChangeListener>>();
+                propertySetToListenerListMap = new HashMap<Object, List<Property.ValueChangeListener>>();
                 singlePropertyValueChangeListeners.put(propertyId,
                         propertySetToListenerListMap);
             }
@@ -829,7 +825,7 @@ public class IndexedContainer
 
         @Override
         public T getValue() {
-            return (T) items.get(itemId).get(propertyId);
+            return (T) items.getValue(itemId, propertyId);
         }
 
         @Override
@@ -849,14 +845,10 @@ public class IndexedContainer
         @Override
         public void setValue(Object newValue)
                 throws Property.ReadOnlyException {
-            // Gets the Property set
-            final Map<Object, Object> propertySet = items.get(itemId);
-
             // Support null values on all types
-            if (newValue == null) {
-                propertySet.remove(propertyId);
-            } else if (getType().isAssignableFrom(newValue.getClass())) {
-                propertySet.put(propertyId, newValue);
+            if (newValue == null
+                    || getType().isAssignableFrom(newValue.getClass())) {
+                items.setValue(itemId, propertyId, newValue);
             } else {
                 throw new IllegalArgumentException(
                         "Value is of invalid type, got "
@@ -946,6 +938,148 @@ public class IndexedContainer
 
     }
 
+    /**
+     * Columnar storage for the property values of the items. Each item is
+     * assigned a row slot, and the values of each property are stored in an
+     * array indexed by the slot. Slots of removed items are reused.
+     * <p>
+     * Compared to storing a map of values for each item, this avoids the
+     * per-item map and map entry objects. The container is only accessed
+     * while holding the session lock, so no synchronization is done.
+     */
+    private static class ColumnStore implements Serializable {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        /**
+         * Item ID to row slot mapping.
+         */
+        private HashMap<Object, Integer> slots = new HashMap<Object, Integer>();
+
+        /**
+         * Property ID to column mapping. All columns have the same length.
+         */
+        private HashMap<Object, Object[]> columns = new HashMap<Object, Object[]>();
+
+        private int capacity = INITIAL_CAPACITY;
+
+        /**
+         * The number of slots that have been taken into use, including the
+         * free ones.
+         */
+        private int usedSlots = 0;
+
+        private int[] freeSlots = new int[0];
+
+        private int freeSlotCount = 0;
+
+        private boolean containsRow(Object itemId) {
+            return slots.containsKey(itemId);
+        }
+
+        /**
+         * Adds a row for the given item. All values of the new row are
+         * <code>null</code>.
+         */
+        private void addRow(Object itemId) {
+            int slot;
+            if (freeSlotCount > 0) {
+                slot = freeSlots[--freeSlotCount];
+            } else {
+                if (usedSlots == capacity) {
+                    grow();
+                }
+                slot = usedSlots++;
+            }
+            slots.put(itemId, slot);
+        }
+
+        /**
+         * Removes the row of the given item.
+         *
+         * @return <code>true</code> if the item was removed,
+         *         <code>false</code> if there was no such item
+         */
+        private boolean removeRow(Object itemId) {
+            Integer slot = slots.remove(itemId);
+            if (slot == null) {
+                return false;
+            }
+            // Clear the values so they can be garbage collected
+            for (Object[] column : columns.values()) {
+                column[slot] = null;
+            }
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots,
+                        Math.max(INITIAL_CAPACITY, freeSlotCount * 2));
+            }
+            freeSlots[freeSlotCount++] = slot;
+            return true;
+        }
+
+        private void clearRows() {
+            slots.clear();
+            capacity = INITIAL_CAPACITY;
+            usedSlots = 0;
+            freeSlots = new int[0];
+            freeSlotCount = 0;
+            for (Object propertyId : columns.keySet()) {
+                columns.put(propertyId, new Object[capacity]);
+            }
+        }
+
+        private void grow() {
+            capacity = capacity + (capacity >> 1);
+            for (Map.Entry<Object, Object[]> entry : columns.entrySet()) {
+                entry.setValue(Arrays.copyOf(entry.getValue(), capacity));
+            }
+        }
+
+        private void addColumn(Object propertyId) {
+            columns.put(propertyId, new Object[capacity]);
+        }
+
+        private void removeColumn(Object propertyId) {
+            columns.remove(propertyId);
+        }
+
+        private Object getValue(Object itemId, Object propertyId) {
+            Object[] column = columns.get(propertyId);
+            Integer slot = slots.get(itemId);
+            if (column == null || slot == null) {
+                return null;
+            }
+            return column[slot];
+        }
+
+        private void setValue(Object itemId, Object propertyId,
+                Object value) {
+            Object[] column = columns.get(propertyId);
+            Integer slot = slots.get(itemId);
+            if (slot == null) {
+                throw new IllegalStateException(
+                        "Item " + itemId + " is not in the container");
+            }
+            if (column != null) {
+                column[slot] = value;
+            }
+        }
+
+        private ColumnStore copy() {
+            ColumnStore copy = new ColumnStore();
+            copy.slots = new HashMap<Object, Integer>(slots);
+            copy.columns = new HashMap<Object, Object[]>();
+            for (Map.Entry<Object, Object[]> entry : columns.entrySet()) {
+                copy.columns.put(entry.getKey(), entry.getValue().clone());
+            }
+            copy.capacity = capacity;
+            copy.usedSlots = usedSlots;
+            copy.freeSlots = freeSlots.clone();
+            copy.freeSlotCount = freeSlotCount;
+            return copy;
+        }
+    }
+
     @Override
     public void sort(Object[] propertyId, boolean[] ascending) {
         sortContainer(propertyId, ascending);
@@ -1003,11 +1137,11 @@ public class IndexedContainer
         nc.readOnlyProperties = readOnlyProperties != null
                 ? (HashSet<Property<?>>) readOnlyProperties.clone() : null;
         nc.singlePropertyValueChangeListeners = singlePropertyValueChangeListeners != null
-                ? (Hashtable<Object, Map<Object, List<Property.ValueChangeListener>>>) singlePropertyValueChangeListeners
+                ? (HashMap<Object, Map<Object, List<Property.ValueChangeListener>>>) singlePropertyValueChangeListeners
                         .clone()
                 : null;
 
-        nc.types = types != null ? (Hashtable<Object, Class<?>>) types.clone()
+        nc.types = types != null ? (HashMap<Object, Class<?>>) types.clone()
                 : null;
 
         nc.setFilters(
@@ -1018,18 +1152,7 @@ public class IndexedContainer
                         .clone());
 
         // Clone property-values
-        if (items == null) {
-            nc.items = null;
-        } else {
-            nc.items = new Hashtable<Object, Map<Object, Object>>();
-            for (final Iterator<?> i = items.keySet().iterator(); i
-                    .hasNext();) {
-                final Object id = i.next();
-                final Hashtable<Object, Object> it = (Hashtable<Object, Object>) items
-                        .get(id);
-                nc.items.put(id, (Map<Object, Object>) it.clone());
-            }
-        }
+        nc.items = items != null ? items.copy() : null;
 
         return nc;
     }
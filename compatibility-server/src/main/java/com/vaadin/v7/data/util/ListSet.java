@@ -24,11 +24,11 @@ import java.util.Iterator;
 
 /**
  * ListSet is an internal Vaadin class which implements a combination of a List
- * and a Set. The main purpose of this class is to provide a list with a fast
- * {@link #contains(Object)} method. Each inserted object must by unique (as
- * specified by {@link #equals(Object)}). The {@link #set(int, Object)} method
- * allows duplicates because of the way {@link Collections#sort(java.util.List)}
- * works.
+ * and a Set. The main purpose of this class is to provide a list with fast
+ * {@link #contains(Object)} and {@link #indexOf(Object)} methods. Each inserted
+ * object must by unique (as specified by {@link #equals(Object)}). The
+ * {@link #set(int, Object)} method allows duplicates because of the way
+ * {@link Collections#sort(java.util.List)} works.
  *
  * This class is subject to change and should not be used outside Vaadin core.
  *
@@ -44,6 +44,19 @@ public class ListSet<E> extends ArrayList<E> {
      */
     private HashMap<E, Integer> duplicates = new HashMap<E, Integer>();
 
+    /**
+     * Contains a map from an element to its index in the list. Rebuilt when
+     * needed after the list has been modified other than by appending
+     * elements.
+     */
+    private transient HashMap<Object, Integer> indexes = null;
+
+    /**
+     * The modification count of the list when {@link #indexes} was last
+     * updated.
+     */
+    private transient int indexesModCount;
+
     public ListSet() {
         super();
         itemSet = new HashSet<E>();
@@ -79,8 +92,12 @@ public class ListSet<E> extends ArrayList<E> {
             return false;
         }
 
+        boolean indexesUpToDate = isIndexesUpToDate();
         if (super.add(e)) {
             itemSet.add(e);
+            if (indexesUpToDate) {
+                updateIndexesAfterAppend(e);
+            }
             return true;
         } else {
             return false;
@@ -98,8 +115,12 @@ public class ListSet<E> extends ArrayList<E> {
             return;
         }
 
+        boolean append = index == size() && isIndexesUpToDate();
         super.add(index, element);
         itemSet.add(element);
+        if (append) {
+            updateIndexesAfterAppend(element);
+        }
     }
 
     @Override
@@ -151,8 +172,48 @@ public class ListSet<E> extends ArrayList<E> {
         if (!contains(o)) {
             return -1;
         }
+        if (!duplicates.isEmpty()) {
+            // Being sorted using set(int, Object)
+            return super.indexOf(o);
+        }
+
+        Integer index = getIndexes().get(o);
+        return index != null ? index : super.indexOf(o);
+    }
+
+    /**
+     * Gets the map from elements to their indexes, rebuilding it if the list
+     * has been modified.
+     *
+     * @return the index map
+     */
+    private HashMap<Object, Integer> getIndexes() {
+        if (!isIndexesUpToDate()) {
+            indexes = new HashMap<Object, Integer>(
+                    Math.max(16, (int) (size() / .75f) + 1));
+            for (int i = 0; i < size(); i++) {
+                indexes.put(get(i), i);
+            }
+            indexesModCount = modCount;
+        }
+        return indexes;
+    }
 
-        return super.indexOf(o);
+    private boolean isIndexesUpToDate() {
+        return indexes != null && indexesModCount == modCount;
+    }
+
+    /**
+     * Keeps an up to date index map valid after adding an element at the end,
+     * so that the map does not need to be rebuilt when adding items one by one
+     * and looking up their indexes.
+     *
+     * @param e
+     *            the element that was appended
+     */
+    private void updateIndexesAfterAppend(E e) {
+        indexes.put(e, size() - 1);
+        indexesModCount = modCount;
     }
 
     @Override
@@ -217,6 +278,8 @@ public class ListSet<E> extends ArrayList<E> {
         E old = super.set(index, element);
         removeFromSet(old);
         itemSet.add(element);
+        // set() does not change modCount
+        indexes = null;
 
         return old;
     }
@@ -273,6 +336,7 @@ public class ListSet<E> extends ArrayList<E> {
     public Object clone() {
         ListSet<E> v = (ListSet<E>) super.clone();
         v.itemSet = new HashSet<E>(itemSet);
+        v.indexes = null;
         return v;
     }
 
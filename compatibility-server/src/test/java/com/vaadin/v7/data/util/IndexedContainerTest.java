@@ -530,4 +530,54 @@ public class IndexedContainerTest extends AbstractInMemoryContainerTestBase {
         ic.addItem(object1);
         assertNull(ic.getContainerProperty(object1, null));
     }
+
+    @Test
+    public void testPropertyValuesKeptWhenItemsAddedAndRemoved() {
+        IndexedContainer ic = new IndexedContainer();
+        ic.addContainerProperty("value", Integer.class, -1);
+        for (int i = 0; i < 100; i++) {
+            ic.addItem(i).getItemProperty("value").setValue(i);
+        }
+        for (int i = 0; i < 100; i += 2) {
+            ic.removeItem(i);
+        }
+        // Reuses the slots of removed items
+        for (int i = 100; i < 120; i++) {
+            assertEquals(-1,
+                    ic.addItem(i).getItemProperty("value").getValue());
+        }
+
+        assertEquals(70, ic.size());
+        for (int i = 1; i < 100; i += 2) {
+            assertEquals(i, ic.getContainerProperty(i, "value").getValue());
+        }
+    }
+
+    @Test
+    public void testRemovedAndReaddedPropertyHasNoValues() {
+        IndexedContainer ic = new IndexedContainer();
+        ic.addContainerProperty("value", String.class, null);
+        ic.addItem("a").getItemProperty("value").setValue("foo");
+
+        ic.removeContainerProperty("value");
+        ic.addContainerProperty("value", String.class, null);
+
+        assertNull(ic.getContainerProperty("a", "value").getValue());
+    }
+
+    @Test
+    public void testClonedValuesIndependent() throws Exception {
+        IndexedContainer ic = new IndexedContainer();
+        ic.addContainerProperty("value", String.class, null);
+        ic.addItem("a").getItemProperty("value").setValue("foo");
+
+        IndexedContainer clone = (IndexedContainer) ic.clone();
+        clone.getContainerProperty("a", "value").setValue("bar");
+        clone.addItem("b");
+
+        assertEquals("foo", ic.getContainerProperty("a", "value").getValue());
+        assertEquals("bar",
+                clone.getContainerProperty("a", "value").getValue());
+        assertNull(ic.getItem("b"));
+    }
 }
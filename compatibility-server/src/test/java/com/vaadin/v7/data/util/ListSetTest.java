@@ -0,0 +1,82 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.v7.data.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ListSetTest {
+
+    @Test
+    public void indexOf_afterAppends() {
+        ListSet<String> list = new ListSet<String>();
+        for (int i = 0; i < 100; i++) {
+            list.add("item" + i);
+            Assert.assertEquals(i, list.indexOf("item" + i));
+        }
+        Assert.assertEquals(50, list.indexOf("item50"));
+        Assert.assertEquals(-1, list.indexOf("item100"));
+    }
+
+    @Test
+    public void indexOf_afterInsertAndRemove() {
+        ListSet<String> list = new ListSet<String>(
+                Arrays.asList("a", "b", "c"));
+        Assert.assertEquals(2, list.indexOf("c"));
+
+        list.add(0, "z");
+        Assert.assertEquals(3, list.indexOf("c"));
+        Assert.assertEquals(0, list.indexOf("z"));
+
+        list.remove("b");
+        Assert.assertEquals(2, list.indexOf("c"));
+        Assert.assertEquals(-1, list.indexOf("b"));
+
+        list.remove(0);
+        Assert.assertEquals(1, list.indexOf("c"));
+    }
+
+    @Test
+    public void indexOf_afterSortAndSet() {
+        ListSet<String> list = new ListSet<String>(
+                Arrays.asList("c", "a", "b"));
+        Assert.assertEquals(0, list.indexOf("c"));
+
+        Collections.sort(list);
+        Assert.assertEquals(Arrays.asList("a", "b", "c"), list);
+        Assert.assertEquals(2, list.indexOf("c"));
+        Assert.assertEquals(0, list.indexOf("a"));
+
+        list.set(0, "x");
+        Assert.assertEquals(0, list.indexOf("x"));
+        Assert.assertEquals(-1, list.indexOf("a"));
+    }
+
+    @Test
+    public void indexOf_clone() {
+        ListSet<String> list = new ListSet<String>(Arrays.asList("a", "b"));
+        Assert.assertEquals(1, list.indexOf("b"));
+
+        @SuppressWarnings("unchecked")
+        ListSet<String> clone = (ListSet<String>) list.clone();
+        clone.add(0, "c");
+        Assert.assertEquals(2, clone.indexOf("b"));
+        Assert.assertEquals(1, list.indexOf("b"));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+/**
+ * Abstract base class for implementing asynchronous back end data providers.
+ * The synchronous {@link #fetch(Query)} and {@link #size(Query)} methods wait
+ * for the completion stages returned by the asynchronous methods.
+ *
+ * @param <T>
+ *            data provider data type
+ * @param <F>
+ *            data provider filter type
+ * @since 8.1
+ */
+public abstract class AbstractAsyncBackEndDataProvider<T, F>
+        extends AbstractBackEndDataProvider<T, F>
+        implements AsyncBackEndDataProvider<T, F> {
+
+    @Override
+    public CompletionStage<Stream<T>> fetchAsync(Query<T, F> query) {
+        return fetchFromBackEndAsync(mixInSortOrders(query));
+    }
+
+    @Override
+    public CompletionStage<Integer> sizeAsync(Query<T, F> query) {
+        return sizeInBackEndAsync(mixInSortOrders(query));
+    }
+
+    @Override
+    protected Stream<T> fetchFromBackEnd(Query<T, F> query) {
+        return fetchFromBackEndAsync(query).toCompletableFuture().join();
+    }
+
+    @Override
+    protected int sizeInBackEnd(Query<T, F> query) {
+        return sizeInBackEndAsync(query).toCompletableFuture().join();
+    }
+
+    /**
+     * Fetches data from the back end using the given query without blocking.
+     *
+     * @param query
+     *            the query that defines sorting, filtering and paging for
+     *            fetching the data
+     * @return a completion stage of a stream of items matching the query
+     */
+    protected abstract CompletionStage<Stream<T>> fetchFromBackEndAsync(
+            Query<T, F> query);
+
+    /**
+     * Counts the number of items available in the back end without blocking.
+     *
+     * @param query
+     *            the query that defines filtering to be used for counting the
+     *            number of items
+     * @return a completion stage of the number of available items
+     */
+    protected abstract CompletionStage<Integer> sizeInBackEndAsync(
+            Query<T, F> query);
+}
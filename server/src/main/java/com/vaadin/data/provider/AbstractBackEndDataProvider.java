@@ -36,7 +36,7 @@ public abstract class AbstractBackEndDataProvider<T, F> extends
 
     private List<QuerySortOrder> sortOrders = new ArrayList<>();
 
-    private Query<T, F> mixInSortOrders(Query<T, F> query) {
+    Query<T, F> mixInSortOrders(Query<T, F> query) {
         if (sortOrders.isEmpty()) {
             return query;
         }
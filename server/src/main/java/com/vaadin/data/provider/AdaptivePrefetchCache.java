@@ -0,0 +1,344 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.vaadin.shared.Range;
+
+/**
+ * A bounded cache of consecutive rows fetched from a data provider, used by a
+ * {@link DataCommunicator} to reduce the number of back end queries when the
+ * user scrolls.
+ * <p>
+ * The cache estimates the scrolling speed from the row ranges requested by the
+ * client. When requested rows are not in the cache, the fetched range is
+ * extended in the scrolling direction by the number of rows the user is
+ * expected to scroll past in the near future, so that the following requests
+ * can be served from the cache. Rows fetched next to the previously cached
+ * rows are combined with them, so scrolling back does not query the back end
+ * again as long as the rows are still in the cache.
+ * <p>
+ * The cache is cleared whenever the data communicator is reset, e.g. when the
+ * data provider, filter or sort order changes.
+ *
+ * @see DataCommunicator#setPrefetchCache(AdaptivePrefetchCache)
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ *
+ * @param <T>
+ *            the data type
+ */
+public class AdaptivePrefetchCache<T> implements Serializable {
+
+    /**
+     * The time in milliseconds of scrolling at the current speed that is
+     * prefetched.
+     */
+    private static final long LOOKAHEAD_MILLIS = 1000;
+
+    /**
+     * Requests further apart than this are considered to be separate scroll
+     * gestures, and reset the speed estimate.
+     */
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final int maxSize;
+
+    private int cacheStart = 0;
+    private List<T> cachedRows = new ArrayList<>();
+    private boolean cacheReachesEnd = false;
+
+    private int lastRequestStart = -1;
+    private long lastRequestNanos;
+    /** Estimated scrolling speed in rows per millisecond, negative upwards. */
+    private double rowsPerMilli = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long fetchedRowCount = 0;
+    private long fetchNanos = 0;
+
+    /**
+     * Creates a new prefetch cache.
+     *
+     * @param maxSize
+     *            the maximum number of rows to keep in the cache, at least 1
+     */
+    public AdaptivePrefetchCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException(
+                    "Maximum size must be at least 1");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the maximum number of rows kept in the cache.
+     *
+     * @return the maximum cache size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the given range of rows, either from the cache or by using the
+     * given back end fetch function.
+     *
+     * @param offset
+     *            the index of the first row
+     * @param limit
+     *            the number of rows
+     * @param fetch
+     *            a function that fetches the given number of rows from the
+     *            given offset from the back end, not <code>null</code>
+     * @return the rows, may be fewer than the limit at the end of the data
+     */
+    public List<T> getRows(int offset, int limit,
+            BiFunction<Integer, Integer, Stream<T>> fetch) {
+        Objects.requireNonNull(fetch, "Fetch function cannot be null");
+        updateSpeed(offset);
+
+        if (isCached(offset, limit)) {
+            hitCount++;
+            return copyRows(cachedRows, offset - cacheStart, limit);
+        }
+
+        missCount++;
+        Range fetchRange = getFetchRange(offset, limit);
+        long start = nanoTime();
+        List<T> fetched = fetch
+                .apply(fetchRange.getStart(), fetchRange.length())
+                .collect(Collectors.toList());
+        fetchNanos += nanoTime() - start;
+        fetchedRowCount += fetched.size();
+
+        store(fetchRange.getStart(), fetched,
+                fetched.size() < fetchRange.length());
+        return copyRows(fetched, offset - fetchRange.getStart(), limit);
+    }
+
+    /**
+     * Replaces a cached row with a new instance of the same item.
+     *
+     * @param item
+     *            the refreshed item, not <code>null</code>
+     * @param dataProvider
+     *            the data provider used for getting the ids of items, not
+     *            <code>null</code>
+     */
+    public void refresh(T item, DataProvider<T, ?> dataProvider) {
+        Object id = dataProvider.getId(item);
+        for (int i = 0; i < cachedRows.size(); i++) {
+            if (Objects.equals(id, dataProvider.getId(cachedRows.get(i)))) {
+                cachedRows.set(i, item);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes all rows from the cache and resets the scrolling speed
+     * estimate. The statistics are not reset.
+     */
+    public void clear() {
+        cacheStart = 0;
+        cachedRows = new ArrayList<>();
+        cacheReachesEnd = false;
+        lastRequestStart = -1;
+        rowsPerMilli = 0;
+    }
+
+    /**
+     * Gets the number of rows currently in the cache.
+     *
+     * @return the number of cached rows
+     */
+    public int getCachedRowCount() {
+        return cachedRows.size();
+    }
+
+    /**
+     * Gets the number of requests that were served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of requests that required fetching rows from the back
+     * end.
+     *
+     * @return the number of cache misses
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the share of requests that were served from the cache.
+     *
+     * @return the hit ratio between 0 and 1, or 0 if there have been no
+     *         requests
+     */
+    public double getHitRatio() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Gets the total number of rows fetched from the back end.
+     *
+     * @return the number of fetched rows
+     */
+    public long getFetchedRowCount() {
+        return fetchedRowCount;
+    }
+
+    /**
+     * Gets the total time spent fetching rows from the back end.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the total fetch time
+     */
+    public long getFetchTime(TimeUnit unit) {
+        return unit.convert(fetchNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the average time spent on one back end fetch.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the average fetch time, or 0 if nothing has been fetched
+     */
+    public long getAverageFetchTime(TimeUnit unit) {
+        if (missCount == 0) {
+            return 0;
+        }
+        return unit.convert(fetchNanos / missCount, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the current time in nanoseconds. Used for estimating the scrolling
+     * speed and measuring fetch times.
+     *
+     * @return the current value of {@link System#nanoTime()}
+     */
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private void updateSpeed(int offset) {
+        long now = nanoTime();
+        if (lastRequestStart >= 0) {
+            long elapsed = now - lastRequestNanos;
+            if (elapsed > IDLE_NANOS) {
+                rowsPerMilli = 0;
+            } else if (elapsed > 0) {
+                double current = (offset - lastRequestStart)
+                        / (elapsed / 1_000_000d);
+                // Smooth out single jumps
+                rowsPerMilli = (rowsPerMilli + current) / 2;
+            }
+        }
+        lastRequestStart = offset;
+        lastRequestNanos = now;
+    }
+
+    private boolean isCached(int offset, int limit) {
+        int cacheEnd = cacheStart + cachedRows.size();
+        if (offset < cacheStart) {
+            return false;
+        }
+        if (cacheReachesEnd) {
+            return offset <= cacheEnd;
+        }
+        return offset + limit <= cacheEnd;
+    }
+
+    private Range getFetchRange(int offset, int limit) {
+        long prefetch = Math
+                .round(Math.abs(rowsPerMilli) * LOOKAHEAD_MILLIS);
+        int extra = (int) Math.min(prefetch, Math.max(0, maxSize - limit));
+        if (rowsPerMilli > 0) {
+            return Range.withLength(offset, limit + extra);
+        } else if (rowsPerMilli < 0) {
+            int start = Math.max(0, offset - extra);
+            return Range.between(start, offset + limit);
+        }
+        return Range.withLength(offset, limit);
+    }
+
+    private void store(int start, List<T> fetched, boolean reachesEnd) {
+        int end = start + fetched.size();
+        int cacheEnd = cacheStart + cachedRows.size();
+
+        if (cachedRows.isEmpty() || start > cacheEnd || end < cacheStart) {
+            cacheStart = start;
+            cachedRows = new ArrayList<>(fetched);
+            cacheReachesEnd = reachesEnd;
+        } else {
+            // Combine with the adjacent or overlapping cached rows
+            int newStart = Math.min(start, cacheStart);
+            int newEnd = Math.max(end, cacheEnd);
+            List<T> combined = new ArrayList<>(newEnd - newStart);
+            for (int i = newStart; i < newEnd; i++) {
+                if (i >= start && i < end) {
+                    combined.add(fetched.get(i - start));
+                } else {
+                    combined.add(cachedRows.get(i - cacheStart));
+                }
+            }
+            cacheReachesEnd = end >= cacheEnd ? reachesEnd : cacheReachesEnd;
+            cacheStart = newStart;
+            cachedRows = combined;
+        }
+
+        // Evict the rows furthest away from the fetched rows
+        int excess = cachedRows.size() - maxSize;
+        if (excess > 0) {
+            int before = Math.min(excess, start - cacheStart);
+            cachedRows = new ArrayList<>(cachedRows.subList(before,
+                    cachedRows.size() - (excess - before)));
+            cacheStart += before;
+            if (excess > before) {
+                cacheReachesEnd = false;
+            }
+        }
+    }
+
+    private static <T> List<T> copyRows(List<T> rows, int from, int limit) {
+        if (from >= rows.size()) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(
+                rows.subList(from, Math.min(rows.size(), from + limit)));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+import com.vaadin.server.SerializableFunction;
+
+/**
+ * A data provider that lazy loads items from a back end without blocking the
+ * calling thread. The returned completion stages should be completed from a
+ * thread other than the one calling the methods, e.g. by running the query in
+ * an executor.
+ * <p>
+ * {@link DataCommunicator} uses the asynchronous methods when the UI can
+ * receive changes without a client request, i.e. when push or polling is
+ * enabled. The session is then not locked while the back end query runs, and
+ * the fetched rows are sent to the client when they are available. Until
+ * then, the client shows empty rows.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ *
+ * @param <T>
+ *            data provider data type
+ * @param <F>
+ *            data provider filter type
+ */
+public interface AsyncBackEndDataProvider<T, F>
+        extends BackEndDataProvider<T, F> {
+
+    /**
+     * Fetches data from this data provider using the given query without
+     * blocking.
+     *
+     * @param query
+     *            given query to request data, not <code>null</code>
+     * @return a completion stage of the stream of requested data, not
+     *         <code>null</code>
+     */
+    public CompletionStage<Stream<T>> fetchAsync(Query<T, F> query);
+
+    /**
+     * Gets the amount of data in this data provider without blocking.
+     *
+     * @param query
+     *            query with sorting and filtering, not <code>null</code>
+     * @return a completion stage of the size of the data provider, not
+     *         <code>null</code>
+     */
+    public CompletionStage<Integer> sizeAsync(Query<T, F> query);
+
+    /**
+     * Creates a new asynchronous data provider from the given callbacks. The
+     * synchronous {@link #fetch(Query)} and {@link #size(Query)} methods of
+     * the data provider wait for the completion stages returned by the
+     * callbacks.
+     *
+     * @param fetchCallback
+     *            function that returns a completion stage of a stream of items
+     *            from the back end for a query, not <code>null</code>
+     * @param sizeCallback
+     *            function that returns a completion stage of the number of
+     *            items in the back end for a query, not <code>null</code>
+     *
+     * @param <T>
+     *            data provider data type
+     * @param <F>
+     *            data provider filter type
+     * @return a new asynchronous data provider
+     */
+    public static <T, F> AsyncBackEndDataProvider<T, F> fromCallbacks(
+            SerializableFunction<Query<T, F>, CompletionStage<Stream<T>>> fetchCallback,
+            SerializableFunction<Query<T, F>, CompletionStage<Integer>> sizeCallback) {
+        Objects.requireNonNull(fetchCallback, "Fetch callback cannot be null");
+        Objects.requireNonNull(sizeCallback, "Size callback cannot be null");
+        return new AbstractAsyncBackEndDataProvider<T, F>() {
+            @Override
+            protected CompletionStage<Stream<T>> fetchFromBackEndAsync(
+                    Query<T, F> query) {
+                return fetchCallback.apply(query);
+            }
+
+            @Override
+            protected CompletionStage<Integer> sizeInBackEndAsync(
+                    Query<T, F> query) {
+                return sizeCallback.apply(query);
+            }
+        };
+    }
+}
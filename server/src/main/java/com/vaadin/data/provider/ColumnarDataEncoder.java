@@ -0,0 +1,176 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.vaadin.shared.data.DataCommunicatorClientRpc;
+import com.vaadin.shared.data.DataCommunicatorConstants;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * Encodes a batch of row objects into the columnar format used by
+ * {@link DataCommunicatorClientRpc#setColumnarData(int, JsonObject)}.
+ * <p>
+ * Every top level key, and every key of a top level object, that is present
+ * in all the rows of the batch is sent once in the header, followed by the
+ * values of all rows in row order. The rest of the keys are left in per-row
+ * remainder objects.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+final class ColumnarDataEncoder implements Serializable {
+
+    private ColumnarDataEncoder() {
+        // Static helpers only
+    }
+
+    /**
+     * Encodes the given row objects into a columnar row batch. The row
+     * objects are not modified.
+     *
+     * @param rows
+     *            the row objects to encode, not empty
+     * @return the columnar row batch
+     */
+    static JsonObject encode(List<JsonObject> rows) {
+        assert !rows.isEmpty() : "Cannot encode an empty row batch";
+
+        List<String[]> paths = collectPaths(rows.get(0));
+        for (int i = 1; i < rows.size() && !paths.isEmpty(); i++) {
+            JsonObject row = rows.get(i);
+            paths.removeIf(path -> !hasPath(row, path));
+        }
+
+        JsonArray header = Json.createArray();
+        JsonArray values = Json.createArray();
+        // Top level key -> encoded nested keys, or null for a top level value
+        Map<String, Set<String>> encodedKeys = new HashMap<>();
+        for (int c = 0; c < paths.size(); c++) {
+            String[] path = paths.get(c);
+            JsonArray pathArray = Json.createArray();
+            for (int i = 0; i < path.length; i++) {
+                pathArray.set(i, path[i]);
+            }
+            header.set(c, pathArray);
+
+            JsonArray columnValues = Json.createArray();
+            for (int r = 0; r < rows.size(); r++) {
+                columnValues.set(r, getValue(rows.get(r), path));
+            }
+            values.set(c, columnValues);
+
+            if (path.length == 2) {
+                encodedKeys.computeIfAbsent(path[0], key -> new HashSet<>())
+                        .add(path[1]);
+            } else {
+                encodedKeys.put(path[0], null);
+            }
+        }
+
+        JsonObject batch = Json.createObject();
+        batch.put(DataCommunicatorConstants.COLUMNAR_HEADER, header);
+        batch.put(DataCommunicatorConstants.COLUMNAR_VALUES, values);
+        batch.put(DataCommunicatorConstants.COLUMNAR_ROW_COUNT, rows.size());
+
+        JsonArray remainders = Json.createArray();
+        boolean hasRemainders = false;
+        for (int r = 0; r < rows.size(); r++) {
+            JsonObject remainder = getRemainder(rows.get(r), encodedKeys);
+            hasRemainders |= remainder.keys().length > 0;
+            remainders.set(r, remainder);
+        }
+        if (hasRemainders) {
+            batch.put(DataCommunicatorConstants.COLUMNAR_REMAINDERS,
+                    remainders);
+        }
+        return batch;
+    }
+
+    private static JsonObject getRemainder(JsonObject row,
+            Map<String, Set<String>> encodedKeys) {
+        JsonObject remainder = Json.createObject();
+        for (String key : row.keys()) {
+            if (!encodedKeys.containsKey(key)) {
+                remainder.put(key, row.get(key));
+                continue;
+            }
+            Set<String> encodedNestedKeys = encodedKeys.get(key);
+            if (encodedNestedKeys == null) {
+                continue;
+            }
+            // The client recreates the nested object when decoding
+            JsonObject nested = row.getObject(key);
+            JsonObject nestedRemainder = Json.createObject();
+            for (String nestedKey : nested.keys()) {
+                if (!encodedNestedKeys.contains(nestedKey)) {
+                    nestedRemainder.put(nestedKey, nested.get(nestedKey));
+                }
+            }
+            if (nestedRemainder.keys().length > 0) {
+                remainder.put(key, nestedRemainder);
+            }
+        }
+        return remainder;
+    }
+
+    private static List<String[]> collectPaths(JsonObject row) {
+        List<String[]> paths = new ArrayList<>();
+        for (String key : row.keys()) {
+            JsonValue value = row.get(key);
+            if (isObject(value)) {
+                for (String subKey : ((JsonObject) value).keys()) {
+                    paths.add(new String[] { key, subKey });
+                }
+            } else {
+                paths.add(new String[] { key });
+            }
+        }
+        return paths;
+    }
+
+    private static boolean hasPath(JsonObject row, String[] path) {
+        if (!row.hasKey(path[0])) {
+            return false;
+        }
+        if (path.length == 1) {
+            return true;
+        }
+        JsonValue value = row.get(path[0]);
+        return isObject(value) && ((JsonObject) value).hasKey(path[1]);
+    }
+
+    private static JsonValue getValue(JsonObject row, String[] path) {
+        JsonObject owner = path.length == 1 ? row : row.getObject(path[0]);
+        return owner.get(path[path.length - 1]);
+    }
+
+    private static boolean isObject(JsonValue value) {
+        return value != null && value.getType() == JsonType.OBJECT;
+    }
+}
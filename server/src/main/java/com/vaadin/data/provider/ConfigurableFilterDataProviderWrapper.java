@@ -82,4 +82,28 @@ public abstract class ConfigurableFilterDataProviderWrapper<T, Q, C, F>
         this.configuredFilter = filter;
         refreshAll();
     }
+
+    /**
+     * Creates a data provider that queries the wrapped data provider using the
+     * filter currently configured for this data provider. Configuring another
+     * filter for this data provider does not affect the returned data
+     * provider.
+     *
+     * @since 8.1
+     * @return a data provider using the currently configured filter, not
+     *         <code>null</code>
+     */
+    public DataProvider<T, Q> withCurrentFilter() {
+        C filter = configuredFilter;
+        return new DataProviderWrapper<T, Q, F>(dataProvider) {
+            @Override
+            protected F getFilter(Query<T, Q> query) {
+                Q queryFilter = query.getFilter().orElse(null);
+                if (filter == null && queryFilter == null) {
+                    return null;
+                }
+                return combineFilters(queryFilter, filter);
+            }
+        };
+    }
 }
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -27,20 +28,26 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.vaadin.data.provider.DataChangeEvent.DataRefreshEvent;
 import com.vaadin.server.AbstractExtension;
+import com.vaadin.server.ErrorEvent;
+import com.vaadin.server.ErrorHandler;
 import com.vaadin.server.KeyMapper;
 import com.vaadin.server.SerializableConsumer;
 import com.vaadin.shared.Range;
 import com.vaadin.shared.Registration;
+import com.vaadin.shared.communication.PushMode;
 import com.vaadin.shared.data.DataCommunicatorClientRpc;
 import com.vaadin.shared.data.DataCommunicatorConstants;
 import com.vaadin.shared.data.DataRequestRpc;
 import com.vaadin.shared.extension.datacommunicator.DataCommunicatorState;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.UIDetachedException;
 
 import elemental.json.Json;
 import elemental.json.JsonArray;
@@ -106,6 +113,12 @@ public class DataCommunicator<T> extends AbstractExtension {
          */
         private final Set<String> droppedData = new HashSet<>();
 
+        /**
+         * Map of key strings to the row objects last sent to the client. Only
+         * used when delta updates are enabled.
+         */
+        private final Map<String, JsonObject> sentData = new HashMap<>();
+
         /**
          * Adds given objects as currently active objects.
          *
@@ -153,6 +166,42 @@ public class DataCommunicator<T> extends AbstractExtension {
             }
         }
 
+        /**
+         * Stores the given row object as the row object last sent to the
+         * client for the key it contains.
+         *
+         * @param dataObject
+         *            the sent row object
+         * @since 8.1
+         */
+        public void storeSentData(JsonObject dataObject) {
+            sentData.put(
+                    dataObject.getString(DataCommunicatorConstants.KEY),
+                    dataObject);
+        }
+
+        /**
+         * Gets the row object last sent to the client for the given key.
+         *
+         * @param key
+         *            key string
+         * @return the row object last sent, or <code>null</code> if not
+         *         stored
+         * @since 8.1
+         */
+        public JsonObject getSentData(String key) {
+            return sentData.get(key);
+        }
+
+        /**
+         * Clears all the stored row objects.
+         *
+         * @since 8.1
+         */
+        public void clearSentData() {
+            sentData.clear();
+        }
+
         /**
          * Returns all currently active data mapped by their id from
          * DataProvider.
@@ -177,8 +226,10 @@ public class DataCommunicator<T> extends AbstractExtension {
 
         @Override
         public void destroyData(T data) {
+            String key = getKeyMapper().key(data);
             // Remove from active data set
-            activeData.remove(getKeyMapper().key(data));
+            activeData.remove(key);
+            sentData.remove(key);
             // Drop the registered key
             getKeyMapper().remove(data);
         }
@@ -186,6 +237,7 @@ public class DataCommunicator<T> extends AbstractExtension {
         @Override
         public void destroyAllData() {
             activeData.clear();
+            sentData.clear();
             getKeyMapper().removeAll();
         }
     }
@@ -201,6 +253,20 @@ public class DataCommunicator<T> extends AbstractExtension {
     protected boolean reset = false;
     private final Set<T> updatedData = new HashSet<>();
     private int minPushSize = 40;
+    private boolean columnarDataEncoding = false;
+    private boolean deltaUpdates = false;
+    private AdaptivePrefetchCache<T> prefetchCache;
+
+    /*
+     * State of asynchronous fetches. The generation is incremented on every
+     * reset so that results of outdated queries are ignored.
+     */
+    private int asyncGeneration = 0;
+    private boolean asyncSizePending = false;
+    private Integer asyncSize;
+    private Range asyncPendingRows;
+    private Range asyncFetchedRange;
+    private List<T> asyncFetchedRows;
     private Range pushRows = Range.withLength(0, minPushSize);
 
     private Object filter;
@@ -322,6 +388,11 @@ public class DataCommunicator<T> extends AbstractExtension {
             return;
         }
 
+        if (isAsyncFetch()) {
+            sendDataToClientAsync(initial);
+            return;
+        }
+
         if (initial || reset) {
             @SuppressWarnings({ "rawtypes", "unchecked" })
             int dataProviderSize = getDataProvider().size(new Query(filter));
@@ -334,11 +405,14 @@ public class DataCommunicator<T> extends AbstractExtension {
             int offset = requestedRows.getStart();
             int limit = requestedRows.length();
 
-            @SuppressWarnings({ "rawtypes", "unchecked" })
-            List<T> rowsToPush = (List<T>) getDataProvider()
-                    .fetch(new Query(offset, limit, backEndSorting,
-                            inMemorySorting, filter))
-                    .collect(Collectors.toList());
+            List<T> rowsToPush;
+            if (prefetchCache != null) {
+                rowsToPush = prefetchCache.getRows(offset, limit,
+                        this::fetchFromProvider);
+            } else {
+                rowsToPush = fetchFromProvider(offset, limit)
+                        .collect(Collectors.toList());
+            }
 
             if (!initial && !reset && rowsToPush.size() == 0) {
                 triggerReset = true;
@@ -347,18 +421,168 @@ public class DataCommunicator<T> extends AbstractExtension {
             pushData(offset, rowsToPush);
         }
 
+        sendUpdatedData();
+
+        setPushRows(Range.withLength(0, 0));
+        reset = triggerReset;
+    }
+
+    private void sendUpdatedData() {
         if (!updatedData.isEmpty()) {
-            JsonArray dataArray = Json.createArray();
-            int i = 0;
+            List<JsonObject> dataObjects = new ArrayList<>(
+                    updatedData.size());
             for (T data : updatedData) {
-                dataArray.set(i++, getDataObject(data));
+                dataObjects.add(getDataObject(data));
             }
-            rpc.updateData(dataArray);
+            sendUpdatedDataObjects(dataObjects);
         }
+        updatedData.clear();
+    }
 
-        setPushRows(Range.withLength(0, 0));
+    /**
+     * Checks whether the size and rows should be fetched asynchronously. This
+     * is done for {@link AsyncBackEndDataProvider asynchronous data providers}
+     * when the UI can receive the results without a client request.
+     *
+     * @return <code>true</code> to fetch asynchronously, <code>false</code>
+     *         to fetch while the session is locked
+     */
+    private boolean isAsyncFetch() {
+        if (!(getDataProvider() instanceof AsyncBackEndDataProvider)) {
+            return false;
+        }
+        UI ui = getUI();
+        return ui != null
+                && (ui.getPushConfiguration().getPushMode().isEnabled()
+                        || ui.getPollInterval() > 0);
+    }
+
+    private void sendDataToClientAsync(boolean initial) {
+        boolean resetting = initial || reset;
+        if (resetting) {
+            if (asyncSize == null) {
+                // Keep the reset pending until the size is known
+                reset = true;
+                fetchSizeAsync();
+                return;
+            }
+            rpc.reset(asyncSize);
+            asyncSize = null;
+        }
+
+        Range requestedRows = getPushRows();
+        boolean triggerReset = false;
+        if (!requestedRows.isEmpty()) {
+            if (requestedRows.equals(asyncFetchedRange)) {
+                List<T> rowsToPush = asyncFetchedRows;
+                asyncFetchedRange = null;
+                asyncFetchedRows = null;
+
+                if (!resetting && rowsToPush.isEmpty()) {
+                    triggerReset = true;
+                }
+                pushData(requestedRows.getStart(), rowsToPush);
+                setPushRows(Range.withLength(0, 0));
+            } else {
+                // The rows are pushed when they have been fetched
+                fetchRowsAsync(requestedRows);
+            }
+        }
+
+        sendUpdatedData();
         reset = triggerReset;
-        updatedData.clear();
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void fetchSizeAsync() {
+        if (asyncSizePending) {
+            return;
+        }
+        asyncSizePending = true;
+
+        UI ui = getUI();
+        int generation = asyncGeneration;
+        ((AsyncBackEndDataProvider) getDataProvider())
+                .sizeAsync(new Query(filter))
+                .whenComplete((size, error) -> deliverAsync(ui, generation,
+                        (Throwable) error, () -> {
+                            asyncSizePending = false;
+                            asyncSize = (Integer) size;
+                        }));
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private void fetchRowsAsync(Range rows) {
+        if (rows.equals(asyncPendingRows)) {
+            return;
+        }
+        asyncPendingRows = rows;
+
+        UI ui = getUI();
+        int generation = asyncGeneration;
+        AsyncBackEndDataProvider provider = (AsyncBackEndDataProvider) getDataProvider();
+        CompletionStage<Stream<T>> stage = provider
+                .fetchAsync(new Query(rows.getStart(), rows.length(),
+                        backEndSorting, inMemorySorting, filter));
+        stage.whenComplete((stream, error) -> {
+            List<T> fetched = null;
+            if (error == null) {
+                try {
+                    // Consume lazy streams before locking the session
+                    fetched = stream.collect(Collectors.toList());
+                } catch (RuntimeException e) {
+                    error = e;
+                }
+            }
+            List<T> result = fetched;
+            deliverAsync(ui, generation, error, () -> {
+                if (rows.equals(asyncPendingRows)) {
+                    asyncPendingRows = null;
+                    if (result != null) {
+                        asyncFetchedRange = rows;
+                        asyncFetchedRows = result;
+                    }
+                }
+            });
+        });
+    }
+
+    /**
+     * Stores the result of an asynchronous fetch while holding the session
+     * lock and sends it to the client.
+     */
+    private void deliverAsync(UI ui, int generation, Throwable error,
+            Runnable handler) {
+        try {
+            ui.access(() -> {
+                if (generation != asyncGeneration) {
+                    // A reset has happened, the result is outdated
+                    return;
+                }
+                handler.run();
+                if (error != null) {
+                    ErrorHandler errorHandler = ErrorEvent
+                            .findErrorHandler(this);
+                    if (errorHandler != null) {
+                        errorHandler.error(new ErrorEvent(error));
+                    }
+                    return;
+                }
+                markAsDirty();
+                if (ui.getPushConfiguration()
+                        .getPushMode() == PushMode.MANUAL) {
+                    ui.push();
+                }
+            });
+        } catch (UIDetachedException e) {
+            // The UI has been closed, there is nothing to deliver to
+        }
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private Stream<T> fetchFromProvider(int offset, int limit) {
+        return getDataProvider().fetch(new Query(offset, limit, backEndSorting,
+                inMemorySorting, filter));
     }
 
     /**
@@ -409,18 +633,189 @@ public class DataCommunicator<T> extends AbstractExtension {
      *            data objects to send as an iterable
      */
     protected void pushData(int firstIndex, List<T> data) {
-        JsonArray dataArray = Json.createArray();
-
-        int i = 0;
+        List<JsonObject> dataObjects = new ArrayList<>(data.size());
         for (T item : data) {
-            dataArray.set(i++, getDataObject(item));
+            dataObjects.add(getDataObject(item));
         }
 
-        rpc.setData(firstIndex, dataArray);
+        sendDataObjects(firstIndex, dataObjects);
         handler.addActiveData(data.stream());
         handler.cleanUp(data.stream());
     }
 
+    /**
+     * Sends the given row objects to the client-side, starting from the given
+     * index. If {@link #setColumnarDataEncoding(boolean) columnar encoding} is
+     * enabled, batches of more than one row are sent in the columnar format.
+     *
+     * @param firstIndex
+     *            first index of pushed data
+     * @param dataObjects
+     *            the row objects to send
+     * @since 8.1
+     */
+    protected void sendDataObjects(int firstIndex,
+            List<JsonObject> dataObjects) {
+        if (deltaUpdates) {
+            dataObjects.forEach(handler::storeSentData);
+        }
+
+        if (columnarDataEncoding && dataObjects.size() > 1) {
+            rpc.setColumnarData(firstIndex,
+                    ColumnarDataEncoder.encode(dataObjects));
+            return;
+        }
+
+        JsonArray dataArray = Json.createArray();
+        int i = 0;
+        for (JsonObject dataObject : dataObjects) {
+            dataArray.set(i++, dataObject);
+        }
+        rpc.setData(firstIndex, dataArray);
+    }
+
+    /**
+     * Sends the given updated row objects to the client-side. If
+     * {@link #setDeltaUpdates(boolean) delta updates} are enabled, only the
+     * changes since the row was last sent are sent, and rows that have not
+     * changed are not sent at all.
+     *
+     * @param dataObjects
+     *            the updated row objects to send
+     * @since 8.1
+     */
+    protected void sendUpdatedDataObjects(List<JsonObject> dataObjects) {
+        JsonArray dataArray = Json.createArray();
+        JsonArray deltaArray = Json.createArray();
+        for (JsonObject dataObject : dataObjects) {
+            JsonObject sentObject = null;
+            if (deltaUpdates) {
+                sentObject = handler.getSentData(
+                        dataObject.getString(DataCommunicatorConstants.KEY));
+                handler.storeSentData(dataObject);
+            }
+
+            if (sentObject == null) {
+                dataArray.set(dataArray.length(), dataObject);
+            } else {
+                JsonObject delta = RowDeltaEncoder.diff(sentObject,
+                        dataObject);
+                if (delta != null) {
+                    deltaArray.set(deltaArray.length(), delta);
+                }
+            }
+        }
+
+        if (dataArray.length() > 0) {
+            rpc.updateData(dataArray);
+        }
+        if (deltaArray.length() > 0) {
+            rpc.updateDataDelta(deltaArray);
+        }
+    }
+
+    /**
+     * Sets whether rows should be sent to the client in a columnar format. In
+     * the columnar format, the keys shared by all rows in a batch are sent
+     * only once, followed by the values of each row, which makes the data
+     * considerably smaller when the rows contain many values, e.g. for grids
+     * with many columns.
+     * <p>
+     * The default is <code>false</code>.
+     *
+     * @param columnarDataEncoding
+     *            <code>true</code> to send rows in the columnar format,
+     *            <code>false</code> to send one object per row
+     * @since 8.1
+     */
+    public void setColumnarDataEncoding(boolean columnarDataEncoding) {
+        this.columnarDataEncoding = columnarDataEncoding;
+    }
+
+    /**
+     * Gets whether rows are sent to the client in a columnar format.
+     *
+     * @return <code>true</code> if rows are sent in the columnar format,
+     *         <code>false</code> if one object is sent per row
+     * @see #setColumnarDataEncoding(boolean)
+     * @since 8.1
+     */
+    public boolean isColumnarDataEncoding() {
+        return columnarDataEncoding;
+    }
+
+    /**
+     * Sets whether refreshed rows should be sent to the client as deltas. When
+     * enabled, the row object last sent to the client is kept for every row
+     * that is active on the client. When a row is refreshed, only the values
+     * that differ from the last sent row object are sent, and nothing is sent
+     * if the row has not changed. This reduces the amount of data sent when
+     * only a few values of frequently refreshed rows change, at the cost of
+     * keeping the sent row objects in memory.
+     * <p>
+     * The default is <code>false</code>.
+     *
+     * @param deltaUpdates
+     *            <code>true</code> to send refreshed rows as deltas,
+     *            <code>false</code> to always send full rows
+     * @since 8.1
+     */
+    public void setDeltaUpdates(boolean deltaUpdates) {
+        this.deltaUpdates = deltaUpdates;
+        if (!deltaUpdates) {
+            handler.clearSentData();
+        }
+    }
+
+    /**
+     * Gets whether refreshed rows are sent to the client as deltas.
+     *
+     * @return <code>true</code> if refreshed rows are sent as deltas,
+     *         <code>false</code> if full rows are always sent
+     * @see #setDeltaUpdates(boolean)
+     * @since 8.1
+     */
+    public boolean isDeltaUpdates() {
+        return deltaUpdates;
+    }
+
+    /**
+     * Sets the cache used for prefetching rows from the data provider. The
+     * cache adapts the number of fetched rows to the scrolling speed, and
+     * serves rows requested by the client from the cache when possible. This
+     * is useful for data providers where each query is slow, e.g. for remote
+     * back ends. The hit ratio and fetch times of the cache can be used for
+     * monitoring the back end queries.
+     * <p>
+     * By default, no cache is used and the client requests are passed
+     * directly to the data provider.
+     * <p>
+     * <strong>Note:</strong> The cache is not used by
+     * {@link HierarchicalDataCommunicator}.
+     *
+     * @param prefetchCache
+     *            the prefetch cache to use, or <code>null</code> to not use a
+     *            cache
+     * @since 8.1
+     */
+    public void setPrefetchCache(AdaptivePrefetchCache<T> prefetchCache) {
+        this.prefetchCache = prefetchCache;
+        if (prefetchCache != null) {
+            prefetchCache.clear();
+        }
+    }
+
+    /**
+     * Gets the cache used for prefetching rows from the data provider.
+     *
+     * @return the prefetch cache, or <code>null</code> if no cache is used
+     * @see #setPrefetchCache(AdaptivePrefetchCache)
+     * @since 8.1
+     */
+    public AdaptivePrefetchCache<T> getPrefetchCache() {
+        return prefetchCache;
+    }
+
     /**
      * Creates the JsonObject for given data object. This method calls all data
      * generators for it.
@@ -483,7 +878,21 @@ public class DataCommunicator<T> extends AbstractExtension {
      * Informs the DataProvider that the collection has changed.
      */
     public void reset() {
+        if (prefetchCache != null) {
+            prefetchCache.clear();
+        }
+        boolean asyncPending = asyncSizePending || asyncPendingRows != null;
+        asyncGeneration++;
+        asyncSizePending = false;
+        asyncSize = null;
+        asyncPendingRows = null;
+        asyncFetchedRange = null;
+        asyncFetchedRows = null;
         if (reset) {
+            if (asyncPending) {
+                // The outdated fetch will not trigger a new response
+                markAsDirty();
+            }
             return;
         }
 
@@ -505,6 +914,10 @@ public class DataCommunicator<T> extends AbstractExtension {
         // ActiveDataHandler has always the latest data through KeyMapper.
         Map<Object, T> activeData = getActiveDataHandler().getActiveData();
 
+        if (prefetchCache != null) {
+            prefetchCache.refresh(data, getDataProvider());
+        }
+
         if (activeData.containsKey(id)) {
             // Item is currently available at the client-side
             if (updatedData.isEmpty()) {
@@ -106,12 +106,10 @@ public class HierarchicalDataCommunicator<T> extends DataCommunicator<T> {
         }
 
         if (!getUpdatedData().isEmpty()) {
-            JsonArray dataArray = Json.createArray();
-            int i = 0;
-            for (T data : getUpdatedData()) {
-                dataArray.set(i++, createDataObject(data, -1));
-            }
-            getClientRpc().updateData(dataArray);
+            // the depth is not known, the client copies it from the old row
+            sendUpdatedDataObjects(getUpdatedData().stream()
+                    .map(data -> createDataObject(data, -1))
+                    .collect(Collectors.toList()));
             getUpdatedData().clear();
         }
     }
@@ -135,7 +133,7 @@ public class HierarchicalDataCommunicator<T> extends DataCommunicator<T> {
                     .collect(Collectors.toList());
 
             getClientRpc().reset(rootSize);
-            sendData(0, dataObjects);
+            sendDataObjects(0, dataObjects);
             getActiveDataHandler().addActiveData(items.stream());
             getActiveDataHandler().cleanUp(items.stream());
         } else {
@@ -204,7 +202,7 @@ public class HierarchicalDataCommunicator<T> extends DataCommunicator<T> {
                     insertRowsCount);
         }
 
-        sendData(requestedRows.getStart(), Arrays.asList(dataObjects));
+        sendDataObjects(requestedRows.getStart(), Arrays.asList(dataObjects));
         getActiveDataHandler().addActiveData(fetchedItems.stream());
         getActiveDataHandler().cleanUp(fetchedItems.stream());
         return true;
@@ -253,16 +251,6 @@ public class HierarchicalDataCommunicator<T> extends DataCommunicator<T> {
         return dataObject;
     }
 
-    private void sendData(int startIndex, List<JsonObject> dataObjects) {
-        JsonArray dataArray = Json.createArray();
-        int i = 0;
-        for (JsonObject dataObject : dataObjects) {
-            dataArray.set(i++, dataObject);
-        }
-
-        getClientRpc().setData(startIndex, dataArray);
-    }
-
     /**
      * Returns the range of rows to push on initial response.
      *
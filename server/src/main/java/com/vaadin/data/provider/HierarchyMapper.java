@@ -17,26 +17,35 @@ package com.vaadin.data.provider;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.TreeMap;
 import java.util.function.BiConsumer;
-import java.util.logging.Logger;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import com.vaadin.shared.Range;
+
 /**
  * Mapper for hierarchical data.
  * <p>
  * Keeps track of the expanded nodes, and size of of the subtrees for each
  * expanded node.
  * <p>
+ * The expanded nodes form a tree where each node knows the position of the
+ * expanded item in its parent level. Each level keeps the sizes of its
+ * expanded subtrees in a Fenwick tree, so the flat index of any item in the
+ * level can be computed in logarithmic time. Mapping a flat row index to a
+ * node, expanding and collapsing only touch the nodes on the path from the
+ * root, and nodes are looked up by key from an index.
+ * <p>
  * This class is framework internal implementation details, and can be changed /
  * moved at any point. This means that you should not directly use this for
  * anything.
@@ -46,9 +55,6 @@ import java.util.stream.Stream;
  */
 class HierarchyMapper implements Serializable {
 
-    private static final Logger LOGGER = Logger
-            .getLogger(HierarchyMapper.class.getName());
-
     /**
      * A POJO that represents a query data for a certain tree level.
      */
@@ -66,11 +72,14 @@ class HierarchyMapper implements Serializable {
         final int depth;
         /** The first row index in grid, including all the nodes. */
         final int firstRowIndex;
-        /** The direct subtrees for the node that effect the indexing. */
-        final List<TreeNode> subTrees;
+        /**
+         * The flat row ranges of the direct subtrees that are between the
+         * fetched rows, in ascending order.
+         */
+        final List<Range> subTrees;
 
         TreeLevelQuery(TreeNode node, int startIndex, int size, int depth,
-                int firstRowIndex, List<TreeNode> subTrees) {
+                int firstRowIndex, List<Range> subTrees) {
             this.node = node;
             this.startIndex = startIndex;
             this.size = size;
@@ -83,72 +92,149 @@ class HierarchyMapper implements Serializable {
     /**
      * A level in the tree, either the root level or an expanded subtree level.
      * <p>
-     * Comparable based on the {@link #startIndex}, which is flat from 0 to data
-     * size - 1.
+     * The flat start index of a node is not stored, but computed from the
+     * position of the node in its parent level when needed.
      */
-    static class TreeNode implements Serializable, Comparable<TreeNode> {
+    static class TreeNode implements Serializable {
 
         /** The key for the expanded item that this is a subtree of. */
         private final String parentKey;
-        /** The first index on this level. */
-        private int startIndex;
-        /** The last index on this level, INCLUDING subtrees. */
-        private int endIndex;
+        /** The number of items directly on this level. */
+        private final int levelSize;
+        /** The node containing the expanded item, null for the root. */
+        private TreeNode parent;
+        /** The index of the expanded item on the parent level. */
+        private int indexInParent;
+        /** The number of rows on this level, INCLUDING subtrees. */
+        private int subTreeSize;
+        /** The expanded subtrees on this level by item index. */
+        private TreeMap<Integer, TreeNode> children;
+        /**
+         * Fenwick tree of the expanded subtree sizes by item index, created
+         * when the first item on this level is expanded.
+         */
+        private int[] childSizes;
 
-        TreeNode(String parentKey, int startIndex, int size) {
+        TreeNode(String parentKey, int levelSize) {
             this.parentKey = parentKey;
-            this.startIndex = startIndex;
-            endIndex = startIndex + size - 1;
-        }
-
-        TreeNode(int startIndex) {
-            parentKey = "INVALID";
-            this.startIndex = startIndex;
+            this.levelSize = levelSize;
+            subTreeSize = levelSize;
         }
 
         int getStartIndex() {
-            return startIndex;
+            if (parent == null) {
+                return 0;
+            }
+            return parent.getStartIndex()
+                    + parent.getOffset(indexInParent) + 1;
         }
 
         int getEndIndex() {
-            return endIndex;
+            return getStartIndex() + subTreeSize - 1;
         }
 
         String getParentKey() {
             return parentKey;
         }
 
-        private void push(int offset) {
-            startIndex += offset;
-            endIndex += offset;
+        private int getDepth() {
+            int depth = 0;
+            for (TreeNode node = parent; node != null; node = node.parent) {
+                depth++;
+            }
+            return depth;
         }
 
-        private void pushEnd(int offset) {
-            endIndex += offset;
+        /**
+         * Gets the row offset of the item with the given index from the start
+         * of this level, taking the expanded subtrees before it into account.
+         */
+        private int getOffset(int itemIndex) {
+            int offset = itemIndex;
+            if (childSizes != null) {
+                for (int i = itemIndex; i > 0; i -= i & -i) {
+                    offset += childSizes[i];
+                }
+            }
+            return offset;
         }
 
-        @Override
-        public int compareTo(TreeNode other) {
-            return Integer.valueOf(startIndex).compareTo(other.startIndex);
+        /**
+         * Gets the index of the last item on this level whose row offset is
+         * at most the given offset. If the offset is not the offset of that
+         * item, the row is inside the subtree of that item.
+         */
+        private int findItemIndex(int offset) {
+            if (childSizes == null) {
+                return offset;
+            }
+            // Fenwick tree descent, the offset of item i is i + prefix sum
+            int index = 0;
+            int sum = 0;
+            for (int step = Integer.highestOneBit(levelSize); step > 0;
+                    step >>= 1) {
+                int next = index + step;
+                if (next <= levelSize
+                        && next + sum + childSizes[next] <= offset) {
+                    index = next;
+                    sum += childSizes[next];
+                }
+            }
+            return index;
+        }
+
+        private void addChildSize(int itemIndex, int delta) {
+            if (childSizes == null) {
+                childSizes = new int[levelSize + 1];
+            }
+            for (int i = itemIndex + 1; i <= levelSize; i += i & -i) {
+                childSizes[i] += delta;
+            }
+            subTreeSize += delta;
+        }
+
+        private TreeNode getChild(int itemIndex) {
+            return children == null ? null : children.get(itemIndex);
+        }
+
+        private Map<Integer, TreeNode> getChildren(int fromIndex,
+                int toIndex) {
+            if (children == null || fromIndex > toIndex) {
+                return Collections.emptyMap();
+            }
+            return children.subMap(fromIndex, true, toIndex, true);
+        }
+
+        private void forEachNode(Consumer<TreeNode> action) {
+            action.accept(this);
+            if (children != null) {
+                children.values().forEach(child -> child.forEachNode(action));
+            }
         }
 
         @Override
         public String toString() {
-            return "TreeNode [parent=" + parentKey + ", start=" + startIndex
-                    + ", end=" + getEndIndex() + "]";
+            return "TreeNode [parent=" + parentKey + ", start="
+                    + getStartIndex() + ", end=" + getEndIndex() + "]";
         }
 
     }
 
-    /** The expanded nodes in the tree. */
-    private final TreeSet<TreeNode> nodes = new TreeSet<>();
+    /** The root level of the tree. */
+    private TreeNode root = new TreeNode(null, 0);
+
+    /** The expanded nodes in the tree by the key of the expanded item. */
+    private final Map<String, TreeNode> nodes = new HashMap<>();
 
     /**
      * Map of collapsed subtrees. The keys of this map are the collapsed
-     * subtrees parent keys and values are the {@code TreeSet}s of the subtree's
-     * expanded {@code TreeNode}s.
+     * subtrees parent keys and values are the detached subtree root nodes,
+     * which still contain the subtree's expanded nodes.
      */
-    private final Map<String, TreeSet<TreeNode>> collapsedNodes = new HashMap<>();
+    private final Map<String, TreeNode> collapsedNodes = new HashMap<>();
+
+    /** The keys of all expanded nodes inside collapsed subtrees. */
+    private final Set<String> collapsedKeys = new HashSet<>();
 
     /**
      * Resets the tree, sets given the root level size.
@@ -158,8 +244,10 @@ class HierarchyMapper implements Serializable {
      */
     public void reset(int rootLevelSize) {
         collapsedNodes.clear();
+        collapsedKeys.clear();
         nodes.clear();
-        nodes.add(new TreeNode(null, 0, rootLevelSize));
+        root = new TreeNode(null, rootLevelSize);
+        nodes.put(null, root);
     }
 
     /**
@@ -168,9 +256,7 @@ class HierarchyMapper implements Serializable {
      * @return the size of the tree
      */
     public int getTreeSize() {
-        TreeNode rootNode = getNodeForKey(null)
-                .orElse(new TreeNode(null, 0, 0));
-        return rootNode.endIndex + 1;
+        return root.subTreeSize;
     }
 
     /**
@@ -181,7 +267,7 @@ class HierarchyMapper implements Serializable {
      * @return {@code true} if collapsed, {@code false} if expanded
      */
     public boolean isCollapsed(String itemKey) {
-        return !getNodeForKey(itemKey).isPresent();
+        return !nodes.containsKey(itemKey);
     }
 
     /**
@@ -193,22 +279,7 @@ class HierarchyMapper implements Serializable {
      *         otherwise
      */
     public boolean isKeyStored(String itemKey) {
-        if (getNodeForKey(itemKey).isPresent()) {
-            return true;
-        }
-        // Is the key used in a collapsed subtree?
-        for (Entry<String, TreeSet<TreeNode>> entry : collapsedNodes.entrySet()) {
-            if (entry.getKey() != null && entry.getKey().equals(itemKey)) {
-                return true;
-            }
-            for (TreeNode subTreeNode : entry.getValue()) {
-                if (subTreeNode.getParentKey() != null
-                        && subTreeNode.getParentKey().equals(itemKey)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return nodes.containsKey(itemKey) || collapsedKeys.contains(itemKey);
     }
 
     /**
@@ -223,24 +294,12 @@ class HierarchyMapper implements Serializable {
      *             if the node was not expanded
      */
     protected int getDepth(String expandedNodeKey) {
-        Optional<TreeNode> node = getNodeForKey(expandedNodeKey);
-        if (!node.isPresent()) {
+        TreeNode node = nodes.get(expandedNodeKey);
+        if (node == null) {
             throw new IllegalArgumentException("No node with given key "
                     + expandedNodeKey + " was expanded.");
         }
-        TreeNode treeNode = node.get();
-        AtomicInteger start = new AtomicInteger(treeNode.startIndex);
-        AtomicInteger end = new AtomicInteger(treeNode.getEndIndex());
-        AtomicInteger depth = new AtomicInteger();
-        nodes.headSet(treeNode, false).descendingSet().forEach(higherNode -> {
-            if (higherNode.startIndex < start.get()
-                    && higherNode.getEndIndex() >= end.get()) {
-                start.set(higherNode.startIndex);
-                depth.incrementAndGet();
-            }
-        });
-
-        return depth.get();
+        return node.getDepth();
     }
 
     /**
@@ -253,9 +312,33 @@ class HierarchyMapper implements Serializable {
      *         expanded
      */
     protected Optional<TreeNode> getNodeForKey(String expandedNodeKey) {
-        return nodes.stream()
-                .filter(node -> Objects.equals(node.parentKey, expandedNodeKey))
-                .findAny();
+        return Optional.ofNullable(nodes.get(expandedNodeKey));
+    }
+
+    /**
+     * Finds the node that has the given row as one of the items directly on
+     * its level.
+     *
+     * @param rowIndex
+     *            the flat row index, from 0 to tree size - 1
+     * @param itemIndex
+     *            array for returning the index of the item on the found level
+     * @return the node containing the row
+     */
+    private TreeNode findNode(int rowIndex, int[] itemIndex) {
+        TreeNode node = root;
+        int offset = rowIndex;
+        while (true) {
+            int index = node.findItemIndex(offset);
+            int itemOffset = node.getOffset(index);
+            if (itemOffset == offset) {
+                itemIndex[0] = index;
+                return node;
+            }
+            // The row is inside the subtree of the item
+            offset -= itemOffset + 1;
+            node = node.getChild(index);
+        }
     }
 
     /**
@@ -279,45 +362,33 @@ class HierarchyMapper implements Serializable {
                     "The expanded node's size cannot be less than 1, was "
                             + expandedNodeSize);
         }
-        TreeNode newNode;
-        TreeSet<TreeNode> subTree = null;
-        if (collapsedNodes.containsKey(expandedRowKey)) {
-            subTree = collapsedNodes.remove(expandedRowKey);
-            newNode = subTree.first();
-            int offset = expandedRowIndex - newNode.getStartIndex() + 1;
-            subTree.forEach(node -> node.push(offset));
-            expandedNodeSize = newNode.getEndIndex() - newNode.getStartIndex()
-                    + 1;
-        } else {
-            newNode = new TreeNode(expandedRowKey, expandedRowIndex + 1,
-                    expandedNodeSize);
-        }
-
-        boolean added = nodes.add(newNode);
-        if (!added) {
+        int[] itemIndex = new int[1];
+        TreeNode parent = findNode(expandedRowIndex, itemIndex);
+        if (parent.getChild(itemIndex[0]) != null) {
             throw new IllegalStateException("Node in index " + expandedRowIndex
                     + " was expanded already.");
         }
 
-        // push end indexes for parent nodes
-        final int expandSize = expandedNodeSize;
-        List<TreeNode> updated = nodes.headSet(newNode, false).stream()
-                .filter(node -> node.getEndIndex() >= expandedRowIndex)
-                .collect(Collectors.toList());
-        nodes.removeAll(updated);
-        updated.stream().forEach(node -> node.pushEnd(expandSize));
-        nodes.addAll(updated);
-
-        // push start and end indexes for later nodes
-        updated = nodes.tailSet(newNode, false).stream()
-                .collect(Collectors.toList());
-        nodes.removeAll(updated);
-        updated.stream().forEach(node -> node.push(expandSize));
-        nodes.addAll(updated);
-
-        if (subTree != null) {
-            nodes.addAll(subTree);
+        TreeNode newNode = collapsedNodes.remove(expandedRowKey);
+        if (newNode != null) {
+            newNode.forEachNode(node -> {
+                collapsedKeys.remove(node.parentKey);
+                nodes.put(node.parentKey, node);
+            });
+        } else {
+            newNode = new TreeNode(expandedRowKey, expandedNodeSize);
+            nodes.put(expandedRowKey, newNode);
         }
+        newNode.parent = parent;
+        newNode.indexInParent = itemIndex[0];
+        if (parent.children == null) {
+            parent.children = new TreeMap<>();
+        }
+        parent.children.put(itemIndex[0], newNode);
+
+        // push end indexes for parent nodes, later nodes follow implicitly
+        int expandSize = newNode.subTreeSize;
+        updateSubTreeSizes(newNode, expandSize);
 
         return expandSize;
     }
@@ -337,10 +408,13 @@ class HierarchyMapper implements Serializable {
     protected int collapse(String key, int collapsedRowIndex) {
         Objects.requireNonNull(key,
                 "The key for the item to collapse cannot be null.");
-        TreeNode collapsedNode = nodes
-                .ceiling(new TreeNode(collapsedRowIndex + 1));
-        if (collapsedNode == null
-                || collapsedNode.startIndex != collapsedRowIndex + 1) {
+        TreeNode collapsedNode = null;
+        if (collapsedRowIndex >= 0 && collapsedRowIndex < getTreeSize()) {
+            int[] itemIndex = new int[1];
+            collapsedNode = findNode(collapsedRowIndex, itemIndex)
+                    .getChild(itemIndex[0]);
+        }
+        if (collapsedNode == null) {
             throw new IllegalStateException(
                     "Could not find expanded node for index "
                             + collapsedRowIndex + ", node was not collapsed");
@@ -350,37 +424,30 @@ class HierarchyMapper implements Serializable {
                     + " is different for the collapsed node " + collapsedNode);
         }
 
-        Set<TreeNode> subTreeNodes = nodes
-                .tailSet(collapsedNode).stream().filter(node -> collapsedNode
-                        .getEndIndex() >= node.getEndIndex())
-                .collect(Collectors.toSet());
-        collapsedNodes.put(collapsedNode.getParentKey(), new TreeSet<>(subTreeNodes));
-
-        // remove complete subtree
-        AtomicInteger removedSubTreeSize = new AtomicInteger(
-                collapsedNode.getEndIndex() - collapsedNode.startIndex + 1);
-        nodes.tailSet(collapsedNode, false).removeIf(
-                node -> node.startIndex <= collapsedNode.getEndIndex());
-
-        final int offset = -1 * removedSubTreeSize.get();
-        // adjust parent end indexes
-        List<TreeNode> updated = nodes.headSet(collapsedNode, false).stream()
-                .filter(node -> node.getEndIndex() >= collapsedRowIndex)
-                .collect(Collectors.toList());
-        nodes.removeAll(updated);
-        updated.stream().forEach(node -> node.pushEnd(offset));
-        nodes.addAll(updated);
-
-        // adjust start and end indexes for latter nodes
-        updated = nodes.tailSet(collapsedNode, false).stream()
-                .collect(Collectors.toList());
-        nodes.removeAll(updated);
-        updated.stream().forEach(node -> node.push(offset));
-        nodes.addAll(updated);
-
-        nodes.remove(collapsedNode);
-
-        return removedSubTreeSize.get();
+        int removedSubTreeSize = collapsedNode.subTreeSize;
+        // adjust parent end indexes, later nodes follow implicitly
+        updateSubTreeSizes(collapsedNode, -removedSubTreeSize);
+        collapsedNode.parent.children.remove(collapsedNode.indexInParent);
+        collapsedNode.parent = null;
+
+        // keep the complete subtree for expanding it again
+        collapsedNode.forEachNode(node -> {
+            nodes.remove(node.parentKey);
+            collapsedKeys.add(node.parentKey);
+        });
+        collapsedNodes.put(collapsedNode.parentKey, collapsedNode);
+
+        return removedSubTreeSize;
+    }
+
+    /**
+     * Adds the given delta to the sizes of all the ancestors of the node.
+     */
+    private static void updateSubTreeSizes(TreeNode node, int delta) {
+        for (TreeNode child = node; child.parent != null;
+                child = child.parent) {
+            child.parent.addChildSize(child.indexInParent, delta);
+        }
     }
 
     /**
@@ -396,83 +463,46 @@ class HierarchyMapper implements Serializable {
      */
     protected Stream<TreeLevelQuery> splitRangeToLevelQueries(
             final int firstRow, final int lastRow) {
-        return nodes.stream()
-                // filter to parts intersecting with the range
-                .filter(node -> node.startIndex <= lastRow
-                        && firstRow <= node.getEndIndex())
-                // split into queries per level with level based indexing
-                .map(node -> {
-
-                    // calculate how subtrees effect indexing and size
-                    int depth = getDepth(node.parentKey);
-                    List<TreeNode> directSubTrees = nodes.tailSet(node, false)
-                            .stream()
-                            // find subtrees
-                            .filter(subTree -> node.startIndex < subTree
-                                    .getEndIndex()
-                                    && subTree.startIndex < node.getEndIndex())
-                            // filter to direct subtrees
-                            .filter(subTree -> getDepth(
-                                    subTree.parentKey) == (depth + 1))
-                            .collect(Collectors.toList());
-                    // first intersecting index in flat order
-                    AtomicInteger firstIntersectingRowIndex = new AtomicInteger(
-                            Math.max(node.startIndex, firstRow));
-                    // last intersecting index in flat order
-                    final int lastIntersectingRowIndex = Math
-                            .min(node.getEndIndex(), lastRow);
-                    // start index for this level
-                    AtomicInteger start = new AtomicInteger(
-                            firstIntersectingRowIndex.get() - node.startIndex);
-                    // how many nodes should be fetched for this level
-                    AtomicInteger size = new AtomicInteger(
-                            lastIntersectingRowIndex
-                                    - firstIntersectingRowIndex.get() + 1);
-
-                    // reduce subtrees before requested index
-                    directSubTrees.stream().filter(subtree -> subtree
-                            .getEndIndex() < firstIntersectingRowIndex.get())
-                            .forEachOrdered(subtree -> {
-                                start.addAndGet(-1 * (subtree.getEndIndex()
-                                        - subtree.startIndex + 1));
-                            });
-                    // if requested start index is in the middle of a
-                    // subtree, start is after that
-                    List<TreeNode> intersectingSubTrees = new ArrayList<>();
-                    directSubTrees.stream()
-                            .filter(subtree -> subtree.startIndex <= firstIntersectingRowIndex
-                                    .get() && firstIntersectingRowIndex
-                                            .get() <= subtree.getEndIndex())
-                            .findFirst().ifPresent(subtree -> {
-                                int previous = firstIntersectingRowIndex
-                                        .getAndSet(subtree.getEndIndex() + 1);
-                                int delta = previous
-                                        - firstIntersectingRowIndex.get();
-                                start.addAndGet(subtree.startIndex - previous);
-                                size.addAndGet(delta);
-                                intersectingSubTrees.add(subtree);
-                            });
-                    // reduce size of subtrees after first row that intersect
-                    // with requested range
-                    directSubTrees.stream()
-                            .filter(subtree -> firstIntersectingRowIndex
-                                    .get() < subtree.startIndex
-                                    && subtree.endIndex <= lastIntersectingRowIndex)
-                            .forEachOrdered(subtree -> {
-                                // reduce subtree size that is part of the
-                                // requested range from query size
-                                size.addAndGet(
-                                        -1 * (Math.min(subtree.getEndIndex(),
-                                                lastIntersectingRowIndex)
-                                                - subtree.startIndex + 1));
-                                intersectingSubTrees.add(subtree);
-                            });
-                    return new TreeLevelQuery(node, start.get(), size.get(),
-                            depth, firstIntersectingRowIndex.get(),
-                            intersectingSubTrees);
-
-                }).filter(query -> query.size > 0);
+        List<TreeLevelQuery> queries = new ArrayList<>();
+        collectLevelQueries(root, 0, 0, firstRow, lastRow, queries);
+        return queries.stream();
+    }
 
+    private void collectLevelQueries(TreeNode node, int nodeStart, int depth,
+            int firstRow, int lastRow, List<TreeLevelQuery> queries) {
+        // offsets of the part intersecting with the range
+        int firstOffset = Math.max(firstRow, nodeStart) - nodeStart;
+        int lastOffset = Math.min(lastRow, nodeStart + node.subTreeSize - 1)
+                - nodeStart;
+        if (firstOffset > lastOffset) {
+            return;
+        }
+
+        // the first item may be inside the subtree of the item before it
+        int firstContaining = node.findItemIndex(firstOffset);
+        int firstItem = node.getOffset(firstContaining) == firstOffset
+                ? firstContaining : firstContaining + 1;
+        int lastItem = node.findItemIndex(lastOffset);
+
+        if (firstItem <= lastItem) {
+            // subtrees between the fetched items, in flat order
+            List<Range> subTrees = new ArrayList<>();
+            node.getChildren(firstItem, lastItem - 1).values()
+                    .forEach(child -> subTrees.add(Range.withLength(
+                            nodeStart + node.getOffset(child.indexInParent)
+                                    + 1,
+                            child.subTreeSize)));
+            queries.add(new TreeLevelQuery(node, firstItem,
+                    lastItem - firstItem + 1, depth,
+                    nodeStart + node.getOffset(firstItem), subTrees));
+        }
+
+        for (TreeNode child : node.getChildren(firstContaining, lastItem)
+                .values()) {
+            collectLevelQueries(child,
+                    nodeStart + node.getOffset(child.indexInParent) + 1,
+                    depth + 1, firstRow, lastRow, queries);
+        }
     }
 
     /**
@@ -490,20 +520,19 @@ class HierarchyMapper implements Serializable {
     protected <T> void reorderLevelQueryResultsToFlatOrdering(
             BiConsumer<T, Integer> rangePositionCallback, TreeLevelQuery query,
             List<T> results) {
-        AtomicInteger nextPossibleIndex = new AtomicInteger(
-                query.firstRowIndex);
+        int nextPossibleIndex = query.firstRowIndex;
+        Iterator<Range> subTrees = query.subTrees.iterator();
+        Range nextSubTree = subTrees.hasNext() ? subTrees.next() : null;
         for (T item : results) {
-            // search for any intersecting subtrees and push index if necessary
-            query.subTrees.stream().filter(
-                    subTree -> subTree.startIndex <= nextPossibleIndex.get()
-                            && nextPossibleIndex.get() <= subTree.getEndIndex())
-                    .findAny().ifPresent(intersecting -> {
-                        nextPossibleIndex.addAndGet(intersecting.getEndIndex()
-                                - intersecting.startIndex + 1);
-                        query.subTrees.remove(intersecting);
-                    });
-            rangePositionCallback.accept(item,
-                    nextPossibleIndex.getAndIncrement());
+            // skip any subtree starting at this index
+            while (nextSubTree != null
+                    && nextSubTree.getStart() <= nextPossibleIndex) {
+                if (nextSubTree.contains(nextPossibleIndex)) {
+                    nextPossibleIndex = nextSubTree.getEnd();
+                }
+                nextSubTree = subTrees.hasNext() ? subTrees.next() : null;
+            }
+            rangePositionCallback.accept(item, nextPossibleIndex++);
         }
     }
 
@@ -514,13 +543,13 @@ class HierarchyMapper implements Serializable {
      * @return the parent index or {@code null} for top-level items
      */
     public Integer getParentIndex(int rowIndex) {
-        return nodes.stream()
-                .filter(treeNode -> treeNode.getParentKey() != null
-                        && treeNode.getStartIndex() <= rowIndex
-                        && treeNode.getEndIndex() >= rowIndex)
-                .min((a, b) -> Math.min(a.getEndIndex() - a.getStartIndex(),
-                        b.getEndIndex() - b.getStartIndex()))
-                .map(treeNode -> treeNode.getStartIndex() - 1)
-                .orElse(null);
+        if (rowIndex < 0 || rowIndex >= getTreeSize()) {
+            return null;
+        }
+        TreeNode node = findNode(rowIndex, new int[1]);
+        if (node.parentKey == null) {
+            return null;
+        }
+        return node.getStartIndex() - 1;
     }
 }
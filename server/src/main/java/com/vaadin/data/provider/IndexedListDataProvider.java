@@ -0,0 +1,340 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.vaadin.server.SerializableComparator;
+import com.vaadin.server.SerializablePredicate;
+
+/**
+ * A {@link ListDataProvider} that caches the filtered and sorted view of the
+ * items for each combination of query filter and in-memory sorting used in
+ * queries. Fetching a page of items and querying the size of a cached view
+ * does not need to filter or sort the backing collection again.
+ * <p>
+ * The cached views are kept up to date incrementally when an item is
+ * refreshed with {@link #refreshItem(Object)} or when items are added or
+ * removed through {@link #addItem(Object)} and {@link #removeItem(Object)}.
+ * All cached views are discarded by {@link #refreshAll()}, which must be
+ * called after modifying the backing collection directly. Items that compare
+ * as equal may end up in a different order after an incremental update than
+ * after sorting the whole collection.
+ * <p>
+ * Views are cached based on the identity of the query filter and comparator.
+ * This matches how e.g. {@link DataCommunicator} reuses the same instances
+ * for consecutive queries. At most {@value #MAX_CACHED_VIEWS} views are
+ * cached at a time.
+ *
+ * @param <T>
+ *            data type
+ * @since 8.1
+ */
+public class IndexedListDataProvider<T> extends ListDataProvider<T> {
+
+    /**
+     * The maximum number of views to keep in the cache.
+     */
+    public static final int MAX_CACHED_VIEWS = 16;
+
+    /**
+     * Filtered and sorted items for one combination of query filter and
+     * comparator.
+     */
+    private static class View<T> implements Serializable {
+        private final SerializablePredicate<T> queryFilter;
+        private final Comparator<T> comparator;
+        private List<T> items;
+
+        private View(SerializablePredicate<T> queryFilter,
+                Comparator<T> comparator) {
+            this.queryFilter = queryFilter;
+            this.comparator = comparator;
+        }
+    }
+
+    /**
+     * Cache key comparing the filter and the sorting of a query by identity.
+     */
+    private static class ViewKey implements Serializable {
+        private final Object filter;
+        private final Object sorting;
+
+        private ViewKey(Object filter, Object sorting) {
+            this.filter = filter;
+            this.sorting = sorting;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ViewKey)) {
+                return false;
+            }
+            ViewKey other = (ViewKey) obj;
+            return filter == other.filter && sorting == other.sorting;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(filter)
+                    + System.identityHashCode(sorting);
+        }
+    }
+
+    /**
+     * Least recently used cache of views.
+     */
+    private static class ViewCache<T> extends LinkedHashMap<ViewKey, View<T>> {
+
+        private ViewCache() {
+            super(MAX_CACHED_VIEWS, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(
+                Map.Entry<ViewKey, View<T>> eldest) {
+            return size() > MAX_CACHED_VIEWS;
+        }
+    }
+
+    /**
+     * Cached views, not serialized since the cache keys compare the filters
+     * and comparators by identity.
+     */
+    private transient ViewCache<T> views;
+
+    /**
+     * Constructs a new IndexedListDataProvider.
+     * <p>
+     * No protective copy is made of the list, and changes in the provided
+     * backing Collection will be visible via this data provider after calling
+     * {@link #refreshAll()}. The caller should copy the list if necessary.
+     *
+     * @param items
+     *            the initial data, not null
+     */
+    public IndexedListDataProvider(Collection<T> items) {
+        super(items);
+    }
+
+    private ViewCache<T> getViews() {
+        if (views == null) {
+            views = new ViewCache<>();
+        }
+        return views;
+    }
+
+    @Override
+    public Stream<T> fetch(Query<T, SerializablePredicate<T>> query) {
+        List<T> items = getView(query).items;
+
+        int from = Math.min(query.getOffset(), items.size());
+        int to = (int) Math.min((long) from + query.getLimit(), items.size());
+
+        // Copy the page so that later updates to the view do not affect a
+        // stream that has not yet been consumed
+        return new ArrayList<>(items.subList(from, to)).stream();
+    }
+
+    @Override
+    public int size(Query<T, SerializablePredicate<T>> query) {
+        return getView(query).items.size();
+    }
+
+    @Override
+    public void refreshAll() {
+        getViews().clear();
+        super.refreshAll();
+    }
+
+    @Override
+    public void refreshItem(T item) {
+        Objects.requireNonNull(item, "item cannot be null");
+        for (Iterator<View<T>> iterator = getViews().values().iterator(); iterator
+                .hasNext();) {
+            View<T> view = iterator.next();
+            if (!updateItem(view, item)) {
+                iterator.remove();
+            }
+        }
+        super.refreshItem(item);
+    }
+
+    /**
+     * Adds an item to the backing collection and updates the cached views
+     * without filtering and sorting the whole collection again.
+     *
+     * @param item
+     *            the item to add, not null
+     */
+    public void addItem(T item) {
+        Objects.requireNonNull(item, "item cannot be null");
+        getItems().add(item);
+
+        boolean appendedLast = getItems() instanceof List;
+        for (Iterator<View<T>> iterator = getViews().values().iterator(); iterator
+                .hasNext();) {
+            View<T> view = iterator.next();
+            if (!matches(view, item)) {
+                continue;
+            }
+            if (view.comparator != null) {
+                insertSorted(view, item);
+            } else if (appendedLast) {
+                view.items.add(item);
+            } else {
+                // Position in an unsorted view depends on the collection
+                iterator.remove();
+            }
+        }
+        fireEvent(new DataChangeEvent<>(this));
+    }
+
+    /**
+     * Removes an item from the backing collection and updates the cached views
+     * without filtering and sorting the whole collection again.
+     *
+     * @param item
+     *            the item to remove, not null
+     */
+    public void removeItem(T item) {
+        Objects.requireNonNull(item, "item cannot be null");
+        getItems().remove(item);
+
+        for (View<T> view : getViews().values()) {
+            int index = indexOf(view, item);
+            if (index >= 0) {
+                view.items.remove(index);
+            }
+        }
+        fireEvent(new DataChangeEvent<>(this));
+    }
+
+    private View<T> getView(Query<T, SerializablePredicate<T>> query) {
+        SerializablePredicate<T> queryFilter = query.getFilter().orElse(null);
+        Comparator<T> querySorting = query.getInMemorySorting();
+
+        ViewKey key = new ViewKey(queryFilter, querySorting);
+        View<T> view = getViews().get(key);
+        if (view == null) {
+            Optional<Comparator<T>> comparing = Stream
+                    .of(querySorting, getSortComparator())
+                    .filter(c -> c != null)
+                    .reduce(IndexedListDataProvider::thenComparing);
+            view = new View<>(queryFilter, comparing.orElse(null));
+
+            SerializablePredicate<T> filter = getFilter();
+            Stream<T> stream = getItems().stream()
+                    .filter(t -> matches(filter, queryFilter, t));
+            if (view.comparator != null) {
+                stream = stream.sorted(view.comparator);
+            }
+            view.items = stream
+                    .collect(Collectors.toCollection(ArrayList::new));
+
+            getViews().put(key, view);
+        }
+        return view;
+    }
+
+    private static <T> Comparator<T> thenComparing(Comparator<T> c1,
+            Comparator<T> c2) {
+        return (SerializableComparator<T>) (a, b) -> {
+            int result = c1.compare(a, b);
+            return result != 0 ? result : c2.compare(a, b);
+        };
+    }
+
+    /**
+     * Updates the position of the given item in the view.
+     *
+     * @return <code>true</code> if the view was updated, <code>false</code> if
+     *         the view must be discarded
+     */
+    private boolean updateItem(View<T> view, T item) {
+        int index = indexOf(view, item);
+        boolean matches = matches(view, item);
+
+        if (index < 0) {
+            if (!matches) {
+                return true;
+            }
+            if (view.comparator == null) {
+                // Position in an unsorted view depends on the collection
+                return false;
+            }
+            insertSorted(view, item);
+        } else if (!matches) {
+            view.items.remove(index);
+        } else if (view.comparator == null || isInOrder(view, index, item)) {
+            view.items.set(index, item);
+        } else {
+            view.items.remove(index);
+            insertSorted(view, item);
+        }
+        return true;
+    }
+
+    private boolean isInOrder(View<T> view, int index, T item) {
+        List<T> items = view.items;
+        return (index == 0
+                || view.comparator.compare(items.get(index - 1), item) <= 0)
+                && (index == items.size() - 1 || view.comparator
+                        .compare(item, items.get(index + 1)) <= 0);
+    }
+
+    private void insertSorted(View<T> view, T item) {
+        int index = Collections.binarySearch(view.items, item,
+                view.comparator);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        view.items.add(index, item);
+    }
+
+    private int indexOf(View<T> view, T item) {
+        Object id = getId(item);
+        List<T> items = view.items;
+        for (int i = 0; i < items.size(); i++) {
+            if (Objects.equals(id, getId(items.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean matches(View<T> view, T item) {
+        return matches(getFilter(), view.queryFilter, item);
+    }
+
+    private static <T> boolean matches(SerializablePredicate<T> filter,
+            SerializablePredicate<T> queryFilter, T item) {
+        return (filter == null || filter.test(item))
+                && (queryFilter == null || queryFilter.test(item));
+    }
+}
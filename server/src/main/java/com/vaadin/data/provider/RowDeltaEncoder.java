@@ -0,0 +1,132 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.io.Serializable;
+
+import com.vaadin.server.JsonCodec;
+import com.vaadin.shared.data.DataCommunicatorClientRpc;
+import com.vaadin.shared.data.DataCommunicatorConstants;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * Computes the row deltas sent with
+ * {@link DataCommunicatorClientRpc#updateDataDelta(JsonArray)}.
+ * <p>
+ * Top level values and values of top level objects are compared separately,
+ * so that changing one cell of a grid row only sends the value of that cell.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+final class RowDeltaEncoder implements Serializable {
+
+    private RowDeltaEncoder() {
+        // Static helpers only
+    }
+
+    /**
+     * Computes the delta that turns the old row object into the new one.
+     *
+     * @param oldRow
+     *            the row object last sent to the client, not <code>null</code>
+     * @param newRow
+     *            the regenerated row object, not <code>null</code>
+     * @return the delta, or <code>null</code> if the row objects are equal
+     */
+    static JsonObject diff(JsonObject oldRow, JsonObject newRow) {
+        JsonObject changes = Json.createObject();
+        JsonArray removed = Json.createArray();
+
+        for (String key : newRow.keys()) {
+            JsonValue newValue = newRow.get(key);
+            if (!oldRow.hasKey(key)) {
+                changes.put(key, newValue);
+                continue;
+            }
+            JsonValue oldValue = oldRow.get(key);
+            if (isObject(oldValue) && isObject(newValue)) {
+                JsonObject nestedChanges = diffNested(key,
+                        (JsonObject) oldValue, (JsonObject) newValue, removed);
+                if (nestedChanges.keys().length > 0) {
+                    changes.put(key, nestedChanges);
+                }
+            } else if (!valueEquals(oldValue, newValue)) {
+                changes.put(key, newValue);
+            }
+        }
+        for (String key : oldRow.keys()) {
+            if (!newRow.hasKey(key)) {
+                addPath(removed, key);
+            }
+        }
+
+        if (changes.keys().length == 0 && removed.length() == 0) {
+            return null;
+        }
+
+        JsonObject delta = Json.createObject();
+        delta.put(DataCommunicatorConstants.KEY,
+                newRow.getString(DataCommunicatorConstants.KEY));
+        delta.put(DataCommunicatorConstants.DELTA_CHANGES, changes);
+        if (removed.length() > 0) {
+            delta.put(DataCommunicatorConstants.DELTA_REMOVED, removed);
+        }
+        return delta;
+    }
+
+    private static JsonObject diffNested(String key, JsonObject oldObject,
+            JsonObject newObject, JsonArray removed) {
+        JsonObject changes = Json.createObject();
+        for (String nestedKey : newObject.keys()) {
+            JsonValue newValue = newObject.get(nestedKey);
+            if (!oldObject.hasKey(nestedKey)
+                    || !valueEquals(oldObject.get(nestedKey), newValue)) {
+                changes.put(nestedKey, newValue);
+            }
+        }
+        for (String nestedKey : oldObject.keys()) {
+            if (!newObject.hasKey(nestedKey)) {
+                addPath(removed, key, nestedKey);
+            }
+        }
+        return changes;
+    }
+
+    private static void addPath(JsonArray paths, String... path) {
+        JsonArray pathArray = Json.createArray();
+        for (int i = 0; i < path.length; i++) {
+            pathArray.set(i, path[i]);
+        }
+        paths.set(paths.length(), pathArray);
+    }
+
+    private static boolean valueEquals(JsonValue a, JsonValue b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return JsonCodec.jsonEquals(a, b);
+    }
+
+    private static boolean isObject(JsonValue value) {
+        return value != null && value.getType() == JsonType.OBJECT;
+    }
+}
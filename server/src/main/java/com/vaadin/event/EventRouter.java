@@ -20,9 +20,11 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EventObject;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Logger;
 
@@ -46,6 +48,12 @@ public class EventRouter implements MethodEventSource {
      */
     private LinkedHashSet<ListenerMethod> listenerList = null;
 
+    /**
+     * Listeners to notify for each fired event class, in registration order.
+     * Cleared whenever the registered listeners change.
+     */
+    private transient Map<Class<?>, ListenerMethod[]> dispatchCache;
+
     /*
      * Registers a new listener with the specified activation method to listen
      * events generated by this component. Don't add a JavaDoc comment here, we
@@ -61,7 +69,8 @@ public class EventRouter implements MethodEventSource {
         ListenerMethod listenerMethod = new ListenerMethod(eventType, object,
                 method);
         listenerList.add(listenerMethod);
-        return () -> listenerList.remove(listenerMethod);
+        dispatchCache = null;
+        return () -> removeListenerMethod(listenerMethod);
     }
 
     /*
@@ -79,7 +88,8 @@ public class EventRouter implements MethodEventSource {
         ListenerMethod listenerMethod = new ListenerMethod(eventType, object,
                 methodName);
         listenerList.add(listenerMethod);
-        return () -> listenerList.remove(listenerMethod);
+        dispatchCache = null;
+        return () -> removeListenerMethod(listenerMethod);
     }
 
     /*
@@ -95,6 +105,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target)) {
                     i.remove();
+                    dispatchCache = null;
                     return;
                 }
             }
@@ -115,6 +126,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target, method)) {
                     i.remove();
+                    dispatchCache = null;
                     return;
                 }
             }
@@ -149,6 +161,7 @@ public class EventRouter implements MethodEventSource {
                 final ListenerMethod lm = i.next();
                 if (lm.matches(eventType, target, method)) {
                     i.remove();
+                    dispatchCache = null;
                     return;
                 }
             }
@@ -161,6 +174,13 @@ public class EventRouter implements MethodEventSource {
      */
     public void removeAllListeners() {
         listenerList = null;
+        dispatchCache = null;
+    }
+
+    private void removeListenerMethod(ListenerMethod listenerMethod) {
+        if (listenerList != null && listenerList.remove(listenerMethod)) {
+            dispatchCache = null;
+        }
     }
 
     /**
@@ -193,14 +213,13 @@ public class EventRouter implements MethodEventSource {
         // It is not necessary to send any events if there are no listeners
         if (listenerList != null) {
 
-            // Make a copy of the listener list to allow listeners to be added
-            // inside listener methods. Fixes #3605.
-
-            // Send the event to all listeners. The listeners themselves
-            // will filter out unwanted events.
-            final Object[] listeners = listenerList.toArray();
+            // The listeners for the event class are collected into an array
+            // that is not modified afterwards, which allows listeners to be
+            // added inside listener methods. Fixes #3605.
+            final ListenerMethod[] listeners = getListenerMethods(
+                    event.getClass());
             for (int i = 0; i < listeners.length; i++) {
-                ListenerMethod listenerMethod = (ListenerMethod) listeners[i];
+                ListenerMethod listenerMethod = listeners[i];
                 if (null != errorHandler) {
                     try {
                         listenerMethod.receiveEvent(event);
@@ -215,6 +234,25 @@ public class EventRouter implements MethodEventSource {
         }
     }
 
+    /**
+     * Gets the listeners that should receive events of the given class. The
+     * result is cached until the registered listeners change, so that firing
+     * an event does not need to check every registered listener.
+     *
+     * @param eventClass
+     *            the class of the fired event
+     * @return the listeners in registration order, not <code>null</code>
+     */
+    private ListenerMethod[] getListenerMethods(Class<?> eventClass) {
+        if (dispatchCache == null) {
+            dispatchCache = new HashMap<>();
+        }
+        return dispatchCache.computeIfAbsent(eventClass,
+                type -> listenerList.stream()
+                        .filter(lm -> lm.acceptsEventClass(type))
+                        .toArray(ListenerMethod[]::new));
+    }
+
     /**
      * Checks if the given Event type is listened by a listener registered to
      * this router.
@@ -19,6 +19,9 @@ package com.vaadin.event;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.EventListener;
@@ -53,6 +56,11 @@ import java.util.logging.Logger;
 @SuppressWarnings("serial")
 public class ListenerMethod implements EventListener, Serializable {
 
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType INVOKER_TYPE = MethodType
+            .methodType(void.class, Object.class, EventObject.class);
+
     /**
      * Type of the event that should trigger this listener. Also the subclasses
      * of this class are accepted to trigger the listener.
@@ -82,6 +90,15 @@ public class ListenerMethod implements EventListener, Serializable {
      */
     private int eventArgumentIndex;
 
+    /**
+     * Method handle calling the trigger method with the target and the event,
+     * or <code>null</code> if the trigger method is called using reflection.
+     * Resolved when the first event is received.
+     */
+    private transient MethodHandle invoker;
+
+    private transient boolean invokerResolved;
+
     /* Special serialization to handle method references */
     private void writeObject(java.io.ObjectOutputStream out)
             throws IOException {
@@ -504,6 +521,19 @@ public class ListenerMethod implements EventListener, Serializable {
     public void receiveEvent(EventObject event) {
         // Only send events supported by the method
         if (eventType.isAssignableFrom(event.getClass())) {
+            MethodHandle handle = getInvoker();
+            if (handle != null) {
+                try {
+                    handle.invokeExact(target, event);
+                } catch (Throwable t) {
+                    // Wrapped the same way as when invoking using reflection
+                    throw new MethodException(
+                            "Invocation of method " + method.getName() + " in "
+                                    + target.getClass().getName() + " failed.",
+                            t);
+                }
+                return;
+            }
             try {
                 if (eventArgumentIndex >= 0) {
                     if (eventArgumentIndex == 0 && arguments.length == 1) {
@@ -533,6 +563,42 @@ public class ListenerMethod implements EventListener, Serializable {
         }
     }
 
+    /**
+     * Gets a method handle for calling the trigger method directly, without
+     * the argument array copying and access checks of reflective invocation.
+     * Only listeners that take no arguments or just the event, such as the
+     * functional listener interfaces used by components, are called this way.
+     *
+     * @return the method handle, or <code>null</code> if the trigger method
+     *         should be called using reflection
+     */
+    private MethodHandle getInvoker() {
+        if (!invokerResolved) {
+            invoker = createInvoker();
+            invokerResolved = true;
+        }
+        return invoker;
+    }
+
+    private MethodHandle createInvoker() {
+        boolean eventOnly = arguments.length == 1 && eventArgumentIndex == 0;
+        if (arguments.length != 0 && !eventOnly) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            if (!eventOnly) {
+                handle = MethodHandles.dropArguments(handle, 1,
+                        EventObject.class);
+            }
+            return handle.asType(INVOKER_TYPE);
+        } catch (IllegalAccessException e) {
+            // Not accessible as a method handle, e.g. declared in a non-public
+            // class. Use reflection as before.
+            return null;
+        }
+    }
+
     /**
      * Checks if the given object and event match with the ones stored in this
      * listener.
@@ -654,6 +720,18 @@ public class ListenerMethod implements EventListener, Serializable {
         return eventType.isAssignableFrom(this.eventType);
     }
 
+    /**
+     * Checks if events of the given class are passed to the trigger method.
+     *
+     * @param eventClass
+     *            the class of an event
+     * @return true if the event type of this ListenerMethod is the same as or
+     *         a supertype of the given class, false otherwise
+     */
+    boolean acceptsEventClass(Class<?> eventClass) {
+        return eventType.isAssignableFrom(eventClass);
+    }
+
     /**
      * Returns the target object which contains the trigger method.
      *
@@ -24,6 +24,7 @@ import com.vaadin.data.HasValue.ValueChangeEvent;
 import com.vaadin.ui.AbstractMultiSelect;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.MultiSelect;
+import com.vaadin.ui.components.grid.MultiSelectionSet;
 
 /**
  * Event fired when the the selection changes in a
@@ -103,10 +104,19 @@ public class MultiSelectionEvent<T> extends ValueChangeEvent<Set<T>>
      * This is just a convenience method for checking what was previously
      * selected in {@link #getOldSelection()} but not selected anymore in
      * {@link #getNewSelection()}.
+     * <p>
+     * If either selection is a {@link MultiSelectionSet}, the items are not
+     * fetched from the data provider. If all items were selected before, the
+     * result is a {@link MultiSelectionSet} of all items except the ones still
+     * selected.
      *
      * @return the items that were removed from selection
      */
     public Set<T> getRemovedSelection() {
+        if (isLazySelection()) {
+            return MultiSelectionSet.difference(getOldValue(),
+                    getNewSelection());
+        }
         LinkedHashSet<T> copy = new LinkedHashSet<>(getOldValue());
         copy.removeAll(getNewSelection());
         return copy;
@@ -118,15 +128,28 @@ public class MultiSelectionEvent<T> extends ValueChangeEvent<Set<T>>
      * This is just a convenience method for checking what is new selected in
      * {@link #getNewSelection()} and wasn't selected in
      * {@link #getOldSelection()}.
+     * <p>
+     * If either selection is a {@link MultiSelectionSet}, the items are not
+     * fetched from the data provider. If all items are selected now, the
+     * result is a {@link MultiSelectionSet} of all items except the ones
+     * selected before.
      *
      * @return the items that were removed from selection
      */
     public Set<T> getAddedSelection() {
+        if (isLazySelection()) {
+            return MultiSelectionSet.difference(getValue(), getOldValue());
+        }
         LinkedHashSet<T> copy = new LinkedHashSet<>(getValue());
         copy.removeAll(getOldValue());
         return copy;
     }
 
+    private boolean isLazySelection() {
+        return getValue() instanceof MultiSelectionSet
+                || getOldValue() instanceof MultiSelectionSet;
+    }
+
     @Override
     public Optional<T> getFirstSelectedItem() {
         return getValue().stream().findFirst();
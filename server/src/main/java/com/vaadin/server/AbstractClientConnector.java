@@ -15,6 +15,7 @@
  */
 package com.vaadin.server;
 
+import java.beans.IntrospectionException;
 import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Constructor;
@@ -22,19 +23,23 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EventObject;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import com.vaadin.event.EventRouter;
 import com.vaadin.event.MethodEventSource;
+import com.vaadin.server.JsonCodec.BeanProperty;
 import com.vaadin.shared.Registration;
 import com.vaadin.shared.communication.ClientRpc;
 import com.vaadin.shared.communication.ServerRpc;
@@ -42,6 +47,7 @@ import com.vaadin.shared.communication.SharedState;
 import com.vaadin.shared.ui.ComponentStateUtil;
 import com.vaadin.ui.Component;
 import com.vaadin.ui.Component.Event;
+import com.vaadin.ui.ConnectorTracker;
 import com.vaadin.ui.HasComponents;
 import com.vaadin.ui.LegacyComponent;
 import com.vaadin.ui.UI;
@@ -94,6 +100,8 @@ public abstract class AbstractClientConnector
 
     private ErrorHandler errorHandler = null;
 
+    private boolean partialStateEncoding = false;
+
     private static final ConcurrentHashMap<Class<? extends AbstractClientConnector>, Class<? extends SharedState>> stateTypeCache = new ConcurrentHashMap<>();
 
     @Override
@@ -263,14 +271,103 @@ public abstract class AbstractClientConnector
         }
         if (markAsDirty) {
             UI ui = getUI();
-            if (ui != null && !ui.getConnectorTracker().isDirty(this)
-                    && !ui.getConnectorTracker().isWritingResponse()) {
-                ui.getConnectorTracker().markDirty(this);
+            if (ui != null && !ui.getConnectorTracker().isWritingResponse()) {
+                ConnectorTracker tracker = ui.getConnectorTracker();
+                // Connectors with only some state fields marked dirty are
+                // marked dirty again so that the whole state is encoded
+                if (!tracker.isDirty(this)
+                        || tracker.getDirtyFields(this) != null) {
+                    tracker.markDirty(this);
+                }
             }
         }
         return sharedState;
     }
 
+    /**
+     * Sets whether only the changed fields of the shared state are encoded
+     * when the state has been changed using
+     * {@link #markStateFieldsDirty(String...)}.
+     * <p>
+     * When enabled, changes made to other fields through
+     * {@code getState(false)} are not sent to the client until the connector
+     * is marked dirty using {@link #getState()} or {@link #markAsDirty()}.
+     * Only enable this if no code relies on another setter of this connector
+     * to send such changes. When disabled, the whole state is marked dirty
+     * instead.
+     * <p>
+     * The default is <code>false</code>.
+     *
+     * @param partialStateEncoding
+     *            <code>true</code> to only encode the changed state fields,
+     *            <code>false</code> to always encode the whole state
+     * @since 8.1
+     */
+    public void setPartialStateEncoding(boolean partialStateEncoding) {
+        this.partialStateEncoding = partialStateEncoding;
+    }
+
+    /**
+     * Gets whether only the changed fields of the shared state are encoded.
+     *
+     * @return <code>true</code> if only the changed state fields are encoded,
+     *         <code>false</code> if the whole state is always encoded
+     * @see #setPartialStateEncoding(boolean)
+     * @since 8.1
+     */
+    public boolean isPartialStateEncoding() {
+        return partialStateEncoding;
+    }
+
+    /**
+     * Marks the given top level fields of the shared state as changed. This
+     * is an alternative to {@link #getState()} for setters that update the
+     * state using {@code getState(false)}.
+     * <p>
+     * If {@link #setPartialStateEncoding(boolean) partial state encoding} is
+     * enabled and the connector is only marked dirty using this method, only
+     * the given fields are encoded and sent to the client instead of
+     * comparing the whole state to the state previously sent to the client.
+     * Any other state changes are not sent until the connector is marked dirty
+     * using {@link #getState()} or {@link #markAsDirty()}. Otherwise, this
+     * marks the whole state dirty like {@link #getState()}.
+     *
+     * @param fieldNames
+     *            the names of the changed fields of the shared state
+     * @since 8.1
+     */
+    protected void markStateFieldsDirty(String... fieldNames) {
+        assert getSession() == null
+                || getSession().hasLock() : buildLockAssertMessage(
+                        "markStateFieldsDirty()");
+        assert hasStateFields(fieldNames) : "The state of "
+                + getClass().getName() + " does not have all the fields "
+                + Arrays.toString(fieldNames);
+
+        if (!isPartialStateEncoding()) {
+            getState();
+            return;
+        }
+
+        UI ui = getUI();
+        if (ui != null && !ui.getConnectorTracker().isWritingResponse()) {
+            ui.getConnectorTracker().markDirtyFields(this, fieldNames);
+        }
+    }
+
+    private boolean hasStateFields(String... fieldNames) {
+        try {
+            Set<String> properties = new HashSet<>();
+            for (BeanProperty property : JsonCodec
+                    .getProperties(getStateType())) {
+                properties.add(property.getName());
+            }
+            return properties.containsAll(Arrays.asList(fieldNames));
+        } catch (IntrospectionException e) {
+            return false;
+        }
+    }
+
     @Override
     public JsonObject encodeState() {
         return LegacyCommunicationManager.encodeState(this, getState(false));
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the tasks run through {@link VaadinSession#access(Runnable)}
+ * and the locking of a session. The statistics are updated without holding the
+ * session lock and can be read from any thread.
+ *
+ * @see VaadinSession#getAccessQueueStatistics()
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+public class AccessQueueStatistics implements Serializable {
+
+    private final AtomicLong enqueuedTaskCount = new AtomicLong();
+    private final AtomicLong executedTaskCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong largestBatchSize = new AtomicLong();
+    private final AtomicLong lockCount = new AtomicLong();
+    private final AtomicLong lockWaitNanos = new AtomicLong();
+    private final AtomicLong longestLockWaitNanos = new AtomicLong();
+
+    void taskEnqueued() {
+        enqueuedTaskCount.incrementAndGet();
+    }
+
+    void batchExecuted(int size) {
+        batchCount.incrementAndGet();
+        executedTaskCount.addAndGet(size);
+        updateMax(largestBatchSize, size);
+    }
+
+    void lockAcquired(long waitNanos) {
+        lockCount.incrementAndGet();
+        lockWaitNanos.addAndGet(waitNanos);
+        updateMax(longestLockWaitNanos, waitNanos);
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while ((current = max.get()) < value
+                && !max.compareAndSet(current, value)) {
+            // Retry until the value is stored or a larger value is present
+        }
+    }
+
+    /**
+     * Gets the number of tasks that have been enqueued for the session.
+     *
+     * @return the number of enqueued tasks
+     */
+    public long getEnqueuedTaskCount() {
+        return enqueuedTaskCount.get();
+    }
+
+    /**
+     * Gets the number of tasks that have been run or discarded because they
+     * were cancelled.
+     *
+     * @return the number of executed tasks
+     */
+    public long getExecutedTaskCount() {
+        return executedTaskCount.get();
+    }
+
+    /**
+     * Gets the number of tasks that have been enqueued but not yet executed.
+     *
+     * @return the current queue depth
+     */
+    public long getQueueDepth() {
+        return Math.max(0, getEnqueuedTaskCount() - getExecutedTaskCount());
+    }
+
+    /**
+     * Gets the number of times the queue has been purged. All tasks that are
+     * in the queue when it is purged are executed while holding the session
+     * lock once.
+     *
+     * @return the number of batches
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Gets the largest number of tasks that have been executed in one batch,
+     * i.e. the deepest the queue has been when it has been purged.
+     *
+     * @return the largest batch size
+     */
+    public long getLargestBatchSize() {
+        return largestBatchSize.get();
+    }
+
+    /**
+     * Gets the number of times the session lock has been acquired using
+     * {@link VaadinSession#lock()}.
+     *
+     * @return the number of lock acquisitions
+     */
+    public long getLockCount() {
+        return lockCount.get();
+    }
+
+    /**
+     * Gets the total time threads have waited for the session lock in
+     * {@link VaadinSession#lock()}.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the total lock wait time
+     */
+    public long getLockWaitTime(TimeUnit unit) {
+        return unit.convert(lockWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the longest time a thread has waited for the session lock in
+     * {@link VaadinSession#lock()}.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the longest lock wait time
+     */
+    public long getLongestLockWaitTime(TimeUnit unit) {
+        return unit.convert(longestLockWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+}
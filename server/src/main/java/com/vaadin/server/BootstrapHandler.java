@@ -18,11 +18,13 @@ package com.vaadin.server;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -50,6 +52,7 @@ import com.vaadin.shared.ApplicationConstants;
 import com.vaadin.shared.VaadinUriResolver;
 import com.vaadin.shared.Version;
 import com.vaadin.shared.communication.PushMode;
+import com.vaadin.shared.ui.ui.UIConstants;
 import com.vaadin.ui.Dependency;
 import com.vaadin.ui.Dependency.Type;
 import com.vaadin.ui.UI;
@@ -77,6 +80,13 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
      */
     public static final String IGNORE_RESTART_PARAM = "ignoreRestart";
 
+    /**
+     * The maximum number of pre-rendered bootstrap pages kept in memory.
+     */
+    private static final int MAX_PAGE_TEMPLATES = 100;
+
+    private transient Map<List<Object>, BootstrapPageTemplate> pageTemplates;
+
     /**
      * Provides context information for the bootstrap process.
      */
@@ -416,7 +426,23 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
                     bootstrapResponse);
             bootstrapResponse.setUriResolver(context.getUriResolver());
 
-            setupMainDiv(context);
+            if (isEagerInit(context)) {
+                JsonObject initParameters = initUI(context);
+                if (initParameters != null) {
+                    JsonObject appConfig = context.getApplicationParameters();
+                    for (String key : initParameters.keys()) {
+                        appConfig.put(key, initParameters.get(key));
+                    }
+                    appConfig.put(UIConstants.BROWSER_DETAILS_PENDING, true);
+                }
+            }
+
+            if (isBootstrapPageCacheable(context)) {
+                writeCachedBootstrapPage(context);
+                return true;
+            }
+
+            setupMainDiv(context, false);
 
             BootstrapFragmentResponse fragmentResponse = context
                     .getBootstrapResponse();
@@ -442,19 +468,7 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
 
         if (vaadinService.isStandalone(request)) {
             Map<String, Object> headers = new LinkedHashMap<>();
-            Document document = Document.createShell("");
-            BootstrapPageResponse pageResponse = new BootstrapPageResponse(this,
-                    request, context.getSession(), context.getUIClass(),
-                    document, headers, fragmentResponse.getUIProvider());
-            pageResponse.setUriResolver(context.getUriResolver());
-            List<Node> fragmentNodes = fragmentResponse.getFragmentNodes();
-            Element body = document.body();
-            for (Node node : fragmentNodes) {
-                body.appendChild(node);
-            }
-
-            setupStandaloneDocument(context, pageResponse);
-            context.getSession().modifyBootstrapResponse(pageResponse);
+            Document document = createStandaloneDocument(context, headers);
 
             sendBootstrapHeaders(response, headers);
 
@@ -472,6 +486,175 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
         }
     }
 
+    /**
+     * Checks whether the UI should be initialized already while serving the
+     * bootstrap page. UIs that are preserved on refresh are always initialized
+     * in a separate request, since finding the preserved UI requires the
+     * window name of the browser.
+     *
+     * @param context
+     *            the bootstrap context
+     * @return <code>true</code> to initialize the UI eagerly,
+     *         <code>false</code> to let the client request initialization
+     */
+    private boolean isEagerInit(BootstrapContext context) {
+        VaadinRequest request = context.getRequest();
+        VaadinService service = request.getService();
+        if (!service.getDeploymentConfiguration().isEagerInitEnabled()) {
+            return false;
+        }
+        return !service.preserveUIOnRefresh(
+                context.getBootstrapResponse().getUIProvider(),
+                new UICreateEvent(request, context.getUIClass()));
+    }
+
+    /**
+     * Initializes the UI while serving the bootstrap page. The returned
+     * parameters, containing the UI id and the initial UIDL, are included in
+     * the application parameters so that the client can render the UI without
+     * a separate initialization request.
+     * <p>
+     * This implementation does not support eager initialization and returns
+     * <code>null</code>.
+     *
+     * @param context
+     *            the bootstrap context
+     * @return the UI initialization parameters, or <code>null</code> to let
+     *         the client request initialization separately
+     * @throws IOException
+     *             if the initial UIDL cannot be written
+     * @since 8.1
+     */
+    protected JsonObject initUI(BootstrapContext context) throws IOException {
+        return null;
+    }
+
+    private Document createStandaloneDocument(BootstrapContext context,
+            Map<String, Object> headers) {
+        BootstrapFragmentResponse fragmentResponse = context
+                .getBootstrapResponse();
+
+        Document document = Document.createShell("");
+        BootstrapPageResponse pageResponse = new BootstrapPageResponse(this,
+                context.getRequest(), context.getSession(),
+                context.getUIClass(), document, headers,
+                fragmentResponse.getUIProvider());
+        pageResponse.setUriResolver(context.getUriResolver());
+        List<Node> fragmentNodes = fragmentResponse.getFragmentNodes();
+        Element body = document.body();
+        for (Node node : fragmentNodes) {
+            body.appendChild(node);
+        }
+
+        setupStandaloneDocument(context, pageResponse);
+        context.getSession().modifyBootstrapResponse(pageResponse);
+
+        return document;
+    }
+
+    /**
+     * Checks whether the bootstrap page for the given context can be served
+     * from a pre-rendered template. This is the case for standalone pages when
+     * there are no bootstrap listeners that could modify the page.
+     *
+     * @param context
+     *            the bootstrap context
+     * @return <code>true</code> if a cached page template can be used,
+     *         <code>false</code> to render the page from scratch
+     */
+    private boolean isBootstrapPageCacheable(BootstrapContext context) {
+        VaadinRequest request = context.getRequest();
+        return request.getService().isStandalone(request)
+                && !context.getSession().hasBootstrapListeners();
+    }
+
+    private void writeCachedBootstrapPage(BootstrapContext context)
+            throws IOException {
+        // Published dependencies are registered separately for each session.
+        // Dependency filters may also give different results for each
+        // session, so the filtered dependencies are part of the key.
+        List<Dependency> dependencies = Dependency.findDependencies(
+                Collections.singletonList(context.getUIClass()),
+                context.getSession().getCommunicationManager(),
+                new FilterContext(context.getSession()));
+        List<Object> key = getPageTemplateKey(context, dependencies);
+        Map<List<Object>, BootstrapPageTemplate> templates = getPageTemplates();
+        BootstrapPageTemplate template = templates.get(key);
+        if (template == null) {
+            setupMainDiv(context, true);
+            Map<String, Object> headers = new LinkedHashMap<>();
+            Document document = createStandaloneDocument(context, headers);
+            template = BootstrapPageTemplate.create(document.outerHtml(),
+                    headers);
+            templates.put(key, template);
+        }
+
+        StringBuilder mainScript = new StringBuilder();
+        appendMainScriptTagContents(context, mainScript);
+
+        VaadinResponse response = context.getResponse();
+        sendBootstrapHeaders(response, template.getHeaders());
+        response.setContentType(
+                ApplicationConstants.CONTENT_TYPE_TEXT_HTML_UTF_8);
+        try (OutputStream out = response.getOutputStream()) {
+            template.write(out, mainScript.toString());
+        }
+    }
+
+    /**
+     * Gets the key of the page template for the given context. Besides the UI
+     * class, theme and widgetset, the key contains all request specific values
+     * that are rendered outside the main script tag, including the resolved
+     * theme URI and the URLs of the filtered dependencies.
+     */
+    private List<Object> getPageTemplateKey(BootstrapContext context,
+            List<Dependency> dependencies) {
+        VaadinRequest request = context.getRequest();
+        JsonObject parameters = context.getApplicationParameters();
+        String themeName = context.getThemeName();
+        String themeUri = themeName != null ? getThemeUri(context, themeName)
+                : null;
+        List<String> dependencyUrls = new ArrayList<>();
+        for (Dependency dependency : dependencies) {
+            dependencyUrls.add(dependency.getType() + " " + context
+                    .getUriResolver().resolveVaadinUri(dependency.getUrl()));
+        }
+        return Arrays.asList(context.getUIClass(), themeName, themeUri,
+                dependencyUrls,
+                context.getWidgetsetInfo().getWidgetsetName(),
+                context.getAppId(), context.getPushMode(),
+                context.getSession().getConfiguration().isProductionMode(),
+                request.getService().getStaticFileLocation(request),
+                getStringOrNull(parameters,
+                        ApplicationConstants.CONTEXT_ROOT_URL),
+                getStringOrNull(parameters, ApplicationConstants.SERVICE_URL),
+                getStringOrNull(parameters,
+                        ApplicationConstants.FRONTEND_URL),
+                getMainDivStyle(context), getViewportContent(context),
+                getPageTitle(context));
+    }
+
+    private Map<List<Object>, BootstrapPageTemplate> getPageTemplates() {
+        synchronized (this) {
+            if (pageTemplates == null) {
+                pageTemplates = Collections.synchronizedMap(
+                        new LinkedHashMap<List<Object>, BootstrapPageTemplate>(
+                                16, 0.75f, true) {
+                            @Override
+                            protected boolean removeEldestEntry(
+                                    Entry<List<Object>, BootstrapPageTemplate> eldest) {
+                                return size() > MAX_PAGE_TEMPLATES;
+                            }
+                        });
+            }
+            return pageTemplates;
+        }
+    }
+
+    private static String getStringOrNull(JsonObject object, String key) {
+        return object.hasKey(key) ? object.getString(key) : null;
+    }
+
     private void sendBootstrapHeaders(VaadinResponse response,
             Map<String, Object> headers) {
         Set<Entry<String, Object>> entrySet = headers.entrySet();
@@ -521,43 +704,13 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
         head.appendElement("meta").attr("http-equiv", "X-UA-Compatible")
                 .attr("content", "IE=11;chrome=1");
 
-        Class<? extends UI> uiClass = context.getUIClass();
-
-        String viewportContent = null;
-        Viewport viewportAnnotation = uiClass.getAnnotation(Viewport.class);
-        ViewportGeneratorClass viewportGeneratorClassAnnotation = uiClass
-                .getAnnotation(ViewportGeneratorClass.class);
-        if (viewportAnnotation != null
-                && viewportGeneratorClassAnnotation != null) {
-            throw new IllegalStateException(uiClass.getCanonicalName()
-                    + " cannot be annotated with both @"
-                    + Viewport.class.getSimpleName() + " and @"
-                    + ViewportGeneratorClass.class.getSimpleName());
-        }
-
-        if (viewportAnnotation != null) {
-            viewportContent = viewportAnnotation.value();
-        } else if (viewportGeneratorClassAnnotation != null) {
-            Class<? extends ViewportGenerator> viewportGeneratorClass = viewportGeneratorClassAnnotation
-                    .value();
-            try {
-                viewportContent = viewportGeneratorClass.newInstance()
-                        .getViewport(context.getRequest());
-            } catch (Exception e) {
-                throw new RuntimeException(
-                        "Error processing viewport generator "
-                                + viewportGeneratorClass.getCanonicalName(),
-                        e);
-            }
-        }
-
+        String viewportContent = getViewportContent(context);
         if (viewportContent != null) {
             head.appendElement("meta").attr("name", "viewport").attr("content",
                     viewportContent);
         }
 
-        String title = response.getUIProvider().getPageTitle(
-                new UICreateEvent(context.getRequest(), context.getUIClass()));
+        String title = getPageTitle(context);
         if (title != null) {
             head.appendElement("title").appendText(title);
         }
@@ -577,6 +730,7 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
                     .attr("href", themeUri + "/favicon.ico");
         }
 
+        Class<? extends UI> uiClass = context.getUIClass();
         Collection<? extends Dependency> deps = Dependency.findDependencies(
                 Collections.singletonList(uiClass),
                 context.getSession().getCommunicationManager(),
@@ -605,6 +759,45 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
         body.addClass(ApplicationConstants.GENERATED_BODY_CLASSNAME);
     }
 
+    private String getViewportContent(BootstrapContext context) {
+        Class<? extends UI> uiClass = context.getUIClass();
+
+        String viewportContent = null;
+        Viewport viewportAnnotation = uiClass.getAnnotation(Viewport.class);
+        ViewportGeneratorClass viewportGeneratorClassAnnotation = uiClass
+                .getAnnotation(ViewportGeneratorClass.class);
+        if (viewportAnnotation != null
+                && viewportGeneratorClassAnnotation != null) {
+            throw new IllegalStateException(uiClass.getCanonicalName()
+                    + " cannot be annotated with both @"
+                    + Viewport.class.getSimpleName() + " and @"
+                    + ViewportGeneratorClass.class.getSimpleName());
+        }
+
+        if (viewportAnnotation != null) {
+            viewportContent = viewportAnnotation.value();
+        } else if (viewportGeneratorClassAnnotation != null) {
+            Class<? extends ViewportGenerator> viewportGeneratorClass = viewportGeneratorClassAnnotation
+                    .value();
+            try {
+                viewportContent = viewportGeneratorClass.newInstance()
+                        .getViewport(context.getRequest());
+            } catch (Exception e) {
+                throw new RuntimeException(
+                        "Error processing viewport generator "
+                                + viewportGeneratorClass.getCanonicalName(),
+                        e);
+            }
+        }
+
+        return viewportContent;
+    }
+
+    private String getPageTitle(BootstrapContext context) {
+        return context.getBootstrapResponse().getUIProvider().getPageTitle(
+                new UICreateEvent(context.getRequest(), context.getUIClass()));
+    }
+
     private static Logger getLogger() {
         return Logger.getLogger(BootstrapHandler.class.getName());
     }
@@ -638,10 +831,14 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
      * rendered.
      *
      * @param context
+     * @param template
+     *            <code>true</code> to write a placeholder instead of the
+     *            contents of the main script when rendering a page template
      *
      * @throws IOException
      */
-    private void setupMainDiv(BootstrapContext context) throws IOException {
+    private void setupMainDiv(BootstrapContext context, boolean template)
+            throws IOException {
         String style = getMainDivStyle(context);
 
         /*- Add classnames;
@@ -707,7 +904,11 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
                 "Failed to load the bootstrap javascript: " + bootstrapLocation)
                 + ");\n");
 
-        appendMainScriptTagContents(context, builder);
+        if (template) {
+            builder.append(BootstrapPageTemplate.MAIN_SCRIPT_PLACEHOLDER);
+        } else {
+            appendMainScriptTagContents(context, builder);
+        }
 
         builder.append("//]]>");
         mainScriptTag.appendChild(
@@ -746,11 +947,15 @@ public abstract class BootstrapHandler extends SynchronizedRequestHandler {
 
     private static void appendJsonObject(StringBuilder builder,
             JsonObject jsonObject, boolean isDebug) {
+        String json;
         if (isDebug) {
-            builder.append(JsonUtil.stringify(jsonObject, 4));
+            json = JsonUtil.stringify(jsonObject, 4);
         } else {
-            builder.append(JsonUtil.stringify(jsonObject));
+            json = JsonUtil.stringify(jsonObject);
         }
+        // "<" can only occur inside strings, e.g. in the initial UIDL, where
+        // "</script>" would otherwise end the script tag
+        builder.append(json.replace("<", "\\u003C"));
     }
 
     protected JsonObject getApplicationParameters(BootstrapContext context) {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A pre-rendered standalone bootstrap page, used by {@link BootstrapHandler}
+ * to avoid building the page document for every initial request. The page is
+ * stored as UTF-8 encoded bytes before and after the contents of the main
+ * script tag, which are written separately for each request since they
+ * contain the per-session application parameters.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+final class BootstrapPageTemplate implements Serializable {
+
+    /**
+     * Written instead of the main script tag contents when rendering the
+     * template.
+     */
+    static final String MAIN_SCRIPT_PLACEHOLDER = "__vaadinBootstrapMainScript__";
+
+    private final byte[] head;
+    private final byte[] tail;
+    private final Map<String, Object> headers;
+
+    private BootstrapPageTemplate(byte[] head, byte[] tail,
+            Map<String, Object> headers) {
+        this.head = head;
+        this.tail = tail;
+        this.headers = headers;
+    }
+
+    /**
+     * Creates a template from a rendered bootstrap page.
+     *
+     * @param html
+     *            the bootstrap page HTML, containing
+     *            {@link #MAIN_SCRIPT_PLACEHOLDER} exactly once
+     * @param headers
+     *            the HTTP headers to send with the page
+     * @return the template
+     */
+    static BootstrapPageTemplate create(String html,
+            Map<String, Object> headers) {
+        int index = html.indexOf(MAIN_SCRIPT_PLACEHOLDER);
+        if (index < 0 || html.indexOf(MAIN_SCRIPT_PLACEHOLDER,
+                index + 1) >= 0) {
+            throw new IllegalArgumentException(
+                    "The bootstrap page must contain the main script placeholder exactly once");
+        }
+        return new BootstrapPageTemplate(
+                html.substring(0, index).getBytes(StandardCharsets.UTF_8),
+                html.substring(index + MAIN_SCRIPT_PLACEHOLDER.length())
+                        .getBytes(StandardCharsets.UTF_8),
+                Collections.unmodifiableMap(new LinkedHashMap<>(headers)));
+    }
+
+    /**
+     * Gets the HTTP headers to send with the page.
+     *
+     * @return an unmodifiable map of header values, either strings or longs
+     *         for date headers
+     */
+    Map<String, Object> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Writes the page to the given stream.
+     *
+     * @param out
+     *            the stream to write to
+     * @param mainScriptContents
+     *            the contents of the main script tag
+     * @throws IOException
+     *             if writing fails
+     */
+    void write(OutputStream out, String mainScriptContents)
+            throws IOException {
+        out.write(head);
+        out.write(mainScriptContents.getBytes(StandardCharsets.UTF_8));
+        out.write(tail);
+    }
+}
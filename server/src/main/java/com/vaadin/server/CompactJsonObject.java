@@ -0,0 +1,833 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+/**
+ * A JSON object stored in a compact binary form instead of as a tree of JSON
+ * values. Used for storing the diff states of connectors, which are kept in
+ * memory for every connector of every UI but only read when the state of a
+ * connector is sent to the client.
+ * <p>
+ * Reading a value returns a new JSON value for primitive types and a view
+ * backed by the same binary data for nested objects and arrays. Comparing to
+ * other JSON values with {@link JsonCodec#jsonEquals(JsonValue, JsonValue)}
+ * does not create JSON values for the contents of this object.
+ * <p>
+ * The object is copied to a regular JSON object the first time it is
+ * modified. Nested objects and arrays cannot be modified.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+public final class CompactJsonObject implements JsonObject {
+
+    /*
+     * Every value starts with a type tag. Strings are stored as the length of
+     * the UTF-8 representation followed by the bytes. Objects and arrays
+     * store the length of their contents as four bytes so that they can be
+     * skipped quickly, followed by the number of entries and the entries.
+     * Object entries are a key string followed by a value.
+     */
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INT = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte ARRAY = 6;
+    private static final byte OBJECT = 7;
+
+    private final byte[] data;
+    private final int offset;
+    private final boolean nested;
+
+    /**
+     * Position of the entry following the previously found entry. Properties
+     * are typically read in the order they were written.
+     */
+    private transient int cursor;
+
+    /**
+     * Regular JSON object used after this object has been modified.
+     */
+    private transient JsonObject modified;
+
+    private CompactJsonObject(byte[] data, int offset, boolean nested) {
+        this.data = data;
+        this.offset = offset;
+        this.nested = nested;
+    }
+
+    /**
+     * Creates a compact copy of the given JSON object.
+     *
+     * @param object
+     *            the JSON object to copy, not <code>null</code>
+     * @return a compact JSON object with the same contents
+     */
+    public static CompactJsonObject of(JsonObject object) {
+        if (object instanceof CompactJsonObject) {
+            CompactJsonObject compact = (CompactJsonObject) object;
+            if (!compact.nested && compact.modified == null) {
+                return compact;
+            }
+        }
+        Writer writer = new Writer();
+        writer.writeValue(object);
+        return new CompactJsonObject(writer.toByteArray(), 0, false);
+    }
+
+    /**
+     * Gets the number of bytes used for storing the contents of this object.
+     *
+     * @return the size in bytes
+     */
+    public int getByteSize() {
+        if (modified != null) {
+            return of(modified).getByteSize();
+        }
+        return skipValue(data, offset) - offset;
+    }
+
+    @Override
+    public <T extends JsonValue> T get(String key) {
+        if (modified != null) {
+            return modified.get(key);
+        }
+        int position = find(key);
+        if (position < 0) {
+            return null;
+        }
+        return (T) readValue(data, position);
+    }
+
+    @Override
+    public JsonArray getArray(String key) {
+        return (JsonArray) get(key);
+    }
+
+    @Override
+    public boolean getBoolean(String key) {
+        return ((JsonValue) get(key)).asBoolean();
+    }
+
+    @Override
+    public double getNumber(String key) {
+        return ((JsonValue) get(key)).asNumber();
+    }
+
+    @Override
+    public JsonObject getObject(String key) {
+        return (JsonObject) get(key);
+    }
+
+    @Override
+    public String getString(String key) {
+        return ((JsonValue) get(key)).asString();
+    }
+
+    @Override
+    public boolean hasKey(String key) {
+        if (modified != null) {
+            return modified.hasKey(key);
+        }
+        return find(key) >= 0;
+    }
+
+    @Override
+    public String[] keys() {
+        if (modified != null) {
+            return modified.keys();
+        }
+        String[] keys = new String[readVarint(data, offset + 5)];
+        int position = firstEntry(data, offset);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = readString(data, position);
+            position = skipValue(data, skipString(data, position));
+        }
+        return keys;
+    }
+
+    @Override
+    public void put(String key, JsonValue value) {
+        getModified().put(key, value);
+    }
+
+    @Override
+    public void put(String key, String value) {
+        getModified().put(key, value);
+    }
+
+    @Override
+    public void put(String key, double value) {
+        getModified().put(key, value);
+    }
+
+    @Override
+    public void put(String key, boolean value) {
+        getModified().put(key, value);
+    }
+
+    @Override
+    public void remove(String key) {
+        getModified().remove(key);
+    }
+
+    @Override
+    public boolean asBoolean() {
+        return true;
+    }
+
+    @Override
+    public double asNumber() {
+        return toJsonObject().asNumber();
+    }
+
+    @Override
+    public String asString() {
+        return toJsonObject().asString();
+    }
+
+    @Override
+    public JsonType getType() {
+        return JsonType.OBJECT;
+    }
+
+    @Override
+    public String toJson() {
+        return toJsonObject().toJson();
+    }
+
+    @Override
+    public boolean jsEquals(JsonValue value) {
+        return toJsonObject().jsEquals(value);
+    }
+
+    @Override
+    public Object toNative() {
+        return toJsonObject().toNative();
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    /**
+     * Creates a regular JSON object with the contents of this object.
+     *
+     * @return a new JSON object
+     */
+    public JsonObject toJsonObject() {
+        if (modified != null) {
+            return modified;
+        }
+        return (JsonObject) toJsonValue(data, offset);
+    }
+
+    private JsonObject getModified() {
+        if (nested) {
+            throw new UnsupportedOperationException(
+                    "Nested values of a compact JSON object cannot be modified");
+        }
+        if (modified == null) {
+            modified = toJsonObject();
+        }
+        return modified;
+    }
+
+    /**
+     * Finds the value for the given key.
+     *
+     * @return the position of the value, or -1 if there is no such key
+     */
+    private int find(String key) {
+        int first = firstEntry(data, offset);
+        int end = endOfValue(data, offset);
+        if (first == end) {
+            return -1;
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int start = cursor > first && cursor < end ? cursor : first;
+        int position = start;
+        do {
+            int length = readVarint(data, position);
+            int keyStart = position + varintSize(data, position);
+            int valueStart = keyStart + length;
+            int next = skipValue(data, valueStart);
+            if (length == keyBytes.length
+                    && regionEquals(data, keyStart, keyBytes)) {
+                cursor = next;
+                return valueStart;
+            }
+            position = next == end ? first : next;
+        } while (position != start);
+        return -1;
+    }
+
+    private Object writeReplace() {
+        if (nested || modified != null) {
+            return of(this);
+        }
+        return this;
+    }
+
+    /**
+     * Checks whether the given JSON value is stored in compact form.
+     */
+    static boolean isCompact(JsonValue value) {
+        return value instanceof CompactJsonArray
+                || value instanceof CompactJsonObject
+                        && ((CompactJsonObject) value).modified == null;
+    }
+
+    /**
+     * Compares a JSON value in compact form to another JSON value, using the
+     * same semantics as {@link JsonCodec#jsonEquals(JsonValue, JsonValue)}.
+     *
+     * @param compact
+     *            a value for which {@link #isCompact(JsonValue)} returns
+     *            <code>true</code>
+     * @param other
+     *            the value to compare to, not <code>null</code>
+     * @return <code>true</code> if the values are equal
+     */
+    static boolean jsonEquals(JsonValue compact, JsonValue other) {
+        if (compact instanceof CompactJsonArray) {
+            CompactJsonArray array = (CompactJsonArray) compact;
+            return jsonEquals(array.data, array.offset, other);
+        }
+        CompactJsonObject object = (CompactJsonObject) compact;
+        return jsonEquals(object.data, object.offset, other);
+    }
+
+    private static boolean jsonEquals(byte[] data, int position,
+            JsonValue other) {
+        if (isCompact(other)) {
+            int[] range = getRange(other);
+            if (regionEquals(data, position, getData(other), range[0],
+                    range[1])) {
+                return true;
+            }
+        }
+        JsonType type = other.getType();
+        switch (data[position]) {
+        case NULL:
+            return type == JsonType.NULL;
+        case FALSE:
+            return type == JsonType.BOOLEAN && !other.asBoolean();
+        case TRUE:
+            return type == JsonType.BOOLEAN && other.asBoolean();
+        case INT:
+        case DOUBLE:
+            return type == JsonType.NUMBER
+                    && readNumber(data, position) == other.asNumber();
+        case STRING:
+            return type == JsonType.STRING
+                    && readString(data, position + 1).equals(other.asString());
+        case ARRAY:
+            if (type != JsonType.ARRAY) {
+                return false;
+            }
+            JsonArray array = (JsonArray) other;
+            int length = readVarint(data, position + 5);
+            if (length != array.length()) {
+                return false;
+            }
+            int item = firstEntry(data, position);
+            for (int i = 0; i < length; i++) {
+                if (!jsonEquals(data, item, array.get(i))) {
+                    return false;
+                }
+                item = skipValue(data, item);
+            }
+            return true;
+        case OBJECT:
+            if (type != JsonType.OBJECT) {
+                return false;
+            }
+            JsonObject object = (JsonObject) other;
+            int size = readVarint(data, position + 5);
+            if (size != object.keys().length) {
+                return false;
+            }
+            int entry = firstEntry(data, position);
+            for (int i = 0; i < size; i++) {
+                int valueStart = skipString(data, entry);
+                JsonValue value = object.get(readString(data, entry));
+                if (value == null || !jsonEquals(data, valueStart, value)) {
+                    return false;
+                }
+                entry = skipValue(data, valueStart);
+            }
+            return true;
+        default:
+            throw new IllegalStateException(
+                    "Unknown type tag " + data[position]);
+        }
+    }
+
+    /*
+     * Identical bytes are equal values. Different bytes may still be equal
+     * values e.g. if the keys of an object are in a different order, which is
+     * checked by the caller.
+     */
+    private static boolean regionEquals(byte[] data, int position,
+            byte[] otherData, int otherStart, int otherEnd) {
+        int end = skipValue(data, position);
+        if (end - position != otherEnd - otherStart) {
+            return false;
+        }
+        for (int i = 0; i < end - position; i++) {
+            if (data[position + i] != otherData[otherStart + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int[] getRange(JsonValue compact) {
+        if (compact instanceof CompactJsonArray) {
+            CompactJsonArray array = (CompactJsonArray) compact;
+            return new int[] { array.offset,
+                    skipValue(array.data, array.offset) };
+        }
+        CompactJsonObject object = (CompactJsonObject) compact;
+        return new int[] { object.offset,
+                skipValue(object.data, object.offset) };
+    }
+
+    private static byte[] getData(JsonValue compact) {
+        if (compact instanceof CompactJsonArray) {
+            return ((CompactJsonArray) compact).data;
+        }
+        return ((CompactJsonObject) compact).data;
+    }
+
+    private static boolean regionEquals(byte[] data, int start,
+            byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (data[start + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static JsonValue readValue(byte[] data, int position) {
+        switch (data[position]) {
+        case ARRAY:
+            return new CompactJsonArray(data, position);
+        case OBJECT:
+            return new CompactJsonObject(data, position, true);
+        default:
+            return toJsonValue(data, position);
+        }
+    }
+
+    private static JsonValue toJsonValue(byte[] data, int position) {
+        switch (data[position]) {
+        case NULL:
+            return Json.createNull();
+        case FALSE:
+            return Json.create(false);
+        case TRUE:
+            return Json.create(true);
+        case INT:
+        case DOUBLE:
+            return Json.create(readNumber(data, position));
+        case STRING:
+            return Json.create(readString(data, position + 1));
+        case ARRAY:
+            JsonArray array = Json.createArray();
+            int length = readVarint(data, position + 5);
+            int item = firstEntry(data, position);
+            for (int i = 0; i < length; i++) {
+                array.set(i, toJsonValue(data, item));
+                item = skipValue(data, item);
+            }
+            return array;
+        case OBJECT:
+            JsonObject object = Json.createObject();
+            int size = readVarint(data, position + 5);
+            int entry = firstEntry(data, position);
+            for (int i = 0; i < size; i++) {
+                int valueStart = skipString(data, entry);
+                object.put(readString(data, entry),
+                        toJsonValue(data, valueStart));
+                entry = skipValue(data, valueStart);
+            }
+            return object;
+        default:
+            throw new IllegalStateException(
+                    "Unknown type tag " + data[position]);
+        }
+    }
+
+    private static double readNumber(byte[] data, int position) {
+        if (data[position] == INT) {
+            int zigzag = readVarint(data, position + 1);
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        long bits = 0;
+        for (int i = 1; i <= 8; i++) {
+            bits = bits << 8 | data[position + i] & 0xff;
+        }
+        return Double.longBitsToDouble(bits);
+    }
+
+    private static String readString(byte[] data, int position) {
+        int length = readVarint(data, position);
+        return new String(data, position + varintSize(data, position),
+                length, StandardCharsets.UTF_8);
+    }
+
+    private static int skipString(byte[] data, int position) {
+        return position + varintSize(data, position)
+                + readVarint(data, position);
+    }
+
+    /**
+     * Gets the position after the value starting at the given position.
+     */
+    private static int skipValue(byte[] data, int position) {
+        switch (data[position]) {
+        case NULL:
+        case FALSE:
+        case TRUE:
+            return position + 1;
+        case INT:
+            return position + 1 + varintSize(data, position + 1);
+        case DOUBLE:
+            return position + 9;
+        case STRING:
+            return skipString(data, position + 1);
+        case ARRAY:
+        case OBJECT:
+            return endOfValue(data, position);
+        default:
+            throw new IllegalStateException(
+                    "Unknown type tag " + data[position]);
+        }
+    }
+
+    private static int endOfValue(byte[] data, int position) {
+        int length = (data[position + 1] & 0xff) << 24
+                | (data[position + 2] & 0xff) << 16
+                | (data[position + 3] & 0xff) << 8
+                | data[position + 4] & 0xff;
+        return position + 5 + length;
+    }
+
+    private static int firstEntry(byte[] data, int position) {
+        return position + 5 + varintSize(data, position + 5);
+    }
+
+    private static int readVarint(byte[] data, int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[position++];
+            value |= (b & 0x7f) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static int varintSize(byte[] data, int position) {
+        int size = 1;
+        while (data[position++] < 0) {
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * A nested JSON array in compact form.
+     */
+    private static final class CompactJsonArray implements JsonArray {
+        private final byte[] data;
+        private final int offset;
+
+        /**
+         * Index and position of the item following the previously read item.
+         */
+        private transient int cursorIndex;
+        private transient int cursor;
+
+        private CompactJsonArray(byte[] data, int offset) {
+            this.data = data;
+            this.offset = offset;
+        }
+
+        @Override
+        public <T extends JsonValue> T get(int index) {
+            if (index < 0 || index >= length()) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            int position;
+            int i;
+            if (cursor != 0 && cursorIndex <= index) {
+                position = cursor;
+                i = cursorIndex;
+            } else {
+                position = firstEntry(data, offset);
+                i = 0;
+            }
+            for (; i < index; i++) {
+                position = skipValue(data, position);
+            }
+            cursorIndex = index + 1;
+            cursor = skipValue(data, position);
+            return (T) readValue(data, position);
+        }
+
+        @Override
+        public JsonArray getArray(int index) {
+            return (JsonArray) get(index);
+        }
+
+        @Override
+        public boolean getBoolean(int index) {
+            return ((JsonValue) get(index)).asBoolean();
+        }
+
+        @Override
+        public double getNumber(int index) {
+            return ((JsonValue) get(index)).asNumber();
+        }
+
+        @Override
+        public JsonObject getObject(int index) {
+            return (JsonObject) get(index);
+        }
+
+        @Override
+        public String getString(int index) {
+            return ((JsonValue) get(index)).asString();
+        }
+
+        @Override
+        public int length() {
+            return readVarint(data, offset + 5);
+        }
+
+        @Override
+        public void remove(int index) {
+            throw createReadOnlyException();
+        }
+
+        @Override
+        public void set(int index, JsonValue value) {
+            throw createReadOnlyException();
+        }
+
+        @Override
+        public void set(int index, String string) {
+            throw createReadOnlyException();
+        }
+
+        @Override
+        public void set(int index, double number) {
+            throw createReadOnlyException();
+        }
+
+        @Override
+        public void set(int index, boolean bool) {
+            throw createReadOnlyException();
+        }
+
+        @Override
+        public boolean asBoolean() {
+            return true;
+        }
+
+        @Override
+        public double asNumber() {
+            return toJsonValue(data, offset).asNumber();
+        }
+
+        @Override
+        public String asString() {
+            return toJsonValue(data, offset).asString();
+        }
+
+        @Override
+        public JsonType getType() {
+            return JsonType.ARRAY;
+        }
+
+        @Override
+        public String toJson() {
+            return toJsonValue(data, offset).toJson();
+        }
+
+        @Override
+        public boolean jsEquals(JsonValue value) {
+            return toJsonValue(data, offset).jsEquals(value);
+        }
+
+        @Override
+        public Object toNative() {
+            return toJsonValue(data, offset).toNative();
+        }
+
+        @Override
+        public String toString() {
+            return toJson();
+        }
+
+        private Object writeReplace() {
+            return toJsonValue(data, offset);
+        }
+
+        private static UnsupportedOperationException createReadOnlyException() {
+            return new UnsupportedOperationException(
+                    "Nested values of a compact JSON object cannot be modified");
+        }
+    }
+
+    /**
+     * Writes JSON values in compact form.
+     */
+    private static final class Writer extends ByteArrayOutputStream
+            implements Serializable {
+
+        private void writeValue(JsonValue value) {
+            if (value instanceof CompactJsonObject) {
+                CompactJsonObject object = (CompactJsonObject) value;
+                if (object.modified != null) {
+                    writeValue(object.modified);
+                } else {
+                    write(object.data, object.offset,
+                            skipValue(object.data, object.offset)
+                                    - object.offset);
+                }
+                return;
+            } else if (value instanceof CompactJsonArray) {
+                CompactJsonArray array = (CompactJsonArray) value;
+                write(array.data, array.offset,
+                        skipValue(array.data, array.offset) - array.offset);
+                return;
+            } else if (value == null) {
+                write(NULL);
+                return;
+            }
+
+            switch (value.getType()) {
+            case NULL:
+                write(NULL);
+                break;
+            case BOOLEAN:
+                write(value.asBoolean() ? TRUE : FALSE);
+                break;
+            case NUMBER:
+                writeNumber(value.asNumber());
+                break;
+            case STRING:
+                write(STRING);
+                writeString(value.asString());
+                break;
+            case ARRAY:
+                JsonArray array = (JsonArray) value;
+                int arrayStart = startContainer(ARRAY, array.length());
+                for (int i = 0; i < array.length(); i++) {
+                    writeValue(array.get(i));
+                }
+                endContainer(arrayStart);
+                break;
+            case OBJECT:
+                JsonObject object = (JsonObject) value;
+                String[] keys = object.keys();
+                int objectStart = startContainer(OBJECT, keys.length);
+                for (String key : keys) {
+                    writeString(key);
+                    writeValue(object.get(key));
+                }
+                endContainer(objectStart);
+                break;
+            default:
+                throw new IllegalArgumentException(
+                        "Unsupported JsonType: " + value.getType());
+            }
+        }
+
+        private void writeNumber(double number) {
+            int intValue = (int) number;
+            if (intValue == number && (intValue != 0
+                    || Double.doubleToRawLongBits(number) == 0)) {
+                write(INT);
+                writeVarint(intValue << 1 ^ intValue >> 31);
+            } else {
+                write(DOUBLE);
+                long bits = Double.doubleToRawLongBits(number);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    write((int) (bits >>> shift));
+                }
+            }
+        }
+
+        private void writeString(String string) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7f) != 0) {
+                write(value & 0x7f | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        /**
+         * Writes the type tag, space for the length and the number of
+         * entries of an array or an object.
+         *
+         * @return the position of the type tag
+         */
+        private int startContainer(byte tag, int entries) {
+            int start = count;
+            write(tag);
+            write(0);
+            write(0);
+            write(0);
+            write(0);
+            writeVarint(entries);
+            return start;
+        }
+
+        private void endContainer(int start) {
+            int length = count - start - 5;
+            buf[start + 1] = (byte) (length >>> 24);
+            buf[start + 2] = (byte) (length >>> 16);
+            buf[start + 3] = (byte) (length >>> 8);
+            buf[start + 4] = (byte) length;
+        }
+    }
+}
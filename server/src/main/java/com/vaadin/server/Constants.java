@@ -50,6 +50,12 @@ public interface Constants {
             + "in web.xml. The default of 5min will be used.\n"
             + "===========================================================";
 
+    static final String WARNING_ACCESS_BATCH_WINDOW_NOT_NUMERIC = "\n"
+            + "===========================================================\n"
+            + "WARNING: accessBatchWindow has been set to a non integer value "
+            + "in web.xml. Access tasks will not be batched.\n"
+            + "===========================================================";
+
     static final String WARNING_PUSH_MODE_NOT_RECOGNIZED = "\n"
             + "===========================================================\n"
             + "WARNING: pushMode has been set to an unrecognized value\n"
@@ -111,6 +117,10 @@ public interface Constants {
     static final String SERVLET_PARAMETER_RESOURCE_CACHE_TIME = "resourceCacheTime";
     static final String SERVLET_PARAMETER_HEARTBEAT_INTERVAL = "heartbeatInterval";
     static final String SERVLET_PARAMETER_CLOSE_IDLE_SESSIONS = "closeIdleSessions";
+    static final String SERVLET_PARAMETER_ACCESS_BATCH_WINDOW = "accessBatchWindow";
+    static final String SERVLET_PARAMETER_COMPRESS_UIDL = "compressUidl";
+    static final String SERVLET_PARAMETER_EAGER_INIT = "eagerInit";
+    static final String SERVLET_PARAMETER_STATIC_RESOURCE_CACHE = "staticResourceCache";
     static final String SERVLET_PARAMETER_PUSH_MODE = "pushMode";
     static final String SERVLET_PARAMETER_UI_PROVIDER = "UIProvider";
     static final String SERVLET_PARAMETER_SYNC_ID_CHECK = "syncIdCheck";
@@ -54,6 +54,34 @@ public class DefaultDeploymentConfiguration
 
     public static final boolean DEFAULT_SEND_URLS_AS_PARAMETERS = true;
 
+    /**
+     * Default value for {@link #getAccessBatchWindow()} = {@value} .
+     *
+     * @since 8.1
+     */
+    public static final int DEFAULT_ACCESS_BATCH_WINDOW = 0;
+
+    /**
+     * Default value for {@link #isUidlCompressionEnabled()} = {@value} .
+     *
+     * @since 8.1
+     */
+    public static final boolean DEFAULT_COMPRESS_UIDL = false;
+
+    /**
+     * Default value for {@link #isEagerInitEnabled()} = {@value} .
+     *
+     * @since 8.1
+     */
+    public static final boolean DEFAULT_EAGER_INIT = false;
+
+    /**
+     * Default value for {@link #isStaticResourceCacheEnabled()} = {@value} .
+     *
+     * @since 8.1
+     */
+    public static final boolean DEFAULT_STATIC_RESOURCE_CACHE = false;
+
     private final Properties initParameters;
     private boolean productionMode;
     private boolean xsrfProtectionEnabled;
@@ -64,6 +92,10 @@ public class DefaultDeploymentConfiguration
     private final Class<?> systemPropertyBaseClass;
     private boolean syncIdCheck;
     private boolean sendUrlsAsParameters;
+    private int accessBatchWindow;
+    private boolean compressUidl;
+    private boolean eagerInit;
+    private boolean staticResourceCache;
 
     /**
      * Create a new deployment configuration instance.
@@ -88,6 +120,10 @@ public class DefaultDeploymentConfiguration
         checkPushMode();
         checkSyncIdCheck();
         checkSendUrlsAsParameters();
+        checkAccessBatchWindow();
+        checkCompressUidl();
+        checkEagerInit();
+        checkStaticResourceCache();
     }
 
     @Override
@@ -245,6 +281,46 @@ public class DefaultDeploymentConfiguration
         return sendUrlsAsParameters;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is 0, i.e. tasks are not batched.
+     */
+    @Override
+    public int getAccessBatchWindow() {
+        return accessBatchWindow;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is <code>false</code>.
+     */
+    @Override
+    public boolean isUidlCompressionEnabled() {
+        return compressUidl;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is <code>false</code>.
+     */
+    @Override
+    public boolean isEagerInitEnabled() {
+        return eagerInit;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The default value is <code>false</code>.
+     */
+    @Override
+    public boolean isStaticResourceCacheEnabled() {
+        return staticResourceCache;
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -311,6 +387,37 @@ public class DefaultDeploymentConfiguration
         }
     }
 
+    private void checkAccessBatchWindow() {
+        try {
+            accessBatchWindow = Integer.parseInt(getApplicationOrSystemProperty(
+                    Constants.SERVLET_PARAMETER_ACCESS_BATCH_WINDOW,
+                    Integer.toString(DEFAULT_ACCESS_BATCH_WINDOW)));
+        } catch (NumberFormatException e) {
+            getLogger().warning(
+                    Constants.WARNING_ACCESS_BATCH_WINDOW_NOT_NUMERIC);
+            accessBatchWindow = DEFAULT_ACCESS_BATCH_WINDOW;
+        }
+    }
+
+    private void checkCompressUidl() {
+        compressUidl = getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_COMPRESS_UIDL,
+                Boolean.toString(DEFAULT_COMPRESS_UIDL)).equals("true");
+    }
+
+    private void checkEagerInit() {
+        eagerInit = getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_EAGER_INIT,
+                Boolean.toString(DEFAULT_EAGER_INIT)).equals("true");
+    }
+
+    private void checkStaticResourceCache() {
+        staticResourceCache = getApplicationOrSystemProperty(
+                Constants.SERVLET_PARAMETER_STATIC_RESOURCE_CACHE,
+                Boolean.toString(DEFAULT_STATIC_RESOURCE_CACHE))
+                        .equals("true");
+    }
+
     private void checkCloseIdleSessions() {
         closeIdleSessions = getApplicationOrSystemProperty(
                 Constants.SERVLET_PARAMETER_CLOSE_IDLE_SESSIONS,
@@ -100,6 +100,84 @@ public interface DeploymentConfiguration extends Serializable {
      */
     public boolean isCloseIdleSessions();
 
+    /**
+     * Returns the number of milliseconds tasks submitted using
+     * {@link VaadinSession#access(Runnable)} are collected before they are run
+     * together, or a non-positive number if tasks are run right away when the
+     * session lock is available.
+     * <p>
+     * Batching reduces contention for the session lock when background
+     * threads submit many tasks in a short time. All tasks collected during
+     * the window are run while holding the session lock once, and the
+     * resulting changes are pushed to the client once.
+     *
+     * @since 8.1
+     * @return the access batch window in milliseconds
+     */
+    public default int getAccessBatchWindow() {
+        return 0;
+    }
+
+    /**
+     * Returns whether UIDL responses should be compressed by the framework.
+     * When enabled, responses to UIDL requests and the initial UIDL are
+     * compressed using gzip if the browser has declared support for it in the
+     * <code>Accept-Encoding</code> request header. Small responses are always
+     * sent uncompressed.
+     * <p>
+     * This is useful when the servlet container has not been configured to
+     * compress responses and clients are connected over slow links. Push
+     * messages sent through a websocket are compressed by the container if it
+     * supports the per-message deflate extension.
+     *
+     * @since 8.1
+     * @return <code>true</code> if UIDL responses are compressed,
+     *         <code>false</code> otherwise
+     */
+    public default boolean isUidlCompressionEnabled() {
+        return false;
+    }
+
+    /**
+     * Returns whether UIs should be created already when serving the bootstrap
+     * page. When enabled, the initial UIDL is included in the bootstrap page
+     * instead of being fetched by the client in a separate request once the
+     * page has loaded, which saves one round-trip before the UI is rendered.
+     * <p>
+     * The UI is initialized based on the bootstrap request, so browser details
+     * that are only known on the client side, such as the screen size, time
+     * zone and URI fragment, are not available in
+     * {@link com.vaadin.ui.UI#init(VaadinRequest)}. The client sends them in
+     * the first request after the UI has been rendered. UIs that are preserved
+     * on refresh are always initialized in a separate request.
+     *
+     * @since 8.1
+     * @return <code>true</code> if the initial UIDL is included in the
+     *         bootstrap page, <code>false</code> otherwise
+     */
+    public default boolean isEagerInitEnabled() {
+        return false;
+    }
+
+    /**
+     * Returns whether static resources served from the VAADIN directory should
+     * be kept in memory. When enabled, resources are resolved and read only
+     * once, served with an ETag and support for range requests, and
+     * precompressed <code>.gz</code> variants are kept next to the original
+     * content. Large files are served directly from the file system instead
+     * of being kept in memory.
+     * <p>
+     * Resources are assumed not to change while the application is deployed,
+     * so this should only be enabled in production.
+     *
+     * @since 8.1
+     * @return <code>true</code> if static resources are cached in memory,
+     *         <code>false</code> otherwise
+     */
+    public default boolean isStaticResourceCacheEnabled() {
+        return false;
+    }
+
     /**
      * Returns the mode of bidirectional ("push") client-server communication
      * that should be used.
@@ -20,6 +20,11 @@ import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.GenericArrayType;
@@ -107,21 +112,53 @@ public class JsonCodec implements Serializable {
         public Type getType();
     }
 
+    /**
+     * Reads the value of a bean property.
+     */
+    @FunctionalInterface
+    private interface PropertyGetter extends Serializable {
+        public Object get(Object bean) throws Exception;
+    }
+
+    /**
+     * Writes the value of a bean property.
+     */
+    @FunctionalInterface
+    private interface PropertySetter extends Serializable {
+        public void set(Object bean, Object value) throws Exception;
+    }
+
+    /**
+     * Lookup used for creating property accessors. Only public members of
+     * public classes are accessed through it.
+     */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType GETTER_TYPE = MethodType
+            .methodType(Object.class, Object.class);
+
+    private static final MethodType SETTER_TYPE = MethodType
+            .methodType(void.class, Object.class, Object.class);
+
     private static class FieldProperty implements BeanProperty {
         private final Field field;
+        private final PropertyGetter getter;
+        private final PropertySetter setter;
 
         public FieldProperty(Field field) {
             this.field = field;
+            getter = createGetter(field);
+            setter = createSetter(field);
         }
 
         @Override
         public Object getValue(Object bean) throws Exception {
-            return field.get(bean);
+            return getter.get(bean);
         }
 
         @Override
         public void setValue(Object bean, Object value) throws Exception {
-            field.set(bean, value);
+            setter.set(bean, value);
         }
 
         @Override
@@ -148,24 +185,61 @@ public class JsonCodec implements Serializable {
             return properties;
         }
 
+        private static PropertyGetter createGetter(Field field) {
+            try {
+                MethodHandle handle = LOOKUP.unreflectGetter(field)
+                        .asType(GETTER_TYPE);
+                return bean -> {
+                    try {
+                        return handle.invokeExact(bean);
+                    } catch (Throwable t) {
+                        throw propagate(t);
+                    }
+                };
+            } catch (IllegalAccessException e) {
+                // Not public, fall back to reflection
+                return field::get;
+            }
+        }
+
+        private static PropertySetter createSetter(Field field) {
+            try {
+                MethodHandle handle = LOOKUP.unreflectSetter(field)
+                        .asType(SETTER_TYPE);
+                return (bean, value) -> {
+                    try {
+                        handle.invokeExact(bean, value);
+                    } catch (Throwable t) {
+                        throw propagate(t);
+                    }
+                };
+            } catch (IllegalAccessException e) {
+                // Not public or final, fall back to reflection
+                return field::set;
+            }
+        }
+
     }
 
     private static class MethodProperty implements BeanProperty {
         private final PropertyDescriptor pd;
+        private final PropertyGetter getter;
+        private final PropertySetter setter;
 
         public MethodProperty(PropertyDescriptor pd) {
             this.pd = pd;
+            getter = createGetter(pd.getReadMethod());
+            setter = createSetter(pd.getWriteMethod());
         }
 
         @Override
         public Object getValue(Object bean) throws Exception {
-            Method readMethod = pd.getReadMethod();
-            return readMethod.invoke(bean);
+            return getter.get(bean);
         }
 
         @Override
         public void setValue(Object bean, Object value) throws Exception {
-            pd.getWriteMethod().invoke(bean, value);
+            setter.set(bean, value);
         }
 
         @Override
@@ -196,6 +270,107 @@ public class JsonCodec implements Serializable {
             return pd.getReadMethod().getGenericReturnType();
         }
 
+        private static PropertyGetter createGetter(Method readMethod) {
+            Object getter = createLambda(readMethod, PropertyGetter.class,
+                    "get", GETTER_TYPE);
+            if (getter != null) {
+                return (PropertyGetter) getter;
+            }
+            return bean -> readMethod.invoke(bean);
+        }
+
+        private static PropertySetter createSetter(Method writeMethod) {
+            Object setter = createLambda(writeMethod, PropertySetter.class,
+                    "set", SETTER_TYPE);
+            if (setter != null) {
+                return (PropertySetter) setter;
+            }
+            return (bean, value) -> writeMethod.invoke(bean, value);
+        }
+
+    }
+
+    /**
+     * Creates an instance of a functional interface which calls the given
+     * method directly, without going through reflection.
+     *
+     * @param method
+     *            the method to call
+     * @param interfaceType
+     *            the functional interface to implement
+     * @param interfaceMethod
+     *            the name of the method in the functional interface
+     * @param interfaceMethodType
+     *            the erased type of the method in the functional interface
+     * @return an instance of the functional interface, or <code>null</code>
+     *         if a direct call cannot be generated for the method
+     */
+    private static Object createLambda(Method method, Class<?> interfaceType,
+            String interfaceMethod, MethodType interfaceMethodType) {
+        if (!isAccessible(method.getDeclaringClass(), method.getReturnType())
+                || !isAccessible(method.getParameterTypes())) {
+            return null;
+        }
+        try {
+            MethodHandle handle = LOOKUP.unreflect(method);
+            MethodType instantiatedType = handle.type().wrap();
+            if (interfaceMethodType.returnType() == void.class) {
+                instantiatedType = instantiatedType
+                        .changeReturnType(void.class);
+            }
+            CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+                    interfaceMethod, MethodType.methodType(interfaceType),
+                    interfaceMethodType, handle, instantiatedType);
+            return site.getTarget().invoke();
+        } catch (Throwable t) {
+            // Reflection is used for anything that cannot be linked directly
+            return null;
+        }
+    }
+
+    /**
+     * Checks that the given types can be referenced directly from this class,
+     * i.e. that they are public and loaded by a class loader visible to this
+     * class. Types belonging to an application class loader that is not
+     * visible to the framework are accessed using reflection.
+     */
+    private static boolean isAccessible(Class<?>... types) {
+        for (Class<?> type : types) {
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            if (type.isPrimitive()) {
+                continue;
+            }
+            for (Class<?> c = type; c != null; c = c.getEnclosingClass()) {
+                if (!Modifier.isPublic(c.getModifiers())) {
+                    return false;
+                }
+            }
+            try {
+                if (Class.forName(type.getName(), false,
+                        JsonCodec.class.getClassLoader()) != type) {
+                    return false;
+                }
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Rethrows an exception thrown through a method handle so that it can be
+     * propagated from {@link BeanProperty} methods.
+     */
+    private static Exception propagate(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t instanceof Exception) {
+            return (Exception) t;
+        } else {
+            return new RuntimeException(t);
+        }
     }
 
     /**
@@ -708,17 +883,66 @@ public class JsonCodec implements Serializable {
         return properties;
     }
 
+    /**
+     * Encodes the given properties of a bean. The values of all other
+     * properties are copied from the previously encoded value of the bean
+     * instead of encoding them again.
+     *
+     * @param value
+     *            the bean to encode, not <code>null</code>
+     * @param valueType
+     *            the type of the bean
+     * @param propertyNames
+     *            the names of the properties to encode
+     * @param referenceValue
+     *            the previously encoded value of the bean, not
+     *            <code>null</code>
+     * @param connectorTracker
+     *            the connector tracker to use
+     * @return the encoded bean and the diff of the encoded properties
+     * @since 8.1
+     */
+    public static EncodeResult encodeProperties(Object value,
+            Class<?> valueType, Set<String> propertyNames,
+            JsonObject referenceValue, ConnectorTracker connectorTracker) {
+        EncodeResult result = encodeObject(value, valueType, propertyNames,
+                referenceValue, connectorTracker);
+
+        JsonObject encoded = (JsonObject) result.getEncodedValue();
+        for (String key : referenceValue.keys()) {
+            if (!encoded.hasKey(key)) {
+                encoded.put(key, (JsonValue) referenceValue.get(key));
+            }
+        }
+        return result;
+    }
+
     /*
      * Loops through the fields of value and encodes them.
      */
     private static EncodeResult encodeObject(Object value, Class<?> valueType,
             JsonObject referenceValue, ConnectorTracker connectorTracker) {
+        return encodeObject(value, valueType, null, referenceValue,
+                connectorTracker);
+    }
+
+    /*
+     * Loops through the fields of value and encodes the ones included in
+     * propertyNames, or all of them if propertyNames is null.
+     */
+    private static EncodeResult encodeObject(Object value, Class<?> valueType,
+            Set<String> propertyNames, JsonObject referenceValue,
+            ConnectorTracker connectorTracker) {
         JsonObject encoded = Json.createObject();
         JsonObject diff = Json.createObject();
 
         try {
             for (BeanProperty property : getProperties(valueType)) {
                 String fieldName = property.getName();
+                if (propertyNames != null
+                        && !propertyNames.contains(fieldName)) {
+                    continue;
+                }
                 // We can't use PropertyDescriptor.getPropertyType() as it does
                 // not support generics
                 Type fieldType = property.getType();
@@ -804,6 +1028,12 @@ public class JsonCodec implements Serializable {
             return true;
         }
 
+        if (CompactJsonObject.isCompact(a)) {
+            return CompactJsonObject.jsonEquals(a, b);
+        } else if (CompactJsonObject.isCompact(b)) {
+            return CompactJsonObject.jsonEquals(b, a);
+        }
+
         JsonType type = a.getType();
         if (type != b.getType()) {
             return false;
@@ -93,7 +93,19 @@ public class LegacyCommunicationManager implements Serializable {
         ConnectorTracker connectorTracker = uI.getConnectorTracker();
         Class<? extends SharedState> stateType = connector.getStateType();
         JsonValue diffState = connectorTracker.getDiffState(connector);
+        Set<String> dirtyFields = connectorTracker.getDirtyFields(connector);
+
+        if (diffState != null && dirtyFields != null) {
+            // Only some fields have changed since the state was last sent
+            EncodeResult encodeResult = JsonCodec.encodeProperties(state,
+                    stateType, dirtyFields, (JsonObject) diffState,
+                    connectorTracker);
+            connectorTracker.setDiffState(connector,
+                    (JsonObject) encodeResult.getEncodedValue());
+            return (JsonObject) encodeResult.getDiff();
+        }
 
+        JsonValue previousDiffState = diffState;
         if (diffState == null) {
             // Use an empty state object as reference for full
             // repaints
@@ -105,10 +117,15 @@ public class LegacyCommunicationManager implements Serializable {
         }
         EncodeResult encodeResult = JsonCodec.encode(state, diffState,
                 stateType, uI.getConnectorTracker());
-        connectorTracker.setDiffState(connector,
-                (JsonObject) encodeResult.getEncodedValue());
+        JsonObject diff = (JsonObject) encodeResult.getDiff();
+        if (diff.keys().length != 0 || previousDiffState == null
+                || !CompactJsonObject.isCompact(previousDiffState)) {
+            // Keep the stored diff state if nothing has changed
+            connectorTracker.setDiffState(connector,
+                    (JsonObject) encodeResult.getEncodedValue());
+        }
 
-        return (JsonObject) encodeResult.getDiff();
+        return diff;
     }
 
     private static JsonValue createReferenceDiffStateState(
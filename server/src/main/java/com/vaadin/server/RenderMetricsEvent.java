@@ -0,0 +1,277 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EventObject;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.vaadin.ui.UI;
+
+/**
+ * Event fired after a message containing the changes of a UI has been written
+ * to the client, either as a response to a client request or as a push
+ * message. The event contains the time spent in the different phases of
+ * producing the message, the number of processed connectors and the time
+ * spent encoding the shared state of each type of connector.
+ *
+ * @see RenderMetricsListener#renderMetrics(RenderMetricsEvent)
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+public class RenderMetricsEvent extends EventObject {
+
+    /**
+     * The number of encoded states and the time spent encoding them for one
+     * type of connector.
+     *
+     * @since 8.1
+     */
+    public static class ConnectorTypeMetrics implements Serializable {
+        private final int encodedCount;
+        private final long encodingNanos;
+
+        /**
+         * Creates new connector type metrics.
+         *
+         * @param encodedCount
+         *            the number of connectors whose state was encoded
+         * @param encodingNanos
+         *            the total time spent encoding the states in nanoseconds
+         */
+        public ConnectorTypeMetrics(int encodedCount, long encodingNanos) {
+            this.encodedCount = encodedCount;
+            this.encodingNanos = encodingNanos;
+        }
+
+        /**
+         * Gets the number of connectors of this type whose state was encoded.
+         *
+         * @return the number of encoded states
+         */
+        public int getEncodedCount() {
+            return encodedCount;
+        }
+
+        /**
+         * Gets the total time spent encoding the states of connectors of this
+         * type.
+         *
+         * @param unit
+         *            the time unit of the returned value, not
+         *            <code>null</code>
+         * @return the total encoding time
+         */
+        public long getEncodingTime(TimeUnit unit) {
+            return unit.convert(encodingNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private final UI ui;
+    private final boolean async;
+    private final long rpcHandlingNanos;
+    private final long beforeClientResponseNanos;
+    private final long stateEncodingNanos;
+    private final long hierarchyWritingNanos;
+    private final long writingNanos;
+    private final long messageLength;
+    private final int dirtyConnectorCount;
+    private final Map<Class<? extends ClientConnector>, ConnectorTypeMetrics> connectorTypeMetrics;
+
+    /**
+     * Creates a new event.
+     *
+     * @param service
+     *            the Vaadin service from which the event originates
+     * @param ui
+     *            the UI whose changes were written
+     * @param async
+     *            <code>true</code> if the message was pushed,
+     *            <code>false</code> if it was a response to a client request
+     * @param rpcHandlingNanos
+     *            the time spent handling RPC calls from the client in
+     *            nanoseconds, or -1 if no client request was handled
+     * @param beforeClientResponseNanos
+     *            the time spent in
+     *            {@link ClientConnector#beforeClientResponse(boolean)} in
+     *            nanoseconds
+     * @param stateEncodingNanos
+     *            the time spent encoding shared states in nanoseconds
+     * @param hierarchyWritingNanos
+     *            the time spent writing the connector hierarchy in
+     *            nanoseconds
+     * @param writingNanos
+     *            the total time spent producing the message in nanoseconds,
+     *            not including RPC handling
+     * @param messageLength
+     *            the length of the written message in characters
+     * @param dirtyConnectorCount
+     *            the number of dirty connectors that were processed
+     * @param connectorTypeMetrics
+     *            the state encoding metrics for each connector type
+     */
+    public RenderMetricsEvent(VaadinService service, UI ui, boolean async,
+            long rpcHandlingNanos, long beforeClientResponseNanos,
+            long stateEncodingNanos, long hierarchyWritingNanos,
+            long writingNanos, long messageLength, int dirtyConnectorCount,
+            Map<Class<? extends ClientConnector>, ConnectorTypeMetrics> connectorTypeMetrics) {
+        super(service);
+        this.ui = ui;
+        this.async = async;
+        this.rpcHandlingNanos = rpcHandlingNanos;
+        this.beforeClientResponseNanos = beforeClientResponseNanos;
+        this.stateEncodingNanos = stateEncodingNanos;
+        this.hierarchyWritingNanos = hierarchyWritingNanos;
+        this.writingNanos = writingNanos;
+        this.messageLength = messageLength;
+        this.dirtyConnectorCount = dirtyConnectorCount;
+        this.connectorTypeMetrics = Collections
+                .unmodifiableMap(connectorTypeMetrics);
+    }
+
+    @Override
+    public VaadinService getSource() {
+        return (VaadinService) super.getSource();
+    }
+
+    /**
+     * Gets the Vaadin service from which this event originates.
+     *
+     * @return the Vaadin service instance
+     */
+    public VaadinService getService() {
+        return getSource();
+    }
+
+    /**
+     * Gets the UI whose changes were written.
+     *
+     * @return the UI, not <code>null</code>
+     */
+    public UI getUI() {
+        return ui;
+    }
+
+    /**
+     * Checks whether the message was pushed to the client or sent as a
+     * response to a client request.
+     *
+     * @return <code>true</code> if the message was pushed, <code>false</code>
+     *         otherwise
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Gets the time spent handling the RPC calls of the client request the
+     * message is a response to.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the RPC handling time, or -1 if the message was not a response
+     *         to a UIDL request
+     */
+    public long getRpcHandlingTime(TimeUnit unit) {
+        if (rpcHandlingNanos < 0) {
+            return -1;
+        }
+        return unit.convert(rpcHandlingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the time spent calling
+     * {@link ClientConnector#beforeClientResponse(boolean)} for the dirty
+     * connectors.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the before client response time
+     */
+    public long getBeforeClientResponseTime(TimeUnit unit) {
+        return unit.convert(beforeClientResponseNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the time spent encoding and writing the shared states of the dirty
+     * connectors.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the state encoding time
+     */
+    public long getStateEncodingTime(TimeUnit unit) {
+        return unit.convert(stateEncodingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the time spent writing the connector hierarchy.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the hierarchy writing time
+     */
+    public long getHierarchyWritingTime(TimeUnit unit) {
+        return unit.convert(hierarchyWritingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the total time spent producing the message, including all the
+     * phases except RPC handling.
+     *
+     * @param unit
+     *            the time unit of the returned value, not <code>null</code>
+     * @return the total writing time
+     */
+    public long getWritingTime(TimeUnit unit) {
+        return unit.convert(writingNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the length of the written message in characters. The message is
+     * sent as UTF-8, so the length in bytes may be larger if the message
+     * contains non-ASCII characters.
+     *
+     * @return the message length
+     */
+    public long getMessageLength() {
+        return messageLength;
+    }
+
+    /**
+     * Gets the number of dirty connectors that were processed when producing
+     * the message.
+     *
+     * @return the number of dirty connectors
+     */
+    public int getDirtyConnectorCount() {
+        return dirtyConnectorCount;
+    }
+
+    /**
+     * Gets the state encoding metrics for each type of connector whose state
+     * was encoded.
+     *
+     * @return an unmodifiable map from connector type to metrics, not
+     *         <code>null</code>
+     */
+    public Map<Class<? extends ClientConnector>, ConnectorTypeMetrics> getConnectorTypeMetrics() {
+        return connectorTypeMetrics;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.Serializable;
+
+/**
+ * Event listener that can be registered to a {@link VaadinService} to get
+ * timing and size information about each message written to the client.
+ * <p>
+ * The listener is invoked while the session is locked, in the thread that
+ * wrote the message. Implementations should be fast and should typically only
+ * pass the data on to a monitoring system.
+ *
+ * @see VaadinService#addRenderMetricsListener(RenderMetricsListener)
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+@FunctionalInterface
+public interface RenderMetricsListener extends Serializable {
+    /**
+     * Invoked after a message containing the changes of a UI has been written.
+     *
+     * @param event
+     *            the event containing the metrics of the message
+     */
+    public void renderMetrics(RenderMetricsEvent event);
+}
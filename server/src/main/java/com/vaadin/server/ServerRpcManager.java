@@ -18,7 +18,6 @@ package com.vaadin.server;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.logging.Level;
@@ -149,10 +148,8 @@ public class ServerRpcManager<T extends ServerRpc> implements Serializable {
      */
     public void applyInvocation(ServerRpcMethodInvocation invocation)
             throws RpcInvocationException {
-        Method method = invocation.getMethod();
-        Object[] arguments = invocation.getParameters();
         try {
-            method.invoke(implementation, arguments);
+            invocation.invoke(implementation);
         } catch (Exception e) {
             throw new RpcInvocationException(
                     "Unable to invoke method " + invocation.getMethodName()
@@ -15,19 +15,132 @@
  */
 package com.vaadin.server;
 
+import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.vaadin.shared.communication.MethodInvocation;
 import com.vaadin.shared.communication.ServerRpc;
+import com.vaadin.ui.ConnectorTracker;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
 
 public class ServerRpcMethodInvocation extends MethodInvocation {
 
-    private static final Map<String, Method> invocationMethodCache = new ConcurrentHashMap<>(
+    /**
+     * Lookup used for creating invokers. Only public RPC interfaces are
+     * invoked through it.
+     */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private static final MethodType INVOKER_TYPE = MethodType
+            .methodType(void.class, Object.class, Object[].class);
+
+    /**
+     * The methods of each RPC interface by method name, prepared when an RPC
+     * call to the interface is first received.
+     */
+    private static final Map<Class<?>, Map<String, List<RpcMethod>>> rpcMethodCache = new ConcurrentHashMap<>(
             128, 0.75f, 1);
 
-    private final Method method;
+    /**
+     * Decodes one JSON encoded RPC method parameter.
+     */
+    @FunctionalInterface
+    private interface ParameterDecoder extends Serializable {
+        public Object decode(JsonValue value,
+                ConnectorTracker connectorTracker);
+    }
+
+    /**
+     * An RPC interface method with an invoker and parameter decoders created
+     * once for all invocations of the method.
+     */
+    private static class RpcMethod implements Serializable {
+        private final Method method;
+        private final MethodHandle invoker;
+        private final ParameterDecoder[] decoders;
+
+        public RpcMethod(Method method) {
+            this.method = method;
+            invoker = createInvoker(method);
+
+            Type[] parameterTypes = method.getGenericParameterTypes();
+            decoders = new ParameterDecoder[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                decoders[i] = createDecoder(parameterTypes[i]);
+            }
+        }
+
+        public void invoke(Object target, Object[] arguments)
+                throws Exception {
+            if (invoker == null) {
+                method.invoke(target, arguments);
+                return;
+            }
+            try {
+                invoker.invokeExact(target, arguments);
+            } catch (Throwable t) {
+                // Wrapped the same way as by Method.invoke so that error
+                // handlers find the relevant exception
+                throw new InvocationTargetException(t);
+            }
+        }
+
+        private static MethodHandle createInvoker(Method method) {
+            try {
+                return LOOKUP.unreflect(method)
+                        .asSpreader(Object[].class,
+                                method.getParameterCount())
+                        .asType(INVOKER_TYPE);
+            } catch (IllegalAccessException e) {
+                // Not public, fall back to reflection
+                return null;
+            }
+        }
+
+        private static ParameterDecoder createDecoder(Type type) {
+            // Same as JsonCodec.decodeInternalType for the most common types
+            if (type == String.class) {
+                return (value, tracker) -> isNull(value) ? null
+                        : value.asString();
+            } else if (type == int.class || type == Integer.class) {
+                return (value, tracker) -> isNull(value) ? null
+                        : Integer.valueOf((int) value.asNumber());
+            } else if (type == long.class || type == Long.class) {
+                return (value, tracker) -> isNull(value) ? null
+                        : Long.valueOf((long) value.asNumber());
+            } else if (type == float.class || type == Float.class) {
+                return (value, tracker) -> isNull(value) ? null
+                        : Float.valueOf((float) value.asNumber());
+            } else if (type == double.class || type == Double.class) {
+                return (value, tracker) -> isNull(value) ? null
+                        : Double.valueOf(value.asNumber());
+            } else if (type == boolean.class || type == Boolean.class) {
+                return (value, tracker) -> isNull(value) ? null
+                        : Boolean.valueOf(value.asBoolean());
+            }
+            return (value, tracker) -> JsonCodec
+                    .decodeInternalOrCustomType(type, value, tracker);
+        }
+
+        private static boolean isNull(JsonValue value) {
+            return value.getType() == JsonType.NULL;
+        }
+    }
+
+    private final RpcMethod rpcMethod;
 
     private final Class<? extends ServerRpc> interfaceClass;
 
@@ -39,7 +152,7 @@ public class ServerRpcMethodInvocation extends MethodInvocation {
         assert ServerRpc.class.isAssignableFrom(interfaceClass);
         this.interfaceClass = interfaceClass;
 
-        method = findInvocationMethod(interfaceClass, methodName,
+        rpcMethod = findInvocationMethod(interfaceClass, methodName,
                 parameterCount);
     }
 
@@ -48,65 +161,85 @@ public class ServerRpcMethodInvocation extends MethodInvocation {
     }
 
     public Method getMethod() {
-        return method;
+        return rpcMethod.method;
     }
 
     /**
-     * Tries to find the method from the cache or alternatively by invoking
-     * {@link #doFindInvocationMethod(Class, String, int)} and updating the
-     * cache.
+     * Decodes the given JSON encoded parameters for the invoked method and
+     * sets them as the parameters of this invocation.
      *
-     * @param targetType
-     * @param methodName
-     * @param parameterCount
-     * @return
+     * @param parametersJson
+     *            the JSON encoded parameters, one for each parameter of the
+     *            method
+     * @param connectorTracker
+     *            the connector tracker used for decoding connector references
+     * @since 8.1
      */
-    private Method findInvocationMethod(Class<?> targetType, String methodName,
-            int parameterCount) {
-        // TODO currently only using method name and number of parameters as the
-        // signature
-        String signature = targetType.getName() + "." + methodName + "("
-                + parameterCount;
-        Method invocationMethod = invocationMethodCache.get(signature);
-
-        if (invocationMethod == null) {
-            invocationMethod = doFindInvocationMethod(targetType, methodName,
-                    parameterCount);
-
-            if (invocationMethod != null) {
-                invocationMethodCache.put(signature, invocationMethod);
-            }
+    public void decodeParameters(JsonArray parametersJson,
+            ConnectorTracker connectorTracker) {
+        ParameterDecoder[] decoders = rpcMethod.decoders;
+        Object[] parameters = new Object[decoders.length];
+        for (int i = 0; i < decoders.length; i++) {
+            parameters[i] = decoders[i].decode(parametersJson.get(i),
+                    connectorTracker);
         }
+        setParameters(parameters);
+    }
 
-        if (invocationMethod == null) {
-            throw new IllegalStateException("Can't find method " + methodName
-                    + " with " + parameterCount + " parameters in "
-                    + targetType.getName());
+    /**
+     * Invokes the method with the parameters of this invocation.
+     *
+     * @param target
+     *            the RPC interface implementation to invoke the method on
+     * @throws Exception
+     *             if the invocation fails, exceptions thrown by the method are
+     *             wrapped in an {@link InvocationTargetException}
+     */
+    void invoke(Object target) throws Exception {
+        Object[] parameters = getParameters();
+        if (parameters == null) {
+            parameters = new Object[0];
         }
+        rpcMethod.invoke(target, parameters);
+    }
 
-        return invocationMethod;
+    private static Map<String, List<RpcMethod>> prepareMethods(
+            Class<?> rpcInterface) {
+        Map<String, List<RpcMethod>> methods = new HashMap<>();
+        for (Method method : rpcInterface.getMethods()) {
+            methods.computeIfAbsent(method.getName(),
+                    name -> new ArrayList<>(1)).add(new RpcMethod(method));
+        }
+        return methods;
     }
 
     /**
-     * Tries to find the method from the class by looping through available
-     * methods.
+     * Finds the method from the prepared methods of the RPC interface.
      *
      * @param targetType
      * @param methodName
      * @param parameterCount
      * @return
      */
-    private Method doFindInvocationMethod(Class<?> targetType,
+    private RpcMethod findInvocationMethod(Class<?> targetType,
             String methodName, int parameterCount) {
-        Method[] methods = targetType.getMethods();
-        for (Method method : methods) {
-            Class<?>[] parameterTypes = method.getParameterTypes();
-            if (method.getName().equals(methodName)
-                    && parameterTypes.length == parameterCount) {
-                return method;
+        // TODO currently only using method name and number of parameters as the
+        // signature
+        List<RpcMethod> candidates = rpcMethodCache
+                .computeIfAbsent(targetType,
+                        ServerRpcMethodInvocation::prepareMethods)
+                .get(methodName);
+        if (candidates != null) {
+            for (RpcMethod candidate : candidates) {
+                if (candidate.decoders.length == parameterCount) {
+                    return candidate;
+                }
             }
         }
-        return null;
+
+        throw new IllegalStateException("Can't find method " + methodName
+                + " with " + parameterCount + " parameters in "
+                + targetType.getName());
     }
 
 }
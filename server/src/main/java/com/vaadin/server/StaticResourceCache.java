@@ -0,0 +1,528 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.CRC32;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * A bounded in-memory cache of static resources served by
+ * {@link VaadinServlet} from the VAADIN directory. Resources are kept in
+ * least recently used order and the least recently used ones are evicted when
+ * the total size of the cached content exceeds the limit.
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ */
+final class StaticResourceCache implements Serializable {
+
+    /**
+     * The largest resource that is kept in memory. Larger files are served
+     * directly from the file system and other larger resources are not cached.
+     */
+    static final int MAX_RESOURCE_SIZE = 1024 * 1024;
+
+    /**
+     * The default limit for the total size of the cached content.
+     */
+    static final long DEFAULT_MAX_TOTAL_SIZE = 32L * 1024 * 1024;
+
+    private static final String TOMCAT_SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String TOMCAT_SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String TOMCAT_SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String TOMCAT_SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Returned by {@link #parseRange(String, long)} when the whole resource
+     * should be sent.
+     */
+    static final long[] FULL_RANGE = new long[0];
+
+    /**
+     * A resolved static resource.
+     */
+    static final class Resource implements Serializable {
+        private final String url;
+        private final byte[] content;
+        private final byte[] gzipContent;
+        private final File file;
+        private final File gzipFile;
+        private final long length;
+        private final long lastModified;
+        private final String eTag;
+
+        private Resource(String url, byte[] content, byte[] gzipContent,
+                File file, File gzipFile, long length, long lastModified,
+                String eTag) {
+            this.url = url;
+            this.content = content;
+            this.gzipContent = gzipContent;
+            this.file = file;
+            this.gzipFile = gzipFile;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.eTag = eTag;
+        }
+
+        /**
+         * Reads the resource from the given URL, along with a precompressed
+         * variant from the same URL with {@code .gz} appended if there is one.
+         * Files larger than {@link #MAX_RESOURCE_SIZE} are not read, but
+         * served from the file system when needed.
+         *
+         * @param resourceUrl
+         *            the URL of the resource
+         * @return the resource, not <code>null</code>
+         * @throws IOException
+         *             if reading the resource fails
+         */
+        static Resource load(URL resourceUrl) throws IOException {
+            String url = resourceUrl.toExternalForm();
+            File file = getFile(resourceUrl);
+            byte[] content;
+            long lastModified;
+            if (file != null) {
+                lastModified = file.lastModified();
+                content = file.length() <= MAX_RESOURCE_SIZE
+                        ? Files.readAllBytes(file.toPath()) : null;
+            } else {
+                URLConnection connection = resourceUrl.openConnection();
+                try (InputStream is = connection.getInputStream()) {
+                    lastModified = connection.getLastModified();
+                    content = read(is);
+                }
+                if (content == null) {
+                    // Too large, and can't be served without the connection
+                    return createNotServable(url);
+                }
+            }
+            // Remove milliseconds to avoid comparison problems (milliseconds
+            // are not returned by the browser in the "If-Modified-Since"
+            // header).
+            lastModified -= lastModified % 1000;
+
+            byte[] gzipContent = null;
+            File gzipFile = null;
+            if (file != null) {
+                File gz = new File(file.getPath() + ".gz");
+                if (gz.isFile()) {
+                    if (gz.length() <= MAX_RESOURCE_SIZE) {
+                        gzipContent = Files.readAllBytes(gz.toPath());
+                    } else {
+                        gzipFile = gz;
+                    }
+                }
+            } else {
+                try (InputStream is = new URL(url + ".gz").openStream()) {
+                    gzipContent = read(is);
+                    if (gzipContent == null) {
+                        // Too large, leave both variants to the servlet
+                        return createNotServable(url);
+                    }
+                } catch (IOException e) {
+                    // No precompressed version
+                }
+            }
+
+            if (content == null) {
+                long length = file.length();
+                return new Resource(url, null, gzipContent, file, gzipFile,
+                        length, lastModified,
+                        "\"" + Long.toHexString(lastModified) + "-"
+                                + Long.toHexString(length) + "\"");
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            return new Resource(url, content, gzipContent, null, gzipFile,
+                    content.length, lastModified,
+                    "\"" + Long.toHexString(crc.getValue()) + "-"
+                            + Integer.toHexString(content.length) + "\"");
+        }
+
+        private static Resource createNotServable(String url) {
+            return new Resource(url, null, null, null, null, 0, 0, null);
+        }
+
+        private static File getFile(URL resourceUrl) {
+            if (!"file".equals(resourceUrl.getProtocol())) {
+                return null;
+            }
+            try {
+                File file = new File(resourceUrl.toURI());
+                return file.isFile() ? file : null;
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        private static byte[] read(InputStream is) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[Constants.DEFAULT_BUFFER_SIZE];
+            int bytes;
+            while ((bytes = is.read(buffer)) >= 0) {
+                if (out.size() + bytes > MAX_RESOURCE_SIZE) {
+                    return null;
+                }
+                out.write(buffer, 0, bytes);
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * Checks whether this resource can be served from the cache. Large
+         * resources that are not files are only cached as not servable, so
+         * that they are not read again to find out their size.
+         *
+         * @return <code>true</code> if the resource can be served using
+         *         {@link #write(HttpServletRequest, HttpServletResponse, boolean)},
+         *         <code>false</code> otherwise
+         */
+        boolean isServable() {
+            return content != null || file != null;
+        }
+
+        /**
+         * Gets the URL the resource was read from.
+         *
+         * @return the URL in external form
+         */
+        String getUrl() {
+            return url;
+        }
+
+        /**
+         * Checks whether the resource has a precompressed variant, either in
+         * memory or as a file.
+         *
+         * @return <code>true</code> if there is a precompressed variant,
+         *         <code>false</code> otherwise
+         */
+        boolean hasGzipContent() {
+            return gzipContent != null || gzipFile != null;
+        }
+
+        /**
+         * Gets the last modification time of the resource, without
+         * milliseconds.
+         *
+         * @return the last modification time, or 0 if not known
+         */
+        long getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Gets the entity tag of the resource. The precompressed variant has
+         * a different tag, since it has different content.
+         *
+         * @param gzip
+         *            <code>true</code> to get the tag of the precompressed
+         *            variant, <code>false</code> otherwise
+         * @return the quoted entity tag
+         */
+        String getETag(boolean gzip) {
+            if (gzip) {
+                return eTag.substring(0, eTag.length() - 1) + "-gzip\"";
+            }
+            return eTag;
+        }
+
+        private long getCachedSize() {
+            long size = content == null ? 0 : content.length;
+            if (gzipContent != null) {
+                size += gzipContent.length;
+            }
+            return size;
+        }
+
+        /**
+         * Writes the resource content to the response. Only the range
+         * requested with a <code>Range</code> header is written for
+         * uncompressed content.
+         *
+         * @param request
+         *            the request for the resource
+         * @param response
+         *            the response to write to
+         * @param gzip
+         *            <code>true</code> to write the precompressed variant,
+         *            <code>false</code> to write the original content
+         * @throws IOException
+         *             if writing fails
+         */
+        void write(HttpServletRequest request, HttpServletResponse response,
+                boolean gzip) throws IOException {
+            if (gzip) {
+                response.setHeader("Content-Encoding", "gzip");
+                if (gzipContent != null) {
+                    response.setContentLength(gzipContent.length);
+                    response.getOutputStream().write(gzipContent);
+                } else {
+                    long gzipLength = gzipFile.length();
+                    response.setHeader("Content-Length",
+                            Long.toString(gzipLength));
+                    writeFile(request, response, gzipFile, 0, gzipLength);
+                }
+                return;
+            }
+
+            response.setHeader("Accept-Ranges", "bytes");
+            long[] range = FULL_RANGE;
+            String rangeHeader = request.getHeader("Range");
+            if (rangeHeader != null && isRangeApplicable(request)) {
+                range = parseRange(rangeHeader, length);
+                if (range == null) {
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    response.setStatus(
+                            HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+            }
+            long start = 0;
+            long end = length - 1;
+            if (range != FULL_RANGE) {
+                start = range[0];
+                end = range[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range",
+                        "bytes " + start + "-" + end + "/" + length);
+            }
+            long count = end - start + 1;
+            response.setHeader("Content-Length", Long.toString(count));
+
+            if (content != null) {
+                response.getOutputStream().write(content, (int) start,
+                        (int) count);
+            } else {
+                writeFile(request, response, file, start, count);
+            }
+        }
+
+        private boolean isRangeApplicable(HttpServletRequest request) {
+            String ifRange = request.getHeader("If-Range");
+            if (ifRange == null) {
+                return true;
+            }
+            if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+                return ifRange.equals(eTag);
+            }
+            try {
+                return lastModified > 0
+                        && request.getDateHeader("If-Range") == lastModified;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+
+        private static void writeFile(HttpServletRequest request,
+                HttpServletResponse response, File file, long start,
+                long count) throws IOException {
+            if (Boolean.TRUE
+                    .equals(request.getAttribute(TOMCAT_SENDFILE_SUPPORT))) {
+                // Let the container send the file after the request has been
+                // handled, without copying it through the JVM
+                request.setAttribute(TOMCAT_SENDFILE_FILENAME,
+                        file.getAbsolutePath());
+                request.setAttribute(TOMCAT_SENDFILE_START,
+                        Long.valueOf(start));
+                request.setAttribute(TOMCAT_SENDFILE_END,
+                        Long.valueOf(start + count));
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(),
+                    StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels
+                        .newChannel(response.getOutputStream());
+                long position = start;
+                long end = start + count;
+                while (position < end) {
+                    long transferred = channel.transferTo(position,
+                            end - position, out);
+                    if (transferred <= 0) {
+                        // The file has been truncated
+                        break;
+                    }
+                    position += transferred;
+                }
+            }
+        }
+    }
+
+    private final long maxTotalSize;
+
+    private final LinkedHashMap<String, Resource> resources = new LinkedHashMap<>(
+            16, 0.75f, true);
+
+    private long totalSize = 0;
+
+    /**
+     * Creates a cache with the default size limit.
+     */
+    StaticResourceCache() {
+        this(DEFAULT_MAX_TOTAL_SIZE);
+    }
+
+    /**
+     * Creates a cache with the given size limit.
+     *
+     * @param maxTotalSize
+     *            the maximum total size of the cached content in bytes
+     */
+    StaticResourceCache(long maxTotalSize) {
+        this.maxTotalSize = maxTotalSize;
+    }
+
+    /**
+     * Gets a cached resource.
+     *
+     * @param filename
+     *            the requested file name
+     * @return the resource, or <code>null</code> if it is not in the cache
+     */
+    synchronized Resource get(String filename) {
+        return resources.get(filename);
+    }
+
+    /**
+     * Adds a resource to the cache, evicting least recently used resources if
+     * the cache grows too large.
+     *
+     * @param filename
+     *            the requested file name
+     * @param resource
+     *            the resource to add
+     */
+    synchronized void put(String filename, Resource resource) {
+        Resource old = resources.put(filename, resource);
+        if (old != null) {
+            totalSize -= old.getCachedSize();
+        }
+        totalSize += resource.getCachedSize();
+
+        Iterator<Resource> iterator = resources.values().iterator();
+        while (totalSize > maxTotalSize && resources.size() > 1) {
+            totalSize -= iterator.next().getCachedSize();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Gets the total size of the cached content.
+     *
+     * @return the size in bytes
+     */
+    synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    /**
+     * Checks whether an <code>If-None-Match</code> header matches the given
+     * entity tag.
+     *
+     * @param ifNoneMatch
+     *            the header value
+     * @param eTag
+     *            the quoted entity tag of the resource
+     * @return <code>true</code> if the header lists the tag or is
+     *         <code>*</code>, <code>false</code> otherwise
+     */
+    static boolean matchesETag(String ifNoneMatch, String eTag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            // If-None-Match uses weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses the value of a <code>Range</code> header. Only a single byte
+     * range is supported, other values are ignored as allowed by RFC 7233.
+     *
+     * @param rangeHeader
+     *            the header value
+     * @param length
+     *            the length of the resource
+     * @return the first and last byte position to send, {@link #FULL_RANGE}
+     *         if the header should be ignored or <code>null</code> if the
+     *         range cannot be satisfied
+     */
+    static long[] parseRange(String rangeHeader, long length) {
+        if (!rangeHeader.startsWith("bytes=")
+                || rangeHeader.indexOf(',') >= 0) {
+            return FULL_RANGE;
+        }
+        String spec = rangeHeader.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return FULL_RANGE;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        long start;
+        long end;
+        try {
+            if (first.isEmpty()) {
+                if (last.isEmpty()) {
+                    return FULL_RANGE;
+                }
+                // The last N bytes
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffixLength);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Long.parseLong(last);
+                if (start < 0 || end < start) {
+                    return FULL_RANGE;
+                }
+                end = Math.min(end, length - 1);
+            }
+        } catch (NumberFormatException e) {
+            return FULL_RANGE;
+        }
+        if (start >= length) {
+            return null;
+        }
+        return new long[] { start, end };
+    }
+}
@@ -39,7 +39,12 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -129,6 +134,8 @@ public abstract class VaadinService implements Serializable {
 
     private final List<SessionDestroyListener> sessionDestroyListeners = new CopyOnWriteArrayList<>();
 
+    private final List<RenderMetricsListener> renderMetricsListeners = new CopyOnWriteArrayList<>();
+
     private SystemMessagesProvider systemMessagesProvider = DefaultSystemMessagesProvider
             .get();
 
@@ -151,6 +158,12 @@ public abstract class VaadinService implements Serializable {
      */
     private boolean initialized = false;
 
+    /*
+     * Executor for purging access queues after the batch window, created when
+     * first needed.
+     */
+    private transient ScheduledExecutorService accessQueueExecutor;
+
     /**
      * Creates a new vaadin service based on a deployment configuration
      *
@@ -1877,12 +1890,129 @@ public abstract class VaadinService implements Serializable {
             Runnable runnable) {
         FutureAccess future = new FutureAccess(session, runnable);
         session.getPendingAccessQueue().add(future);
+        session.getAccessQueueStatistics().taskEnqueued();
 
-        ensureAccessQueuePurged(session);
+        if (getDeploymentConfiguration().getAccessBatchWindow() > 0) {
+            scheduleAccessQueuePurge(session);
+        } else {
+            ensureAccessQueuePurged(session);
+        }
 
         return future;
     }
 
+    /**
+     * Schedules the pending access queue of the provided session to be purged
+     * once the {@link DeploymentConfiguration#getAccessBatchWindow() access
+     * batch window} has passed. All tasks enqueued before the purge are run
+     * while holding the session lock once, after which changes are pushed to
+     * UIs using automatic push. Nothing is scheduled if a purge is already
+     * pending for the session.
+     *
+     * @since 8.1
+     * @param session
+     *            the session for which the access queue should be purged
+     */
+    protected void scheduleAccessQueuePurge(VaadinSession session) {
+        ScheduledExecutorService executor = getAccessQueueExecutor();
+        if (executor.isShutdown()) {
+            // The service is being destroyed
+            ensureAccessQueuePurged(session);
+            return;
+        }
+        AtomicBoolean scheduled = session.getAccessQueuePurgeScheduled();
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.schedule(() -> {
+                /*
+                 * Clear the flag before purging so that tasks enqueued after
+                 * this point are handled by the next scheduled purge if they
+                 * miss this one.
+                 */
+                scheduled.set(false);
+                if (!session.getPendingAccessQueue().isEmpty()) {
+                    try {
+                        ensureAccessQueuePurged(session);
+                    } catch (RuntimeException e) {
+                        getLogger().log(Level.SEVERE,
+                                "Error while purging the access queue", e);
+                    }
+                }
+            }, getDeploymentConfiguration().getAccessBatchWindow(),
+                    TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            ensureAccessQueuePurged(session);
+        }
+    }
+
+    /**
+     * Enqueues a task to be run with the session lock held once the given
+     * delay has passed. The task is enqueued using
+     * {@link VaadinSession#access(Runnable)}, which means that it is also
+     * subject to {@link DeploymentConfiguration#getAccessBatchWindow() access
+     * batching}. If this service has been destroyed, the task is enqueued
+     * right away.
+     *
+     * @since 8.1
+     * @param session
+     *            the session to access, not <code>null</code>
+     * @param runnable
+     *            the task to run with the session locked, not
+     *            <code>null</code>
+     * @param delay
+     *            the time to wait before enqueuing the task
+     * @param unit
+     *            the time unit of the delay, not <code>null</code>
+     */
+    public void scheduleAccess(VaadinSession session, Runnable runnable,
+            long delay, TimeUnit unit) {
+        ScheduledExecutorService executor = getAccessQueueExecutor();
+        try {
+            executor.schedule(() -> {
+                session.access(runnable);
+            }, delay, unit);
+        } catch (RejectedExecutionException e) {
+            session.access(runnable);
+        }
+    }
+
+    private synchronized ScheduledExecutorService getAccessQueueExecutor() {
+        if (accessQueueExecutor == null) {
+            accessQueueExecutor = createAccessQueueExecutor();
+        }
+        return accessQueueExecutor;
+    }
+
+    /**
+     * Creates the executor used for purging access queues when
+     * {@link DeploymentConfiguration#getAccessBatchWindow() access batching}
+     * is enabled and for delayed tasks enqueued using
+     * {@link #scheduleAccess(VaadinSession, Runnable, long, TimeUnit)}. The
+     * executor is shut down when this service is destroyed.
+     * <p>
+     * The default implementation uses daemon threads, one for each available
+     * processor.
+     *
+     * @since 8.1
+     * @return a new scheduled executor service, not <code>null</code>
+     */
+    protected ScheduledExecutorService createAccessQueueExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                Runtime.getRuntime().availableProcessors(), runnable -> {
+                    Thread thread = new Thread(runnable,
+                            getServiceName() + " access queue purger "
+                                    + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
     /**
      * Makes sure the pending access queue is purged for the provided session.
      * If the session is currently locked by the current thread or some other
@@ -1938,6 +2068,7 @@ public abstract class VaadinService implements Serializable {
         }
 
         FutureAccess pendingAccess;
+        int batchSize = 0;
 
         // Dump all current instances, not only the ones dumped by setCurrent
         Map<Class<?>, CurrentInstance> oldInstances = CurrentInstance
@@ -1946,6 +2077,7 @@ public abstract class VaadinService implements Serializable {
         try {
             while ((pendingAccess = session.getPendingAccessQueue()
                     .poll()) != null) {
+                batchSize++;
                 if (!pendingAccess.isCancelled()) {
                     pendingAccess.run();
 
@@ -1958,6 +2090,9 @@ public abstract class VaadinService implements Serializable {
                 }
             }
         } finally {
+            if (batchSize > 0) {
+                session.getAccessQueueStatistics().batchExecuted(batchSize);
+            }
             CurrentInstance.clearAll();
             CurrentInstance.restoreInstances(oldInstances);
         }
@@ -2002,6 +2137,59 @@ public abstract class VaadinService implements Serializable {
         serviceDestroyListeners.remove(listener);
     }
 
+    /**
+     * Adds a listener that gets notified each time a message containing the
+     * changes of a UI has been written to the client. The listener can be
+     * used for exporting the time spent producing messages to a monitoring
+     * system. Metrics are only collected when at least one listener has been
+     * added.
+     *
+     * @since 8.1
+     * @param listener
+     *            the render metrics listener to add, not <code>null</code>
+     * @see RenderMetricsListener
+     * @return a registration object for removing the listener
+     */
+    public Registration addRenderMetricsListener(
+            RenderMetricsListener listener) {
+        renderMetricsListeners.add(listener);
+        return () -> renderMetricsListeners.remove(listener);
+    }
+
+    /**
+     * Checks whether any render metrics listeners have been added. This method
+     * is used by the framework to avoid collecting metrics when nobody is
+     * interested in them.
+     *
+     * @since 8.1
+     * @return <code>true</code> if there are render metrics listeners,
+     *         <code>false</code> otherwise
+     */
+    public boolean hasRenderMetricsListeners() {
+        return !renderMetricsListeners.isEmpty();
+    }
+
+    /**
+     * Notifies all render metrics listeners about a written message. This
+     * method is used by the framework and should not be called by application
+     * code. Exceptions thrown by listeners are logged and do not affect the
+     * message.
+     *
+     * @since 8.1
+     * @param event
+     *            the render metrics event to fire, not <code>null</code>
+     */
+    public void fireRenderMetrics(RenderMetricsEvent event) {
+        for (RenderMetricsListener listener : renderMetricsListeners) {
+            try {
+                listener.renderMetrics(event);
+            } catch (RuntimeException e) {
+                getLogger().log(Level.WARNING,
+                        "Error in render metrics listener", e);
+            }
+        }
+    }
+
     /**
      * Called when the servlet, portlet or similar for this service is being
      * destroyed. After this method has been called, no more requests will be
@@ -2017,6 +2205,12 @@ public abstract class VaadinService implements Serializable {
         ServiceDestroyEvent event = new ServiceDestroyEvent(this);
         serviceDestroyListeners
                 .forEach(listener -> listener.serviceDestroy(event));
+
+        synchronized (this) {
+            if (accessQueueExecutor != null) {
+                accessQueueExecutor.shutdown();
+            }
+        }
     }
 
     /**
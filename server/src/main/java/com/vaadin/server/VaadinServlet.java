@@ -36,12 +36,15 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,13 +71,19 @@ import elemental.json.JsonObject;
 @SuppressWarnings("serial")
 public class VaadinServlet extends HttpServlet implements Constants {
 
-    private class ScssCacheEntry implements Serializable {
+    class ScssCacheEntry implements Serializable {
 
         private final String css;
         private final List<String> sourceUris;
         private final long timestamp;
         private final String scssFileName;
 
+        /**
+         * Files to check for modifications, resolved from the source URIs when
+         * first needed.
+         */
+        private transient volatile List<File> sourceFiles;
+
         public ScssCacheEntry(String scssFileName, String css,
                 List<String> sourceUris) {
             this.scssFileName = scssFileName;
@@ -119,19 +128,58 @@ public class VaadinServlet extends HttpServlet implements Constants {
         }
 
         private long getLastModified() {
+            List<File> files = getSourceFiles();
+            if (files == null) {
+                // -1 means this cache entry will never be valid
+                return -1;
+            }
             long newest = 0;
+            for (File file : files) {
+                long lastModified = file.lastModified();
+                if (lastModified == 0L) {
+                    // The file has been removed after the compilation
+                    return -1;
+                }
+                newest = Math.max(newest, lastModified);
+            }
+
+            return newest;
+        }
+
+        /**
+         * Resolves the files used during the compilation. Source URIs are
+         * resolved only once since checking the class loader for each of the
+         * imported partials on every request is expensive.
+         *
+         * @return the files to check for modifications, or <code>null</code>
+         *         if some source could not be found
+         */
+        private List<File> getSourceFiles() {
+            if (sourceFiles != null) {
+                return sourceFiles;
+            }
+            List<File> files = new ArrayList<>();
             for (String uri : sourceUris) {
                 File file = new File(uri);
-                URL resource = getService().getClassLoader().getResource(uri);
-                long lastModified = -1L;
                 if (file.exists()) {
-                    lastModified = file.lastModified();
-                } else if (resource != null
-                        && resource.getProtocol().equals("file")) {
+                    files.add(file);
+                    continue;
+                }
+                URL resource = getService().getClassLoader().getResource(uri);
+                if (resource == null) {
+                    /*
+                     * Ignore missing files found in the classpath, report
+                     * problem and abort for other files.
+                     */
+                    getLogger().log(Level.WARNING,
+                            "Could not resolve timestamp for {0}, Scss on the fly caching will be disabled",
+                            uri);
+                    return null;
+                } else if (resource.getProtocol().equals("file")) {
                     try {
                         file = new File(resource.toURI());
                         if (file.exists()) {
-                            lastModified = file.lastModified();
+                            files.add(file);
                         }
                     } catch (URISyntaxException e) {
                         getLogger().log(Level.WARNING,
@@ -139,21 +187,9 @@ public class VaadinServlet extends HttpServlet implements Constants {
                                 e);
                     }
                 }
-                if (lastModified == -1L && resource == null) {
-                    /*
-                     * Ignore missing files found in the classpath, report
-                     * problem and abort for other files.
-                     */
-                    getLogger().log(Level.WARNING,
-                            "Could not resolve timestamp for {0}, Scss on the fly caching will be disabled",
-                            uri);
-                    // -1 means this cache entry will never be valid
-                    return -1;
-                }
-                newest = Math.max(newest, lastModified);
             }
-
-            return newest;
+            sourceFiles = Collections.unmodifiableList(files);
+            return sourceFiles;
         }
 
         public boolean isStillValid() {
@@ -676,16 +712,16 @@ public class VaadinServlet extends HttpServlet implements Constants {
      * Mutex for preventing to scss compilations to take place simultaneously.
      * This is a workaround needed as the scss compiler currently is not thread
      * safe (#10292).
-     * <p>
-     * In addition, this is also used to protect the cached compilation results.
      */
     private static final Object SCSS_MUTEX = new Object();
 
     /**
-     * Global cache of scss compilation results. This map is protected from
-     * concurrent access by {@link #SCSS_MUTEX}.
+     * Cache of scss compilation results by scss file name. Requests for a file
+     * that is being compiled wait for the same compilation to complete, while
+     * requests for other files can use their cached results without waiting
+     * for the compilation.
      */
-    private final Map<String, ScssCacheEntry> scssCache = new HashMap<>();
+    private final Map<String, CompletableFuture<ScssCacheEntry>> scssCache = new ConcurrentHashMap<>();
 
     /**
      * Keeps track of whether a warning about not being able to persist cache
@@ -694,6 +730,12 @@ public class VaadinServlet extends HttpServlet implements Constants {
      */
     private static boolean scssCompileWarWarningEmitted = false;
 
+    /**
+     * Cache of static resources, used if enabled in the deployment
+     * configuration.
+     */
+    private final StaticResourceCache staticResourceCache = new StaticResourceCache();
+
     /**
      * Returns the default theme. Must never return null.
      *
@@ -740,6 +782,12 @@ public class VaadinServlet extends HttpServlet implements Constants {
             HttpServletRequest request, HttpServletResponse response)
             throws IOException, ServletException {
 
+        if (getService().getDeploymentConfiguration()
+                .isStaticResourceCacheEnabled()
+                && serveCachedStaticResource(filename, request, response)) {
+            return;
+        }
+
         final ServletContext sc = getServletContext();
         URL resourceUrl = findResourceURL(filename);
 
@@ -769,14 +817,7 @@ public class VaadinServlet extends HttpServlet implements Constants {
             return;
         }
 
-        String cacheControl = "public, max-age=0, must-revalidate";
-        int resourceCacheTime = getCacheTime(filename);
-        if (resourceCacheTime > 0) {
-            cacheControl = "max-age=" + String.valueOf(resourceCacheTime);
-        }
-        response.setHeader("Cache-Control", cacheControl);
-        response.setDateHeader("Expires",
-                System.currentTimeMillis() + resourceCacheTime * 1000);
+        setCacheHeaders(filename, response);
 
         // Find the modification timestamp
         long lastModifiedTime = 0;
@@ -825,6 +866,90 @@ public class VaadinServlet extends HttpServlet implements Constants {
         writeStaticResourceResponse(request, response, resourceUrl);
     }
 
+    /**
+     * Serves a resource from the VAADIN directory using the static resource
+     * cache. The <code>.gz</code> variant is used if
+     * {@link #allowServePrecompressedResource(HttpServletRequest, String)}
+     * allows it, but {@link #writeStaticResourceResponse} is not called for
+     * cached resources.
+     *
+     * @param filename
+     *            The filename to serve. Should always start with /VAADIN/.
+     * @param request
+     * @param response
+     * @return true if the resource was served, false if it should be served
+     *         without using the cache
+     * @throws IOException
+     */
+    private boolean serveCachedStaticResource(String filename,
+            HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        StaticResourceCache.Resource resource = staticResourceCache
+                .get(filename);
+        if (resource == null) {
+            URL resourceUrl = findResourceURL(filename);
+            if (resourceUrl == null
+                    || !isAllowedVAADINResourceUrl(request, resourceUrl)) {
+                // Not cached, errors and scss compilation are handled as usual
+                return false;
+            }
+            try {
+                resource = StaticResourceCache.Resource.load(resourceUrl);
+            } catch (IOException e) {
+                getLogger().log(Level.FINE,
+                        "Could not cache resource " + resourceUrl, e);
+                return false;
+            }
+            staticResourceCache.put(filename, resource);
+        }
+        if (!resource.isServable()) {
+            return false;
+        }
+
+        setCacheHeaders(filename, response);
+
+        boolean gzip = resource.hasGzipContent()
+                && allowServePrecompressedResource(request, resource.getUrl());
+        if (resource.hasGzipContent()) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        String eTag = resource.getETag(gzip);
+        response.setHeader("ETag", eTag);
+        long lastModifiedTime = resource.getLastModified();
+        if (lastModifiedTime > 0) {
+            response.setDateHeader("Last-Modified", lastModifiedTime);
+        }
+
+        // If-None-Match takes precedence over If-Modified-Since
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null
+                ? StaticResourceCache.matchesETag(ifNoneMatch, eTag)
+                : browserHasNewestVersion(request, lastModifiedTime)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        final String mimetype = getServletContext().getMimeType(filename);
+        if (mimetype != null) {
+            response.setContentType(mimetype);
+        }
+
+        resource.write(request, response, gzip);
+        return true;
+    }
+
+    private void setCacheHeaders(String filename,
+            HttpServletResponse response) {
+        String cacheControl = "public, max-age=0, must-revalidate";
+        int resourceCacheTime = getCacheTime(filename);
+        if (resourceCacheTime > 0) {
+            cacheControl = "max-age=" + String.valueOf(resourceCacheTime);
+        }
+        response.setHeader("Cache-Control", cacheControl);
+        response.setDateHeader("Expires",
+                System.currentTimeMillis() + resourceCacheTime * 1000);
+    }
+
     /**
      * Calculates the cache lifetime for the given filename in seconds. By
      * default filenames containing ".nocache." return 0, filenames containing
@@ -1026,36 +1151,97 @@ public class VaadinServlet extends HttpServlet implements Constants {
             return true;
         }
 
-        synchronized (SCSS_MUTEX) {
-            ScssCacheEntry cacheEntry = scssCache.get(scssFilename);
+        ScssCacheEntry cacheEntry = getScssCacheEntry(filename, scssFilename,
+                sc);
+        if (cacheEntry == null) {
+            // compilation did not produce any result, but logged a message
+            return false;
+        }
 
-            if (cacheEntry == null) {
-                try {
-                    cacheEntry = loadPersistedScssCache(scssFilename, sc);
-                } catch (Exception e) {
-                    getLogger().log(Level.WARNING,
-                            "Could not read persisted scss cache", e);
+        // This is for development mode only so instruct the browser to
+        // never cache it
+        response.setHeader("Cache-Control", "no-cache");
+        final String mimetype = getService().getMimeType(filename);
+        writeResponse(response, mimetype, cacheEntry.getCss());
+
+        return true;
+    }
+
+    /**
+     * Gets an up to date compilation result for the given scss file,
+     * compiling it if needed. Only one request compiles a given file at a
+     * time, other requests for the same file wait for that compilation.
+     *
+     * @return the compilation result, or <code>null</code> if the compilation
+     *         failed
+     */
+    ScssCacheEntry getScssCacheEntry(String filename,
+            String scssFilename, ServletContext sc) throws IOException {
+        while (true) {
+            CompletableFuture<ScssCacheEntry> previous = scssCache
+                    .get(scssFilename);
+            if (previous != null) {
+                // A compilation that was still running is not checked again
+                boolean running = !previous.isDone();
+                ScssCacheEntry cacheEntry = getCompilationResult(previous);
+                if (running || (cacheEntry != null
+                        && cacheEntry.isStillValid())) {
+                    return cacheEntry;
                 }
             }
 
-            if (cacheEntry == null || !cacheEntry.isStillValid()) {
-                cacheEntry = compileScssOnTheFly(filename, scssFilename, sc);
-                persistCacheEntry(cacheEntry);
+            CompletableFuture<ScssCacheEntry> compilation = new CompletableFuture<>();
+            boolean started = previous == null
+                    ? scssCache.putIfAbsent(scssFilename, compilation) == null
+                    : scssCache.replace(scssFilename, previous, compilation);
+            if (!started) {
+                // Another request started compiling first
+                continue;
             }
-            scssCache.put(scssFilename, cacheEntry);
 
-            if (cacheEntry == null) {
-                // compilation did not produce any result, but logged a message
-                return false;
+            try {
+                ScssCacheEntry cacheEntry = null;
+                if (previous == null) {
+                    try {
+                        cacheEntry = loadPersistedScssCache(scssFilename, sc);
+                    } catch (Exception e) {
+                        getLogger().log(Level.WARNING,
+                                "Could not read persisted scss cache", e);
+                    }
+                }
+                if (cacheEntry == null || !cacheEntry.isStillValid()) {
+                    synchronized (SCSS_MUTEX) {
+                        cacheEntry = compileScssOnTheFly(filename,
+                                scssFilename, sc);
+                        if (cacheEntry != null) {
+                            persistCacheEntry(cacheEntry);
+                        }
+                    }
+                }
+                compilation.complete(cacheEntry);
+                return cacheEntry;
+            } catch (IOException | RuntimeException | Error e) {
+                scssCache.remove(scssFilename, compilation);
+                compilation.completeExceptionally(e);
+                throw e;
             }
+        }
+    }
 
-            // This is for development mode only so instruct the browser to
-            // never cache it
-            response.setHeader("Cache-Control", "no-cache");
-            final String mimetype = getService().getMimeType(filename);
-            writeResponse(response, mimetype, cacheEntry.getCss());
-
-            return true;
+    private static ScssCacheEntry getCompilationResult(
+            CompletableFuture<ScssCacheEntry> compilation) throws IOException {
+        try {
+            return compilation.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
         }
     }
 
@@ -1082,7 +1268,14 @@ public class VaadinServlet extends HttpServlet implements Constants {
         return new ScssCacheEntry(entryJson);
     }
 
-    private ScssCacheEntry compileScssOnTheFly(String filename,
+    /**
+     * Compiles the given scss file. Only called while holding
+     * {@link #SCSS_MUTEX}.
+     *
+     * @return the compilation result, or <code>null</code> if the compilation
+     *         failed
+     */
+    ScssCacheEntry compileScssOnTheFly(String filename,
             String scssFilename, ServletContext sc) throws IOException {
         String realFilename = sc.getRealPath(scssFilename);
         ScssStylesheet scss = ScssStylesheet.get(realFilename);
@@ -37,6 +37,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -251,6 +252,14 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      */
     private transient ConcurrentLinkedQueue<FutureAccess> pendingAccessQueue = new ConcurrentLinkedQueue<>();
 
+    private transient AccessQueueStatistics accessQueueStatistics = new AccessQueueStatistics();
+
+    /*
+     * Set when the service has scheduled a purge of the access queue, used for
+     * batching access tasks.
+     */
+    private transient AtomicBoolean accessQueuePurgeScheduled = new AtomicBoolean();
+
     /**
      * Creates a new VaadinSession tied to a VaadinService.
      *
@@ -868,6 +877,19 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         eventRouter.fireEvent(response);
     }
 
+    /**
+     * Checks whether any bootstrap listeners have been added to this session.
+     *
+     * @return <code>true</code> if there are bootstrap listeners,
+     *         <code>false</code> otherwise
+     * @since 8.1
+     */
+    boolean hasBootstrapListeners() {
+        assert hasLock();
+        return eventRouter.hasListeners(BootstrapFragmentResponse.class)
+                || eventRouter.hasListeners(BootstrapPageResponse.class);
+    }
+
     /**
      * Called by the framework to remove an UI instance from the session because
      * it has been closed.
@@ -976,7 +998,9 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
      * @see #hasLock()
      */
     public void lock() {
+        long start = System.nanoTime();
         getLockInstance().lock();
+        accessQueueStatistics.lockAcquired(System.nanoTime() - start);
     }
 
     /**
@@ -1415,6 +1439,29 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         return pendingAccessQueue;
     }
 
+    /**
+     * Gets statistics about the tasks submitted using
+     * {@link #access(Runnable)} and about waiting for the session lock. The
+     * statistics are not preserved when the session is serialized.
+     *
+     * @since 8.1
+     *
+     * @return the access queue statistics, not <code>null</code>
+     */
+    public AccessQueueStatistics getAccessQueueStatistics() {
+        return accessQueueStatistics;
+    }
+
+    /**
+     * Gets the flag used by {@link VaadinService} to keep track of whether a
+     * purge of the access queue has been scheduled.
+     *
+     * @return the purge scheduled flag
+     */
+    AtomicBoolean getAccessQueuePurgeScheduled() {
+        return accessQueuePurgeScheduled;
+    }
+
     /**
      * Gets the CSRF token (aka double submit cookie) that is used to protect
      * against Cross Site Request Forgery attacks.
@@ -1450,6 +1497,8 @@ public class VaadinSession implements HttpSessionBindingListener, Serializable {
         try {
             stream.defaultReadObject();
             pendingAccessQueue = new ConcurrentLinkedQueue<>();
+            accessQueueStatistics = new AccessQueueStatistics();
+            accessQueuePurgeScheduled = new AtomicBoolean();
         } finally {
             CurrentInstance.restoreInstances(old);
         }
@@ -19,6 +19,7 @@ package com.vaadin.server;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
 
 import com.vaadin.shared.VBrowserDetails;
@@ -488,6 +489,25 @@ public class WebBrowser implements Serializable {
 
     }
 
+    /**
+     * For internal use only. Updates the properties that are only known on
+     * the client side using the browser details sent by the client after a UI
+     * has been initialized when serving the bootstrap page.
+     *
+     * @param details
+     *            the browser details, using the same parameter names as the
+     *            UI initialization request
+     * @since 8.1
+     */
+    public void updateClientSideDetails(Map<String, String> details) {
+        if (details.get("v-sw") != null) {
+            updateClientSideDetails(details.get("v-sw"), details.get("v-sh"),
+                    details.get("v-tzo"), details.get("v-rtzo"),
+                    details.get("v-dstd"), details.get("v-dston"),
+                    details.get("v-curdate"), details.containsKey("v-td"));
+        }
+    }
+
     /**
      * For internal use by VaadinServlet/VaadinPortlet only. Updates all
      * properties in the class according to the given information.
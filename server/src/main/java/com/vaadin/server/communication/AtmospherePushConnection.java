@@ -22,7 +22,6 @@ import java.io.Reader;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.io.StringWriter;
-import java.io.Writer;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -164,9 +163,13 @@ public class AtmospherePushConnection implements PushConnection {
             }
         } else {
             try {
-                Writer writer = new StringWriter();
+                // Write the whole message into a single buffer to avoid
+                // copying the payload when adding the message envelope
+                StringWriter writer = new StringWriter();
+                writer.write("for(;;);[{");
                 new UidlWriter().write(getUI(), writer, async);
-                sendMessage("for(;;);[{" + writer.toString() + "}]");
+                writer.write("}]");
+                sendMessage(writer.toString());
             } catch (Exception e) {
                 throw new RuntimeException("Push failed", e);
             }
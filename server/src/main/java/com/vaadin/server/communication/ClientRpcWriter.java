@@ -62,7 +62,11 @@ public class ClientRpcWriter implements Serializable {
         Collection<ClientMethodInvocation> pendingInvocations = collectPendingRpcCalls(
                 ui.getConnectorTracker().getDirtyVisibleConnectors());
 
-        JsonArray rpcCalls = Json.createArray();
+        // Write each invocation as soon as it has been encoded instead of
+        // collecting all invocations into one array to avoid an extra copy of
+        // the whole payload
+        writer.write('[');
+        boolean first = true;
         for (ClientMethodInvocation invocation : pendingInvocations) {
             // add invocation to rpcCalls
             try {
@@ -92,7 +96,11 @@ public class ClientRpcWriter implements Serializable {
                     paramJson.set(i, encodeResult.getEncodedValue());
                 }
                 invocationJson.set(3, paramJson);
-                rpcCalls.set(rpcCalls.length(), invocationJson);
+                if (!first) {
+                    writer.write(',');
+                }
+                writer.write(JsonUtil.stringify(invocationJson));
+                first = false;
             } catch (JsonException e) {
                 throw new PaintException(
                         "Failed to serialize RPC method call parameters for connector "
@@ -103,7 +111,7 @@ public class ClientRpcWriter implements Serializable {
                         e);
             }
         }
-        writer.write(JsonUtil.stringify(rpcCalls));
+        writer.write(']');
     }
 
     /**
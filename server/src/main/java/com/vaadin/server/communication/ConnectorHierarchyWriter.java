@@ -63,7 +63,11 @@ public class ConnectorHierarchyWriter implements Serializable {
         Collection<ClientConnector> dirtyVisibleConnectors = ui
                 .getConnectorTracker().getDirtyVisibleConnectors();
 
+        // Each mapping is written as soon as it has been collected. The
+        // object is only used for the hierarchy assertions in ConnectorTracker.
         JsonObject hierarchyInfo = Json.createObject();
+        writer.write('{');
+        boolean first = true;
         for (ClientConnector connector : dirtyVisibleConnectors) {
             String connectorId = connector.getConnectorId();
             JsonArray children = Json.createArray();
@@ -81,6 +85,13 @@ public class ConnectorHierarchyWriter implements Serializable {
                     || !stateUpdateConnectors.contains(connectorId)) {
                 try {
                     hierarchyInfo.put(connectorId, children);
+                    if (!first) {
+                        writer.write(',');
+                    }
+                    writer.write(JsonUtil.quote(connectorId));
+                    writer.write(':');
+                    writer.write(JsonUtil.stringify(children));
+                    first = false;
                 } catch (JsonException e) {
                     throw new PaintException(
                             "Failed to send hierarchy information about "
@@ -94,7 +105,7 @@ public class ConnectorHierarchyWriter implements Serializable {
         // used by the real assert later on
         assert storeSentHierarchy(hierarchyInfo, stateUpdateConnectors);
 
-        writer.write(JsonUtil.stringify(hierarchyInfo));
+        writer.write('}');
     }
 
     private boolean storeSentHierarchy(JsonObject hierarchyInfo,
@@ -23,6 +23,8 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.NoInputStreamException;
@@ -53,6 +55,11 @@ public class FileUploadHandler implements RequestHandler {
     /**
      * Stream that extracts content from another stream until the boundary
      * string is encountered.
+     * <p>
+     * The content is read from the real input stream in large blocks and the
+     * blocks are scanned for the boundary using the Boyer-Moore-Horspool
+     * algorithm. The bytes at the end of a block that could be the beginning
+     * of the boundary are kept in the buffer until more data has been read.
      *
      * Public only for unit tests, should be considered private for all other
      * purposes.
@@ -60,144 +67,170 @@ public class FileUploadHandler implements RequestHandler {
     public static class SimpleMultiPartInputStream extends InputStream {
 
         /**
-         * Counter of how many characters have been matched to boundary string
-         * from the stream
+         * The boundary, including the line break and dashes preceding it
          */
-        int matchedCount = -1;
+        private final byte[] boundary;
 
         /**
-         * Used as pointer when returning bytes after partly matched boundary
-         * string.
+         * How far the search window can be moved based on the last byte in
+         * the window when the boundary did not match
          */
-        int curBoundaryIndex = 0;
+        private final int[] shifts = new int[256];
+
+        private final InputStream realInputStream;
+
+        private final byte[] buffer;
+
         /**
-         * The byte found after a "promising start for boundary"
+         * Position of the next byte to return from the buffer
          */
-        private int bufferedByte = -1;
-        private boolean atTheEnd = false;
+        private int position = 0;
 
-        private final char[] boundary;
+        /**
+         * End of the bytes in the buffer which are known not to be a part of
+         * the boundary
+         */
+        private int contentLimit = 0;
 
-        private final InputStream realInputStream;
+        /**
+         * End of the bytes read from the real input stream to the buffer
+         */
+        private int limit = 0;
+
+        private boolean boundaryFound = false;
+        private boolean endOfStream = false;
 
         public SimpleMultiPartInputStream(InputStream realInputStream,
                 String boundaryString) {
-            boundary = (CRLF + DASHDASH + boundaryString).toCharArray();
+            boundary = (CRLF + DASHDASH + boundaryString)
+                    .getBytes(StandardCharsets.UTF_8);
             this.realInputStream = realInputStream;
+            buffer = new byte[Math.max(UPLOAD_BUFFER_SIZE,
+                    2 * boundary.length)];
+
+            Arrays.fill(shifts, boundary.length);
+            for (int i = 0; i < boundary.length - 1; i++) {
+                shifts[boundary[i] & 0xff] = boundary.length - 1 - i;
+            }
         }
 
         @Override
         public int read() throws IOException {
-            if (atTheEnd) {
-                // End boundary reached, nothing more to read
+            if (!fillContent()) {
+                return -1;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) {
+                throw new IndexOutOfBoundsException();
+            } else if (len == 0) {
+                return 0;
+            } else if (!fillContent()) {
                 return -1;
-            } else if (bufferedByte >= 0) {
-                /* Purge partially matched boundary if there was such */
-                return getBuffered();
-            } else if (matchedCount != -1) {
-                /*
-                 * Special case where last "failed" matching ended with first
-                 * character from boundary string
-                 */
-                return matchForBoundary();
-            } else {
-                int fromActualStream = realInputStream.read();
-                if (fromActualStream == -1) {
-                    // unexpected end of stream
-                    throw new IOException(
-                            "The multipart stream ended unexpectedly");
-                }
-                if (boundary[0] == fromActualStream) {
-                    /*
-                     * If matches the first character in boundary string, start
-                     * checking if the boundary is fetched.
-                     */
-                    return matchForBoundary();
-                }
-                return fromActualStream;
             }
+            int count = Math.min(len, contentLimit - position);
+            System.arraycopy(buffer, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return contentLimit - position;
         }
 
         /**
-         * Reads the input to expect a boundary string. Expects that the first
-         * character has already been matched.
+         * Writes the next block of content directly from the internal buffer
+         * to the given output stream.
          *
-         * @return -1 if the boundary was matched, else returns the first byte
-         *         from boundary
+         * @param out
+         *            the output stream to write to
+         * @return the number of bytes written, or -1 if the boundary has been
+         *         reached
          * @throws IOException
+         *             if reading the real input stream or writing to the
+         *             output stream fails
          */
-        private int matchForBoundary() throws IOException {
-            matchedCount = 0;
-            /*
-             * Going to "buffered mode". Read until full boundary match or a
-             * different character.
-             */
-            while (true) {
-                matchedCount++;
-                if (matchedCount == boundary.length) {
-                    /*
-                     * The whole boundary matched so we have reached the end of
-                     * file
-                     */
-                    atTheEnd = true;
-                    return -1;
-                }
-                int fromActualStream = realInputStream.read();
-                if (fromActualStream != boundary[matchedCount]) {
-                    /*
-                     * Did not find full boundary, cache the mismatching byte
-                     * and start returning the partially matched boundary.
-                     */
-                    bufferedByte = fromActualStream;
-                    return getBuffered();
-                }
+        int writeTo(OutputStream out) throws IOException {
+            if (!fillContent()) {
+                return -1;
             }
+            int count = contentLimit - position;
+            out.write(buffer, position, count);
+            position += count;
+            return count;
         }
 
         /**
-         * Returns the partly matched boundary string and the byte following
-         * that.
+         * Ensures that there is content to return in the buffer, reading more
+         * from the real input stream and scanning it for the boundary if
+         * needed.
          *
-         * @return
+         * @return <code>true</code> if there is content available,
+         *         <code>false</code> if the boundary has been reached
          * @throws IOException
+         *             if the real input stream ends before the boundary
          */
-        private int getBuffered() throws IOException {
-            int b;
-            if (matchedCount == 0) {
-                // The boundary has been returned, return the buffered byte.
-                b = bufferedByte;
-                bufferedByte = -1;
-                matchedCount = -1;
-            } else {
-                b = boundary[curBoundaryIndex++];
-                if (curBoundaryIndex == matchedCount) {
-                    // The full boundary has been returned, remaining is the
-                    // char that did not match the boundary.
-
-                    curBoundaryIndex = 0;
-                    if (bufferedByte != boundary[0]) {
-                        /*
-                         * next call for getBuffered will return the
-                         * bufferedByte that came after the partial boundary
-                         * match
-                         */
-                        matchedCount = 0;
-                    } else {
-                        /*
-                         * Special case where buffered byte again matches the
-                         * boundaryString. This could be the start of the real
-                         * end boundary.
-                         */
-                        matchedCount = 0;
-                        bufferedByte = -1;
+        private boolean fillContent() throws IOException {
+            while (position == contentLimit) {
+                if (boundaryFound) {
+                    return false;
+                } else if (endOfStream) {
+                    throw new IOException(
+                            "The multipart stream ended unexpectedly");
+                }
+
+                // Keep the bytes that might be the start of the boundary
+                int remaining = limit - position;
+                System.arraycopy(buffer, position, buffer, 0, remaining);
+                position = 0;
+                limit = remaining;
+
+                do {
+                    int read = realInputStream.read(buffer, limit,
+                            buffer.length - limit);
+                    if (read == -1) {
+                        endOfStream = true;
+                        break;
                     }
+                    limit += read;
+                } while (limit < boundary.length);
+
+                int boundaryIndex = indexOfBoundary();
+                if (boundaryIndex >= 0) {
+                    boundaryFound = true;
+                    contentLimit = boundaryIndex;
+                } else if (endOfStream) {
+                    contentLimit = limit;
+                } else {
+                    contentLimit = limit - boundary.length + 1;
                 }
             }
-            if (b == -1) {
-                throw new IOException(
-                        "The multipart stream ended unexpectedly");
+            return true;
+        }
+
+        /**
+         * Finds the first complete boundary in the buffer.
+         *
+         * @return the index of the boundary in the buffer, or -1 if not found
+         */
+        private int indexOfBoundary() {
+            int last = boundary.length - 1;
+            int index = 0;
+            while (index + last < limit) {
+                int i = last;
+                while (buffer[index + i] == boundary[i]) {
+                    if (i == 0) {
+                        return index;
+                    }
+                    i--;
+                }
+                index += shifts[buffer[index + last] & 0xff];
             }
-            return b;
+            return -1;
         }
     }
 
@@ -231,9 +264,11 @@ public class FileUploadHandler implements RequestHandler {
     private static final String DASHDASH = "--";
 
     /*
-     * Same as in apache commons file upload library that was previously used.
+     * Size of the blocks read from the request and written to the stream
+     * variable. Large blocks keep the per block overhead of scanning for the
+     * boundary and of the output stream low.
      */
-    private static final int MAX_UPLOAD_BUFFER_SIZE = 4 * 1024;
+    private static final int UPLOAD_BUFFER_SIZE = 64 * 1024;
 
     /* Minimum interval which will be used for streaming progress events. */
     public static final int DEFAULT_STREAMING_PROGRESS_EVENT_INTERVAL_MS = 500;
@@ -388,14 +423,8 @@ public class FileUploadHandler implements RequestHandler {
                 + 2 * DASHDASH.length() + CRLF.length());
 
         /*
-         * Reads bytes from the underlying stream. Compares the read bytes to
-         * the boundary string and returns -1 if met.
-         *
-         * The matching happens so that if the read byte equals to the first
-         * char of boundary string, the stream goes to "buffering mode". In
-         * buffering mode bytes are read until the character does not match the
-         * corresponding from boundary string or the full boundary string is
-         * found.
+         * Reads blocks from the underlying stream and returns the bytes before
+         * the boundary string, then returns -1.
          *
          * Note, if this is someday needed elsewhere, don't shoot yourself to
          * foot and split to a top level helper class.
@@ -564,13 +593,24 @@ public class FileUploadHandler implements RequestHandler {
                 throw new NoInputStreamException();
             }
 
-            final byte buffer[] = new byte[MAX_UPLOAD_BUFFER_SIZE];
+            // Multipart content is written directly from the buffer of the
+            // parser without copying it to an intermediate buffer
+            final SimpleMultiPartInputStream multiPartStream = in instanceof SimpleMultiPartInputStream
+                    ? (SimpleMultiPartInputStream) in : null;
+            final byte buffer[] = multiPartStream == null
+                    ? new byte[UPLOAD_BUFFER_SIZE] : null;
             long lastStreamingEvent = 0;
             int bytesReadToBuffer = 0;
             do {
-                bytesReadToBuffer = in.read(buffer);
+                if (multiPartStream != null) {
+                    bytesReadToBuffer = multiPartStream.writeTo(out);
+                } else {
+                    bytesReadToBuffer = in.read(buffer);
+                    if (bytesReadToBuffer > 0) {
+                        out.write(buffer, 0, bytesReadToBuffer);
+                    }
+                }
                 if (bytesReadToBuffer > 0) {
-                    out.write(buffer, 0, bytesReadToBuffer);
                     totalBytes += bytesReadToBuffer;
                 }
                 if (listenProgress) {
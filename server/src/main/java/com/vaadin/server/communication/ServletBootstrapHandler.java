@@ -16,10 +16,20 @@
 
 package com.vaadin.server.communication;
 
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
 import com.vaadin.server.BootstrapHandler;
 import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinServletRequest;
 import com.vaadin.server.VaadinServletService;
 
+import elemental.json.JsonObject;
+
 public class ServletBootstrapHandler extends BootstrapHandler {
     @Override
     protected String getServiceUrl(BootstrapContext context) {
@@ -52,4 +62,36 @@ public class ServletBootstrapHandler extends BootstrapHandler {
                 .getContextRootRelativePath(context.getRequest()) + "/";
     }
 
+    @Override
+    protected JsonObject initUI(BootstrapContext context) throws IOException {
+        VaadinServletRequest request = (VaadinServletRequest) context
+                .getRequest();
+
+        // Parameters that vaadinBootstrap.js would send in the init request
+        Map<String, String> initParameters = new HashMap<>();
+        initParameters.put("theme", context.getThemeName());
+        if (request.getService().getDeploymentConfiguration()
+                .isSendUrlsAsParameters()) {
+            StringBuffer location = request.getRequestURL();
+            if (request.getQueryString() != null) {
+                location.append('?').append(request.getQueryString());
+            }
+            initParameters.put("v-loc", location.toString());
+        }
+
+        HttpServletRequest initRequest = new HttpServletRequestWrapper(
+                request) {
+            @Override
+            public String getParameter(String name) {
+                if (initParameters.containsKey(name)) {
+                    return initParameters.get(name);
+                }
+                return super.getParameter(name);
+            }
+        };
+
+        return new ServletUIInitHandler().initUI(context.getSession(),
+                new VaadinServletRequest(initRequest, request.getService()));
+    }
+
 }
@@ -22,13 +22,13 @@ import java.io.Writer;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.ObjLongConsumer;
 
 import com.vaadin.server.ClientConnector;
 import com.vaadin.server.PaintException;
 import com.vaadin.shared.communication.SharedState;
 import com.vaadin.ui.UI;
 
-import elemental.json.Json;
 import elemental.json.JsonException;
 import elemental.json.JsonObject;
 import elemental.json.impl.JsonUtil;
@@ -54,20 +54,56 @@ public class SharedStateWriter implements Serializable {
      *             If the serialization fails.
      */
     public Set<String> write(UI ui, Writer writer) throws IOException {
+        return write(ui, writer, null);
+    }
+
+    /**
+     * Writes a JSON object containing the pending state changes of the dirty
+     * connectors of the given UI and reports the time spent encoding the state
+     * of each connector to the given consumer.
+     *
+     * @param ui
+     *            The UI whose state changes should be written.
+     * @param writer
+     *            The writer to use.
+     * @param encodingTimeConsumer
+     *            The consumer to report encoding times in nanoseconds to, or
+     *            <code>null</code> to not measure encoding times
+     * @return a set of connector ids with state changes
+     * @throws IOException
+     *             If the serialization fails.
+     */
+    Set<String> write(UI ui, Writer writer,
+            ObjLongConsumer<ClientConnector> encodingTimeConsumer)
+            throws IOException {
 
         Collection<ClientConnector> dirtyVisibleConnectors = ui
                 .getConnectorTracker().getDirtyVisibleConnectors();
 
         Set<String> writtenConnectors = new HashSet<>();
-        JsonObject sharedStates = Json.createObject();
+        // Write each state as soon as it has been encoded instead of
+        // collecting all states into one object to avoid an extra copy of
+        // the whole payload
+        writer.write('{');
         for (ClientConnector connector : dirtyVisibleConnectors) {
             // encode and send shared state
             String connectorId = connector.getConnectorId();
             try {
+                long encodingStart = encodingTimeConsumer != null
+                        ? System.nanoTime() : 0;
                 JsonObject stateJson = connector.encodeState();
+                if (encodingTimeConsumer != null) {
+                    encodingTimeConsumer.accept(connector,
+                            System.nanoTime() - encodingStart);
+                }
 
                 if (stateJson != null && stateJson.keys().length != 0) {
-                    sharedStates.put(connectorId, stateJson);
+                    if (!writtenConnectors.isEmpty()) {
+                        writer.write(',');
+                    }
+                    writer.write(JsonUtil.quote(connectorId));
+                    writer.write(':');
+                    writer.write(JsonUtil.stringify(stateJson));
                     writtenConnectors.add(connectorId);
                 }
             } catch (JsonException e) {
@@ -78,7 +114,7 @@ public class SharedStateWriter implements Serializable {
                         e);
             }
         }
-        writer.write(JsonUtil.stringify(sharedStates));
+        writer.write('}');
 
         return writtenConnectors;
     }
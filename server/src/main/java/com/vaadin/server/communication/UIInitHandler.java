@@ -16,14 +16,17 @@
 
 package com.vaadin.server.communication;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 import com.vaadin.annotations.PreserveOnRefresh;
+import com.vaadin.server.DeploymentConfiguration;
 import com.vaadin.server.LegacyApplicationUIProvider;
 import com.vaadin.server.SynchronizedRequestHandler;
 import com.vaadin.server.UIClassSelectionEvent;
@@ -55,6 +58,14 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
 
     public static final String BROWSER_DETAILS_PARAMETER = "v-browserDetails";
 
+    /*
+     * Responses smaller than this are not compressed since the gzip overhead
+     * would outweigh the savings.
+     */
+    private static final int COMPRESSION_THRESHOLD = 1024;
+
+    private static final int COMPRESSION_BUFFER_SIZE = 8 * 1024;
+
     protected abstract boolean isInitRequest(VaadinRequest request);
 
     @Override
@@ -68,17 +79,7 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
         try {
             assert UI.getCurrent() == null;
 
-            // Update browser information from the request
-            session.getBrowser().updateRequestDetails(request);
-
-            UI uI = getBrowserDetailsUI(request, session);
-
-            session.getCommunicationManager().repaintAll(uI);
-
-            JsonObject params = Json.createObject();
-            params.put(UIConstants.UI_ID_PARAMETER, uI.getUIId());
-            String initialUIDL = getInitialUidl(request, uI);
-            params.put("uidl", initialUIDL);
+            JsonObject params = initUI(session, request);
 
             return commitJsonResponse(request, response,
                     JsonUtil.stringify(params));
@@ -87,6 +88,42 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
         }
     }
 
+    /**
+     * Finds or creates the UI for the given request and gets the parameters
+     * needed by the client for rendering it, i.e. the UI id and the initial
+     * UIDL. The browser information of the session is updated from the
+     * request.
+     * <p>
+     * This is also used for initializing the UI already when serving the
+     * bootstrap page, if {@link DeploymentConfiguration#isEagerInitEnabled()
+     * eager initialization} has been enabled.
+     *
+     * @param session
+     *            the session to which the UI belongs, not <code>null</code>
+     * @param request
+     *            the request for which the UI is initialized, not
+     *            <code>null</code>
+     * @return the initialization parameters to pass to the client
+     * @throws IOException
+     *             if the initial UIDL cannot be written
+     * @since 8.1
+     */
+    public JsonObject initUI(VaadinSession session, VaadinRequest request)
+            throws IOException {
+        // Update browser information from the request
+        session.getBrowser().updateRequestDetails(request);
+
+        UI uI = getBrowserDetailsUI(request, session);
+
+        session.getCommunicationManager().repaintAll(uI);
+
+        JsonObject params = Json.createObject();
+        params.put(UIConstants.UI_ID_PARAMETER, uI.getUIId());
+        String initialUIDL = getInitialUidl(request, uI);
+        params.put("uidl", initialUIDL);
+        return params;
+    }
+
     /**
      * Commit the JSON response. We can't write immediately to the output stream
      * as we want to write only a critical notification if something goes wrong
@@ -104,6 +141,37 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
      */
     static boolean commitJsonResponse(VaadinRequest request,
             VaadinResponse response, String json) throws IOException {
+        byte[] b = json.getBytes("UTF-8");
+        OutputStream outputStream = openJsonResponse(request, response,
+                b.length);
+        outputStream.write(b);
+        closeJsonResponse(response, outputStream);
+
+        return true;
+    }
+
+    /**
+     * Writes the UTF-8 encoded JSON in the given buffer to the response
+     * without creating intermediate copies of it.
+     */
+    static boolean commitJsonResponse(VaadinRequest request,
+            VaadinResponse response, ByteArrayOutputStream json)
+            throws IOException {
+        OutputStream outputStream = openJsonResponse(request, response,
+                json.size());
+        json.writeTo(outputStream);
+        closeJsonResponse(response, outputStream);
+
+        return true;
+    }
+
+    /**
+     * Sets the JSON response headers and returns the stream to write the JSON
+     * to. The JSON is compressed if compression has been enabled, the browser
+     * accepts gzip and the JSON is large enough to benefit from it.
+     */
+    private static OutputStream openJsonResponse(VaadinRequest request,
+            VaadinResponse response, int contentLength) throws IOException {
         // The response was produced without errors so write it to the client
         response.setContentType(JsonConstants.JSON_CONTENT_TYPE);
 
@@ -111,15 +179,62 @@ public abstract class UIInitHandler extends SynchronizedRequestHandler {
         // iOS 6 Safari requires this (#9732)
         response.setHeader("Cache-Control", "no-cache");
 
-        byte[] b = json.getBytes("UTF-8");
-        response.setContentLength(b.length);
+        if (!isCompressionEnabled(response)) {
+            response.setContentLength(contentLength);
+            return response.getOutputStream();
+        }
 
-        OutputStream outputStream = response.getOutputStream();
-        outputStream.write(b);
+        response.setHeader("Vary", "Accept-Encoding");
+        if (contentLength < COMPRESSION_THRESHOLD
+                || !acceptsGzip(request)) {
+            response.setContentLength(contentLength);
+            return response.getOutputStream();
+        }
+
+        // The compressed length is not known in advance
+        response.setHeader("Content-Encoding", "gzip");
+        return new GZIPOutputStream(response.getOutputStream(),
+                COMPRESSION_BUFFER_SIZE);
+    }
+
+    private static void closeJsonResponse(VaadinResponse response,
+            OutputStream outputStream) throws IOException {
+        if (outputStream instanceof GZIPOutputStream) {
+            ((GZIPOutputStream) outputStream).finish();
+        }
         // NOTE GateIn requires the buffers to be flushed to work
         outputStream.flush();
+    }
 
-        return true;
+    private static boolean isCompressionEnabled(VaadinResponse response) {
+        VaadinService service = response.getService();
+        return service != null && service.getDeploymentConfiguration()
+                .isUidlCompressionEnabled();
+    }
+
+    /**
+     * Checks whether the Accept-Encoding header of the request lists gzip
+     * without explicitly giving it a zero quality value.
+     */
+    static boolean acceptsGzip(VaadinRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!"gzip".equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].replace(" ", "");
+                if (parameter.matches("q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
     }
 
     private UI getBrowserDetailsUI(VaadinRequest request,
@@ -16,9 +16,12 @@
 
 package com.vaadin.server.communication;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -51,6 +54,8 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
 
     public static final String UIDL_PATH = "UIDL/";
 
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
     private final ServerRpcHandler rpcHandler;
 
     public UidlRequestHandler() {
@@ -84,12 +89,20 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
             return true;
         }
 
-        StringWriter stringWriter = new StringWriter();
+        // Encode directly into a byte buffer that can be written to the
+        // response as is. The response is only committed once the whole
+        // message has been written successfully.
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+                INITIAL_BUFFER_SIZE);
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(buffer, StandardCharsets.UTF_8));
 
         try {
+            long rpcStart = System.nanoTime();
             rpcHandler.handleRpc(uI, request.getReader(), request);
+            long rpcHandlingNanos = System.nanoTime() - rpcStart;
 
-            writeUidl(request, response, uI, stringWriter);
+            writeUidl(request, response, uI, writer, rpcHandlingNanos);
         } catch (JsonException e) {
             getLogger().log(Level.SEVERE, "Error writing JSON to response", e);
             // Refresh on client side
@@ -103,11 +116,10 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
             writeRefresh(request, response);
             return true;
         } finally {
-            stringWriter.close();
+            writer.close();
         }
 
-        return UIInitHandler.commitJsonResponse(request, response,
-                stringWriter.toString());
+        return UIInitHandler.commitJsonResponse(request, response, buffer);
     }
 
     private void writeRefresh(VaadinRequest request, VaadinResponse response)
@@ -118,10 +130,10 @@ public class UidlRequestHandler extends SynchronizedRequestHandler
     }
 
     private void writeUidl(VaadinRequest request, VaadinResponse response,
-            UI ui, Writer writer) throws IOException {
+            UI ui, Writer writer, long rpcHandlingNanos) throws IOException {
         openJsonMessage(writer, response);
 
-        new UidlWriter().write(ui, writer, false);
+        new UidlWriter().write(ui, writer, false, rpcHandlingNanos);
 
         closeJsonMessage(writer);
     }
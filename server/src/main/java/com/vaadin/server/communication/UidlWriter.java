@@ -16,6 +16,7 @@
 
 package com.vaadin.server.communication;
 
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.Serializable;
 import java.io.Writer;
@@ -23,8 +24,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -34,6 +37,8 @@ import com.vaadin.server.DependencyFilter.FilterContext;
 import com.vaadin.server.JsonPaintTarget;
 import com.vaadin.server.LegacyCommunicationManager;
 import com.vaadin.server.LegacyCommunicationManager.ClientCache;
+import com.vaadin.server.RenderMetricsEvent;
+import com.vaadin.server.RenderMetricsEvent.ConnectorTypeMetrics;
 import com.vaadin.server.SystemMessages;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.VaadinSession;
@@ -72,9 +77,48 @@ public class UidlWriter implements Serializable {
      *             If the writing fails.
      */
     public void write(UI ui, Writer writer, boolean async) throws IOException {
+        write(ui, writer, async, -1);
+    }
+
+    /**
+     * Writes a JSON object containing all pending changes to the given UI and
+     * reports the time spent to the
+     * {@link VaadinService#addRenderMetricsListener(com.vaadin.server.RenderMetricsListener)
+     * render metrics listeners} of the service.
+     *
+     * @since 8.1
+     * @param ui
+     *            The {@link UI} whose changes to write
+     * @param writer
+     *            The writer to use
+     * @param async
+     *            True if this message is sent by the server asynchronously,
+     *            false if it is a response to a client message.
+     * @param rpcHandlingNanos
+     *            The time spent handling the RPC calls of the client message
+     *            in nanoseconds, or -1 if no client message was handled
+     *
+     * @throws IOException
+     *             If the writing fails.
+     */
+    public void write(UI ui, Writer writer, boolean async,
+            long rpcHandlingNanos) throws IOException {
         VaadinSession session = ui.getSession();
         VaadinService service = session.getService();
 
+        boolean collectMetrics = service.hasRenderMetricsListeners();
+        long writeStart = collectMetrics ? System.nanoTime() : 0;
+        CountingWriter countingWriter = null;
+        Map<Class<? extends ClientConnector>, long[]> typeMetrics = null;
+        if (collectMetrics) {
+            countingWriter = new CountingWriter(writer);
+            writer = countingWriter;
+            typeMetrics = new HashMap<>();
+        }
+        long beforeClientResponseNanos = 0;
+        long stateEncodingNanos = 0;
+        long hierarchyWritingNanos = 0;
+
         // Purge pending access calls as they might produce additional changes
         // to write out
         service.runPendingAccessTasks(session);
@@ -88,6 +132,7 @@ public class UidlWriter implements Serializable {
         ConnectorTracker uiConnectorTracker = ui.getConnectorTracker();
         getLogger().log(Level.FINE, "* Creating response to client");
 
+        long phaseStart = collectMetrics ? System.nanoTime() : 0;
         while (true) {
             ArrayList<ClientConnector> connectorsToProcess = new ArrayList<>();
             for (ClientConnector c : uiConnectorTracker
@@ -130,6 +175,10 @@ public class UidlWriter implements Serializable {
             }
         }
 
+        if (collectMetrics) {
+            beforeClientResponseNanos = System.nanoTime() - phaseStart;
+        }
+
         getLogger().log(Level.FINE, "Found " + processedConnectors.size()
                 + " dirty connectors to paint");
 
@@ -171,8 +220,22 @@ public class UidlWriter implements Serializable {
             // processing.
 
             writer.write("\"state\":");
-            Set<String> stateUpdateConnectors = new SharedStateWriter()
-                    .write(ui, writer);
+            Set<String> stateUpdateConnectors;
+            if (collectMetrics) {
+                Map<Class<? extends ClientConnector>, long[]> metrics = typeMetrics;
+                phaseStart = System.nanoTime();
+                stateUpdateConnectors = new SharedStateWriter().write(ui,
+                        writer, (connector, nanos) -> {
+                            long[] typeMetric = metrics.computeIfAbsent(
+                                    connector.getClass(), type -> new long[2]);
+                            typeMetric[0]++;
+                            typeMetric[1] += nanos;
+                        });
+                stateEncodingNanos = System.nanoTime() - phaseStart;
+            } else {
+                stateUpdateConnectors = new SharedStateWriter().write(ui,
+                        writer);
+            }
             writer.write(", "); // close states
 
             // TODO This should be optimized. The type only needs to be
@@ -192,8 +255,12 @@ public class UidlWriter implements Serializable {
             // child to 0 children)
 
             writer.write("\"hierarchy\":");
+            phaseStart = collectMetrics ? System.nanoTime() : 0;
             new ConnectorHierarchyWriter().write(ui, writer,
                     stateUpdateConnectors);
+            if (collectMetrics) {
+                hierarchyWritingNanos = System.nanoTime() - phaseStart;
+            }
             writer.write(", "); // close hierarchy
 
             // send server to client RPC calls for components in the UI, in call
@@ -322,6 +389,50 @@ public class UidlWriter implements Serializable {
         } finally {
             uiConnectorTracker.setWritingResponse(false);
         }
+
+        if (collectMetrics) {
+            Map<Class<? extends ClientConnector>, ConnectorTypeMetrics> connectorTypeMetrics = new HashMap<>();
+            typeMetrics.forEach((type, metric) -> connectorTypeMetrics.put(
+                    type, new ConnectorTypeMetrics((int) metric[0], metric[1])));
+            service.fireRenderMetrics(new RenderMetricsEvent(service, ui,
+                    async, rpcHandlingNanos, beforeClientResponseNanos,
+                    stateEncodingNanos, hierarchyWritingNanos,
+                    System.nanoTime() - writeStart, countingWriter.getCount(),
+                    processedConnectors.size(), connectorTypeMetrics));
+        }
+    }
+
+    /**
+     * Writer keeping track of the number of characters written through it.
+     */
+    private static class CountingWriter extends FilterWriter {
+        private long count = 0;
+
+        public CountingWriter(Writer out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
     }
 
     private JsonArray toJsonArray(List<Dependency> list) {
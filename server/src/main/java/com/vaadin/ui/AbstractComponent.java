@@ -196,23 +196,26 @@ public abstract class AbstractComponent extends AbstractClientConnector
     @Override
     public void setStyleName(String style) {
         if (style == null || "".equals(style)) {
-            getState().styles = null;
+            getState(false).styles = null;
+            markStateFieldsDirty("styles");
             return;
         }
-        if (getState().styles == null) {
-            getState().styles = new ArrayList<>();
+        if (getState(false).styles == null) {
+            getState(false).styles = new ArrayList<>();
         }
-        List<String> styles = getState().styles;
+        List<String> styles = getState(false).styles;
         styles.clear();
         StringTokenizer tokenizer = new StringTokenizer(style, " ");
         while (tokenizer.hasMoreTokens()) {
             styles.add(tokenizer.nextToken());
         }
+        markStateFieldsDirty("styles");
     }
 
     @Override
     public void setPrimaryStyleName(String style) {
-        getState().primaryStyleName = style;
+        getState(false).primaryStyleName = style;
+        markStateFieldsDirty("primaryStyleName");
     }
 
     @Override
@@ -234,22 +237,24 @@ public abstract class AbstractComponent extends AbstractClientConnector
             return;
         }
 
-        if (getState().styles == null) {
-            getState().styles = new ArrayList<>();
+        if (getState(false).styles == null) {
+            getState(false).styles = new ArrayList<>();
         }
-        List<String> styles = getState().styles;
+        List<String> styles = getState(false).styles;
         if (!styles.contains(style)) {
             styles.add(style);
+            markStateFieldsDirty("styles");
         }
     }
 
     @Override
     public void removeStyleName(String style) {
-        if (ComponentStateUtil.hasStyles(getState())) {
+        if (ComponentStateUtil.hasStyles(getState(false))) {
             StringTokenizer tokenizer = new StringTokenizer(style, " ");
             while (tokenizer.hasMoreTokens()) {
-                getState().styles.remove(tokenizer.nextToken());
+                getState(false).styles.remove(tokenizer.nextToken());
             }
+            markStateFieldsDirty("styles");
         }
     }
 
@@ -292,7 +297,8 @@ public abstract class AbstractComponent extends AbstractClientConnector
 
     @Override
     public void setCaption(String caption) {
-        getState().caption = caption;
+        getState(false).caption = caption;
+        markStateFieldsDirty("caption");
     }
 
     /**
@@ -309,7 +315,8 @@ public abstract class AbstractComponent extends AbstractClientConnector
      *            as plain text
      */
     public void setCaptionAsHtml(boolean captionAsHtml) {
-        getState().captionAsHtml = captionAsHtml;
+        getState(false).captionAsHtml = captionAsHtml;
+        markStateFieldsDirty("captionAsHtml");
     }
 
     /**
@@ -410,7 +417,8 @@ public abstract class AbstractComponent extends AbstractClientConnector
      */
     @Override
     public void setEnabled(boolean enabled) {
-        getState().enabled = enabled;
+        getState(false).enabled = enabled;
+        markStateFieldsDirty("enabled");
     }
 
     /*
@@ -510,8 +518,9 @@ public abstract class AbstractComponent extends AbstractClientConnector
      * @since 8.0
      */
     public void setDescription(String description, ContentMode mode) {
-        getState().description = description;
-        getState().descriptionContentMode = mode;
+        getState(false).description = description;
+        getState(false).descriptionContentMode = mode;
+        markStateFieldsDirty("description", "descriptionContentMode");
     }
 
     /*
@@ -137,8 +137,12 @@ public abstract class AbstractField<T> extends AbstractComponent
             return false;
         }
         T oldValue = this.getValue();
+        boolean fieldsMarkedDirty = isPartialStateEncoding()
+                && !isMarkedAsDirty();
         doSetValue(value);
-        if (!userOriginated) {
+        // Not needed if doSetValue has marked the changed state fields dirty
+        fieldsMarkedDirty = fieldsMarkedDirty && isMarkedAsDirty();
+        if (!userOriginated && !fieldsMarkedDirty) {
             markAsDirty();
         }
         fireEvent(createValueChange(oldValue, userOriginated));
@@ -146,6 +150,17 @@ public abstract class AbstractField<T> extends AbstractComponent
         return true;
     }
 
+    /**
+     * Checks whether this field has been marked as dirty.
+     *
+     * @return <code>true</code> if this field is attached and marked as dirty,
+     *         <code>false</code> otherwise
+     */
+    private boolean isMarkedAsDirty() {
+        UI ui = getUI();
+        return ui != null && ui.getConnectorTracker().isDirty(this);
+    }
+
     /**
      * Called when a new value is set to determine whether the provided new
      * value is considered to be a change compared to the current value. This is
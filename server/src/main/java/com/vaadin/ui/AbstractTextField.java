@@ -270,7 +270,8 @@ public abstract class AbstractTextField extends AbstractField<String>
 
     @Override
     protected void doSetValue(String value) {
-        getState().text = value;
+        getState(false).text = value;
+        markStateFieldsDirty("text");
     }
 
     @Override
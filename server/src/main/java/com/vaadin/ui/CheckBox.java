@@ -154,7 +154,8 @@ public class CheckBox extends AbstractField<Boolean>
 
     @Override
     protected void doSetValue(Boolean value) {
-        getState().checked = value;
+        getState(false).checked = value;
+        markStateFieldsDirty("checked");
     }
 
     @Override
@@ -15,10 +15,10 @@
  */
 package com.vaadin.ui;
 
-import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -31,6 +31,7 @@ import java.util.logging.Logger;
 
 import com.vaadin.server.AbstractClientConnector;
 import com.vaadin.server.ClientConnector;
+import com.vaadin.server.CompactJsonObject;
 import com.vaadin.server.DragAndDropService;
 import com.vaadin.server.GlobalResourceHandler;
 import com.vaadin.server.LegacyCommunicationManager;
@@ -39,8 +40,6 @@ import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinService;
 import com.vaadin.server.communication.ConnectorHierarchyWriter;
 
-import elemental.json.Json;
-import elemental.json.JsonException;
 import elemental.json.JsonObject;
 
 /**
@@ -67,6 +66,14 @@ public class ConnectorTracker implements Serializable {
 
     private final HashMap<String, ClientConnector> connectorIdToConnector = new HashMap<>();
     private final Set<ClientConnector> dirtyConnectors = new HashSet<>();
+
+    /**
+     * The changed top level state fields of dirty connectors that have only
+     * been marked dirty using
+     * {@link #markDirtyFields(ClientConnector, String...)}. Connectors marked
+     * dirty in any other way are not included.
+     */
+    private final Map<ClientConnector, Set<String>> dirtyStateFields = new HashMap<>();
     private final Set<ClientConnector> uninitializedConnectors = new HashSet<>();
 
     /**
@@ -79,7 +86,7 @@ public class ConnectorTracker implements Serializable {
     private boolean writingResponse = false;
 
     private final UI uI;
-    private transient Map<ClientConnector, JsonObject> diffStates = new HashMap<>();
+    private final Map<ClientConnector, CompactJsonObject> diffStates = new HashMap<>();
 
     /** Maps connectorIds to a map of named StreamVariables */
     private Map<String, Map<String, StreamVariable>> pidToNameToStreamVariable;
@@ -144,6 +151,7 @@ public class ConnectorTracker implements Serializable {
                             connectorId });
         }
         dirtyConnectors.add(connector);
+        dirtyStateFields.remove(connector);
     }
 
     /**
@@ -173,6 +181,7 @@ public class ConnectorTracker implements Serializable {
         }
 
         dirtyConnectors.remove(connector);
+        dirtyStateFields.remove(connector);
 
         if (!isClientSideInitialized(connector)) {
             // Client side has never known about this connector so there is no
@@ -514,6 +523,67 @@ public class ConnectorTracker implements Serializable {
         }
 
         dirtyConnectors.add(connector);
+        dirtyStateFields.remove(connector);
+    }
+
+    /**
+     * Mark the connector as dirty because of changes to the given top level
+     * fields of its shared state. This should not be done while the response
+     * is being written.
+     * <p>
+     * As long as a connector has only been marked dirty using this method,
+     * only the given fields of the state are encoded and compared to the
+     * state previously sent to the client. If the connector is also marked
+     * dirty using {@link #markDirty(ClientConnector)}, the whole state is
+     * encoded.
+     *
+     * @see #getDirtyFields(ClientConnector)
+     *
+     * @param connector
+     *            The connector that should be marked dirty.
+     * @param fieldNames
+     *            The names of the changed state fields.
+     * @since 8.1
+     */
+    public void markDirtyFields(ClientConnector connector,
+            String... fieldNames) {
+        if (isWritingResponse()) {
+            throw new IllegalStateException(
+                    "A connector should not be marked as dirty while a response is being written.");
+        }
+
+        if (dirtyConnectors.add(connector)) {
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().log(Level.FINE, "{0} is now dirty",
+                        getConnectorAndParentInfo(connector));
+            }
+            dirtyStateFields.put(connector, new HashSet<>());
+        }
+
+        Set<String> fields = dirtyStateFields.get(connector);
+        if (fields != null) {
+            Collections.addAll(fields, fieldNames);
+        }
+    }
+
+    /**
+     * Gets the top level state fields that have changed in a dirty connector.
+     *
+     * @see #markDirtyFields(ClientConnector, String...)
+     *
+     * @param connector
+     *            The connector to check.
+     * @return A set of field names, or <code>null</code> if the connector is
+     *         not dirty or if the whole state of the connector should be
+     *         encoded.
+     * @since 8.1
+     */
+    public Set<String> getDirtyFields(ClientConnector connector) {
+        Set<String> fields = dirtyStateFields.get(connector);
+        if (fields == null) {
+            return null;
+        }
+        return Collections.unmodifiableSet(fields);
     }
 
     /**
@@ -531,6 +601,7 @@ public class ConnectorTracker implements Serializable {
         }
 
         dirtyConnectors.remove(connector);
+        dirtyStateFields.remove(connector);
     }
 
     /**
@@ -587,6 +658,7 @@ public class ConnectorTracker implements Serializable {
      */
     public void markAllConnectorsClean() {
         dirtyConnectors.clear();
+        dirtyStateFields.clear();
         getLogger().fine("All connectors are now clean");
     }
 
@@ -656,7 +728,8 @@ public class ConnectorTracker implements Serializable {
 
     public void setDiffState(ClientConnector connector, JsonObject diffState) {
         assert getConnector(connector.getConnectorId()) == connector;
-        diffStates.put(connector, diffState);
+        diffStates.put(connector,
+                diffState == null ? null : CompactJsonObject.of(diffState));
     }
 
     public boolean isDirty(ClientConnector connector) {
@@ -716,42 +789,6 @@ public class ConnectorTracker implements Serializable {
         this.writingResponse = writingResponse;
     }
 
-    /* Special serialization to JsonObjects which are not serializable */
-    private void writeObject(java.io.ObjectOutputStream out)
-            throws IOException {
-        out.defaultWriteObject();
-        // Convert JsonObjects in diff state to String representation as
-        // JsonObject is not serializable
-        HashMap<ClientConnector, String> stringDiffStates = new HashMap<>(
-                diffStates.size() * 2);
-        for (ClientConnector key : diffStates.keySet()) {
-            stringDiffStates.put(key, diffStates.get(key).toString());
-        }
-        out.writeObject(stringDiffStates);
-    }
-
-    /* Special serialization to JsonObjects which are not serializable */
-    private void readObject(java.io.ObjectInputStream in)
-            throws IOException, ClassNotFoundException {
-        in.defaultReadObject();
-
-        // Read String versions of JsonObjects and parse into JsonObjects as
-        // JsonObject is not serializable
-        diffStates = new HashMap<>();
-        @SuppressWarnings("unchecked")
-        HashMap<ClientConnector, String> stringDiffStates = (HashMap<ClientConnector, String>) in
-                .readObject();
-        diffStates = new HashMap<>(stringDiffStates.size() * 2);
-        for (ClientConnector key : stringDiffStates.keySet()) {
-            try {
-                diffStates.put(key, Json.parse(stringDiffStates.get(key)));
-            } catch (JsonException e) {
-                throw new IOException(e);
-            }
-        }
-
-    }
-
     /**
      * Checks if the indicated connector has a StreamVariable of the given name
      * and returns the variable if one is found.
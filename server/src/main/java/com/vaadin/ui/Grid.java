@@ -2255,6 +2255,8 @@ public class Grid<T> extends AbstractListing<T> implements HasComponents,
     protected Grid(PropertySet<T> propertySet,
             DataCommunicator<T> dataCommunicator) {
         super(dataCommunicator);
+        // Rows of a grid share the column keys
+        dataCommunicator.setColumnarDataEncoding(true);
         registerRpc(new GridServerRpcImpl());
         setDefaultHeaderRow(appendHeaderRow());
         setSelectionModel(new SingleSelectionModelImpl<>());
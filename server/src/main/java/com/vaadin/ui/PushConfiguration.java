@@ -162,10 +162,45 @@ public interface PushConfiguration extends Serializable {
      */
     public String getPushUrl();
 
+    /**
+     * Sets the minimum time between two messages pushed to the client using
+     * {@link UI#push()}. If changes are pushed before the interval since the
+     * previous push has passed, the push is postponed until the interval has
+     * passed. All changes made in the meantime are then sent together in one
+     * message. This reduces the number of messages, the amount of JSON
+     * encoding and the work done by the client when the UI is updated very
+     * often, for instance from a background thread.
+     * <p>
+     * An interval of <code>n</code> milliseconds limits the rate of pushed
+     * messages to <code>1000/n</code> messages per second. Responses to client
+     * requests are not affected.
+     * <p>
+     * The default value is 0, i.e. changes are pushed right away.
+     *
+     * @since 8.1
+     * @param pushInterval
+     *            the minimum time between pushed messages in milliseconds, or
+     *            0 to push changes right away
+     * @throws IllegalArgumentException
+     *             if the interval is negative
+     */
+    public void setPushInterval(int pushInterval);
+
+    /**
+     * Returns the minimum time between two messages pushed to the client.
+     *
+     * @since 8.1
+     * @see #setPushInterval(int)
+     * @return the minimum time between pushed messages in milliseconds, or 0
+     *         if changes are pushed right away
+     */
+    public int getPushInterval();
+
 }
 
 class PushConfigurationImpl implements PushConfiguration {
     private final UI ui;
+    private int pushInterval = 0;
 
     public PushConfigurationImpl(UI ui) {
         this.ui = ui;
@@ -232,6 +267,20 @@ class PushConfigurationImpl implements PushConfiguration {
         return getState(false).pushUrl;
     }
 
+    @Override
+    public void setPushInterval(int pushInterval) {
+        if (pushInterval < 0) {
+            throw new IllegalArgumentException(
+                    "Push interval cannot be negative");
+        }
+        this.pushInterval = pushInterval;
+    }
+
+    @Override
+    public int getPushInterval() {
+        return pushInterval;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -199,6 +200,18 @@ public abstract class UI extends AbstractSingleComponentContainer
             getPage().updateLocation(uri, true, true);
 
         }
+
+        @Override
+        public void browserDetails(Map<String, String> details) {
+            getSession().getBrowser().updateClientSideDetails(details);
+
+            // The URI fragment is not sent to the server with the bootstrap
+            // request, so e.g. a navigator may need to catch up
+            String location = details.get("v-loc");
+            if (location != null) {
+                getPage().updateLocation(location, true, false);
+            }
+        }
     };
     private DebugWindowServerRpc debugRpc = new DebugWindowServerRpc() {
         @Override
@@ -657,6 +670,14 @@ public abstract class UI extends AbstractSingleComponentContainer
 
     private PushConnection pushConnection = null;
 
+    /*
+     * System.nanoTime() value before which changes are not pushed when a push
+     * interval is set, or 0 if changes can be pushed right away.
+     */
+    private transient long nextPushTime = 0;
+
+    private transient boolean throttledPushScheduled = false;
+
     private LocaleService localeService = new LocaleService(this,
             getState(false).localeServiceState);
 
@@ -1558,6 +1579,11 @@ public abstract class UI extends AbstractSingleComponentContainer
      * If push is enabled, but the push connection is not currently open, the
      * push will be done when the connection is established.
      * <p>
+     * If a {@link PushConfiguration#setPushInterval(int) push interval} is set
+     * and the previous push happened less than the interval ago, the changes
+     * are pushed once the interval has passed, together with any other changes
+     * made before that.
+     * <p>
      * As with all UI methods, the session must be locked when calling this
      * method. It is also recommended that {@link UI#getCurrent()} is set up to
      * return this UI since writing the response may invoke logic in any
@@ -1598,9 +1624,46 @@ public abstract class UI extends AbstractSingleComponentContainer
             return;
         }
 
+        int pushInterval = getPushConfiguration().getPushInterval();
+        if (pushInterval > 0) {
+            long now = System.nanoTime();
+            if (nextPushTime != 0 && now - nextPushTime < 0) {
+                scheduleThrottledPush(session, nextPushTime - now);
+                return;
+            }
+            nextPushTime = now + TimeUnit.MILLISECONDS.toNanos(pushInterval);
+            if (nextPushTime == 0) {
+                // 0 means that no push has happened
+                nextPushTime = 1;
+            }
+        }
+
         pushConnection.push();
     }
 
+    private void scheduleThrottledPush(VaadinSession session,
+            long delayNanos) {
+        if (throttledPushScheduled) {
+            // The changes will be sent by the already scheduled push
+            return;
+        }
+        throttledPushScheduled = true;
+        session.getService().scheduleAccess(session, () -> {
+            throttledPushScheduled = false;
+            if (getSession() != session
+                    || !getPushConfiguration().getPushMode().isEnabled()) {
+                return;
+            }
+            Map<Class<?>, CurrentInstance> oldCurrent = CurrentInstance
+                    .setCurrent(this);
+            try {
+                push();
+            } finally {
+                CurrentInstance.restoreInstances(oldCurrent);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
     /**
      * Returns the internal push connection object used by this UI. This method
      * should only be called by the framework.
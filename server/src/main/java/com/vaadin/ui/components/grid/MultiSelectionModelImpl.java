@@ -17,20 +17,22 @@ package com.vaadin.ui.components.grid;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.vaadin.data.provider.ConfigurableFilterDataProviderWrapper;
 import com.vaadin.data.provider.DataCommunicator;
 import com.vaadin.data.provider.DataProvider;
 import com.vaadin.data.provider.HierarchicalDataProvider;
 import com.vaadin.data.provider.HierarchicalQuery;
+import com.vaadin.data.provider.InMemoryDataProvider;
 import com.vaadin.data.provider.Query;
 import com.vaadin.event.selection.MultiSelectionEvent;
 import com.vaadin.event.selection.MultiSelectionListener;
@@ -47,6 +49,11 @@ import com.vaadin.ui.MultiSelect;
  * <p>
  * Implementation detail: The Grid selection is updated immediately after user
  * selection on client side, without waiting for the server response.
+ * <p>
+ * By default, selecting all items fetches all the items from the data provider
+ * and stores them in the selection. For large back end data sets, enable
+ * {@link #setLazySelectAll(boolean) lazy select all} to only store the items
+ * that are deselected after selecting all.
  *
  * @author Vaadin Ltd.
  * @since 8.0
@@ -93,6 +100,22 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
 
     private List<T> selection = new ArrayList<>();
 
+    /**
+     * The items deselected after all items were selected lazily, by their data
+     * provider ids. <code>null</code> unless all items have been selected in
+     * lazy select all mode.
+     */
+    private Map<Object, T> excludedItems;
+
+    /**
+     * All items matching the filter in effect when all items were selected
+     * lazily. <code>null</code> unless all items have been selected in lazy
+     * select all mode.
+     */
+    private MultiSelectionSet<T> allItemsSelection;
+
+    private boolean lazySelectAll = false;
+
     private SelectAllCheckBoxVisibility selectAllCheckBoxVisibility = SelectAllCheckBoxVisibility.DEFAULT;
 
     @Override
@@ -130,6 +153,56 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
         return getState(false).selectAllCheckBoxVisible;
     }
 
+    /**
+     * Sets whether selecting all items should be done lazily. In lazy mode,
+     * selecting all items does not fetch the items from the data provider.
+     * Instead, only the items that are deselected afterwards are stored, and
+     * {@link #getSelectedItems()} returns a {@link MultiSelectionSet} that
+     * fetches the selected items from the data provider when iterated.
+     * <p>
+     * The selection contains the items matching the filter configured for the
+     * data provider of the grid when all items are selected. Changing the
+     * filter afterwards does not add items to the selection, even though
+     * {@link #isSelected(Object)} only checks whether an item has been
+     * deselected. All items of a hierarchical data provider are always
+     * fetched when selecting all items.
+     * <p>
+     * Disabling lazy mode while all items are selected fetches all the
+     * selected items from the data provider.
+     * <p>
+     * The default is <code>false</code>.
+     *
+     * @since 8.1
+     * @param lazySelectAll
+     *            <code>true</code> to select all items lazily,
+     *            <code>false</code> to fetch all items when selecting all
+     */
+    public void setLazySelectAll(boolean lazySelectAll) {
+        if (this.lazySelectAll == lazySelectAll) {
+            return;
+        }
+        this.lazySelectAll = lazySelectAll;
+        if (!lazySelectAll && excludedItems != null) {
+            List<T> allItems = getSelectedItems().stream()
+                    .collect(Collectors.toList());
+            excludedItems = null;
+            allItemsSelection = null;
+            selection = new ArrayList<>(allItems);
+        }
+    }
+
+    /**
+     * Gets whether selecting all items is done lazily.
+     *
+     * @since 8.1
+     * @return <code>true</code> if all items are selected lazily,
+     *         <code>false</code> if all items are fetched when selecting all
+     * @see #setLazySelectAll(boolean)
+     */
+    public boolean isLazySelectAll() {
+        return lazySelectAll;
+    }
+
     /**
      * Returns whether all items are selected or not.
      * <p>
@@ -145,8 +218,11 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
 
     @Override
     public boolean isSelected(T item) {
-        return isAllSelected()
-                || selectionContainsId(getGrid().getDataProvider().getId(item));
+        Object id = getGrid().getDataProvider().getId(item);
+        if (excludedItems != null) {
+            return selectionContainsId(id);
+        }
+        return isAllSelected() || selectionContainsId(id);
     }
 
     /**
@@ -157,6 +233,9 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
      * @return {@code true} if id is selected, {@code false} if not
      */
     protected boolean selectionContainsId(Object id) {
+        if (excludedItems != null) {
+            return !excludedItems.containsKey(id);
+        }
         DataProvider<T, ?> dataProvider = getGrid().getDataProvider();
         return selection.stream().map(dataProvider::getId)
                 .anyMatch(i -> id.equals(i));
@@ -203,6 +282,10 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
 
     @Override
     public Set<T> getSelectedItems() {
+        if (excludedItems != null) {
+            return new MultiSelectionSet<>(allItemsSelection,
+                    excludedItems.values());
+        }
         return Collections.unmodifiableSet(new LinkedHashSet<>(selection));
     }
 
@@ -236,6 +319,10 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
                 Set<T> copy = value.stream().map(Objects::requireNonNull)
                         .collect(Collectors.toCollection(LinkedHashSet::new));
 
+                if (excludedItems != null) {
+                    replaceLazySelection(copy);
+                    return;
+                }
                 updateSelection(copy, new LinkedHashSet<>(getSelectedItems()));
             }
 
@@ -314,8 +401,26 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
             getState().allSelected = true;
         }
 
-        Stream<T> allItemsStream;
         DataProvider<T, ?> dataProvider = getGrid().getDataProvider();
+        if (lazySelectAll
+                && !(dataProvider instanceof HierarchicalDataProvider)) {
+            if (userOriginated && !isUserSelectionAllowed()) {
+                throw new IllegalStateException("Client tried to update"
+                        + " selection although user selection is disallowed");
+            }
+            if (excludedItems != null && excludedItems.isEmpty()) {
+                return;
+            }
+            doUpdateSelection(() -> {
+                selection.clear();
+                excludedItems = new LinkedHashMap<>();
+                allItemsSelection = createAllItemsSelection(dataProvider);
+                getGrid().getDataCommunicator().reset();
+            }, userOriginated);
+            return;
+        }
+
+        Stream<T> allItemsStream;
         // this will fetch everything from backend
         if (dataProvider instanceof HierarchicalDataProvider) {
             allItemsStream = fetchAllHierarchical(
@@ -328,6 +433,32 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
         updateSelection(allItems, Collections.emptySet(), userOriginated);
     }
 
+    /**
+     * Creates a selection of all items in the given data provider, using the
+     * filter currently configured for the data provider.
+     *
+     * @param dataProvider
+     *            the data provider of the grid
+     * @return the selection of all items
+     */
+    private MultiSelectionSet<T> createAllItemsSelection(
+            DataProvider<T, ?> dataProvider) {
+        if (dataProvider instanceof ConfigurableFilterDataProviderWrapper) {
+            return new MultiSelectionSet<>(
+                    ((ConfigurableFilterDataProviderWrapper<T, ?, ?, ?>) dataProvider)
+                            .withCurrentFilter(),
+                    true, Collections.emptySet());
+        }
+        if (dataProvider instanceof InMemoryDataProvider) {
+            InMemoryDataProvider<T> inMemoryDataProvider = (InMemoryDataProvider<T>) dataProvider;
+            return new MultiSelectionSet<>(inMemoryDataProvider,
+                    inMemoryDataProvider.getFilter(), true,
+                    Collections.emptySet());
+        }
+        return new MultiSelectionSet<>(dataProvider, true,
+                Collections.emptySet());
+    }
+
     /**
      * Fetch all items from the given hierarchical data provider.
      *
@@ -394,10 +525,42 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
             getState().allSelected = false;
         }
 
+        if (excludedItems != null) {
+            if (userOriginated && !isUserSelectionAllowed()) {
+                throw new IllegalStateException("Client tried to update"
+                        + " selection although user selection is disallowed");
+            }
+            doUpdateSelection(() -> {
+                excludedItems = null;
+                allItemsSelection = null;
+                getGrid().getDataCommunicator().reset();
+            }, userOriginated);
+            return;
+        }
+
         updateSelection(Collections.emptySet(), new LinkedHashSet<>(selection),
                 userOriginated);
     }
 
+    /**
+     * Replaces a lazy all items selection with the given items.
+     *
+     * @param items
+     *            the items to select, not {@code null}
+     */
+    private void replaceLazySelection(Set<T> items) {
+        if (getState(false).allSelected) {
+            getState().allSelected = false;
+        }
+        doUpdateSelection(() -> {
+            excludedItems = null;
+            allItemsSelection = null;
+            selection.clear();
+            selection.addAll(items);
+            getGrid().getDataCommunicator().reset();
+        }, false);
+    }
+
     private void verifyUserCanSelectAll() {
         if (!getState(false).selectAllCheckBoxVisible) {
             throw new IllegalStateException(
@@ -433,6 +596,11 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
         // discard that and leave things as was before
         addedItems.removeIf(item -> removedItems.remove(item));
 
+        if (excludedItems != null) {
+            updateExcludedItems(addedItems, removedItems, userOriginated);
+            return;
+        }
+
         if (selection.containsAll(addedItems)
                 && Collections.disjoint(selection, removedItems)) {
             return;
@@ -444,10 +612,10 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
             getState().allSelected = false;
         }
 
-        doUpdateSelection(set -> {
+        doUpdateSelection(() -> {
             // order of add / remove does not matter since no duplicates
-            set.removeAll(removedItems);
-            set.addAll(addedItems);
+            selection.removeAll(removedItems);
+            selection.addAll(addedItems);
 
             // refresh method is NOOP for items that are not present client side
             DataCommunicator<T> dataCommunicator = getGrid()
@@ -457,15 +625,59 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
         }, userOriginated);
     }
 
-    private void doUpdateSelection(Consumer<Collection<T>> handler,
+    /**
+     * Updates a lazy all items selection by removing the added items from the
+     * excluded items and adding the removed items to them.
+     *
+     * @param addedItems
+     *            the items added to selection, not {@code} null
+     * @param removedItems
+     *            the items removed from selection, not {@code} null
+     * @param userOriginated
+     *            {@code true} if this was used originated, {@code false} if not
+     */
+    private void updateExcludedItems(Set<T> addedItems, Set<T> removedItems,
             boolean userOriginated) {
+        DataProvider<T, ?> dataProvider = getGrid().getDataProvider();
+        if (addedItems.stream().map(dataProvider::getId)
+                .noneMatch(excludedItems::containsKey)
+                && removedItems.stream().map(dataProvider::getId)
+                        .allMatch(excludedItems::containsKey)) {
+            return;
+        }
+
+        // update allSelected for server side selection updates
+        if (getState(false).allSelected && !removedItems.isEmpty()
+                && !userOriginated) {
+            getState().allSelected = false;
+        }
+
+        doUpdateSelection(() -> {
+            addedItems.forEach(
+                    item -> excludedItems.remove(dataProvider.getId(item)));
+            removedItems.forEach(item -> excludedItems
+                    .put(dataProvider.getId(item), item));
+
+            DataCommunicator<T> dataCommunicator = getGrid()
+                    .getDataCommunicator();
+            removedItems.forEach(dataCommunicator::refresh);
+            addedItems.forEach(dataCommunicator::refresh);
+        }, userOriginated);
+    }
+
+    private void doUpdateSelection(Runnable handler, boolean userOriginated) {
         if (getParent() == null) {
             throw new IllegalStateException(
                     "Trying to update selection for grid selection model that has been detached from the grid.");
         }
 
-        LinkedHashSet<T> oldSelection = new LinkedHashSet<>(selection);
-        handler.accept(selection);
+        Set<T> oldSelection;
+        if (excludedItems != null) {
+            oldSelection = getSelectedItems();
+        } else {
+            oldSelection = new LinkedHashSet<>(selection);
+        }
+        handler.run();
 
         fireEvent(new MultiSelectionEvent<>(getGrid(), asMultiSelect(),
                 oldSelection, userOriginated));
@@ -475,6 +687,10 @@ public class MultiSelectionModelImpl<T> extends AbstractSelectionModel<T>
     public void refreshData(T item) {
         DataProvider<T, ?> dataProvider = getGrid().getDataProvider();
         Object refreshId = dataProvider.getId(item);
+        if (excludedItems != null) {
+            excludedItems.replace(refreshId, item);
+            return;
+        }
         for (int i = 0; i < selection.size(); ++i) {
             if (dataProvider.getId(selection.get(i)).equals(refreshId)) {
                 selection.set(i, item);
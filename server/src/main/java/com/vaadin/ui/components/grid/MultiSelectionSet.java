@@ -0,0 +1,331 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui.components.grid;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.HierarchicalDataProvider;
+import com.vaadin.data.provider.Query;
+
+/**
+ * The items selected in a grid using {@link MultiSelectionModelImpl}. The
+ * selection is either a set of included items, or all the items of the data
+ * provider matching a filter except a set of excluded items.
+ * <p>
+ * When all items are selected, the items are not stored in the selection.
+ * {@link #size()} asks the data provider for the number of items and
+ * iterating fetches the items from the data provider as they are needed. The
+ * data provider is queried with the filter given when creating the set. When
+ * selecting all items in a grid, the filter configured for the grid's data
+ * provider at that time is used, so changing the filter afterwards does not
+ * add items to the selection. To process the selected items in a back end
+ * without fetching them, use {@link #isAllSelected()},
+ * {@link #getExcludedItems()} and {@link #getIncludedItems()} to build a back
+ * end query, e.g. "all rows matching the filter except these ids".
+ * <p>
+ * {@link #contains(Object)} checks that the item is found in the data
+ * provider only for in-memory data providers. For other data providers, any
+ * item that is not excluded is assumed to be selected. Hierarchical data
+ * providers are not supported when all items are selected.
+ * <p>
+ * The set cannot be modified. It is not updated when the selection of the
+ * grid changes, but a set containing all items reflects the current contents
+ * of the data provider.
+ *
+ * @see MultiSelectionModelImpl#setLazySelectAll(boolean)
+ *
+ * @author Vaadin Ltd
+ * @since 8.1
+ *
+ * @param <T>
+ *            the type of the selected items
+ */
+public class MultiSelectionSet<T> extends AbstractSet<T>
+        implements Serializable {
+
+    private final DataProvider<T, ?> dataProvider;
+    private final Object filter;
+    private final boolean allSelected;
+    /** The included or excluded items by their data provider ids. */
+    private final Map<Object, T> items;
+
+    /**
+     * Creates a new selection set using no filter when querying the data
+     * provider.
+     *
+     * @param dataProvider
+     *            the data provider of the items, not <code>null</code>
+     * @param allSelected
+     *            <code>true</code> if all items except the given ones are
+     *            selected, <code>false</code> if only the given items are
+     *            selected
+     * @param items
+     *            the excluded items if all items are selected, otherwise the
+     *            included items, not <code>null</code>
+     */
+    public MultiSelectionSet(DataProvider<T, ?> dataProvider,
+            boolean allSelected, Collection<T> items) {
+        this(dataProvider, null, allSelected, items);
+    }
+
+    /**
+     * Creates a new selection set.
+     *
+     * @param dataProvider
+     *            the data provider of the items, not <code>null</code>
+     * @param filter
+     *            the filter to use when querying the data provider, or
+     *            <code>null</code> to not use a filter
+     * @param allSelected
+     *            <code>true</code> if all items except the given ones are
+     *            selected, <code>false</code> if only the given items are
+     *            selected
+     * @param items
+     *            the excluded items if all items are selected, otherwise the
+     *            included items, not <code>null</code>
+     * @param <F>
+     *            the filter type of the data provider
+     */
+    public <F> MultiSelectionSet(DataProvider<T, F> dataProvider, F filter,
+            boolean allSelected, Collection<T> items) {
+        this.dataProvider = Objects.requireNonNull(dataProvider,
+                "Data provider cannot be null");
+        if (allSelected && dataProvider instanceof HierarchicalDataProvider) {
+            throw new IllegalArgumentException(
+                    "Selecting all items of a hierarchical data provider is not supported");
+        }
+        this.filter = filter;
+        this.allSelected = allSelected;
+        this.items = new LinkedHashMap<>();
+        items.forEach(item -> this.items.put(dataProvider.getId(item), item));
+    }
+
+    /**
+     * Creates a selection of all items of the same data provider and filter
+     * as the given selection except the given items.
+     */
+    MultiSelectionSet(MultiSelectionSet<T> allItems,
+            Collection<T> excludedItems) {
+        dataProvider = allItems.dataProvider;
+        filter = allItems.filter;
+        allSelected = true;
+        items = new LinkedHashMap<>();
+        excludedItems
+                .forEach(item -> items.put(dataProvider.getId(item), item));
+    }
+
+    /**
+     * Returns whether this selection contains all the items of the data
+     * provider except the {@link #getExcludedItems() excluded items}.
+     *
+     * @return <code>true</code> if all items except the excluded ones are
+     *         selected, <code>false</code> if only the
+     *         {@link #getIncludedItems() included items} are selected
+     */
+    public boolean isAllSelected() {
+        return allSelected;
+    }
+
+    /**
+     * Gets the items that are selected when not all items are selected.
+     *
+     * @return an unmodifiable set of the included items, empty if all items
+     *         are selected
+     */
+    public Set<T> getIncludedItems() {
+        if (allSelected) {
+            return Collections.emptySet();
+        }
+        return Collections
+                .unmodifiableSet(new LinkedHashSet<>(items.values()));
+    }
+
+    /**
+     * Gets the items that are not selected when all other items are selected.
+     *
+     * @return an unmodifiable set of the excluded items, empty if not all
+     *         items are selected
+     */
+    public Set<T> getExcludedItems() {
+        if (!allSelected) {
+            return Collections.emptySet();
+        }
+        return Collections
+                .unmodifiableSet(new LinkedHashSet<>(items.values()));
+    }
+
+    /**
+     * Gets the data provider the items of this selection are fetched from.
+     *
+     * @return the data provider, not <code>null</code>
+     */
+    public DataProvider<T, ?> getDataProvider() {
+        return dataProvider;
+    }
+
+    /**
+     * Gets the filter used when fetching the items of this selection from the
+     * data provider.
+     *
+     * @return the filter, or <code>null</code> if no filter is used
+     */
+    public Object getFilter() {
+        return filter;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If all items are selected and the data provider is not in-memory, any
+     * item that is not excluded is assumed to be selected.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object o) {
+        if (o == null) {
+            return false;
+        }
+        T item = (T) o;
+        if (!allSelected) {
+            return items.containsKey(dataProvider.getId(item));
+        }
+        if (isExcluded(item)) {
+            return false;
+        }
+        if (dataProvider.isInMemory()) {
+            Object id = dataProvider.getId(item);
+            return fetchAll()
+                    .anyMatch(t -> Objects.equals(id, dataProvider.getId(t)));
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If all items are selected, the size is computed by asking the data
+     * provider for the number of items and assuming that all the excluded
+     * items are still in the data provider.
+     */
+    @Override
+    public int size() {
+        if (!allSelected) {
+            return items.size();
+        }
+        return Math.max(0, getTypedDataProvider().size(createQuery())
+                - items.size());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return stream().iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If all items are selected, the items are fetched from the data provider
+     * as the stream is consumed.
+     */
+    @Override
+    public Stream<T> stream() {
+        if (!allSelected) {
+            return Collections.unmodifiableCollection(items.values()).stream();
+        }
+        return fetchAll().filter(item -> !isExcluded(item));
+    }
+
+    /**
+     * Gets the items of a set that are not in another set, without fetching
+     * items from the data provider if either set is a
+     * {@link MultiSelectionSet} with all items selected. If all items are
+     * selected in the first set but not in the other set, the result is a
+     * {@link MultiSelectionSet} that also excludes the items of the other set.
+     * Items that are not excluded from a set with all items selected are
+     * assumed to be in the data provider.
+     *
+     * @param set
+     *            the set to remove items from, not <code>null</code>
+     * @param other
+     *            the set of items to remove, not <code>null</code>
+     * @param <T>
+     *            the type of the items
+     * @return the items of the first set that are not in the other set
+     */
+    public static <T> Set<T> difference(Set<T> set, Set<T> other) {
+        if (containsAllItems(set)) {
+            MultiSelectionSet<T> allItems = (MultiSelectionSet<T>) set;
+            if (containsAllItems(other)) {
+                // Only the items excluded from the other set remain
+                Set<T> result = new LinkedHashSet<>(
+                        ((MultiSelectionSet<T>) other).items.values());
+                result.removeIf(allItems::isExcluded);
+                return result;
+            }
+            List<T> excluded = new ArrayList<>(allItems.items.values());
+            excluded.addAll(other);
+            return new MultiSelectionSet<>(allItems, excluded);
+        }
+        Set<T> result = new LinkedHashSet<>(set);
+        if (containsAllItems(other)) {
+            result.removeIf(
+                    item -> !((MultiSelectionSet<T>) other).isExcluded(item));
+        } else {
+            result.removeAll(other);
+        }
+        return result;
+    }
+
+    private static boolean containsAllItems(Set<?> set) {
+        return set instanceof MultiSelectionSet
+                && ((MultiSelectionSet<?>) set).isAllSelected();
+    }
+
+    private boolean isExcluded(T item) {
+        return items.containsKey(dataProvider.getId(item));
+    }
+
+    private Stream<T> fetchAll() {
+        return getTypedDataProvider().fetch(createQuery());
+    }
+
+    @SuppressWarnings("unchecked")
+    private DataProvider<T, Object> getTypedDataProvider() {
+        return (DataProvider<T, Object>) dataProvider;
+    }
+
+    private Query<T, Object> createQuery() {
+        return new Query<>(filter);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptivePrefetchCacheTest {
+
+    private static final int DATA_SIZE = 10000;
+
+    private static class TestCache extends AdaptivePrefetchCache<Integer> {
+        private long time = 0;
+
+        public TestCache(int maxSize) {
+            super(maxSize);
+        }
+
+        @Override
+        long nanoTime() {
+            return time;
+        }
+    }
+
+    private TestCache cache;
+    private List<int[]> fetches;
+
+    @Before
+    public void setUp() {
+        cache = new TestCache(500);
+        fetches = new ArrayList<>();
+    }
+
+    private List<Integer> getRows(int offset, int limit) {
+        return cache.getRows(offset, limit, this::fetch);
+    }
+
+    private Stream<Integer> fetch(int offset, int limit) {
+        fetches.add(new int[] { offset, limit });
+        return IntStream.range(offset, Math.min(DATA_SIZE, offset + limit))
+                .boxed();
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.range(from, to).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void firstRequest_fetchesRequestedRows() {
+        Assert.assertEquals(range(0, 40), getRows(0, 40));
+        Assert.assertEquals(1, fetches.size());
+        Assert.assertArrayEquals(new int[] { 0, 40 }, fetches.get(0));
+        Assert.assertEquals(0, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void cachedRows_noFetch() {
+        getRows(0, 40);
+        cache.time += TimeUnit.SECONDS.toNanos(5);
+
+        Assert.assertEquals(range(10, 30), getRows(10, 20));
+        Assert.assertEquals(1, fetches.size());
+        Assert.assertEquals(0.5, cache.getHitRatio(), 0);
+    }
+
+    @Test
+    public void scrollingDown_prefetchesAhead() {
+        getRows(0, 40);
+        // 100 rows per 100 ms
+        cache.time += TimeUnit.MILLISECONDS.toNanos(100);
+        Assert.assertEquals(range(100, 140), getRows(100, 40));
+
+        int[] lastFetch = fetches.get(fetches.size() - 1);
+        Assert.assertEquals(100, lastFetch[0]);
+        Assert.assertTrue("Should prefetch ahead", lastFetch[1] > 40);
+        Assert.assertTrue(lastFetch[1] <= 500);
+
+        int fetchCount = fetches.size();
+        cache.time += TimeUnit.MILLISECONDS.toNanos(100);
+        Assert.assertEquals(range(200, 240), getRows(200, 40));
+        Assert.assertEquals("Should have been prefetched", fetchCount,
+                fetches.size());
+    }
+
+    @Test
+    public void scrollingUp_prefetchesBehind() {
+        getRows(5000, 40);
+        cache.time += TimeUnit.MILLISECONDS.toNanos(100);
+        Assert.assertEquals(range(4900, 4940), getRows(4900, 40));
+
+        int[] lastFetch = fetches.get(fetches.size() - 1);
+        Assert.assertTrue("Should prefetch behind", lastFetch[0] < 4900);
+        Assert.assertEquals(4940, lastFetch[0] + lastFetch[1]);
+    }
+
+    @Test
+    public void scrollingBack_servedFromCache() {
+        getRows(0, 40);
+        cache.time += TimeUnit.SECONDS.toNanos(5);
+        getRows(40, 40);
+        cache.time += TimeUnit.SECONDS.toNanos(5);
+        Assert.assertEquals(2, fetches.size());
+
+        Assert.assertEquals(range(20, 60), getRows(20, 40));
+        Assert.assertEquals(2, fetches.size());
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        for (int i = 0; i < 20; i++) {
+            getRows(i * 100, 100);
+            cache.time += TimeUnit.SECONDS.toNanos(5);
+        }
+        Assert.assertTrue(cache.getCachedRowCount() <= 500);
+        // Most recent rows are kept
+        getRows(1900, 100);
+        Assert.assertEquals(20, fetches.size());
+    }
+
+    @Test
+    public void endOfData_servedFromCache() {
+        Assert.assertEquals(range(9980, 10000), getRows(9980, 40));
+        cache.time += TimeUnit.SECONDS.toNanos(5);
+        Assert.assertEquals(range(9990, 10000), getRows(9990, 40));
+        Assert.assertEquals(1, fetches.size());
+    }
+
+    @Test
+    public void clear_fetchesAgain() {
+        getRows(0, 40);
+        cache.clear();
+        getRows(0, 40);
+        Assert.assertEquals(2, fetches.size());
+        Assert.assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void refresh_replacesCachedItem() {
+        AdaptivePrefetchCache<StrBean> beanCache = new AdaptivePrefetchCache<>(
+                10);
+        List<StrBean> beans = StrBean.generateRandomBeans(5);
+        beanCache.getRows(0, 5, (offset, limit) -> beans.stream());
+
+        StrBean original = beans.get(2);
+        StrBean replacement = new StrBean("replacement", original.getId(),
+                original.getRandomNumber());
+        ListDataProvider<StrBean> dataProvider = new ListDataProvider<StrBean>(
+                beans) {
+            @Override
+            public Object getId(StrBean item) {
+                return item.getId();
+            }
+        };
+        beanCache.refresh(replacement, dataProvider);
+
+        Assert.assertSame(replacement, beanCache
+                .getRows(2, 1, (offset, limit) -> Stream.empty()).get(0));
+    }
+}
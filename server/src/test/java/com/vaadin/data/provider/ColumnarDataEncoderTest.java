@@ -0,0 +1,178 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.JsonCodec;
+import com.vaadin.shared.data.DataCommunicatorConstants;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.impl.JsonUtil;
+
+public class ColumnarDataEncoderTest {
+
+    @Test
+    public void sharedKeys_encodedOnceInHeader() {
+        List<String> rows = Arrays.asList(
+                "{'k':'1','d':{'0':'a','1':1}}",
+                "{'k':'2','d':{'0':'b','1':2}}",
+                "{'k':'3','d':{'0':'c','1':3}}");
+
+        JsonObject batch = ColumnarDataEncoder.encode(parse(rows));
+
+        Assert.assertEquals(Arrays.asList("d.0", "d.1", "k"),
+                getHeaderPaths(batch));
+        assertColumnValues("['1','2','3']", batch, "k");
+        assertColumnValues("['a','b','c']", batch, "d.0");
+        assertColumnValues("[1,2,3]", batch, "d.1");
+        Assert.assertFalse(
+                batch.hasKey(DataCommunicatorConstants.COLUMNAR_REMAINDERS));
+        assertRoundTrip(rows, batch);
+    }
+
+    @Test
+    public void sparseKeys_keptInRemainders() {
+        List<String> rows = Arrays.asList(
+                "{'k':'1','d':{'0':'a','1':null},'s':true,'cs':{'0':'x'}}",
+                "{'k':'2','d':{'0':'b'},'cs':{'1':'y'}}",
+                "{'k':'3','d':{'0':'c','1':3},'cs':'z'}");
+
+        JsonObject batch = ColumnarDataEncoder.encode(parse(rows));
+
+        Assert.assertEquals(Arrays.asList("d.0", "k"), getHeaderPaths(batch));
+        assertColumnValues("['a','b','c']", batch, "d.0");
+        Assert.assertTrue(
+                batch.hasKey(DataCommunicatorConstants.COLUMNAR_REMAINDERS));
+        assertRoundTrip(rows, batch);
+    }
+
+    @Test
+    public void noSharedKeys_allInRemainders() {
+        List<String> rows = Arrays.asList("{'a':1}", "{'b':2}");
+
+        JsonObject batch = ColumnarDataEncoder.encode(parse(rows));
+
+        Assert.assertEquals(0,
+                batch.getArray(DataCommunicatorConstants.COLUMNAR_HEADER)
+                        .length());
+        assertRoundTrip(rows, batch);
+    }
+
+    private static List<String> getHeaderPaths(JsonObject batch) {
+        JsonArray header = batch
+                .getArray(DataCommunicatorConstants.COLUMNAR_HEADER);
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < header.length(); i++) {
+            paths.add(toPath(header.getArray(i)));
+        }
+        Collections.sort(paths);
+        return paths;
+    }
+
+    private static void assertColumnValues(String expected, JsonObject batch,
+            String path) {
+        Assert.assertEquals(
+                JsonUtil.parse(expected.replace('\'', '"')).toJson(),
+                getColumnValues(batch, path).toJson());
+    }
+
+    private static JsonArray getColumnValues(JsonObject batch, String path) {
+        JsonArray header = batch
+                .getArray(DataCommunicatorConstants.COLUMNAR_HEADER);
+        for (int i = 0; i < header.length(); i++) {
+            if (path.equals(toPath(header.getArray(i)))) {
+                return batch.getArray(DataCommunicatorConstants.COLUMNAR_VALUES)
+                        .getArray(i);
+            }
+        }
+        throw new AssertionError("No column for " + path);
+    }
+
+    private static String toPath(JsonArray path) {
+        return path.length() == 1 ? path.getString(0)
+                : path.getString(0) + "." + path.getString(1);
+    }
+
+    private static List<JsonObject> parse(List<String> rows) {
+        return rows.stream()
+                .map(row -> JsonUtil.<JsonObject> parse(row.replace('\'', '"')))
+                .collect(Collectors.toList());
+    }
+
+    private static void assertRoundTrip(List<String> expected,
+            JsonObject batch) {
+        // Re-parse the batch to make sure it survives serialization
+        List<JsonObject> decoded = decode(
+                JsonUtil.parse(JsonUtil.stringify(batch)));
+        List<JsonObject> expectedRows = parse(expected);
+        Assert.assertEquals(expectedRows.size(), decoded.size());
+        for (int i = 0; i < expectedRows.size(); i++) {
+            Assert.assertTrue(
+                    "Row " + i + " differs: " + decoded.get(i).toJson(),
+                    JsonCodec.jsonEquals(expectedRows.get(i), decoded.get(i)));
+        }
+    }
+
+    /**
+     * Decodes a batch the same way as the client-side DataCommunicator
+     * connector.
+     */
+    private static List<JsonObject> decode(JsonObject data) {
+        int rowCount = (int) data
+                .getNumber(DataCommunicatorConstants.COLUMNAR_ROW_COUNT);
+        JsonArray remainders = null;
+        if (data.hasKey(DataCommunicatorConstants.COLUMNAR_REMAINDERS)) {
+            remainders = data
+                    .getArray(DataCommunicatorConstants.COLUMNAR_REMAINDERS);
+        }
+        List<JsonObject> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(remainders != null ? remainders.getObject(i)
+                    : Json.createObject());
+        }
+        JsonArray header = data
+                .getArray(DataCommunicatorConstants.COLUMNAR_HEADER);
+        JsonArray values = data
+                .getArray(DataCommunicatorConstants.COLUMNAR_VALUES);
+        for (int c = 0; c < header.length(); c++) {
+            JsonArray path = header.getArray(c);
+            String key = path.getString(0);
+            for (int i = 0; i < rowCount; i++) {
+                JsonObject row = rows.get(i);
+                if (path.length() == 1) {
+                    row.put(key, values.getArray(c).get(i));
+                } else {
+                    if (!row.hasKey(key)) {
+                        row.put(key, Json.createObject());
+                    }
+                    row.getObject(key).put(path.getString(1),
+                            values.getArray(c).get(i));
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -16,7 +16,10 @@
 package com.vaadin.data.provider;
 
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -191,4 +194,79 @@ public class DataCommunicatorTest {
                 TEST_OBJECT, generator.generated);
     }
 
+    @Test
+    public void asyncDataProvider_rowsPushedWhenFetched() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+        ui.setPollInterval(1000);
+
+        TestDataCommunicator communicator = new TestDataCommunicator();
+        communicator.extend(ui);
+
+        CompletableFuture<Integer> size = new CompletableFuture<>();
+        CompletableFuture<Stream<Object>> rows = new CompletableFuture<>();
+        AtomicInteger fetchCount = new AtomicInteger();
+        communicator.setDataProvider(
+                AsyncBackEndDataProvider.<Object, Void> fromCallbacks(query -> {
+                    fetchCount.incrementAndGet();
+                    return rows;
+                }, query -> size), null);
+
+        TestDataGenerator generator = new TestDataGenerator();
+        communicator.addDataGenerator(generator);
+
+        // Waiting for the size
+        communicator.beforeClientResponse(true);
+        Assert.assertEquals(0, fetchCount.get());
+
+        size.complete(1);
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals(1, fetchCount.get());
+        Assert.assertNull("Rows should not be available yet",
+                generator.generated);
+
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals("Pending fetch should not be repeated", 1,
+                fetchCount.get());
+
+        rows.complete(Stream.of(TEST_OBJECT));
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals("Fetched rows were not pushed", TEST_OBJECT,
+                generator.generated);
+    }
+
+    @Test
+    public void asyncDataProvider_outdatedSizeIgnored() {
+        session.lock();
+
+        UI ui = new TestUI(session);
+        ui.setPollInterval(1000);
+
+        TestDataCommunicator communicator = new TestDataCommunicator();
+        communicator.extend(ui);
+
+        CompletableFuture<Integer> outdatedSize = new CompletableFuture<>();
+        AtomicInteger sizeCount = new AtomicInteger();
+        AtomicInteger fetchCount = new AtomicInteger();
+        CompletableFuture<Stream<Object>> rows = CompletableFuture
+                .completedFuture(Stream.empty());
+        communicator.setDataProvider(
+                AsyncBackEndDataProvider.<Object, Void> fromCallbacks(query -> {
+                    fetchCount.incrementAndGet();
+                    return rows;
+                }, query -> sizeCount.incrementAndGet() == 1 ? outdatedSize
+                        : new CompletableFuture<Integer>()),
+                null);
+        communicator.beforeClientResponse(true);
+
+        // Data changes while the size query is running
+        communicator.reset();
+        outdatedSize.complete(1);
+
+        communicator.beforeClientResponse(false);
+        Assert.assertEquals("Size should be queried again", 2,
+                sizeCount.get());
+        Assert.assertEquals(0, fetchCount.get());
+    }
 }
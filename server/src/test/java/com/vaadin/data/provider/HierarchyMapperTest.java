@@ -1,6 +1,12 @@
 package com.vaadin.data.provider;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -117,6 +123,133 @@ public class HierarchyMapperTest {
         verifyNoNodeExists("1", "2", "3");
     }
 
+    @Test
+    public void testCollapsedSubtree_keysStoredAndRestoredOnExpand() {
+        mapper.reset(3);
+        mapper.expand("0", 0, 2);
+        mapper.expand("0/1", 2, 4);
+        verifyNodeExists("0/1", 3, 6);
+        Assert.assertEquals(2, mapper.getDepth("0/1"));
+        Assert.assertEquals(Integer.valueOf(2), mapper.getParentIndex(3));
+        Assert.assertEquals(Integer.valueOf(0), mapper.getParentIndex(2));
+        Assert.assertNull(mapper.getParentIndex(7));
+
+        mapper.collapse("0", 0);
+        verifyNoNodeExists("0", "0/1");
+        verifyTreeTotalSize(3);
+        Assert.assertTrue(mapper.isKeyStored("0"));
+        Assert.assertTrue(mapper.isKeyStored("0/1"));
+        Assert.assertFalse(mapper.isKeyStored("1"));
+
+        Assert.assertEquals(6, mapper.expand("0", 0, 2));
+        verifyNodeExists("0", 1, 6);
+        verifyNodeExists("0/1", 3, 6);
+        verifyTreeTotalSize(9);
+    }
+
+    @Test
+    public void testRandomExpandCollapse_rangesMatchFlattenedTree() {
+        Random random = new Random(42);
+        mapper.reset(getLevelSize(null));
+        Set<String> expanded = new HashSet<>();
+
+        for (int round = 0; round < 300; round++) {
+            List<String> flat = new ArrayList<>();
+            flatten(null, expanded, flat);
+            verifyTreeTotalSize(flat.size());
+
+            // toggle a random row that has children
+            int row = random.nextInt(flat.size());
+            String key = flat.get(row);
+            if (getLevelSize(key) > 0) {
+                if (expanded.remove(key)) {
+                    mapper.collapse(key, row);
+                } else {
+                    expanded.add(key);
+                    mapper.expand(key, row, getLevelSize(key));
+                }
+                flat.clear();
+                flatten(null, expanded, flat);
+            }
+
+            verifyTreeTotalSize(flat.size());
+            verifyRange(flat, 0, flat.size() - 1);
+            int first = random.nextInt(flat.size());
+            verifyRange(flat, first,
+                    Math.min(flat.size() - 1, first + random.nextInt(20)));
+            for (int i = 0; i < flat.size(); i++) {
+                String itemKey = flat.get(i);
+                Integer parentIndex = mapper.getParentIndex(i);
+                String parentKey = getParentKey(itemKey);
+                if (parentKey == null) {
+                    Assert.assertNull(parentIndex);
+                } else {
+                    Assert.assertEquals(flat.get(parentIndex), parentKey);
+                }
+                if (expanded.contains(itemKey)) {
+                    Assert.assertEquals(itemKey.split("/").length,
+                            mapper.getDepth(itemKey));
+                    verifyNodeExists(itemKey, i + 1,
+                            i + countDescendants(itemKey, expanded));
+                }
+            }
+        }
+    }
+
+    private void verifyRange(List<String> flat, int firstRow, int lastRow) {
+        String[] fetched = new String[lastRow - firstRow + 1];
+        mapper.splitRangeToLevelQueries(firstRow, lastRow).forEach(query -> {
+            List<String> results = new ArrayList<>();
+            for (int i = 0; i < query.size; i++) {
+                results.add(getChildKey(query.node.getParentKey(),
+                        query.startIndex + i));
+            }
+            mapper.reorderLevelQueryResultsToFlatOrdering(
+                    (item, index) -> {
+                        Assert.assertNull("Row " + index + " fetched twice",
+                                fetched[index - firstRow]);
+                        fetched[index - firstRow] = item;
+                    }, query, results);
+        });
+        Assert.assertEquals(flat.subList(firstRow, lastRow + 1),
+                Arrays.asList(fetched));
+    }
+
+    private static int getLevelSize(String parentKey) {
+        if (parentKey == null) {
+            return 5;
+        }
+        int depth = parentKey.split("/").length;
+        return depth >= 4 ? 0 : 1 + Math.abs(parentKey.hashCode()) % 4;
+    }
+
+    private static String getChildKey(String parentKey, int index) {
+        return parentKey == null ? String.valueOf(index)
+                : parentKey + "/" + index;
+    }
+
+    private static String getParentKey(String key) {
+        int separator = key.lastIndexOf('/');
+        return separator == -1 ? null : key.substring(0, separator);
+    }
+
+    private static void flatten(String parentKey, Set<String> expanded,
+            List<String> flat) {
+        for (int i = 0; i < getLevelSize(parentKey); i++) {
+            String key = getChildKey(parentKey, i);
+            flat.add(key);
+            if (expanded.contains(key)) {
+                flatten(key, expanded, flat);
+            }
+        }
+    }
+
+    private static int countDescendants(String key, Set<String> expanded) {
+        List<String> descendants = new ArrayList<>();
+        flatten(key, expanded, descendants);
+        return descendants.size();
+    }
+
     private void verifyRootLevel(int start, int end) {
         verifyNode(start, end, mapper.getNodeForKey(null).get());
     }
@@ -0,0 +1,190 @@
+package com.vaadin.data.provider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.SerializableComparator;
+import com.vaadin.server.SerializablePredicate;
+import com.vaadin.shared.data.sort.SortDirection;
+
+public class IndexedListDataProviderTest extends ListDataProviderTest {
+
+    @Override
+    protected ListDataProvider<StrBean> createDataProvider() {
+        return new IndexedListDataProvider<>(data);
+    }
+
+    private IndexedListDataProvider<StrBean> getIndexedDataProvider() {
+        return (IndexedListDataProvider<StrBean>) getDataProvider();
+    }
+
+    private List<StrBean> fetchAll(
+            Query<StrBean, SerializablePredicate<StrBean>> query) {
+        return dataProvider.fetch(query).collect(Collectors.toList());
+    }
+
+    private List<StrBean> sortedCopy(Comparator<StrBean> comparator,
+            SerializablePredicate<StrBean> filter) {
+        return data.stream().filter(filter).sorted(comparator)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void fetch_sameQueryFilter_filterAppliedOnce() {
+        AtomicInteger evaluations = new AtomicInteger();
+        SerializablePredicate<StrBean> countingFilter = bean -> {
+            evaluations.incrementAndGet();
+            return true;
+        };
+        Query<StrBean, SerializablePredicate<StrBean>> query = new Query<>(
+                countingFilter);
+
+        Assert.assertEquals(data.size(), dataProvider.size(query));
+        dataProvider.fetch(new Query<>(10, 20, null, null, countingFilter))
+                .count();
+        dataProvider.fetch(new Query<>(50, 20, null, null, countingFilter))
+                .count();
+
+        Assert.assertEquals(data.size(), evaluations.get());
+    }
+
+    @Test
+    public void fetch_offsetAndLimit() {
+        dataProvider.setSortOrder(StrBean::getId, SortDirection.ASCENDING);
+
+        int[] ids = dataProvider.fetch(new Query<>(95, 10, null, null, null))
+                .mapToInt(StrBean::getId).toArray();
+
+        int[] expected = data.stream().mapToInt(StrBean::getId).sorted()
+                .skip(95).toArray();
+        Assert.assertEquals(5, ids.length);
+        Assert.assertArrayEquals(expected, ids);
+    }
+
+    @Test
+    public void refreshItem_sortKeyChanged_viewUpdated() {
+        Comparator<StrBean> comparator = Comparator.comparing(StrBean::getValue)
+                .thenComparing(StrBean::getId);
+        Query<StrBean, SerializablePredicate<StrBean>> query = new Query<>(0,
+                Integer.MAX_VALUE, null, comparator, gt5Filter);
+        fetchAll(query);
+
+        StrBean first = fetchAll(query).get(0);
+        first.setValue("\uffff");
+        dataProvider.refreshItem(first);
+
+        List<StrBean> expected = sortedCopy(comparator, gt5Filter);
+        Assert.assertEquals(expected, fetchAll(query));
+        Assert.assertSame(first, expected.get(expected.size() - 1));
+    }
+
+    @Test
+    public void refreshItem_filterResultChanged_viewUpdated() {
+        Query<StrBean, SerializablePredicate<StrBean>> query = new Query<>(
+                fooFilter);
+        int fooCount = dataProvider.size(query);
+
+        StrBean foo = fetchAll(query).get(0);
+        foo.setValue("Bar");
+        dataProvider.refreshItem(foo);
+
+        Assert.assertEquals(fooCount - 1, dataProvider.size(query));
+        Assert.assertFalse(fetchAll(query).contains(foo));
+
+        foo.setValue("Foo");
+        dataProvider.refreshItem(foo);
+
+        Assert.assertEquals(fooCount, dataProvider.size(query));
+        Assert.assertEquals(
+                data.stream().filter(fooFilter).collect(Collectors.toList()),
+                fetchAll(query));
+    }
+
+    @Test
+    public void addItem_viewsUpdatedAndListenerNotified() {
+        CountingListener listener = new CountingListener();
+        dataProvider.addDataProviderListener(listener);
+        Comparator<StrBean> comparator = Comparator.comparing(StrBean::getId);
+        Query<StrBean, SerializablePredicate<StrBean>> sorted = new Query<>(0,
+                Integer.MAX_VALUE, null, comparator, null);
+        Query<StrBean, SerializablePredicate<StrBean>> unsorted = new Query<>();
+        fetchAll(sorted);
+        fetchAll(unsorted);
+
+        StrBean added = new StrBean("Foo", -1, 0);
+        getIndexedDataProvider().addItem(added);
+
+        Assert.assertEquals(1, listener.getCounter());
+        Assert.assertTrue(data.contains(added));
+        Assert.assertSame(added, fetchAll(sorted).get(0));
+        Assert.assertEquals(new ArrayList<>(data), fetchAll(unsorted));
+    }
+
+    @Test
+    public void removeItem_viewsUpdated() {
+        Query<StrBean, SerializablePredicate<StrBean>> query = new Query<>(
+                fooFilter);
+        StrBean removed = fetchAll(query).get(0);
+        int fooCount = dataProvider.size(query);
+
+        getIndexedDataProvider().removeItem(removed);
+
+        Assert.assertFalse(data.contains(removed));
+        Assert.assertEquals(fooCount - 1, dataProvider.size(query));
+        Assert.assertFalse(fetchAll(query).contains(removed));
+    }
+
+    @Test
+    public void refreshAll_backendChanged_viewsRebuilt() {
+        Query<StrBean, SerializablePredicate<StrBean>> query = new Query<>();
+        Assert.assertEquals(100, dataProvider.size(query));
+
+        data.remove(0);
+        dataProvider.refreshAll();
+
+        Assert.assertEquals(99, dataProvider.size(query));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void serialize_querySortingAndSortOrder_roundTrip()
+            throws IOException, ClassNotFoundException {
+        dataProvider.setSortOrder(StrBean::getValue, SortDirection.ASCENDING);
+        SerializableComparator<StrBean> comparator = (a, b) -> Integer
+                .compare(b.getId(), a.getId());
+        Query<StrBean, SerializablePredicate<StrBean>> query = new Query<>(0,
+                Integer.MAX_VALUE, null, comparator, gt5Filter);
+        List<StrBean> expected = fetchAll(query);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(dataProvider);
+            out.writeObject(query);
+        }
+        IndexedListDataProvider<StrBean> deserialized;
+        Query<StrBean, SerializablePredicate<StrBean>> deserializedQuery;
+        try (ObjectInputStream in = new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = (IndexedListDataProvider<StrBean>) in.readObject();
+            deserializedQuery = (Query<StrBean, SerializablePredicate<StrBean>>) in
+                    .readObject();
+        }
+
+        Assert.assertEquals(
+                expected.stream().map(StrBean::getId)
+                        .collect(Collectors.toList()),
+                deserialized.fetch(deserializedQuery).map(StrBean::getId)
+                        .collect(Collectors.toList()));
+    }
+}
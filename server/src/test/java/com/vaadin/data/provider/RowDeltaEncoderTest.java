@@ -0,0 +1,72 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.data.provider;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.JsonCodec;
+
+import elemental.json.JsonObject;
+import elemental.json.impl.JsonUtil;
+
+public class RowDeltaEncoderTest {
+
+    @Test
+    public void equalRows_noDelta() {
+        Assert.assertNull(RowDeltaEncoder.diff(
+                parse("{'k':'1','d':{'0':'a','1':1}}"),
+                parse("{'k':'1','d':{'0':'a','1':1}}")));
+    }
+
+    @Test
+    public void changedCell_onlyCellSent() {
+        JsonObject delta = RowDeltaEncoder.diff(
+                parse("{'k':'1','d':{'0':'a','1':1}}"),
+                parse("{'k':'1','d':{'0':'a','1':2}}"));
+
+        assertJson("{'k':'1','c':{'d':{'1':2}}}", delta);
+    }
+
+    @Test
+    public void addedAndRemovedKeys() {
+        JsonObject delta = RowDeltaEncoder.diff(
+                parse("{'k':'1','d':{'0':'a','1':1},'cs':{'0':'x'},'s':true}"),
+                parse("{'k':'1','d':{'0':'a'},'cs':'y','r':'style'}"));
+
+        assertJson("{'k':'1','c':{'cs':'y','r':'style'},"
+                + "'x':[['d','1'],['s']]}", delta);
+    }
+
+    @Test
+    public void nullValues() {
+        JsonObject delta = RowDeltaEncoder.diff(
+                parse("{'k':'1','d':{'0':null,'1':1}}"),
+                parse("{'k':'1','d':{'0':'a','1':null}}"));
+
+        assertJson("{'k':'1','c':{'d':{'0':'a','1':null}}}", delta);
+    }
+
+    private static JsonObject parse(String json) {
+        return JsonUtil.parse(json.replace('\'', '"'));
+    }
+
+    private static void assertJson(String expected, JsonObject actual) {
+        Assert.assertNotNull(actual);
+        Assert.assertTrue("Unexpected delta " + actual.toJson(),
+                JsonCodec.jsonEquals(parse(expected), actual));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.event;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EventObject;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.event.ListenerMethod.MethodException;
+import com.vaadin.shared.Registration;
+import com.vaadin.util.ReflectTools;
+
+public class EventRouterTest {
+
+    public static class TestEvent extends EventObject {
+        public TestEvent() {
+            super("source");
+        }
+    }
+
+    public static class SubEvent extends TestEvent {
+    }
+
+    public static class OtherEvent extends EventObject {
+        public OtherEvent() {
+            super("source");
+        }
+    }
+
+    public interface TestListener extends SerializableEventListener {
+        public static final Method TEST_METHOD = ReflectTools
+                .findMethod(TestListener.class, "test", TestEvent.class);
+
+        public void test(TestEvent event);
+    }
+
+    public interface SubListener extends SerializableEventListener {
+        public static final Method SUB_METHOD = ReflectTools
+                .findMethod(SubListener.class, "sub", SubEvent.class);
+
+        public void sub(SubEvent event);
+    }
+
+    public interface OtherListener extends SerializableEventListener {
+        public static final Method OTHER_METHOD = ReflectTools
+                .findMethod(OtherListener.class, "other", OtherEvent.class);
+
+        public void other(OtherEvent event);
+    }
+
+    private EventRouter router;
+    private List<String> calls;
+
+    @Before
+    public void setUp() {
+        router = new EventRouter();
+        calls = new ArrayList<>();
+    }
+
+    @Test
+    public void fireEvent_onlyMatchingListenersCalledInOrder() {
+        router.addListener(SubEvent.class,
+                (SubListener) event -> calls.add("sub"),
+                SubListener.SUB_METHOD);
+        router.addListener(TestEvent.class,
+                (TestListener) event -> calls.add("test"),
+                TestListener.TEST_METHOD);
+        router.addListener(OtherEvent.class,
+                (OtherListener) event -> calls.add("other"),
+                OtherListener.OTHER_METHOD);
+
+        router.fireEvent(new TestEvent());
+        Assert.assertEquals(Arrays.asList("test"), calls);
+
+        calls.clear();
+        router.fireEvent(new SubEvent());
+        Assert.assertEquals(Arrays.asList("sub", "test"), calls);
+
+        calls.clear();
+        router.fireEvent(new OtherEvent());
+        Assert.assertEquals(Arrays.asList("other"), calls);
+    }
+
+    @Test
+    public void registrationChanges_seenByNextEvent() {
+        Registration registration = router.addListener(TestEvent.class,
+                (TestListener) event -> calls.add("first"),
+                TestListener.TEST_METHOD);
+        router.fireEvent(new TestEvent());
+
+        router.addListener(TestEvent.class,
+                (TestListener) event -> calls.add("second"),
+                TestListener.TEST_METHOD);
+        registration.remove();
+        router.fireEvent(new TestEvent());
+
+        Assert.assertEquals(Arrays.asList("first", "second"), calls);
+    }
+
+    @Test
+    public void listenerAddedWhileFiring_notCalledForSameEvent() {
+        router.addListener(TestEvent.class, (TestListener) event -> {
+            calls.add("outer");
+            router.addListener(TestEvent.class,
+                    (TestListener) e -> calls.add("inner"),
+                    TestListener.TEST_METHOD);
+        }, TestListener.TEST_METHOD);
+
+        router.fireEvent(new TestEvent());
+        Assert.assertEquals(Arrays.asList("outer"), calls);
+    }
+
+    @Test
+    public void listenerException_wrappedInMethodException() {
+        IllegalStateException exception = new IllegalStateException();
+        router.addListener(TestEvent.class, (TestListener) event -> {
+            throw exception;
+        }, TestListener.TEST_METHOD);
+
+        try {
+            router.fireEvent(new TestEvent());
+            Assert.fail("Exception should have been thrown");
+        } catch (MethodException e) {
+            Assert.assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void noArgumentMethod_called() {
+        router.addListener(TestEvent.class, this, "onEvent");
+
+        router.fireEvent(new TestEvent());
+        Assert.assertEquals(Arrays.asList("onEvent"), calls);
+    }
+
+    public void onEvent() {
+        calls.add("onEvent");
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+
+public class AccessQueueBatchingTest {
+
+    private MockDeploymentConfiguration configuration;
+    private VaadinServletService service;
+    private MockVaadinSession session;
+
+    @Before
+    public void setup() throws Exception {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        configuration = new MockDeploymentConfiguration();
+        service = new VaadinServletService(servlet, configuration);
+        session = new MockVaadinSession(service);
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void batchWindowDisabled_taskRunImmediately() {
+        Future<Void> future = session.access(() -> {
+        });
+
+        Assert.assertTrue(future.isDone());
+        AccessQueueStatistics statistics = session.getAccessQueueStatistics();
+        Assert.assertEquals(1, statistics.getEnqueuedTaskCount());
+        Assert.assertEquals(1, statistics.getExecutedTaskCount());
+        Assert.assertEquals(1, statistics.getBatchCount());
+        Assert.assertEquals(0, statistics.getQueueDepth());
+    }
+
+    @Test
+    public void batchWindow_tasksRunInOneBatch() throws Exception {
+        configuration.setAccessBatchWindow(200);
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        List<Future<Void>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            futures.add(session.access(() -> {
+                Assert.assertTrue(session.hasLock());
+                threads.add(Thread.currentThread());
+            }));
+        }
+        Assert.assertFalse(futures.get(0).isDone());
+        Assert.assertEquals(50,
+                session.getAccessQueueStatistics().getQueueDepth());
+
+        for (Future<Void> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        // Statistics are updated after the last task has completed
+        AccessQueueStatistics statistics = session.getAccessQueueStatistics();
+        long timeout = System.currentTimeMillis() + 5000;
+        while (statistics.getQueueDepth() != 0
+                && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+
+        Assert.assertEquals(1, statistics.getBatchCount());
+        Assert.assertEquals(50, statistics.getLargestBatchSize());
+        Assert.assertEquals(0, statistics.getQueueDepth());
+        Assert.assertEquals(1, threads.size());
+        Assert.assertNotSame(Thread.currentThread(),
+                threads.iterator().next());
+    }
+
+    @Test
+    public void batchWindow_sessionLocked_tasksRunOnUnlock() {
+        configuration.setAccessBatchWindow(10000);
+
+        session.lock();
+        Future<Void> future = session.access(() -> {
+        });
+        Assert.assertFalse(future.isDone());
+        session.unlock();
+
+        Assert.assertTrue(future.isDone());
+    }
+
+    @Test
+    public void batchWindow_serviceDestroyed_taskRunImmediately() {
+        configuration.setAccessBatchWindow(10000);
+        session.access(() -> {
+        });
+        service.destroy();
+
+        Future<Void> future = session.access(() -> {
+        });
+
+        Assert.assertTrue(future.isDone());
+    }
+
+    @Test
+    public void lock_lockWaitRecorded() throws Exception {
+        session.lock();
+        Thread thread = new Thread(() -> {
+            session.lock();
+            session.unlock();
+        });
+        thread.start();
+        Thread.sleep(50);
+        session.unlock();
+        thread.join();
+
+        AccessQueueStatistics statistics = session.getAccessQueueStatistics();
+        Assert.assertEquals(2, statistics.getLockCount());
+        Assert.assertTrue(statistics.getLongestLockWaitTime(
+                TimeUnit.MILLISECONDS) >= 40);
+        Assert.assertTrue(statistics.getLockWaitTime(
+                TimeUnit.NANOSECONDS) >= statistics
+                        .getLongestLockWaitTime(TimeUnit.NANOSECONDS));
+    }
+}
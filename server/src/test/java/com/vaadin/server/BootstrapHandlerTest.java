@@ -15,14 +15,29 @@
  */
 package com.vaadin.server;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import com.vaadin.server.BootstrapHandler.BootstrapContext;
 import com.vaadin.server.BootstrapHandler.BootstrapUriResolver;
+import com.vaadin.server.communication.ServletBootstrapHandler;
+import com.vaadin.tests.util.AlwaysLockedVaadinSession;
+import com.vaadin.ui.Dependency;
+import com.vaadin.ui.Dependency.Type;
+import com.vaadin.ui.UI;
 
 public class BootstrapHandlerTest {
 
@@ -42,6 +57,151 @@ public class BootstrapHandlerTest {
         }
     }
 
+    public static class TestUI extends UI {
+        @Override
+        protected void init(VaadinRequest request) {
+        }
+    }
+
+    @Test
+    public void cachedPage_identicalToRenderedPage() throws Exception {
+        VaadinServletService service = createService(
+                Collections.emptyList());
+        VaadinSession session = createSession(service, "a");
+        BootstrapHandler handler = new ServletBootstrapHandler();
+
+        byte[] first = render(handler, session);
+        byte[] cached = render(handler, session);
+        Assert.assertTrue(new String(cached, StandardCharsets.UTF_8)
+                .contains("vaadin.initApplication("));
+        Assert.assertArrayEquals(first, cached);
+
+        // Bootstrap listeners disable the page cache
+        session.addBootstrapListener(new BootstrapListener() {
+            @Override
+            public void modifyBootstrapFragment(
+                    BootstrapFragmentResponse response) {
+            }
+
+            @Override
+            public void modifyBootstrapPage(BootstrapPageResponse response) {
+            }
+        });
+        byte[] rendered = render(handler, session);
+        Assert.assertArrayEquals(rendered, cached);
+    }
+
+    @Test
+    public void cachedPage_dependencyFilterAppliedPerSession()
+            throws Exception {
+        DependencyFilter filter = (dependencies, context) -> {
+            List<Dependency> filtered = new ArrayList<>(dependencies);
+            filtered.add(new Dependency(Type.STYLESHEET, "styles-"
+                    + context.getSession().getAttribute("name") + ".css"));
+            return filtered;
+        };
+        VaadinServletService service = createService(
+                Collections.singletonList(filter));
+        BootstrapHandler handler = new ServletBootstrapHandler();
+
+        String pageA = new String(
+                render(handler, createSession(service, "a")),
+                StandardCharsets.UTF_8);
+        String pageB = new String(
+                render(handler, createSession(service, "b")),
+                StandardCharsets.UTF_8);
+
+        Assert.assertTrue(pageA.contains("styles-a.css"));
+        Assert.assertTrue(pageB.contains("styles-b.css"));
+        Assert.assertFalse(pageB.contains("styles-a.css"));
+    }
+
+    @Test
+    public void cachedPage_themeUriResolvedPerSession() throws Exception {
+        VaadinServletService service = createService(
+                Collections.emptyList());
+        BootstrapHandler handler = new ServletBootstrapHandler() {
+            @Override
+            public String getThemeUri(BootstrapContext context,
+                    String themeName) {
+                return "themes-" + context.getSession().getAttribute("name")
+                        + "/" + themeName;
+            }
+        };
+
+        String pageA = new String(
+                render(handler, createSession(service, "a")),
+                StandardCharsets.UTF_8);
+        String pageB = new String(
+                render(handler, createSession(service, "b")),
+                StandardCharsets.UTF_8);
+
+        Assert.assertTrue(pageA.contains("themes-a/"));
+        Assert.assertTrue(pageB.contains("themes-b/"));
+        Assert.assertFalse(pageB.contains("themes-a/"));
+    }
+
+    private static VaadinServletService createService(
+            List<DependencyFilter> dependencyFilters) throws Exception {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        return new VaadinServletService(servlet,
+                new DefaultDeploymentConfiguration(TestUI.class,
+                        new Properties())) {
+            @Override
+            public Iterable<DependencyFilter> getDependencyFilters() {
+                return dependencyFilters;
+            }
+        };
+    }
+
+    private static VaadinSession createSession(VaadinServletService service,
+            String name) {
+        VaadinSession session = new AlwaysLockedVaadinSession(service);
+        session.setCommunicationManager(
+                new LegacyCommunicationManager(session));
+        session.setConfiguration(service.getDeploymentConfiguration());
+        session.addUIProvider(new DefaultUIProvider() {
+            @Override
+            public Class<? extends UI> getUIClass(
+                    UIClassSelectionEvent event) {
+                return TestUI.class;
+            }
+        });
+        session.setAttribute("name", name);
+        return session;
+    }
+
+    private static byte[] render(BootstrapHandler handler,
+            VaadinSession session) throws IOException {
+        VaadinServletService service = (VaadinServletService) session
+                .getService();
+        HttpServletRequest httpRequest = Mockito
+                .mock(HttpServletRequest.class);
+        Mockito.when(httpRequest.getServerName()).thenReturn("localhost");
+        Mockito.when(httpRequest.getServerPort()).thenReturn(80);
+        Mockito.when(httpRequest.getRequestURI()).thenReturn("/");
+        Mockito.when(httpRequest.getContextPath()).thenReturn("");
+        Mockito.when(httpRequest.getServletPath()).thenReturn("");
+        Mockito.when(httpRequest.getPathInfo()).thenReturn("/");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpServletResponse httpResponse = Mockito
+                .mock(HttpServletResponse.class);
+        Mockito.when(httpResponse.getOutputStream())
+                .thenReturn(new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                    }
+                });
+
+        Assert.assertTrue(handler.synchronizedHandleRequest(session,
+                new VaadinServletRequest(httpRequest, service),
+                new VaadinServletResponse(httpResponse, service)));
+        return out.toByteArray();
+    }
+
     @Test
     public void resolveFrontendES5() {
         testResolveFrontEnd("frontend://foobar.html",
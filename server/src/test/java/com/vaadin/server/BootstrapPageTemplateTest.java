@@ -0,0 +1,66 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BootstrapPageTemplateTest {
+
+    @Test
+    public void write_scriptContentsSpliced() throws IOException {
+        BootstrapPageTemplate template = BootstrapPageTemplate.create(
+                "<html><script>" + BootstrapPageTemplate.MAIN_SCRIPT_PLACEHOLDER
+                        + "</script>ä</html>",
+                Collections.singletonMap("Pragma", "no-cache"));
+
+        Assert.assertEquals("<html><script>first</script>ä</html>",
+                write(template, "first"));
+        Assert.assertEquals("<html><script>ö</script>ä</html>",
+                write(template, "ö"));
+    }
+
+    @Test
+    public void headersCopied() {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put("Expires", 0L);
+        BootstrapPageTemplate template = BootstrapPageTemplate
+                .create(BootstrapPageTemplate.MAIN_SCRIPT_PLACEHOLDER, headers);
+        headers.clear();
+
+        Assert.assertEquals(Collections.singletonMap("Expires", 0L),
+                template.getHeaders());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingPlaceholder_throws() {
+        BootstrapPageTemplate.create("<html></html>", Collections.emptyMap());
+    }
+
+    private static String write(BootstrapPageTemplate template,
+            String mainScript) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        template.write(out, mainScript);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.JsonType;
+import elemental.json.JsonValue;
+
+public class CompactJsonObjectTest {
+
+    private JsonObject json;
+
+    @Before
+    public void setup() {
+        json = Json.parse("{\"null\":null,\"true\":true,\"false\":false,"
+                + "\"int\":-42,\"big\":12345678901,\"double\":0.5,"
+                + "\"string\":\"åäö €\",\"empty\":\"\","
+                + "\"array\":[1,\"two\",[3],{\"four\":4}],"
+                + "\"object\":{\"a\":{\"b\":[]},\"c\":{}}}");
+    }
+
+    @Test
+    public void of_readValues() {
+        CompactJsonObject compact = CompactJsonObject.of(json);
+
+        Assert.assertEquals(Arrays.asList(json.keys()),
+                Arrays.asList(compact.keys()));
+        Assert.assertEquals(JsonType.NULL, compact.get("null").getType());
+        Assert.assertTrue(compact.getBoolean("true"));
+        Assert.assertFalse(compact.getBoolean("false"));
+        Assert.assertEquals(-42, compact.getNumber("int"), 0);
+        Assert.assertEquals(12345678901d, compact.getNumber("big"), 0);
+        Assert.assertEquals(0.5, compact.getNumber("double"), 0);
+        Assert.assertEquals("åäö €", compact.getString("string"));
+        Assert.assertEquals("", compact.getString("empty"));
+        Assert.assertNull(compact.get("missing"));
+        Assert.assertFalse(compact.hasKey("missing"));
+        Assert.assertTrue(compact.hasKey("object"));
+
+        Assert.assertEquals(json.toJson(), compact.toJson());
+        Assert.assertTrue(JsonCodec.jsonEquals(json, compact));
+        Assert.assertTrue(JsonCodec.jsonEquals(compact, json));
+    }
+
+    @Test
+    public void of_negativeZero_preserved() {
+        JsonObject object = Json.createObject();
+        object.put("zero", -0d);
+
+        double value = CompactJsonObject.of(object).getNumber("zero");
+
+        Assert.assertEquals(Double.doubleToRawLongBits(-0d),
+                Double.doubleToRawLongBits(value));
+    }
+
+    @Test
+    public void get_outOfOrder_allFound() {
+        CompactJsonObject compact = CompactJsonObject.of(json);
+        String[] keys = json.keys();
+        for (int i = keys.length - 1; i >= 0; i--) {
+            Assert.assertTrue(JsonCodec.jsonEquals(json.get(keys[i]),
+                    compact.get(keys[i])));
+        }
+        for (String key : keys) {
+            Assert.assertTrue(compact.hasKey(key));
+        }
+    }
+
+    @Test
+    public void nestedValues_readOnlyViews() {
+        CompactJsonObject compact = CompactJsonObject.of(json);
+
+        JsonArray array = compact.getArray("array");
+        Assert.assertEquals(4, array.length());
+        Assert.assertEquals(1, array.getNumber(0), 0);
+        Assert.assertEquals("two", array.getString(1));
+        Assert.assertEquals(3, array.getArray(2).getNumber(0), 0);
+        Assert.assertEquals(4, array.getObject(3).getNumber("four"), 0);
+        Assert.assertEquals("two", array.getString(1));
+
+        JsonObject object = compact.getObject("object");
+        Assert.assertEquals(0, object.getObject("a").getArray("b").length());
+        Assert.assertEquals(0, object.getObject("c").keys().length);
+
+        try {
+            array.set(0, 2);
+            Assert.fail("Nested array should not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            object.put("d", 1);
+            Assert.fail("Nested object should not be modifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void put_copiedOnModification() {
+        CompactJsonObject compact = CompactJsonObject.of(json);
+
+        compact.put("int", 1);
+        compact.remove("string");
+        compact.put("added", "value");
+
+        Assert.assertEquals(1, compact.getNumber("int"), 0);
+        Assert.assertFalse(compact.hasKey("string"));
+        Assert.assertEquals("value", compact.getString("added"));
+
+        CompactJsonObject copy = CompactJsonObject.of(compact);
+        Assert.assertNotSame(compact, copy);
+        Assert.assertTrue(JsonCodec.jsonEquals(compact, copy));
+        Assert.assertEquals(-42, json.getNumber("int"), 0);
+    }
+
+    @Test
+    public void of_unmodifiedCompactObject_reused() {
+        CompactJsonObject compact = CompactJsonObject.of(json);
+
+        Assert.assertSame(compact, CompactJsonObject.of(compact));
+    }
+
+    @Test
+    public void jsonEquals_compactValues() {
+        CompactJsonObject compact = CompactJsonObject.of(json);
+        CompactJsonObject same = CompactJsonObject.of(json);
+
+        Assert.assertTrue(JsonCodec.jsonEquals(compact, same));
+        Assert.assertTrue(JsonCodec.jsonEquals(compact.getArray("array"),
+                json.getArray("array")));
+        Assert.assertTrue(JsonCodec.jsonEquals(compact.getObject("object"),
+                same.getObject("object")));
+
+        JsonObject reordered = Json.parse("{\"c\":{},\"a\":{\"b\":[]}}");
+        Assert.assertTrue(JsonCodec.jsonEquals(compact.getObject("object"),
+                CompactJsonObject.of(reordered)));
+
+        json.put("double", 0.25);
+        Assert.assertFalse(JsonCodec.jsonEquals(compact, json));
+        Assert.assertFalse(
+                JsonCodec.jsonEquals(compact, CompactJsonObject.of(json)));
+        Assert.assertFalse(JsonCodec.jsonEquals(compact.getArray("array"),
+                compact.getObject("object")));
+    }
+
+    @Test
+    public void serialize_contentsPreserved() throws Exception {
+        CompactJsonObject compact = CompactJsonObject.of(json);
+        compact.get("string");
+
+        CompactJsonObject copy = serializeAndDeserialize(compact);
+
+        Assert.assertTrue(JsonCodec.jsonEquals(json, copy));
+
+        compact.put("int", 5);
+        copy = serializeAndDeserialize(compact);
+        Assert.assertEquals(5, copy.getNumber("int"), 0);
+    }
+
+    @Test
+    public void connectorTracker_serialize_diffStatesPreserved()
+            throws Exception {
+        UI ui = new MockUI();
+        Label label = new Label("text");
+        ui.setContent(label);
+        ConnectorTracker tracker = ui.getConnectorTracker();
+        for (ClientConnector connector : tracker.getDirtyVisibleConnectors()) {
+            connector.encodeState();
+        }
+        tracker.markAllConnectorsClean();
+
+        JsonValue diffState = tracker.getDiffState(label);
+        Assert.assertTrue(diffState instanceof CompactJsonObject);
+
+        UI copy = serializeAndDeserialize(ui);
+        Label labelCopy = (Label) copy.getContent();
+        JsonObject diffStateCopy = copy.getConnectorTracker()
+                .getDiffState(labelCopy);
+
+        Assert.assertEquals("text", diffStateCopy.getString("text"));
+        Assert.assertTrue(JsonCodec.jsonEquals(diffState, diffStateCopy));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T serializeAndDeserialize(T object)
+            throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return (T) new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    }
+}
@@ -30,6 +30,7 @@ import com.vaadin.shared.ui.splitpanel.AbstractSplitPanelState;
 import elemental.json.Json;
 import elemental.json.JsonArray;
 import elemental.json.JsonException;
+import elemental.json.JsonObject;
 import elemental.json.JsonValue;
 
 /**
@@ -43,6 +44,53 @@ public class JSONSerializerTest {
     HashMap<String, AbstractSplitPanelState> stringToStateMap;
     HashMap<AbstractSplitPanelState, String> stateToStringMap;
 
+    public static class MethodBean {
+        private int count;
+        private String name;
+        public boolean flag;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+
+    /*
+     * Not public, accessed using reflection
+     */
+    static class PackagePrivateBean {
+        private int count;
+        public String name;
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+    }
+
+    public static class ThrowingBean {
+        public String getValue() {
+            throw new IllegalStateException("getter failed");
+        }
+
+        public void setValue(String value) {
+        }
+    }
+
     @Test
     public void testStringToBeanMapSerialization() throws Exception {
         Type mapType = getClass().getDeclaredField("stringToStateMap")
@@ -102,6 +150,51 @@ public class JSONSerializerTest {
                 .decodeInternalType(UidlValue.class, true, inputArray, null);
     }
 
+    @Test
+    public void testMethodAndFieldProperties() throws Exception {
+        MethodBean bean = new MethodBean();
+        bean.setCount(42);
+        bean.setName("foo");
+        bean.flag = true;
+
+        JsonObject encoded = (JsonObject) JsonCodec
+                .encode(bean, null, MethodBean.class, null).getEncodedValue();
+        Assert.assertEquals(42, encoded.getNumber("count"), 0);
+        Assert.assertEquals("foo", encoded.getString("name"));
+        Assert.assertTrue(encoded.getBoolean("flag"));
+
+        ensureDecodedCorrectly(bean, encoded, MethodBean.class);
+        MethodBean decoded = (MethodBean) JsonCodec
+                .decodeInternalOrCustomType(MethodBean.class, encoded, null);
+        Assert.assertEquals(42, decoded.getCount());
+        Assert.assertTrue(decoded.flag);
+    }
+
+    @Test
+    public void testNonPublicBeanProperties() throws Exception {
+        PackagePrivateBean bean = new PackagePrivateBean();
+        bean.setCount(7);
+        bean.name = "bar";
+
+        JsonValue encoded = JsonCodec
+                .encode(bean, null, PackagePrivateBean.class, null)
+                .getEncodedValue();
+
+        ensureDecodedCorrectly(bean, encoded, PackagePrivateBean.class);
+    }
+
+    @Test
+    public void testGetterExceptionPropagated() throws Exception {
+        BeanProperty property = JsonCodec.getProperties(ThrowingBean.class)
+                .iterator().next();
+        try {
+            property.getValue(new ThrowingBean());
+            Assert.fail("Exception should be thrown");
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("getter failed", e.getMessage());
+        }
+    }
+
     private void ensureDecodedCorrectly(Object original, JsonValue encoded,
             Type type) throws Exception {
         Object serverSideDecoded = JsonCodec.decodeInternalOrCustomType(type,
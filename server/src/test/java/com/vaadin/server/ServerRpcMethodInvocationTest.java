@@ -0,0 +1,112 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.vaadin.server.ServerRpcManager.RpcInvocationException;
+import com.vaadin.shared.communication.ServerRpc;
+
+import elemental.json.Json;
+import elemental.json.JsonArray;
+
+public class ServerRpcMethodInvocationTest {
+
+    public interface TestRpc extends ServerRpc {
+        public void call(int number, String text, Boolean flag);
+
+        public void call(double value);
+
+        public void fail();
+    }
+
+    private final List<Object> calls = new ArrayList<>();
+
+    private final ServerRpcManager<TestRpc> manager = new ServerRpcManager<>(
+            new TestRpc() {
+                @Override
+                public void call(int number, String text, Boolean flag) {
+                    calls.addAll(Arrays.asList(number, text, flag));
+                }
+
+                @Override
+                public void call(double value) {
+                    calls.add(value);
+                }
+
+                @Override
+                public void fail() {
+                    throw new IllegalStateException("Failed");
+                }
+            }, TestRpc.class);
+
+    @Test
+    public void decodeAndInvoke() throws Exception {
+        JsonArray parameters = Json.createArray();
+        parameters.set(0, 5);
+        parameters.set(1, "text");
+        parameters.set(2, Json.createNull());
+
+        ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
+                "1", TestRpc.class, "call", 3);
+        invocation.decodeParameters(parameters, null);
+        manager.applyInvocation(invocation);
+
+        Assert.assertEquals(Arrays.asList(5, "text", null), calls);
+    }
+
+    @Test
+    public void overloadSelectedByParameterCount() throws Exception {
+        JsonArray parameters = Json.createArray();
+        parameters.set(0, 1.5);
+
+        ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
+                "1", TestRpc.class, "call", 1);
+        invocation.decodeParameters(parameters, null);
+        manager.applyInvocation(invocation);
+
+        Assert.assertEquals(Arrays.asList(1.5), calls);
+        Assert.assertEquals(double.class,
+                invocation.getMethod().getParameterTypes()[0]);
+    }
+
+    @Test
+    public void exceptionWrappedAsByReflection() {
+        ServerRpcMethodInvocation invocation = new ServerRpcMethodInvocation(
+                "1", TestRpc.class, "fail", 0);
+        invocation.setParameters(new Object[0]);
+        try {
+            manager.applyInvocation(invocation);
+            Assert.fail("Exception should have been thrown");
+        } catch (RpcInvocationException e) {
+            Assert.assertTrue(
+                    e.getCause() instanceof InvocationTargetException);
+            Assert.assertTrue(e.getCause()
+                    .getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unknownMethod_throws() {
+        new ServerRpcMethodInvocation("1", TestRpc.class, "call", 2);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.ConnectorTracker;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.TextField;
+import com.vaadin.ui.UI;
+
+import elemental.json.JsonObject;
+
+public class StateFieldsDirtyTest {
+
+    /**
+     * Label updating its text without marking the whole state dirty.
+     */
+    public static class FieldTrackingLabel extends Label {
+        public void setTextOnly(String text) {
+            getState(false).text = text;
+            markStateFieldsDirty("text");
+        }
+
+        public void setDescriptionWithoutMarkingDirty(String description) {
+            getState(false).description = description;
+        }
+    }
+
+    private UI ui;
+    private ConnectorTracker tracker;
+    private FieldTrackingLabel label;
+
+    @Before
+    public void setup() {
+        ui = new MockUI();
+        tracker = ui.getConnectorTracker();
+        label = new FieldTrackingLabel();
+        label.setPartialStateEncoding(true);
+        ui.setContent(label);
+        writeResponse();
+    }
+
+    private void writeResponse() {
+        for (ClientConnector connector : tracker.getDirtyVisibleConnectors()) {
+            connector.encodeState();
+        }
+        tracker.markAllConnectorsClean();
+    }
+
+    @Test
+    public void markStateFieldsDirty_onlyMarkedFieldsEncoded() {
+        label.setDescriptionWithoutMarkingDirty("description");
+        label.setTextOnly("text");
+
+        Assert.assertTrue(tracker.isDirty(label));
+        Assert.assertEquals(Collections.singleton("text"),
+                tracker.getDirtyFields(label));
+
+        JsonObject diff = label.encodeState();
+        Assert.assertEquals(Arrays.asList("text"), Arrays.asList(diff.keys()));
+        Assert.assertEquals("text", diff.getString("text"));
+        Assert.assertEquals("text",
+                tracker.getDiffState(label).getString("text"));
+    }
+
+    @Test
+    public void markStateFieldsDirty_fieldsAccumulate() {
+        label.setTextOnly("text");
+        label.setDescriptionWithoutMarkingDirty("description");
+        label.markStateFieldsDirty("description");
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("text", "description")),
+                tracker.getDirtyFields(label));
+
+        JsonObject diff = label.encodeState();
+        Assert.assertEquals("text", diff.getString("text"));
+        Assert.assertEquals("description", diff.getString("description"));
+    }
+
+    @Test
+    public void markStateFieldsDirty_thenGetState_wholeStateEncoded() {
+        label.setDescriptionWithoutMarkingDirty("description");
+        label.setTextOnly("text");
+        label.setId("id");
+
+        Assert.assertNull(tracker.getDirtyFields(label));
+
+        JsonObject diff = label.encodeState();
+        Assert.assertEquals("text", diff.getString("text"));
+        Assert.assertEquals("description", diff.getString("description"));
+        Assert.assertEquals("id", diff.getString("id"));
+    }
+
+    @Test
+    public void markStateFieldsDirty_alreadyDirty_wholeStateEncoded() {
+        label.markAsDirty();
+        label.setTextOnly("text");
+
+        Assert.assertNull(tracker.getDirtyFields(label));
+    }
+
+    @Test
+    public void markStateFieldsDirty_unchangedValue_emptyDiff() {
+        label.setTextOnly(label.getValue());
+
+        Assert.assertEquals(0, label.encodeState().keys().length);
+    }
+
+    @Test
+    public void markClean_dirtyFieldsCleared() {
+        label.setTextOnly("text");
+        tracker.markAllConnectorsClean();
+
+        Assert.assertFalse(tracker.isDirty(label));
+        Assert.assertNull(tracker.getDirtyFields(label));
+    }
+
+    @Test
+    public void setCaption_onlyCaptionEncoded() {
+        label.setCaption("caption");
+
+        JsonObject diff = assertOnlyFieldEncoded(label, "caption");
+        Assert.assertEquals("caption", diff.getString("caption"));
+    }
+
+    @Test
+    public void setDescription_onlyDescriptionEncoded() {
+        label.setDescription("description");
+
+        Assert.assertEquals(
+                new HashSet<>(
+                        Arrays.asList("description", "descriptionContentMode")),
+                tracker.getDirtyFields(label));
+        JsonObject diff = label.encodeState();
+        Assert.assertEquals(Arrays.asList("description"),
+                Arrays.asList(diff.keys()));
+        Assert.assertEquals("description", diff.getString("description"));
+    }
+
+    @Test
+    public void setEnabled_onlyEnabledEncoded() {
+        label.setEnabled(false);
+
+        JsonObject diff = assertOnlyFieldEncoded(label, "enabled");
+        Assert.assertFalse(diff.getBoolean("enabled"));
+    }
+
+    @Test
+    public void setStyleName_onlyStylesEncoded() {
+        label.setStyleName("foo bar");
+
+        JsonObject diff = assertOnlyFieldEncoded(label, "styles");
+        Assert.assertEquals(2, diff.getArray("styles").length());
+        tracker.markAllConnectorsClean();
+
+        label.addStyleName("baz");
+
+        diff = assertOnlyFieldEncoded(label, "styles");
+        Assert.assertEquals(3, diff.getArray("styles").length());
+        tracker.markAllConnectorsClean();
+
+        label.removeStyleName("foo");
+
+        diff = assertOnlyFieldEncoded(label, "styles");
+        Assert.assertEquals(2, diff.getArray("styles").length());
+    }
+
+    @Test
+    public void setVisible_stateNotChanged() {
+        label.setVisible(false);
+
+        Assert.assertEquals(0, label.encodeState().keys().length);
+    }
+
+    @Test
+    public void setValue_onlyValueEncoded() {
+        TextField field = new TextField();
+        field.setPartialStateEncoding(true);
+        ui.setContent(field);
+        writeResponse();
+
+        field.setValue("value");
+
+        JsonObject diff = assertOnlyFieldEncoded(field, "text");
+        Assert.assertEquals("value", diff.getString("text"));
+    }
+
+    @Test
+    public void partialStateEncodingDisabled_setCaption_wholeStateEncoded() {
+        label.setPartialStateEncoding(false);
+        label.setDescriptionWithoutMarkingDirty("description");
+        label.setCaption("caption");
+
+        Assert.assertTrue(tracker.isDirty(label));
+        Assert.assertNull(tracker.getDirtyFields(label));
+
+        JsonObject diff = label.encodeState();
+        Assert.assertEquals("description", diff.getString("description"));
+        Assert.assertEquals("caption", diff.getString("caption"));
+    }
+
+    @Test
+    public void partialStateEncodingDisabled_setValue_wholeStateEncoded() {
+        TextField field = new TextField() {
+            @Override
+            protected void doSetValue(String value) {
+                super.doSetValue(value);
+                getState(false).placeholder = value;
+            }
+        };
+        ui.setContent(field);
+        writeResponse();
+
+        field.setValue("value");
+
+        Assert.assertNull(tracker.getDirtyFields(field));
+        JsonObject diff = field.encodeState();
+        Assert.assertEquals("value", diff.getString("text"));
+        Assert.assertEquals("value", diff.getString("placeholder"));
+    }
+
+    private JsonObject assertOnlyFieldEncoded(ClientConnector connector,
+            String field) {
+        Assert.assertTrue(tracker.isDirty(connector));
+        Assert.assertEquals(Collections.singleton(field),
+                tracker.getDirtyFields(connector));
+
+        JsonObject diff = connector.encodeState();
+        Assert.assertEquals(Arrays.asList(field), Arrays.asList(diff.keys()));
+        return diff;
+    }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import com.vaadin.server.StaticResourceCache.Resource;
+
+public class StaticResourceCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    public void parseRange() {
+        Assert.assertArrayEquals(new long[] { 0, 9 },
+                StaticResourceCache.parseRange("bytes=0-9", 100));
+        Assert.assertArrayEquals(new long[] { 90, 99 },
+                StaticResourceCache.parseRange("bytes=90-", 100));
+        Assert.assertArrayEquals(new long[] { 80, 99 },
+                StaticResourceCache.parseRange("bytes=-20", 100));
+        Assert.assertArrayEquals(new long[] { 50, 99 },
+                StaticResourceCache.parseRange("bytes=50-200", 100));
+        Assert.assertArrayEquals(new long[] { 0, 99 },
+                StaticResourceCache.parseRange("bytes=-200", 100));
+    }
+
+    @Test
+    public void parseRange_ignored() {
+        Assert.assertSame(StaticResourceCache.FULL_RANGE,
+                StaticResourceCache.parseRange("bytes=0-1,5-6", 100));
+        Assert.assertSame(StaticResourceCache.FULL_RANGE,
+                StaticResourceCache.parseRange("items=0-1", 100));
+        Assert.assertSame(StaticResourceCache.FULL_RANGE,
+                StaticResourceCache.parseRange("bytes=5-1", 100));
+        Assert.assertSame(StaticResourceCache.FULL_RANGE,
+                StaticResourceCache.parseRange("bytes=a-b", 100));
+    }
+
+    @Test
+    public void parseRange_unsatisfiable() {
+        Assert.assertNull(StaticResourceCache.parseRange("bytes=100-", 100));
+        Assert.assertNull(StaticResourceCache.parseRange("bytes=-0", 100));
+    }
+
+    @Test
+    public void matchesETag() {
+        Assert.assertTrue(
+                StaticResourceCache.matchesETag("\"a\", \"b\"", "\"b\""));
+        Assert.assertTrue(StaticResourceCache.matchesETag("W/\"b\"", "\"b\""));
+        Assert.assertTrue(StaticResourceCache.matchesETag("*", "\"b\""));
+        Assert.assertFalse(StaticResourceCache.matchesETag("\"a\"", "\"b\""));
+    }
+
+    @Test
+    public void load_withPrecompressedVariant() throws IOException {
+        File file = createFile("app.js", "var a = 1;");
+        Files.write(new File(file.getPath() + ".gz").toPath(),
+                new byte[] { 1, 2, 3 });
+
+        Resource resource = Resource.load(file.toURI().toURL());
+        Assert.assertTrue(resource.isServable());
+        Assert.assertTrue(resource.hasGzipContent());
+        Assert.assertNotEquals(resource.getETag(false),
+                resource.getETag(true));
+        Assert.assertEquals(0, resource.getLastModified() % 1000);
+
+        HttpServletResponse response = mockResponse();
+        resource.write(Mockito.mock(HttpServletRequest.class), response,
+                true);
+        Mockito.verify(response).setHeader("Content-Encoding", "gzip");
+        Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, out.toByteArray());
+    }
+
+    @Test
+    public void write_range() throws IOException {
+        Resource resource = Resource
+                .load(createFile("app.css", "0123456789").toURI().toURL());
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=2-4");
+        HttpServletResponse response = mockResponse();
+
+        resource.write(request, response, false);
+
+        Mockito.verify(response)
+                .setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        Mockito.verify(response).setHeader("Content-Range", "bytes 2-4/10");
+        Assert.assertEquals("234",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void write_rangeWithOutdatedIfRange_wholeContent()
+            throws IOException {
+        Resource resource = Resource
+                .load(createFile("app.css", "0123456789").toURI().toURL());
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=2-4");
+        Mockito.when(request.getHeader("If-Range")).thenReturn("\"other\"");
+
+        resource.write(request, mockResponse(), false);
+
+        Assert.assertEquals("0123456789",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void largeFile_servedFromFile() throws IOException {
+        byte[] data = new byte[StaticResourceCache.MAX_RESOURCE_SIZE + 1];
+        data[data.length - 1] = 42;
+        File file = folder.newFile("large.js");
+        Files.write(file.toPath(), data);
+
+        Resource resource = Resource.load(file.toURI().toURL());
+        StaticResourceCache cache = new StaticResourceCache();
+        cache.put("/VAADIN/large.js", resource);
+        Assert.assertEquals(0, cache.getTotalSize());
+
+        HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+        Mockito.when(request.getHeader("Range")).thenReturn("bytes=-1");
+        resource.write(request, mockResponse(), false);
+        Assert.assertArrayEquals(new byte[] { 42 }, out.toByteArray());
+    }
+
+    @Test
+    public void largeFileWithPrecompressedVariant_servedFromGzipFile()
+            throws IOException {
+        File file = folder.newFile("large.cache.js");
+        Files.write(file.toPath(),
+                new byte[StaticResourceCache.MAX_RESOURCE_SIZE + 1]);
+        byte[] gzipData = new byte[StaticResourceCache.MAX_RESOURCE_SIZE + 2];
+        gzipData[0] = 42;
+        File gzipFile = new File(file.getPath() + ".gz");
+        Files.write(gzipFile.toPath(), gzipData);
+
+        Resource resource = Resource.load(file.toURI().toURL());
+        Assert.assertTrue(resource.isServable());
+        Assert.assertTrue(resource.hasGzipContent());
+        StaticResourceCache cache = new StaticResourceCache();
+        cache.put("/VAADIN/large.cache.js", resource);
+        Assert.assertEquals(0, cache.getTotalSize());
+
+        HttpServletResponse response = mockResponse();
+        resource.write(Mockito.mock(HttpServletRequest.class), response,
+                true);
+        Mockito.verify(response).setHeader("Content-Encoding", "gzip");
+        Mockito.verify(response).setHeader("Content-Length",
+                Long.toString(gzipData.length));
+        Assert.assertArrayEquals(gzipData, out.toByteArray());
+
+        HttpServletRequest sendfileRequest = Mockito
+                .mock(HttpServletRequest.class);
+        Mockito.when(sendfileRequest
+                .getAttribute("org.apache.tomcat.sendfile.support"))
+                .thenReturn(Boolean.TRUE);
+        resource.write(sendfileRequest, mockResponse(), true);
+        Mockito.verify(sendfileRequest).setAttribute(
+                "org.apache.tomcat.sendfile.filename",
+                gzipFile.getAbsolutePath());
+        Mockito.verify(sendfileRequest).setAttribute(
+                "org.apache.tomcat.sendfile.end",
+                Long.valueOf(gzipData.length));
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted() throws IOException {
+        StaticResourceCache cache = new StaticResourceCache(25);
+        cache.put("a", Resource.load(createFile("a", "0123456789").toURI()
+                .toURL()));
+        cache.put("b", Resource.load(createFile("b", "0123456789").toURI()
+                .toURL()));
+        cache.get("a");
+        cache.put("c", Resource.load(createFile("c", "0123456789").toURI()
+                .toURL()));
+
+        Assert.assertNotNull(cache.get("a"));
+        Assert.assertNull(cache.get("b"));
+        Assert.assertNotNull(cache.get("c"));
+        Assert.assertEquals(20, cache.getTotalSize());
+    }
+
+    private File createFile(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private HttpServletResponse mockResponse() throws IOException {
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        Mockito.when(response.getOutputStream())
+                .thenReturn(new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                    }
+                });
+        return response;
+    }
+}
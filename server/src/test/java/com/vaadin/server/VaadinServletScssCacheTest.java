@@ -0,0 +1,181 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletContext;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.vaadin.server.VaadinServlet.ScssCacheEntry;
+
+public class VaadinServletScssCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicInteger compilations = new AtomicInteger();
+
+    private volatile CountDownLatch compilationStarted = new CountDownLatch(
+            0);
+    private volatile CountDownLatch compilationAllowed = new CountDownLatch(
+            0);
+
+    private final ServletContext context = new MockServletContext() {
+        @Override
+        public String getRealPath(String path) {
+            return new File(folder.getRoot(), path).getPath();
+        }
+    };
+
+    private final VaadinServlet servlet = new VaadinServlet() {
+        @Override
+        ScssCacheEntry compileScssOnTheFly(String filename,
+                String scssFilename, ServletContext sc) throws IOException {
+            compilations.incrementAndGet();
+            compilationStarted.countDown();
+            try {
+                Assert.assertTrue(
+                        compilationAllowed.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            // The theme directory contents are the sources of the compilation
+            File scssFile = new File(sc.getRealPath(scssFilename));
+            List<String> sourceUris = new ArrayList<>();
+            for (File file : scssFile.getParentFile().listFiles()) {
+                if (file.getName().endsWith(".scss")) {
+                    sourceUris.add(file.getPath());
+                }
+            }
+            return new ScssCacheEntry(scssFile.getPath(),
+                    "/* " + compilations.get() + " */", sourceUris);
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        createScssFile("a", "styles.scss");
+        createScssFile("a", "_partial.scss");
+        createScssFile("b", "styles.scss");
+    }
+
+    @Test
+    public void concurrentRequests_shareCompilation() throws Exception {
+        compilationStarted = new CountDownLatch(1);
+        compilationAllowed = new CountDownLatch(1);
+
+        FutureTask<ScssCacheEntry> first = startGetEntry("a");
+        Assert.assertTrue(compilationStarted.await(10, TimeUnit.SECONDS));
+        FutureTask<ScssCacheEntry> second = new FutureTask<>(
+                () -> getEntry("a"));
+        Thread secondThread = new Thread(second);
+        secondThread.start();
+        waitUntilWaiting(secondThread);
+
+        compilationAllowed.countDown();
+
+        Assert.assertSame(first.get(10, TimeUnit.SECONDS),
+                second.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(1, compilations.get());
+    }
+
+    @Test
+    public void cachedEntry_notBlockedByOtherCompilation() throws Exception {
+        ScssCacheEntry cached = getEntry("a");
+
+        compilationStarted = new CountDownLatch(1);
+        compilationAllowed = new CountDownLatch(1);
+        FutureTask<ScssCacheEntry> other = startGetEntry("b");
+        // The compilation of b is now holding the scss mutex
+        Assert.assertTrue(compilationStarted.await(10, TimeUnit.SECONDS));
+
+        try {
+            FutureTask<ScssCacheEntry> hit = startGetEntry("a");
+            Assert.assertSame(cached, hit.get(10, TimeUnit.SECONDS));
+        } finally {
+            compilationAllowed.countDown();
+        }
+        Assert.assertNotNull(other.get(10, TimeUnit.SECONDS));
+        Assert.assertEquals(2, compilations.get());
+    }
+
+    @Test
+    public void modifiedOrRemovedSource_recompiled() throws Exception {
+        ScssCacheEntry entry = getEntry("a");
+        Assert.assertSame(entry, getEntry("a"));
+        Assert.assertEquals(1, compilations.get());
+
+        File partial = new File(folder.getRoot(),
+                "VAADIN/themes/a/_partial.scss");
+        Assert.assertTrue(
+                partial.setLastModified(partial.lastModified() + 10000));
+        ScssCacheEntry modified = getEntry("a");
+        Assert.assertNotSame(entry, modified);
+        Assert.assertEquals(2, compilations.get());
+        Assert.assertSame(modified, getEntry("a"));
+
+        Assert.assertTrue(partial.delete());
+        ScssCacheEntry removed = getEntry("a");
+        Assert.assertNotSame(modified, removed);
+        Assert.assertEquals(3, compilations.get());
+        Assert.assertSame(removed, getEntry("a"));
+    }
+
+    private ScssCacheEntry getEntry(String theme) throws IOException {
+        String path = "/VAADIN/themes/" + theme + "/styles";
+        return servlet.getScssCacheEntry(path + ".css", path + ".scss",
+                context);
+    }
+
+    private FutureTask<ScssCacheEntry> startGetEntry(String theme) {
+        FutureTask<ScssCacheEntry> task = new FutureTask<>(
+                () -> getEntry(theme));
+        new Thread(task).start();
+        return task;
+    }
+
+    private static void waitUntilWaiting(Thread thread)
+            throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING) {
+            Assert.assertTrue("Thread did not start waiting",
+                    System.currentTimeMillis() < timeout);
+            Thread.sleep(10);
+        }
+    }
+
+    private void createScssFile(String theme, String name) throws IOException {
+        File dir = new File(folder.getRoot(), "VAADIN/themes/" + theme);
+        dir.mkdirs();
+        Files.write(new File(dir, name).toPath(),
+                "$color: red;".getBytes(StandardCharsets.UTF_8));
+    }
+}
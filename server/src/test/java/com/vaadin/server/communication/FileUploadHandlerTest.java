@@ -20,10 +20,13 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -165,4 +168,30 @@ public class FileUploadHandlerTest {
 
         verifyZeroInteractions(responseOutput);
     }
+
+    @Test
+    public void multipartContentIsWrittenToStreamVariable()
+            throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append("line ").append(i).append("\r\n--");
+        }
+        String body = "--XYZ\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n"
+                + "Content-Type: text/plain\r\n\r\n" + content
+                + "\r\n--XYZ--\r\n";
+        ByteArrayOutputStream receivedContent = new ByteArrayOutputStream();
+        when(streamVariable.getOutputStream()).thenReturn(receivedContent);
+        when(request.getInputStream())
+                .thenReturn(new ByteArrayInputStream(body.getBytes("UTF-8")));
+        when(request.getHeader("Content-Length"))
+                .thenReturn(String.valueOf(body.length()));
+        when(request.getContentType())
+                .thenReturn("multipart/form-data; boundary=XYZ");
+
+        handler.handleRequest(session, request, response);
+
+        Assert.assertEquals(content.toString(),
+                receivedContent.toString("UTF-8"));
+    }
 }
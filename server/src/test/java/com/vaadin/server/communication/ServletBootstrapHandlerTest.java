@@ -0,0 +1,131 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.Constants;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinServletRequest;
+import com.vaadin.server.VaadinServletResponse;
+import com.vaadin.server.communication.ServletUIInitHandlerTest.CommunicationMock;
+import com.vaadin.shared.ui.ui.UIConstants;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+
+import elemental.json.JsonObject;
+import elemental.json.impl.JsonUtil;
+
+public class ServletBootstrapHandlerTest {
+
+    private static final String INIT_APPLICATION = "vaadin.initApplication(";
+
+    @Test
+    public void eagerInit_initialUidlInApplicationParameters()
+            throws Exception {
+        UI ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+                setContent(new Label("</script><script>alert(1)"));
+            }
+        };
+        Properties initParameters = new Properties();
+        initParameters.setProperty(Constants.SERVLET_PARAMETER_EAGER_INIT,
+                "true");
+        CommunicationMock mock = new CommunicationMock(ui, initParameters);
+
+        String page = render(mock);
+        String appConfig = getApplicationParameters(page);
+
+        // The inlined UIDL must not be able to close the script tag
+        Assert.assertFalse(appConfig.contains("<"));
+        Assert.assertTrue(appConfig.contains("\\u003C/script>"));
+
+        JsonObject parameters = JsonUtil.parse(appConfig);
+        Assert.assertEquals(ui.getUIId(), (int) parameters
+                .getNumber(UIConstants.UI_ID_PARAMETER));
+        Assert.assertTrue(parameters.getString("uidl").startsWith("{"));
+        Assert.assertTrue(
+                parameters.getBoolean(UIConstants.BROWSER_DETAILS_PENDING));
+        Assert.assertSame(ui, mock.session.getUIById(ui.getUIId()));
+    }
+
+    @Test
+    public void noEagerInit_noUIInApplicationParameters() throws Exception {
+        UI ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+        CommunicationMock mock = new CommunicationMock(ui);
+
+        JsonObject parameters = JsonUtil
+                .parse(getApplicationParameters(render(mock)));
+        Assert.assertFalse(parameters.hasKey(UIConstants.UI_ID_PARAMETER));
+        Assert.assertFalse(parameters.hasKey("uidl"));
+        Assert.assertFalse(
+                parameters.hasKey(UIConstants.BROWSER_DETAILS_PENDING));
+        Assert.assertNull(ui.getSession());
+    }
+
+    private static String getApplicationParameters(String page) {
+        int start = page.indexOf(',', page.indexOf(INIT_APPLICATION)) + 1;
+        int end = page.indexOf(");\n", start);
+        return page.substring(start, end);
+    }
+
+    private static String render(CommunicationMock mock) throws IOException {
+        HttpServletRequest httpRequest = Mockito
+                .mock(HttpServletRequest.class);
+        Mockito.when(httpRequest.getServerName()).thenReturn("localhost");
+        Mockito.when(httpRequest.getServerPort()).thenReturn(80);
+        Mockito.when(httpRequest.getRequestURI()).thenReturn("/");
+        Mockito.when(httpRequest.getRequestURL())
+                .thenReturn(new StringBuffer("http://localhost/"));
+        Mockito.when(httpRequest.getContextPath()).thenReturn("");
+        Mockito.when(httpRequest.getServletPath()).thenReturn("");
+        Mockito.when(httpRequest.getPathInfo()).thenReturn("/");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HttpServletResponse httpResponse = Mockito
+                .mock(HttpServletResponse.class);
+        Mockito.when(httpResponse.getOutputStream())
+                .thenReturn(new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                    }
+                });
+
+        Assert.assertTrue(new ServletBootstrapHandler()
+                .synchronizedHandleRequest(mock.session,
+                        new VaadinServletRequest(httpRequest, mock.service),
+                        new VaadinServletResponse(httpResponse,
+                                mock.service)));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
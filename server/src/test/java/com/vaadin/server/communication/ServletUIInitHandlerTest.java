@@ -41,9 +41,12 @@ import com.vaadin.server.VaadinServlet;
 import com.vaadin.server.VaadinServletRequest;
 import com.vaadin.server.VaadinServletResponse;
 import com.vaadin.server.VaadinServletService;
+import com.vaadin.shared.ui.ui.UIConstants;
 import com.vaadin.tests.util.AlwaysLockedVaadinSession;
 import com.vaadin.ui.UI;
 
+import elemental.json.JsonObject;
+
 public class ServletUIInitHandlerTest {
 
     public static class CommunicationMock {
@@ -56,12 +59,17 @@ public class ServletUIInitHandlerTest {
         public final AlwaysLockedVaadinSession session;
 
         public CommunicationMock(final UI ui) throws Exception {
+            this(ui, new Properties());
+        }
+
+        public CommunicationMock(final UI ui, Properties initParameters)
+                throws Exception {
             servletConfig = new MockServletConfig();
             servlet = new VaadinServlet();
             servlet.init(servletConfig);
 
             deploymentConfiguration = new DefaultDeploymentConfiguration(
-                    UI.class, new Properties());
+                    UI.class, initParameters);
 
             service = new VaadinServletService(servlet,
                     deploymentConfiguration);
@@ -185,4 +193,26 @@ public class ServletUIInitHandlerTest {
         Assert.assertEquals(mock.session, ui.getSession());
     }
 
+    @Test
+    public void initUI_returnsUIIdAndInitialUidl() throws Exception {
+        final AtomicInteger initCalls = new AtomicInteger(0);
+
+        UI ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+                initCalls.incrementAndGet();
+            }
+        };
+
+        CommunicationMock mock = new CommunicationMock(ui);
+        JsonObject params = new ServletUIInitHandler().initUI(mock.session,
+                mock.createInitRequest());
+
+        Assert.assertEquals(1, initCalls.get());
+        Assert.assertEquals(ui.getUIId(),
+                (int) params.getNumber(UIConstants.UI_ID_PARAMETER));
+        Assert.assertTrue(params.getString("uidl").startsWith("{"));
+        Assert.assertSame(ui, mock.session.getUIById(ui.getUIId()));
+    }
+
 }
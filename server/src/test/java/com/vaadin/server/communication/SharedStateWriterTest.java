@@ -0,0 +1,123 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.ClientConnector;
+import com.vaadin.tests.util.MockUI;
+import com.vaadin.ui.Label;
+import com.vaadin.ui.UI;
+import com.vaadin.ui.VerticalLayout;
+
+import elemental.json.JsonArray;
+import elemental.json.JsonObject;
+import elemental.json.impl.JsonUtil;
+
+public class SharedStateWriterTest {
+
+    private UI ui;
+    private VerticalLayout layout;
+    private Label first;
+    private Label second;
+    private StringWriter writer;
+
+    @Before
+    public void setup() {
+        ui = new MockUI();
+        layout = new VerticalLayout();
+        first = new Label("first");
+        second = new Label("second");
+        layout.addComponents(first, second);
+        ui.setContent(layout);
+        writer = new StringWriter();
+    }
+
+    @Test
+    public void writeStates_validJsonForEachConnector() throws IOException {
+        Set<String> written = new SharedStateWriter().write(ui, writer);
+
+        JsonObject states = JsonUtil.parse(writer.toString());
+        Assert.assertEquals(written,
+                new HashSet<>(Arrays.asList(states.keys())));
+        Assert.assertTrue(written.contains(first.getConnectorId()));
+        Assert.assertEquals("second", states
+                .getObject(second.getConnectorId()).getString("text"));
+    }
+
+    @Test
+    public void writeStates_noDirtyConnectors_emptyObject()
+            throws IOException {
+        ui.getConnectorTracker().markAllConnectorsClean();
+
+        Set<String> written = new SharedStateWriter().write(ui, writer);
+
+        Assert.assertTrue(written.isEmpty());
+        Assert.assertEquals("{}", writer.toString());
+    }
+
+    @Test
+    public void writeStates_encodingTimeReportedForEachConnector()
+            throws IOException {
+        List<ClientConnector> measured = new ArrayList<>();
+
+        Set<String> written = new SharedStateWriter().write(ui, writer,
+                (connector, nanos) -> {
+                    Assert.assertTrue(nanos >= 0);
+                    measured.add(connector);
+                });
+
+        Assert.assertEquals(ui.getConnectorTracker()
+                .getDirtyVisibleConnectors().size(), measured.size());
+        Assert.assertTrue(measured.contains(first));
+        Assert.assertTrue(measured.contains(second));
+        Assert.assertTrue(written.contains(first.getConnectorId()));
+    }
+
+    @Test
+    public void writeHierarchy_validJson() throws IOException {
+        Set<String> stateUpdateConnectors = new SharedStateWriter().write(ui,
+                new StringWriter());
+
+        new ConnectorHierarchyWriter().write(ui, writer,
+                stateUpdateConnectors);
+
+        JsonObject hierarchy = JsonUtil.parse(writer.toString());
+        JsonArray children = hierarchy.getArray(layout.getConnectorId());
+        Assert.assertEquals(2, children.length());
+        Assert.assertEquals(first.getConnectorId(), children.getString(0));
+        Assert.assertEquals(second.getConnectorId(), children.getString(1));
+        // Leaf connectors with state changes are omitted
+        Assert.assertFalse(hierarchy.hasKey(first.getConnectorId()));
+    }
+
+    @Test
+    public void writeRpc_noPendingCalls_emptyArray() throws IOException {
+        new ClientRpcWriter().write(ui, writer);
+
+        Assert.assertEquals("[]", writer.toString());
+    }
+}
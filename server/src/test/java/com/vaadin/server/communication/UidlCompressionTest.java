@@ -0,0 +1,162 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.server.communication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinResponse;
+import com.vaadin.server.VaadinService;
+import com.vaadin.tests.util.MockDeploymentConfiguration;
+
+public class UidlCompressionTest {
+
+    private MockDeploymentConfiguration configuration;
+    private VaadinRequest request;
+    private VaadinResponse response;
+    private ByteArrayOutputStream output;
+
+    @Before
+    public void setup() throws IOException {
+        configuration = new MockDeploymentConfiguration();
+        VaadinService service = Mockito.mock(VaadinService.class);
+        Mockito.when(service.getDeploymentConfiguration())
+                .thenReturn(configuration);
+
+        request = Mockito.mock(VaadinRequest.class);
+        response = Mockito.mock(VaadinResponse.class);
+        output = new ByteArrayOutputStream();
+        Mockito.when(response.getService()).thenReturn(service);
+        Mockito.when(response.getOutputStream()).thenReturn(output);
+    }
+
+    @Test
+    public void compressionDisabled_notCompressed() throws IOException {
+        Mockito.when(request.getHeader("Accept-Encoding"))
+                .thenReturn("gzip, deflate");
+        String json = createJson(10000);
+
+        UIInitHandler.commitJsonResponse(request, response, json);
+
+        Mockito.verify(response, Mockito.never())
+                .setHeader(Mockito.eq("Content-Encoding"), Mockito.anyString());
+        Mockito.verify(response).setContentLength(json.length());
+        Assert.assertEquals(json,
+                new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void compressionEnabled_gzipAccepted_compressed()
+            throws IOException {
+        configuration.setUidlCompressionEnabled(true);
+        Mockito.when(request.getHeader("Accept-Encoding"))
+                .thenReturn("gzip, deflate");
+        String json = createJson(10000);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        buffer.write(json.getBytes(StandardCharsets.UTF_8));
+
+        UIInitHandler.commitJsonResponse(request, response, buffer);
+
+        Mockito.verify(response).setHeader("Content-Encoding", "gzip");
+        Mockito.verify(response).setHeader("Vary", "Accept-Encoding");
+        Mockito.verify(response, Mockito.never())
+                .setContentLength(Mockito.anyInt());
+        Assert.assertTrue(output.size() < json.length());
+        Assert.assertEquals(json, gunzip(output.toByteArray()));
+    }
+
+    @Test
+    public void compressionEnabled_gzipNotAccepted_notCompressed()
+            throws IOException {
+        configuration.setUidlCompressionEnabled(true);
+        Mockito.when(request.getHeader("Accept-Encoding"))
+                .thenReturn("deflate, gzip;q=0");
+        String json = createJson(10000);
+
+        UIInitHandler.commitJsonResponse(request, response, json);
+
+        Mockito.verify(response, Mockito.never())
+                .setHeader(Mockito.eq("Content-Encoding"), Mockito.anyString());
+        Assert.assertEquals(json,
+                new String(output.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void compressionEnabled_smallResponse_notCompressed()
+            throws IOException {
+        configuration.setUidlCompressionEnabled(true);
+        Mockito.when(request.getHeader("Accept-Encoding")).thenReturn("gzip");
+        String json = createJson(10);
+
+        UIInitHandler.commitJsonResponse(request, response, json);
+
+        Mockito.verify(response, Mockito.never())
+                .setHeader(Mockito.eq("Content-Encoding"), Mockito.anyString());
+        Mockito.verify(response).setContentLength(json.length());
+    }
+
+    @Test
+    public void acceptsGzip() {
+        assertAcceptsGzip(true, "gzip");
+        assertAcceptsGzip(true, "deflate, GZIP");
+        assertAcceptsGzip(true, "gzip;q=0.5");
+        assertAcceptsGzip(false, "gzip; q=0");
+        assertAcceptsGzip(false, "gzip;q=0.000");
+        assertAcceptsGzip(false, "deflate, br");
+        assertAcceptsGzip(false, "x-gzip-not");
+        assertAcceptsGzip(false, null);
+    }
+
+    private void assertAcceptsGzip(boolean expected, String acceptEncoding) {
+        Mockito.when(request.getHeader("Accept-Encoding"))
+                .thenReturn(acceptEncoding);
+        Assert.assertEquals(acceptEncoding, expected,
+                UIInitHandler.acceptsGzip(request));
+    }
+
+    private static String createJson(int entries) {
+        StringBuilder json = new StringBuilder("for(;;);[{\"state\":{");
+        for (int i = 0; i < entries; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("\"").append(i).append("\":{\"caption\":\"Row ")
+                    .append(i).append("\"}");
+        }
+        return json.append("}}]").toString();
+    }
+
+    private static String gunzip(byte[] data) throws IOException {
+        GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(data));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
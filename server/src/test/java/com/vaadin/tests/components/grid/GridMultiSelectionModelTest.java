@@ -24,7 +24,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import com.vaadin.data.TreeData;
+import com.vaadin.data.provider.ConfigurableFilterDataProvider;
 import com.vaadin.data.provider.DataProvider;
+import com.vaadin.data.provider.TreeDataProvider;
 import com.vaadin.data.provider.bov.Person;
 import com.vaadin.event.selection.MultiSelectionEvent;
 import com.vaadin.event.selection.MultiSelectionListener;
@@ -37,6 +40,7 @@ import com.vaadin.ui.components.grid.GridSelectionModel;
 import com.vaadin.ui.components.grid.MultiSelectionModel;
 import com.vaadin.ui.components.grid.MultiSelectionModel.SelectAllCheckBoxVisibility;
 import com.vaadin.ui.components.grid.MultiSelectionModelImpl;
+import com.vaadin.ui.components.grid.MultiSelectionSet;
 
 import elemental.json.JsonObject;
 
@@ -705,4 +709,208 @@ public class GridMultiSelectionModelTest {
                 model.getSelectAllCheckBoxVisibility());
 
     }
+
+    @Test
+    public void lazySelectAll_doesNotFetchItems() {
+        Grid<String> grid = new Grid<>();
+        MultiSelectionModelImpl<String> model = (MultiSelectionModelImpl<String>) grid
+                .setSelectionMode(SelectionMode.MULTI);
+        AtomicInteger fetches = new AtomicInteger();
+        grid.setDataProvider(DataProvider.fromCallbacks(query -> {
+            fetches.incrementAndGet();
+            return IntStream
+                    .range(query.getOffset(),
+                            Math.min(query.getOffset() + query.getLimit(),
+                                    1000))
+                    .mapToObj(i -> "Item " + i);
+        }, query -> 1000));
+        model.setLazySelectAll(true);
+
+        model.selectAll();
+        Assert.assertEquals(0, fetches.get());
+        Assert.assertTrue(model.isAllSelected());
+        Assert.assertTrue(model.isSelected("Item 500"));
+
+        model.deselect("Item 500");
+        Assert.assertFalse(model.isSelected("Item 500"));
+        Assert.assertTrue(model.isSelected("Item 501"));
+        Assert.assertFalse(model.isAllSelected());
+
+        Set<String> selected = model.getSelectedItems();
+        Assert.assertEquals(999, selected.size());
+        Assert.assertTrue(selected.contains("Item 0"));
+        Assert.assertFalse(selected.contains("Item 500"));
+        Assert.assertEquals(0, fetches.get());
+
+        MultiSelectionSet<String> lazySet = (MultiSelectionSet<String>) selected;
+        Assert.assertTrue(lazySet.isAllSelected());
+        Assert.assertEquals(Collections.singleton("Item 500"),
+                lazySet.getExcludedItems());
+        Assert.assertEquals(999, lazySet.stream().count());
+        Assert.assertFalse(lazySet.stream().anyMatch("Item 500"::equals));
+
+        model.select("Item 500");
+        Assert.assertTrue(model.isSelected("Item 500"));
+        Assert.assertEquals(1000, model.getSelectedItems().size());
+    }
+
+    @Test
+    public void lazySelectAll_events() {
+        selectionModel.setLazySelectAll(true);
+
+        selectionModel.selectAll();
+        Assert.assertEquals(1, events.get());
+        Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_B, PERSON_C),
+                currentSelectionCapture.getValue());
+        Assert.assertEquals(Collections.emptyList(),
+                oldSelectionCapture.getValue());
+
+        // already all selected
+        selectionModel.selectAll();
+        Assert.assertEquals(1, events.get());
+
+        selectionModel.deselect(PERSON_B);
+        Assert.assertEquals(2, events.get());
+        Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_C),
+                currentSelectionCapture.getValue());
+        Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_B, PERSON_C),
+                oldSelectionCapture.getValue());
+
+        // already deselected
+        selectionModel.deselect(PERSON_B);
+        Assert.assertEquals(2, events.get());
+
+        selectionModel.deselectAll();
+        Assert.assertEquals(3, events.get());
+        Assert.assertEquals(Collections.emptyList(),
+                currentSelectionCapture.getValue());
+        Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_C),
+                oldSelectionCapture.getValue());
+        Assert.assertFalse(selectionModel.isSelected(PERSON_A));
+        Assert.assertTrue(selectionModel.getSelectedItems().isEmpty());
+    }
+
+    @Test
+    public void lazySelectAll_setValueAndDisableLazyMode() {
+        selectionModel.setLazySelectAll(true);
+        selectionModel.selectAll();
+
+        selectionModel.asMultiSelect().setValue(asSet(PERSON_C));
+        Assert.assertEquals(asSet(PERSON_C),
+                selectionModel.getSelectedItems());
+        Assert.assertFalse(selectionModel.isAllSelected());
+        Assert.assertFalse(selectionModel.isSelected(PERSON_A));
+
+        selectionModel.selectAll();
+        selectionModel.deselect(PERSON_A);
+        selectionModel.setLazySelectAll(false);
+        Assert.assertFalse(selectionModel.isLazySelectAll());
+        Assert.assertEquals(
+                new LinkedHashSet<>(Arrays.asList(PERSON_B, PERSON_C)),
+                selectionModel.getSelectedItems());
+        Assert.assertFalse(selectionModel
+                .getSelectedItems() instanceof MultiSelectionSet);
+        Assert.assertFalse(selectionModel.isSelected(PERSON_A));
+    }
+
+    @Test
+    public void lazySelectAll_eventDeltas_doNotFetchItems() {
+        Grid<String> grid = new Grid<>();
+        MultiSelectionModelImpl<String> model = (MultiSelectionModelImpl<String>) grid
+                .setSelectionMode(SelectionMode.MULTI);
+        AtomicInteger fetches = new AtomicInteger();
+        grid.setDataProvider(DataProvider.fromCallbacks(query -> {
+            fetches.incrementAndGet();
+            return IntStream.range(0, 1000).mapToObj(i -> "Item " + i);
+        }, query -> 1000));
+        model.setLazySelectAll(true);
+        model.select("Item 1");
+        List<MultiSelectionEvent<String>> selectionEvents = new ArrayList<>();
+        model.addMultiSelectionListener(selectionEvents::add);
+
+        model.selectAll();
+        MultiSelectionEvent<String> event = selectionEvents.get(0);
+        Set<String> added = event.getAddedSelection();
+        Assert.assertTrue(((MultiSelectionSet<String>) added).isAllSelected());
+        Assert.assertEquals(Collections.singleton("Item 1"),
+                ((MultiSelectionSet<String>) added).getExcludedItems());
+        Assert.assertEquals(999, added.size());
+        Assert.assertEquals(Collections.emptySet(),
+                event.getRemovedSelection());
+
+        model.deselect("Item 2");
+        event = selectionEvents.get(1);
+        Assert.assertEquals(Collections.emptySet(), event.getAddedSelection());
+        Assert.assertEquals(Collections.singleton("Item 2"),
+                event.getRemovedSelection());
+
+        model.select("Item 2");
+        event = selectionEvents.get(2);
+        Assert.assertEquals(Collections.singleton("Item 2"),
+                event.getAddedSelection());
+        Assert.assertEquals(Collections.emptySet(),
+                event.getRemovedSelection());
+
+        model.deselect("Item 3");
+        model.asMultiSelect().setValue(asSet("Item 3", "Item 4"));
+        event = selectionEvents.get(4);
+        Assert.assertEquals(Collections.singleton("Item 3"),
+                event.getAddedSelection());
+        Set<String> removed = event.getRemovedSelection();
+        Assert.assertEquals(
+                new LinkedHashSet<>(Arrays.asList("Item 3", "Item 4")),
+                ((MultiSelectionSet<String>) removed).getExcludedItems());
+
+        Assert.assertEquals(0, fetches.get());
+    }
+
+    @Test
+    public void lazySelectAll_filterChangedAfterSelectAll_selectionNotChanged() {
+        ConfigurableFilterDataProvider<Person, Void, String> dataProvider = DataProvider
+                .ofItems(PERSON_A, PERSON_B, PERSON_C)
+                .withConfigurableFilter((Void queryFilter,
+                        String name) -> person -> name == null
+                                || !person.getName().equals(name));
+        grid.setDataProvider(dataProvider);
+        selectionModel.setLazySelectAll(true);
+        dataProvider.setFilter("b");
+
+        selectionModel.selectAll();
+        dataProvider.setFilter(null);
+
+        Set<Person> selected = selectionModel.getSelectedItems();
+        Assert.assertEquals(2, selected.size());
+        Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_C),
+                new ArrayList<>(selected));
+        Assert.assertFalse(selected.contains(PERSON_B));
+    }
+
+    @Test
+    public void lazySelectAll_inMemory_containsOnlyItemsInDataProvider() {
+        selectionModel.setLazySelectAll(true);
+        selectionModel.selectAll();
+
+        Set<Person> selected = selectionModel.getSelectedItems();
+        Assert.assertTrue(selected.contains(PERSON_A));
+        Assert.assertFalse(selected.contains(new Person("d", 4)));
+    }
+
+    @Test
+    public void lazySelectAll_hierarchicalDataProvider_itemsFetched() {
+        TreeData<Person> treeData = new TreeData<>();
+        treeData.addItem(null, PERSON_A);
+        treeData.addItem(PERSON_A, PERSON_B);
+        treeData.addItem(null, PERSON_C);
+        grid.setDataProvider(new TreeDataProvider<>(treeData));
+        selectionModel.setLazySelectAll(true);
+
+        selectionModel.selectAll();
+
+        Set<Person> selected = selectionModel.getSelectedItems();
+        Assert.assertFalse(selected instanceof MultiSelectionSet);
+        Assert.assertEquals(
+                new LinkedHashSet<>(
+                        Arrays.asList(PERSON_A, PERSON_B, PERSON_C)),
+                selected);
+    }
 }
@@ -3,8 +3,11 @@ package com.vaadin.tests.server;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Random;
 
+import org.junit.Assert;
 import org.junit.Test;
 
 import com.vaadin.server.communication.FileUploadHandler.SimpleMultiPartInputStream;
@@ -113,34 +116,103 @@ public class SimpleMultiPartInputStreamTest {
                 "abcabd", "xyz123abc");
     }
 
-    /*
-     * TODO fix these tests, they don't do what their method name says.
+    @Test
+    public void testBoundarySplitAcrossReads() throws Exception {
+        byte[] content = createContent(200000, "abc");
+        byte[] input = concat(content, getFullBoundary("abc").getBytes());
+
+        // Every split of the boundary between two reads of the real stream
+        for (int chunkSize = 1; chunkSize < 12; chunkSize++) {
+            try (SimpleMultiPartInputStream smpis = new SimpleMultiPartInputStream(
+                    new ChunkedInputStream(input, chunkSize), "abc")) {
+                Assert.assertArrayEquals(content, readFully(smpis, 1000));
+            }
+        }
+    }
+
+    @Test
+    public void testPartialBoundariesInLargeContent() throws Exception {
+        byte[] content = createContent(500000, "abcabd");
+        byte[] input = concat(content,
+                getFullBoundary("abcabd").getBytes());
+
+        try (SimpleMultiPartInputStream smpis = new SimpleMultiPartInputStream(
+                new ByteArrayInputStream(input), "abcabd")) {
+            Assert.assertArrayEquals(content, readFully(smpis, 8192));
+            Assert.assertEquals(-1, smpis.read());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoBoundaryInInput() throws Exception {
+        try (SimpleMultiPartInputStream smpis = new SimpleMultiPartInputStream(
+                new ByteArrayInputStream(new byte[100000]), "abc")) {
+            readFully(smpis, 1000);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testPartialBoundaryAtInputEnd() throws Exception {
+        checkBoundaryDetection("xyz123\r\n--ab", "abc", "xyz123\r\n--ab");
+    }
+
+    @Test(expected = IOException.class)
+    public void testPartialBoundaryAtInputBeginning() throws Exception {
+        checkBoundaryDetection("\r\n--abxyz123", "abc", "\r\n--abxyz123");
+    }
+
+    /**
+     * Creates random content containing line breaks and partial boundaries
+     * but not the full boundary.
+     */
+    private static byte[] createContent(int length, String boundary) {
+        String partial = "\r\n--" + boundary.substring(0, boundary.length() - 1);
+        Random random = new Random(42);
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        while (content.size() < length) {
+            if (random.nextInt(50) == 0) {
+                content.write(partial.getBytes(), 0,
+                        1 + random.nextInt(partial.length()));
+            } else {
+                content.write('x' + random.nextInt(3));
+            }
+        }
+        return content.toByteArray();
+    }
+
+    private static byte[] readFully(InputStream stream, int bufferSize)
+            throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[bufferSize];
+        int read;
+        while ((read = stream.read(buffer)) != -1) {
+            result.write(buffer, 0, read);
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * Input stream returning at most the given number of bytes per read.
      */
+    private static class ChunkedInputStream extends ByteArrayInputStream {
+        private final int chunkSize;
 
-    // public void testNoBoundaryInInput() throws Exception {
-    // try {
-    // checkBoundaryDetection("xyz123", "abc", "xyz123");
-    // fail();
-    // } catch (IOException e) {
-    // }
-    // }
-    //
-    // public void testPartialBoundaryAtInputEnd() throws Exception {
-    // try {
-    // // This should lead to IOException (stream end), not AIOOBE
-    // checkBoundaryDetection("xyz123ab", "abc", "xyz123ab");
-    // fail();
-    // } catch (IOException e) {
-    // }
-    // }
-    //
-    // public void testPartialBoundaryAtInputBeginning() throws Exception {
-    // try {
-    // checkBoundaryDetection("abxyz123", "abc", "abxyz123");
-    // fail();
-    // } catch (IOException e) {
-    // }
-    // }
+        public ChunkedInputStream(byte[] buf, int chunkSize) {
+            super(buf);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, chunkSize));
+        }
+    }
 
     public static String getFullBoundary(String str) {
         return "\r\n--" + str + "--";
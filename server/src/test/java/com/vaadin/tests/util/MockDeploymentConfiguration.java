@@ -16,6 +16,10 @@ public class MockDeploymentConfiguration
     private int resourceCacheTime = 12;
     private int heartbeatInterval = 300;
     private boolean closeIdleSessions = false;
+    private int accessBatchWindow = 0;
+    private boolean compressUidl = false;
+    private boolean eagerInit = false;
+    private boolean staticResourceCache = false;
     private PushMode pushMode = PushMode.DISABLED;
     private final Properties initParameters = new Properties();
     private final Map<String, String> applicationOrSystemProperty = new HashMap<>();
@@ -76,6 +80,42 @@ public class MockDeploymentConfiguration
         this.closeIdleSessions = closeIdleSessions;
     }
 
+    @Override
+    public int getAccessBatchWindow() {
+        return accessBatchWindow;
+    }
+
+    public void setAccessBatchWindow(int accessBatchWindow) {
+        this.accessBatchWindow = accessBatchWindow;
+    }
+
+    @Override
+    public boolean isUidlCompressionEnabled() {
+        return compressUidl;
+    }
+
+    public void setUidlCompressionEnabled(boolean compressUidl) {
+        this.compressUidl = compressUidl;
+    }
+
+    @Override
+    public boolean isEagerInitEnabled() {
+        return eagerInit;
+    }
+
+    public void setEagerInitEnabled(boolean eagerInit) {
+        this.eagerInit = eagerInit;
+    }
+
+    @Override
+    public boolean isStaticResourceCacheEnabled() {
+        return staticResourceCache;
+    }
+
+    public void setStaticResourceCacheEnabled(boolean staticResourceCache) {
+        this.staticResourceCache = staticResourceCache;
+    }
+
     @Override
     public PushMode getPushMode() {
         return pushMode;
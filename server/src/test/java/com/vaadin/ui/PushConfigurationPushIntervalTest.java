@@ -0,0 +1,129 @@
+/*
+ * Copyright 2000-2016 Vaadin Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.vaadin.ui;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.vaadin.server.DefaultDeploymentConfiguration;
+import com.vaadin.server.MockServletConfig;
+import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.VaadinRequest;
+import com.vaadin.server.VaadinServlet;
+import com.vaadin.server.VaadinServletService;
+import com.vaadin.server.communication.PushConnection;
+import com.vaadin.shared.communication.PushMode;
+
+public class PushConfigurationPushIntervalTest {
+
+    private final AtomicInteger pushCount = new AtomicInteger();
+    private VaadinServletService service;
+    private MockVaadinSession session;
+    private UI ui;
+
+    @Before
+    public void setup() throws Exception {
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(new MockServletConfig());
+        service = new VaadinServletService(servlet,
+                new DefaultDeploymentConfiguration(UI.class,
+                        new Properties()));
+        session = new MockVaadinSession(service);
+
+        ui = new UI() {
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+        };
+        session.lock();
+        try {
+            ui.setSession(session);
+            ui.getPushConfiguration().setPushMode(PushMode.MANUAL);
+            ui.setPushConnection(new PushConnection() {
+                @Override
+                public void push() {
+                    pushCount.incrementAndGet();
+                    // Simulate writing the changes to the client
+                    ui.getConnectorTracker().markAllConnectorsClean();
+                }
+
+                @Override
+                public boolean isConnected() {
+                    return true;
+                }
+
+                @Override
+                public void disconnect() {
+                }
+            });
+        } finally {
+            session.unlock();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    public void noInterval_everyPushSent() throws Exception {
+        pushChanges();
+        pushChanges();
+
+        Assert.assertEquals(2, pushCount.get());
+    }
+
+    @Test
+    public void interval_pushesCoalesced() throws Exception {
+        ui.getPushConfiguration().setPushInterval(200);
+
+        pushChanges();
+        Assert.assertEquals(1, pushCount.get());
+
+        pushChanges();
+        pushChanges();
+        Assert.assertEquals(1, pushCount.get());
+
+        long timeout = System.currentTimeMillis() + 5000;
+        while (pushCount.get() < 2 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(2, pushCount.get());
+
+        // No further pushes for the coalesced changes
+        Thread.sleep(300);
+        Assert.assertEquals(2, pushCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeInterval_throws() {
+        ui.getPushConfiguration().setPushInterval(-1);
+    }
+
+    private void pushChanges() throws Exception {
+        ui.access(() -> {
+            ui.markAsDirty();
+            ui.push();
+        }).get(5, TimeUnit.SECONDS);
+    }
+}
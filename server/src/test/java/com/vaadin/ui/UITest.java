@@ -1,6 +1,11 @@
 package com.vaadin.ui;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
@@ -16,12 +21,15 @@ import org.mockito.Mockito;
 import com.vaadin.server.DefaultDeploymentConfiguration;
 import com.vaadin.server.MockServletConfig;
 import com.vaadin.server.MockVaadinSession;
+import com.vaadin.server.ServerRpcManager;
 import com.vaadin.server.VaadinRequest;
 import com.vaadin.server.VaadinServlet;
 import com.vaadin.server.VaadinServletService;
 import com.vaadin.server.VaadinSession;
 import com.vaadin.server.communication.PushConnection;
+import com.vaadin.server.WebBrowser;
 import com.vaadin.shared.communication.PushMode;
+import com.vaadin.shared.ui.ui.UIServerRpc;
 import com.vaadin.util.CurrentInstanceTest;
 
 public class UITest {
@@ -200,6 +208,55 @@ public class UITest {
         CurrentInstanceTest.waitUntilGarbageCollected(contentSentToClient);
     }
 
+    @Test
+    public void browserDetails_updatesBrowserAndLocation() throws Exception {
+        final UI ui = new UI() {
+
+            @Override
+            protected void init(VaadinRequest request) {
+            }
+
+        };
+        ServletConfig servletConfig = new MockServletConfig();
+        VaadinServlet servlet = new VaadinServlet();
+        servlet.init(servletConfig);
+
+        DefaultDeploymentConfiguration deploymentConfiguration = new DefaultDeploymentConfiguration(
+                UI.class, new Properties());
+
+        MockVaadinSession session = new MockVaadinSession(
+                new VaadinServletService(servlet, deploymentConfiguration));
+        session.lock();
+        ui.setSession(session);
+        VaadinRequest request = Mockito.mock(VaadinRequest.class);
+        Mockito.when(request.getParameter("v-loc"))
+                .thenReturn("http://localhost/app/");
+        ui.doInit(request, 1, "foo");
+
+        List<String> fragments = new ArrayList<>();
+        ui.getPage().addUriFragmentChangedListener(
+                event -> fragments.add(event.getUriFragment()));
+
+        Map<String, String> details = new HashMap<>();
+        details.put("v-sw", "1920");
+        details.put("v-sh", "1080");
+        details.put("v-tzo", "-120");
+        details.put("v-td", "1");
+        details.put("v-loc", "http://localhost/app/#!view");
+        ServerRpcManager.getRpcProxy(ui, UIServerRpc.class)
+                .browserDetails(details);
+
+        WebBrowser browser = session.getBrowser();
+        Assert.assertEquals(1920, browser.getScreenWidth());
+        Assert.assertEquals(1080, browser.getScreenHeight());
+        Assert.assertEquals(2 * 60 * 60 * 1000, browser.getTimezoneOffset());
+        Assert.assertTrue(browser.isTouchDevice());
+        Assert.assertEquals("http://localhost/app/#!view",
+                ui.getPage().getLocation().toString());
+        Assert.assertEquals(Arrays.asList("!view"), fragments);
+        session.unlock();
+    }
+
     private Component createContent() {
         VerticalLayout vl = new VerticalLayout();
         vl.addComponent(new Button("foo"));
@@ -18,6 +18,7 @@ package com.vaadin.shared.data;
 import com.vaadin.shared.communication.ClientRpc;
 
 import elemental.json.JsonArray;
+import elemental.json.JsonObject;
 
 /**
  * RPC interface used by DataProvider to send data to the client-side.
@@ -48,6 +49,34 @@ public interface DataCommunicatorClientRpc extends ClientRpc {
      */
     void setData(int firstIndex, JsonArray data);
 
+    /**
+     * Sets the data of the client-side DataSource to match the given columnar
+     * row batch starting from given index. This is an alternative to
+     * {@link #setData(int, JsonArray)} for batches where the rows share most
+     * of their keys.
+     * <p>
+     * The batch contains a header array
+     * ({@link DataCommunicatorConstants#COLUMNAR_HEADER}) of key paths, each
+     * path being an array of one top level key or a top level key and a key in
+     * the object stored under it. For each path, the values array
+     * ({@link DataCommunicatorConstants#COLUMNAR_VALUES}) contains an array
+     * with the value of that path for each row. The keys that are not present
+     * in every row are sent as an optional array of row objects
+     * ({@link DataCommunicatorConstants#COLUMNAR_REMAINDERS}) to which the
+     * values of the paths are added. The number of rows is sent as
+     * {@link DataCommunicatorConstants#COLUMNAR_ROW_COUNT}.
+     * <p>
+     * <strong>Note:</strong> This method will override any existing data in the
+     * range starting from first index with the number of rows in the batch.
+     *
+     * @param firstIndex
+     *            first index to update
+     * @param data
+     *            the columnar row batch
+     * @since 8.1
+     */
+    void setColumnarData(int firstIndex, JsonObject data);
+
     /**
      * Updates an array of objects based on their identifying key.
      *
@@ -56,6 +85,29 @@ public interface DataCommunicatorClientRpc extends ClientRpc {
      */
     void updateData(JsonArray data);
 
+    /**
+     * Updates the data of rows based on their identifying key by applying the
+     * changes made to them since they were last sent.
+     * <p>
+     * Each delta contains the key of the row
+     * ({@link DataCommunicatorConstants#KEY}), an object of changed values
+     * ({@link DataCommunicatorConstants#DELTA_CHANGES}) and an optional array
+     * of removed key paths ({@link DataCommunicatorConstants#DELTA_REMOVED}).
+     * If both the current value and the changed value of a key are objects,
+     * the changed object only contains the changed keys of that object and is
+     * merged into the current value. Otherwise the changed value replaces the
+     * current value. A removed key path is an array of one top level key or a
+     * top level key and a key in the object stored under it.
+     * <p>
+     * Deltas of rows that are not available in the client-side DataSource are
+     * ignored.
+     *
+     * @param deltas
+     *            array of row deltas
+     * @since 8.1
+     */
+    void updateDataDelta(JsonArray deltas);
+
     /**
      * Informs that new data has been inserted from the server.
      *
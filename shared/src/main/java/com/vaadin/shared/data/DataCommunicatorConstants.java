@@ -28,4 +28,14 @@ public final class DataCommunicatorConstants implements Serializable {
     public static final String SELECTED = "s";
     public static final String NAME = "n";
     public static final String DATA = "d";
+
+    // Keys of a row batch sent with DataCommunicatorClientRpc.setColumnarData
+    public static final String COLUMNAR_HEADER = "h";
+    public static final String COLUMNAR_VALUES = "v";
+    public static final String COLUMNAR_REMAINDERS = "r";
+    public static final String COLUMNAR_ROW_COUNT = "n";
+
+    // Keys of a row delta sent with DataCommunicatorClientRpc.updateDataDelta
+    public static final String DELTA_CHANGES = "c";
+    public static final String DELTA_REMOVED = "x";
 }
@@ -51,4 +51,13 @@ public class UIConstants implements Serializable {
      */
     public static final String UI_ID_PARAMETER = "v-uiId";
 
+    /**
+     * Name of the configuration parameter telling the client that the UI was
+     * initialized when serving the bootstrap page, so the browser details have
+     * not been sent to the server yet.
+     *
+     * @since 8.1
+     */
+    public static final String BROWSER_DETAILS_PENDING = "browserDetailsPending";
+
 }
@@ -15,6 +15,8 @@
  */
 package com.vaadin.shared.ui.ui;
 
+import java.util.Map;
+
 import com.vaadin.shared.annotations.Delayed;
 import com.vaadin.shared.annotations.NoLoadingIndicator;
 import com.vaadin.shared.communication.ServerRpc;
@@ -38,4 +40,16 @@ public interface UIServerRpc extends ClickRpc, ServerRpc {
 
     public void popstate(String uri);
 
+    /**
+     * Sends the browser details that are only known on the client side, such
+     * as the screen size, time zone and current location. Used when the UI
+     * was initialized already when serving the bootstrap page.
+     *
+     * @since 8.1
+     * @param details
+     *            the browser details, using the same parameter names as the
+     *            separate UI initialization request
+     */
+    public void browserDetails(Map<String, String> details);
+
 }